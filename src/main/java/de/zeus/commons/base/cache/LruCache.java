@@ -0,0 +1,204 @@
+package de.zeus.commons.base.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * A thread-safe cache that evicts the least recently used entries once it holds more than a
+ * maximum number of entries or, if a weigher is given, more than a maximum total weight.
+ * Entries may additionally expire a fixed time after they were written.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class LruCache<K, V> {
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final long timeToLiveNanos;
+    private final Map<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    /**
+     * Creates a cache holding at most {@code maxEntries} entries. A size of 0 disables the cache.
+     *
+     * @param maxEntries The maximum number of entries.
+     */
+    public LruCache(int maxEntries) {
+        this(maxEntries, 0, null, 0);
+    }
+
+    /**
+     * Creates a cache bounded by the number of entries and, optionally, their total weight and age.
+     *
+     * @param maxEntries       The maximum number of entries; 0 disables the cache.
+     * @param maxWeight        The maximum total weight of all entries; 0 for no weight bound.
+     * @param weigher          Computes the weight of a value; may be null if {@code maxWeight} is 0.
+     * @param timeToLiveMillis The time after which an entry expires; 0 for no expiry.
+     */
+    public LruCache(int maxEntries, long maxWeight, ToLongFunction<V> weigher, long timeToLiveMillis) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.maxWeight = weigher != null ? Math.max(0, maxWeight) : 0;
+        this.weigher = weigher;
+        this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeToLiveMillis));
+    }
+
+    /**
+     * Gets the cached value for a key, computing and caching it if absent.
+     * The value is computed outside the lock, so concurrent misses may compute it more than once.
+     *
+     * @param key             The key.
+     * @param mappingFunction The function computing the value for a missing key.
+     * @return The cached or computed value.
+     */
+    public V computeIfAbsent(K key, Function<K, V> mappingFunction) {
+        V value = get(key);
+        if (value == null) {
+            value = mappingFunction.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Gets the cached value for a key.
+     *
+     * @param key The key.
+     * @return The cached value, or null if the key is not cached or has expired.
+     */
+    public V get(K key) {
+        V value = null;
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && isExpired(entry, System.nanoTime())) {
+                remove(key, entry);
+                expirations.incrementAndGet();
+            } else if (entry != null) {
+                value = entry.value;
+            }
+        }
+        (value != null ? hits : misses).incrementAndGet();
+        return value;
+    }
+
+    /**
+     * Caches a value for a key. A value heavier than the maximum weight is not cached.
+     *
+     * @param key   The key.
+     * @param value The value.
+     */
+    public void put(K key, V value) {
+        if (maxEntries == 0) {
+            return;
+        }
+        long weight = weigher != null ? weigher.applyAsLong(value) : 0;
+        if (maxWeight > 0 && weight > maxWeight) {
+            return;
+        }
+        synchronized (entries) {
+            Entry<V> previous = entries.put(key, new Entry<>(value, weight, System.nanoTime()));
+            if (previous != null) {
+                totalWeight -= previous.weight;
+            }
+            totalWeight += weight;
+            evictEldest();
+        }
+    }
+
+    /**
+     * Removes a key from the cache.
+     *
+     * @param key The key.
+     */
+    public void invalidate(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                remove(key, entry);
+            }
+        }
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            totalWeight = 0;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getTotalWeight() {
+        synchronized (entries) {
+            return totalWeight;
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getExpirations() {
+        return expirations.get();
+    }
+
+    // Drops the least recently used entries until the cache is within its bounds
+    private void evictEldest() {
+        long now = System.nanoTime();
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (iterator.hasNext() && (entries.size() > maxEntries || (maxWeight > 0 && totalWeight > maxWeight))) {
+            Entry<V> eldest = iterator.next();
+            iterator.remove();
+            totalWeight -= eldest.weight;
+            (isExpired(eldest, now) ? expirations : evictions).incrementAndGet();
+        }
+    }
+
+    private void remove(K key, Entry<V> entry) {
+        entries.remove(key);
+        totalWeight -= entry.weight;
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return timeToLiveNanos > 0 && now - entry.writeTime > timeToLiveNanos;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long weight;
+        private final long writeTime;
+
+        private Entry(V value, long weight, long writeTime) {
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = writeTime;
+        }
+    }
+}
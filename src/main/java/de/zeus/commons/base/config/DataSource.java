@@ -32,8 +32,13 @@ public class DataSource {
 		basicDataSource.setInitialSize(conf.getDbPoolInitSize());
 		basicDataSource.setMaxTotal(conf.getDbPoolMaxSize());
 		basicDataSource.setMaxIdle(conf.getDbPoolMaxIdle());
+		// Negative values wait indefinitely for a connection
+		basicDataSource.setMaxWaitMillis(conf.getDbPoolMaxWait());
 		basicDataSource.setRemoveAbandonedOnMaintenance(conf.isDbRemoveAbandonedConnections());
 		basicDataSource.setRemoveAbandonedTimeout(conf.getDbRemoveAbandonedConnectionsTimout());
+		// Per-connection cache of prepared statements, keyed by SQL text
+		basicDataSource.setPoolPreparedStatements(conf.getDbStatementCacheSize() > 0);
+		basicDataSource.setMaxOpenPreparedStatements(conf.getDbStatementCacheSize() > 0 ? conf.getDbStatementCacheSize() : -1);
 	}
 
 	/**
@@ -1,8 +1,12 @@
 package de.zeus.commons.base.config;
 
+import de.zeus.commons.base.constants.IConstants;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * The `JdbcConfig` class is responsible for configuring JDBC (Java Database Connectivity)
  * settings and managing database connection properties. It extends the `ConfigBase` class
@@ -65,6 +69,126 @@ public class JdbcConfig extends ConfigBase {
 	 */
 	private boolean dbRemoveAbandonedConnections;
 
+	/**
+	 * Execution mode for subqueries (ROW, BATCH, JOIN or AUTO).
+	 */
+	private String dbSubqueryMode = IConstants.SUBQUERY_MODE_ROW;
+
+	/**
+	 * Maximum number of parent keys combined into one IN-list query in BATCH mode.
+	 */
+	private int dbSubqueryBatchSize = 100;
+
+	/**
+	 * Flag indicating whether [$key] placeholders are bound as prepared statement parameters.
+	 */
+	private boolean dbSubqueryPrepared = true;
+
+	/**
+	 * Maximum number of cached prepared statements per pooled connection (0 disables the cache).
+	 */
+	private int dbStatementCacheSize = 50;
+
+	/**
+	 * Flag indicating whether independent subqueries run concurrently on pooled connections.
+	 */
+	private boolean dbSubqueryParallel = false;
+
+	/**
+	 * Maximum number of subqueries running concurrently across all requests.
+	 */
+	private int dbParallelMaxThreads = 4;
+
+	/**
+	 * Maximum number of subqueries running concurrently for a single request.
+	 */
+	private int dbParallelMaxPerRequest = 4;
+
+	/**
+	 * Flag indicating whether subqueries start per chunk of parent rows while the top-level query is read.
+	 */
+	private boolean dbSubqueryPipelined = false;
+
+	/**
+	 * Number of parent rows per chunk in pipelined mode.
+	 */
+	private int dbPipelineChunkRows = 100;
+
+	/**
+	 * Maximum number of chunks per request whose subqueries are running or waiting in pipelined mode.
+	 */
+	private int dbPipelineMaxChunks = 4;
+
+	/**
+	 * Maximum number of compiled request plans kept in the plan cache (0 disables the cache).
+	 */
+	private int dbPlanCacheSize = 100;
+
+	/**
+	 * Maximum number of subquery templates whose runtime statistics are kept for the AUTO mode (0 keeps none).
+	 */
+	private int dbSubqueryStatisticsSize = 500;
+
+	/**
+	 * Flag indicating whether identical subqueries are executed only once per request.
+	 */
+	private boolean dbSubqueryMemoize = true;
+
+	/**
+	 * Maximum number of query results cached across requests (0 disables the cache).
+	 */
+	private int dbResultCacheSize = 0;
+
+	/**
+	 * Maximum estimated size of all cached query results in bytes (0 for no size limit).
+	 */
+	private long dbResultCacheMaxBytes = 0;
+
+	/**
+	 * Time in seconds after which a cached query result expires (0 for no expiry).
+	 */
+	private int dbResultCacheTtlSeconds = 60;
+
+	/**
+	 * Maximum number of tables whose primary key fields are cached (0 disables the cache).
+	 */
+	private int dbPkCacheSize = 1000;
+
+	/**
+	 * Time in seconds after which cached primary key fields expire (0 for no expiry).
+	 */
+	private int dbPkCacheTtlSeconds = 3600;
+
+	/**
+	 * Schemas whose primary keys are preloaded into the primary key cache at startup.
+	 */
+	private List<String> dbPkPreloadSchemas = new ArrayList<>();
+
+	/**
+	 * Maximum number of parsed SQL statements kept in the statement cache (0 disables the cache).
+	 */
+	private int dbSqlCacheSize = 500;
+
+	/**
+	 * Model holding the rows of query results, either ROW or COLUMNAR.
+	 */
+	private String dbResultModel = IConstants.RESULT_MODEL_ROW;
+
+	/**
+	 * Maximum number of rows of a single query result (0 = no limit).
+	 */
+	private int dbResultMaxRows = 0;
+
+	/**
+	 * Handling of query results exceeding the row budget, either FAIL or TRUNCATE.
+	 */
+	private String dbResultOverflow = IConstants.ROW_OVERFLOW_FAIL;
+
+	/**
+	 * Rows fetched per round trip by exports streamed from a single query (0 = driver default).
+	 */
+	private int dbExportFetchSize = 1000;
+
 	/**
 	 * A single instance of the `JdbcConfig` class.
 	 */
@@ -93,6 +217,30 @@ public class JdbcConfig extends ConfigBase {
 			setDbPoolMaxWait(getProperty("db.pool.max.wait"));
 			setDbRemoveAbandonedConnectionsTimout(getProperty("db.connection.removeAbandonedTimout"));
 			setDbRemoveAbandonedConnections(getProperty("db.connection.removeAbandoned"));
+			setDbSubqueryMode(getProperty("db.subquery.mode"));
+			setDbSubqueryBatchSize(getProperty("db.subquery.batch.size"));
+			setDbSubqueryPrepared(getProperty("db.subquery.prepared"));
+			setDbStatementCacheSize(getProperty("db.statement.cache.size"));
+			setDbSubqueryParallel(getProperty("db.subquery.parallel"));
+			setDbParallelMaxThreads(getProperty("db.parallel.max.threads"));
+			setDbParallelMaxPerRequest(getProperty("db.parallel.max.per.request"));
+			setDbSubqueryPipelined(getProperty("db.subquery.pipelined"));
+			setDbPipelineChunkRows(getProperty("db.pipeline.chunk.rows"));
+			setDbPipelineMaxChunks(getProperty("db.pipeline.max.chunks"));
+			setDbPlanCacheSize(getProperty("db.plan.cache.size"));
+			setDbSubqueryStatisticsSize(getProperty("db.subquery.statistics.size"));
+			setDbSubqueryMemoize(getProperty("db.subquery.memoize"));
+			setDbResultCacheSize(getProperty("db.result.cache.size"));
+			setDbResultCacheMaxBytes(getProperty("db.result.cache.max.bytes"));
+			setDbResultCacheTtlSeconds(getProperty("db.result.cache.ttl.seconds"));
+			setDbPkCacheSize(getProperty("db.pk.cache.size"));
+			setDbPkCacheTtlSeconds(getProperty("db.pk.cache.ttl.seconds"));
+			setDbPkPreloadSchemas(getProperty("db.pk.preload.schemas"));
+			setDbSqlCacheSize(getProperty("db.sql.cache.size"));
+			setDbResultModel(getProperty("db.result.model"));
+			setDbResultMaxRows(getProperty("db.result.max.rows"));
+			setDbResultOverflow(getProperty("db.result.overflow"));
+			setDbExportFetchSize(getProperty("db.export.fetch.size"));
 		}
 	}
 
@@ -239,4 +387,396 @@ public class JdbcConfig extends ConfigBase {
 		return dbRemoveAbandonedConnections;
 	}
 
+	public void setDbSubqueryMode(String dbSubqueryMode) {
+		if (IConstants.SUBQUERY_MODE_ROW.equalsIgnoreCase(dbSubqueryMode)
+				|| IConstants.SUBQUERY_MODE_BATCH.equalsIgnoreCase(dbSubqueryMode)
+				|| IConstants.SUBQUERY_MODE_JOIN.equalsIgnoreCase(dbSubqueryMode)
+				|| IConstants.SUBQUERY_MODE_AUTO.equalsIgnoreCase(dbSubqueryMode)) {
+			this.dbSubqueryMode = dbSubqueryMode.toUpperCase();
+		} else {
+			LOG.info("The subquery mode must be ROW, BATCH, JOIN or AUTO. Using default value: [ROW]");
+			this.dbSubqueryMode = IConstants.SUBQUERY_MODE_ROW;
+		}
+	}
+
+	public String getDbSubqueryMode() {
+		return dbSubqueryMode;
+	}
+
+	public void setDbSubqueryBatchSize(String dbSubqueryBatchSize) {
+		try {
+			setDbSubqueryBatchSize(Integer.parseInt(dbSubqueryBatchSize));
+		}catch (Exception e) {
+			LOG.info("The subquery batch size must be a numeric value. Using default value: [100] ");
+			setDbSubqueryBatchSize(100);
+		}
+	}
+
+	public void setDbSubqueryBatchSize(int dbSubqueryBatchSize) {
+		this.dbSubqueryBatchSize = dbSubqueryBatchSize > 0 ? dbSubqueryBatchSize : 100;
+	}
+
+	public int getDbSubqueryBatchSize() {
+		return dbSubqueryBatchSize;
+	}
+
+	public void setDbSubqueryPrepared(String dbSubqueryPrepared) {
+		if ("NOT SET".equals(dbSubqueryPrepared)) {
+			setDbSubqueryPrepared(true);
+		} else {
+			setDbSubqueryPrepared(Boolean.parseBoolean(dbSubqueryPrepared));
+		}
+	}
+
+	public void setDbSubqueryPrepared(boolean dbSubqueryPrepared) {
+		this.dbSubqueryPrepared = dbSubqueryPrepared;
+	}
+
+	public boolean isDbSubqueryPrepared() {
+		return dbSubqueryPrepared;
+	}
+
+	public void setDbStatementCacheSize(String dbStatementCacheSize) {
+		try {
+			setDbStatementCacheSize(Integer.parseInt(dbStatementCacheSize));
+		}catch (Exception e) {
+			LOG.info("The statement cache size must be a numeric value. Using default value: [50] ");
+			setDbStatementCacheSize(50);
+		}
+	}
+
+	public void setDbStatementCacheSize(int dbStatementCacheSize) {
+		this.dbStatementCacheSize = Math.max(0, dbStatementCacheSize);
+	}
+
+	public int getDbStatementCacheSize() {
+		return dbStatementCacheSize;
+	}
+
+	public void setDbSubqueryParallel(String dbSubqueryParallel) {
+		setDbSubqueryParallel(Boolean.parseBoolean(dbSubqueryParallel));
+	}
+
+	public void setDbSubqueryParallel(boolean dbSubqueryParallel) {
+		this.dbSubqueryParallel = dbSubqueryParallel;
+	}
+
+	public boolean isDbSubqueryParallel() {
+		return dbSubqueryParallel;
+	}
+
+	public void setDbParallelMaxThreads(String dbParallelMaxThreads) {
+		try {
+			setDbParallelMaxThreads(Integer.parseInt(dbParallelMaxThreads));
+		}catch (Exception e) {
+			LOG.info("The maximum number of parallel subqueries must be a numeric value. Using default value: [4] ");
+			setDbParallelMaxThreads(4);
+		}
+	}
+
+	public void setDbParallelMaxThreads(int dbParallelMaxThreads) {
+		this.dbParallelMaxThreads = Math.max(1, dbParallelMaxThreads);
+	}
+
+	public int getDbParallelMaxThreads() {
+		return dbParallelMaxThreads;
+	}
+
+	public void setDbParallelMaxPerRequest(String dbParallelMaxPerRequest) {
+		try {
+			setDbParallelMaxPerRequest(Integer.parseInt(dbParallelMaxPerRequest));
+		}catch (Exception e) {
+			LOG.info("The maximum number of parallel subqueries per request must be a numeric value. Using default value: [4] ");
+			setDbParallelMaxPerRequest(4);
+		}
+	}
+
+	public void setDbParallelMaxPerRequest(int dbParallelMaxPerRequest) {
+		this.dbParallelMaxPerRequest = Math.max(1, dbParallelMaxPerRequest);
+	}
+
+	public int getDbParallelMaxPerRequest() {
+		return dbParallelMaxPerRequest;
+	}
+
+	public void setDbSubqueryPipelined(String dbSubqueryPipelined) {
+		setDbSubqueryPipelined(Boolean.parseBoolean(dbSubqueryPipelined));
+	}
+
+	public void setDbSubqueryPipelined(boolean dbSubqueryPipelined) {
+		this.dbSubqueryPipelined = dbSubqueryPipelined;
+	}
+
+	public boolean isDbSubqueryPipelined() {
+		return dbSubqueryPipelined;
+	}
+
+	public void setDbPipelineChunkRows(String dbPipelineChunkRows) {
+		try {
+			setDbPipelineChunkRows(Integer.parseInt(dbPipelineChunkRows));
+		}catch (Exception e) {
+			LOG.info("The number of parent rows per pipelined chunk must be a numeric value. Using default value: [100] ");
+			setDbPipelineChunkRows(100);
+		}
+	}
+
+	public void setDbPipelineChunkRows(int dbPipelineChunkRows) {
+		this.dbPipelineChunkRows = Math.max(1, dbPipelineChunkRows);
+	}
+
+	public int getDbPipelineChunkRows() {
+		return dbPipelineChunkRows;
+	}
+
+	public void setDbPipelineMaxChunks(String dbPipelineMaxChunks) {
+		try {
+			setDbPipelineMaxChunks(Integer.parseInt(dbPipelineMaxChunks));
+		}catch (Exception e) {
+			LOG.info("The maximum number of pipelined chunks must be a numeric value. Using default value: [4] ");
+			setDbPipelineMaxChunks(4);
+		}
+	}
+
+	public void setDbPipelineMaxChunks(int dbPipelineMaxChunks) {
+		this.dbPipelineMaxChunks = Math.max(1, dbPipelineMaxChunks);
+	}
+
+	public int getDbPipelineMaxChunks() {
+		return dbPipelineMaxChunks;
+	}
+
+	public void setDbPlanCacheSize(String dbPlanCacheSize) {
+		try {
+			setDbPlanCacheSize(Integer.parseInt(dbPlanCacheSize));
+		}catch (Exception e) {
+			LOG.info("The plan cache size must be a numeric value. Using default value: [100] ");
+			setDbPlanCacheSize(100);
+		}
+	}
+
+	public void setDbPlanCacheSize(int dbPlanCacheSize) {
+		this.dbPlanCacheSize = Math.max(0, dbPlanCacheSize);
+	}
+
+	public int getDbPlanCacheSize() {
+		return dbPlanCacheSize;
+	}
+
+	public void setDbSubqueryStatisticsSize(String dbSubqueryStatisticsSize) {
+		try {
+			setDbSubqueryStatisticsSize(Integer.parseInt(dbSubqueryStatisticsSize));
+		}catch (Exception e) {
+			LOG.info("The subquery statistics size must be a numeric value. Using default value: [500] ");
+			setDbSubqueryStatisticsSize(500);
+		}
+	}
+
+	public void setDbSubqueryStatisticsSize(int dbSubqueryStatisticsSize) {
+		this.dbSubqueryStatisticsSize = Math.max(0, dbSubqueryStatisticsSize);
+	}
+
+	public int getDbSubqueryStatisticsSize() {
+		return dbSubqueryStatisticsSize;
+	}
+
+	public void setDbSubqueryMemoize(String dbSubqueryMemoize) {
+		if ("NOT SET".equals(dbSubqueryMemoize)) {
+			setDbSubqueryMemoize(true);
+		} else {
+			setDbSubqueryMemoize(Boolean.parseBoolean(dbSubqueryMemoize));
+		}
+	}
+
+	public void setDbSubqueryMemoize(boolean dbSubqueryMemoize) {
+		this.dbSubqueryMemoize = dbSubqueryMemoize;
+	}
+
+	public boolean isDbSubqueryMemoize() {
+		return dbSubqueryMemoize;
+	}
+
+	public void setDbResultCacheSize(String dbResultCacheSize) {
+		try {
+			setDbResultCacheSize(Integer.parseInt(dbResultCacheSize));
+		}catch (Exception e) {
+			LOG.info("The result cache size must be a numeric value. Using default value: [0] ");
+			setDbResultCacheSize(0);
+		}
+	}
+
+	public void setDbResultCacheSize(int dbResultCacheSize) {
+		this.dbResultCacheSize = Math.max(0, dbResultCacheSize);
+	}
+
+	public int getDbResultCacheSize() {
+		return dbResultCacheSize;
+	}
+
+	public void setDbResultCacheMaxBytes(String dbResultCacheMaxBytes) {
+		try {
+			setDbResultCacheMaxBytes(Long.parseLong(dbResultCacheMaxBytes));
+		}catch (Exception e) {
+			LOG.info("The result cache size in bytes must be a numeric value. Using default value: [0] ");
+			setDbResultCacheMaxBytes(0);
+		}
+	}
+
+	public void setDbResultCacheMaxBytes(long dbResultCacheMaxBytes) {
+		this.dbResultCacheMaxBytes = Math.max(0, dbResultCacheMaxBytes);
+	}
+
+	public long getDbResultCacheMaxBytes() {
+		return dbResultCacheMaxBytes;
+	}
+
+	public void setDbResultCacheTtlSeconds(String dbResultCacheTtlSeconds) {
+		try {
+			setDbResultCacheTtlSeconds(Integer.parseInt(dbResultCacheTtlSeconds));
+		}catch (Exception e) {
+			LOG.info("The result cache TTL must be a numeric value. Using default value: [60] ");
+			setDbResultCacheTtlSeconds(60);
+		}
+	}
+
+	public void setDbResultCacheTtlSeconds(int dbResultCacheTtlSeconds) {
+		this.dbResultCacheTtlSeconds = Math.max(0, dbResultCacheTtlSeconds);
+	}
+
+	public int getDbResultCacheTtlSeconds() {
+		return dbResultCacheTtlSeconds;
+	}
+
+	public void setDbPkCacheSize(String dbPkCacheSize) {
+		try {
+			setDbPkCacheSize(Integer.parseInt(dbPkCacheSize));
+		}catch (Exception e) {
+			LOG.info("The primary key cache size must be a numeric value. Using default value: [1000] ");
+			setDbPkCacheSize(1000);
+		}
+	}
+
+	public void setDbPkCacheSize(int dbPkCacheSize) {
+		this.dbPkCacheSize = Math.max(0, dbPkCacheSize);
+	}
+
+	public int getDbPkCacheSize() {
+		return dbPkCacheSize;
+	}
+
+	public void setDbPkCacheTtlSeconds(String dbPkCacheTtlSeconds) {
+		try {
+			setDbPkCacheTtlSeconds(Integer.parseInt(dbPkCacheTtlSeconds));
+		}catch (Exception e) {
+			LOG.info("The primary key cache TTL must be a numeric value. Using default value: [3600] ");
+			setDbPkCacheTtlSeconds(3600);
+		}
+	}
+
+	public void setDbPkCacheTtlSeconds(int dbPkCacheTtlSeconds) {
+		this.dbPkCacheTtlSeconds = Math.max(0, dbPkCacheTtlSeconds);
+	}
+
+	public int getDbPkCacheTtlSeconds() {
+		return dbPkCacheTtlSeconds;
+	}
+
+	public void setDbPkPreloadSchemas(String dbPkPreloadSchemas) {
+		List<String> schemas = new ArrayList<>();
+		if (!"NOT SET".equals(dbPkPreloadSchemas)) {
+			for (String schema : dbPkPreloadSchemas.split(",")) {
+				if (!schema.trim().isEmpty()) {
+					schemas.add(schema.trim());
+				}
+			}
+		}
+		setDbPkPreloadSchemas(schemas);
+	}
+
+	public void setDbPkPreloadSchemas(List<String> dbPkPreloadSchemas) {
+		this.dbPkPreloadSchemas = dbPkPreloadSchemas;
+	}
+
+	public List<String> getDbPkPreloadSchemas() {
+		return dbPkPreloadSchemas;
+	}
+
+	public void setDbSqlCacheSize(String dbSqlCacheSize) {
+		try {
+			setDbSqlCacheSize(Integer.parseInt(dbSqlCacheSize));
+		}catch (Exception e) {
+			LOG.info("The SQL cache size must be a numeric value. Using default value: [500] ");
+			setDbSqlCacheSize(500);
+		}
+	}
+
+	public void setDbSqlCacheSize(int dbSqlCacheSize) {
+		this.dbSqlCacheSize = Math.max(0, dbSqlCacheSize);
+	}
+
+	public int getDbSqlCacheSize() {
+		return dbSqlCacheSize;
+	}
+
+	public void setDbResultModel(String dbResultModel) {
+		if (IConstants.RESULT_MODEL_ROW.equalsIgnoreCase(dbResultModel)
+				|| IConstants.RESULT_MODEL_COLUMNAR.equalsIgnoreCase(dbResultModel)) {
+			this.dbResultModel = dbResultModel.toUpperCase();
+		} else {
+			LOG.info("The result model must be ROW or COLUMNAR. Using default value: [ROW]");
+			this.dbResultModel = IConstants.RESULT_MODEL_ROW;
+		}
+	}
+
+	public String getDbResultModel() {
+		return dbResultModel;
+	}
+
+	public void setDbResultMaxRows(String dbResultMaxRows) {
+		try {
+			setDbResultMaxRows(Integer.parseInt(dbResultMaxRows));
+		}catch (Exception e) {
+			LOG.info("The maximum number of result rows must be a numeric value. Using default value: [0] ");
+			setDbResultMaxRows(0);
+		}
+	}
+
+	public void setDbResultMaxRows(int dbResultMaxRows) {
+		this.dbResultMaxRows = Math.max(0, dbResultMaxRows);
+	}
+
+	public int getDbResultMaxRows() {
+		return dbResultMaxRows;
+	}
+
+	public void setDbResultOverflow(String dbResultOverflow) {
+		if (IConstants.ROW_OVERFLOW_FAIL.equalsIgnoreCase(dbResultOverflow)
+				|| IConstants.ROW_OVERFLOW_TRUNCATE.equalsIgnoreCase(dbResultOverflow)) {
+			this.dbResultOverflow = dbResultOverflow.toUpperCase();
+		} else {
+			LOG.info("The result overflow handling must be FAIL or TRUNCATE. Using default value: [FAIL]");
+			this.dbResultOverflow = IConstants.ROW_OVERFLOW_FAIL;
+		}
+	}
+
+	public String getDbResultOverflow() {
+		return dbResultOverflow;
+	}
+
+	public void setDbExportFetchSize(String dbExportFetchSize) {
+		try {
+			setDbExportFetchSize(Integer.parseInt(dbExportFetchSize));
+		}catch (Exception e) {
+			LOG.info("The export fetch size must be a numeric value. Using default value: [1000] ");
+			setDbExportFetchSize(1000);
+		}
+	}
+
+	public void setDbExportFetchSize(int dbExportFetchSize) {
+		this.dbExportFetchSize = Math.max(0, dbExportFetchSize);
+	}
+
+	public int getDbExportFetchSize() {
+		return dbExportFetchSize;
+	}
+
 }
@@ -27,6 +27,46 @@ public class SparkConfig extends ConfigBase {
      */
     private String sparkJavaAllowedHosts;
 
+    /**
+     * The maximum number of Jetty worker threads, or -1 to use the Spark default.
+     */
+    private int sparkThreadPoolMax = -1;
+
+    /**
+     * The minimum number of Jetty worker threads, or -1 to use the Spark default.
+     */
+    private int sparkThreadPoolMin = -1;
+
+    /**
+     * The idle timeout of Jetty worker threads in milliseconds, or -1 to use the Spark default.
+     */
+    private int sparkThreadPoolIdleTimeout = -1;
+
+    /**
+     * Whether JSON and XML responses are written to the response stream while the result is walked.
+     */
+    private boolean sparkResponseStreaming = true;
+
+    /**
+     * Whether JSON and XML responses are compressed if the client accepts gzip or deflate.
+     */
+    private boolean sparkResponseCompression = true;
+
+    /**
+     * The size in bytes up to which responses are sent uncompressed.
+     */
+    private int sparkResponseCompressionMinSize = 1024;
+
+    /**
+     * The compression level from 1 (fastest) to 9 (smallest).
+     */
+    private int sparkResponseCompressionLevel = 6;
+
+    /**
+     * Whether the routes clearing the caches are registered on the data port.
+     */
+    private boolean sparkCacheAdmin = false;
+
     /**
      * The path to the keyStore.
      */
@@ -68,6 +108,14 @@ public class SparkConfig extends ConfigBase {
         if (readPropertiesFile()) {
             setSparkJavaPort(getProperty("spark.port"));
             setSparkJavaAllowedHosts(getProperty("spark.host"));
+            setSparkThreadPoolMax(getProperty("spark.threadpool.max"));
+            setSparkThreadPoolMin(getProperty("spark.threadpool.min"));
+            setSparkThreadPoolIdleTimeout(getProperty("spark.threadpool.idle.timeout"));
+            setSparkResponseStreaming(getProperty("spark.response.streaming"));
+            setSparkResponseCompression(getProperty("spark.response.compression"));
+            setSparkResponseCompressionMinSize(getProperty("spark.response.compression.min.size"));
+            setSparkResponseCompressionLevel(getProperty("spark.response.compression.level"));
+            setSparkCacheAdmin(getProperty("spark.cache.admin"));
             setKeyStoreLocation(getProperty("spark.ssl.keystore.location"));
             setKeyStorePassword(getProperty("spark.ssl.keystore.password"));
             setTrustStoreLocation(getProperty("spark.ssl.truststore.location"));
@@ -126,6 +174,182 @@ public class SparkConfig extends ConfigBase {
         return sparkJavaAllowedHosts;
     }
 
+    /**
+     * Sets the maximum number of Jetty worker threads, falling back to the Spark default
+     * if the provided value is not numeric.
+     *
+     * @param sparkThreadPoolMax The maximum number of worker threads.
+     */
+    public void setSparkThreadPoolMax(String sparkThreadPoolMax) {
+        this.sparkThreadPoolMax = parseOptionalInt(sparkThreadPoolMax);
+    }
+
+    /**
+     * Retrieves the maximum number of Jetty worker threads.
+     *
+     * @return The maximum number of worker threads, or -1 for the Spark default.
+     */
+    public int getSparkThreadPoolMax() {
+        return sparkThreadPoolMax;
+    }
+
+    /**
+     * Sets the minimum number of Jetty worker threads, falling back to the Spark default
+     * if the provided value is not numeric.
+     *
+     * @param sparkThreadPoolMin The minimum number of worker threads.
+     */
+    public void setSparkThreadPoolMin(String sparkThreadPoolMin) {
+        this.sparkThreadPoolMin = parseOptionalInt(sparkThreadPoolMin);
+    }
+
+    /**
+     * Retrieves the minimum number of Jetty worker threads.
+     *
+     * @return The minimum number of worker threads, or -1 for the Spark default.
+     */
+    public int getSparkThreadPoolMin() {
+        return sparkThreadPoolMin;
+    }
+
+    /**
+     * Sets the idle timeout of Jetty worker threads, falling back to the Spark default
+     * if the provided value is not numeric.
+     *
+     * @param sparkThreadPoolIdleTimeout The idle timeout in milliseconds.
+     */
+    public void setSparkThreadPoolIdleTimeout(String sparkThreadPoolIdleTimeout) {
+        this.sparkThreadPoolIdleTimeout = parseOptionalInt(sparkThreadPoolIdleTimeout);
+    }
+
+    /**
+     * Retrieves the idle timeout of Jetty worker threads.
+     *
+     * @return The idle timeout in milliseconds, or -1 for the Spark default.
+     */
+    public int getSparkThreadPoolIdleTimeout() {
+        return sparkThreadPoolIdleTimeout;
+    }
+
+    /**
+     * Enables or disables streaming JSON and XML responses, which is enabled unless the value is {@code false}.
+     *
+     * @param sparkResponseStreaming The setting to parse.
+     */
+    public void setSparkResponseStreaming(String sparkResponseStreaming) {
+        this.sparkResponseStreaming = !"false".equalsIgnoreCase(sparkResponseStreaming);
+    }
+
+    /**
+     * Checks whether JSON and XML responses are written to the response stream while the result is walked,
+     * instead of being built as a complete string first.
+     *
+     * @return True if JSON and XML responses are streamed.
+     */
+    public boolean isSparkResponseStreaming() {
+        return sparkResponseStreaming;
+    }
+
+    /**
+     * Enables or disables compressing JSON and XML responses, which is enabled unless the value is {@code false}.
+     *
+     * @param sparkResponseCompression The setting to parse.
+     */
+    public void setSparkResponseCompression(String sparkResponseCompression) {
+        this.sparkResponseCompression = !"false".equalsIgnoreCase(sparkResponseCompression);
+    }
+
+    /**
+     * Checks whether JSON and XML responses are compressed with the content coding accepted by the client.
+     *
+     * @return True if responses are compressed.
+     */
+    public boolean isSparkResponseCompression() {
+        return sparkResponseCompression;
+    }
+
+    /**
+     * Sets the size up to which responses are sent uncompressed, falling back to the default
+     * if the provided value is not a non-negative number.
+     *
+     * @param sparkResponseCompressionMinSize The size in bytes.
+     */
+    public void setSparkResponseCompressionMinSize(String sparkResponseCompressionMinSize) {
+        int minSize = parseOptionalInt(sparkResponseCompressionMinSize);
+        if (minSize >= 0) {
+            this.sparkResponseCompressionMinSize = minSize;
+        } else {
+            this.sparkResponseCompressionMinSize = 1024;
+            LOG.info("The compression minimum size must be a non-negative number. Using default value: [1024] ");
+        }
+    }
+
+    /**
+     * Retrieves the size up to which responses are sent uncompressed.
+     *
+     * @return The size in bytes.
+     */
+    public int getSparkResponseCompressionMinSize() {
+        return sparkResponseCompressionMinSize;
+    }
+
+    /**
+     * Sets the compression level, falling back to the default if the provided value is not between 1 and 9.
+     *
+     * @param sparkResponseCompressionLevel The compression level.
+     */
+    public void setSparkResponseCompressionLevel(String sparkResponseCompressionLevel) {
+        int level = parseOptionalInt(sparkResponseCompressionLevel);
+        if (level >= 1 && level <= 9) {
+            this.sparkResponseCompressionLevel = level;
+        } else {
+            this.sparkResponseCompressionLevel = 6;
+            LOG.info("The compression level must be between 1 and 9. Using default value: [6] ");
+        }
+    }
+
+    /**
+     * Retrieves the compression level.
+     *
+     * @return The compression level from 1 (fastest) to 9 (smallest).
+     */
+    public int getSparkResponseCompressionLevel() {
+        return sparkResponseCompressionLevel;
+    }
+
+    /**
+     * Enables or disables the routes clearing the caches, which are disabled unless the value is {@code true}.
+     *
+     * @param sparkCacheAdmin The setting to parse.
+     */
+    public void setSparkCacheAdmin(String sparkCacheAdmin) {
+        this.sparkCacheAdmin = "true".equalsIgnoreCase(sparkCacheAdmin);
+    }
+
+    /**
+     * Checks whether the routes clearing the caches are registered. Any client reaching the port can call
+     * them, so they are meant for servers only reachable by trusted clients.
+     *
+     * @return True if the caches can be cleared over HTTP.
+     */
+    public boolean isSparkCacheAdmin() {
+        return sparkCacheAdmin;
+    }
+
+    /**
+     * Parses an optional numeric setting.
+     *
+     * @param value The value to parse.
+     * @return The parsed value, or -1 if the value is not numeric.
+     */
+    private int parseOptionalInt(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     /**
      * Sets the path to the properties file associated with this configuration.
      *
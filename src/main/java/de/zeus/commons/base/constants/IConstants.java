@@ -15,6 +15,21 @@ public interface IConstants {
      */
     String MODE_JSON = "application/json";
 
+    /**
+     * Mode for newline-delimited JSON output, one record per line.
+     */
+    String MODE_NDJSON = "application/x-ndjson";
+
+    /**
+     * Mode for CSV output, one stream per wrapper name.
+     */
+    String MODE_CSV = "text/csv";
+
+    /**
+     * Mode for the binary columnar output format.
+     */
+    String MODE_COLUMNAR = "application/x-zeus-columnar";
+
     /**
      * Key for specifying column number in metadata.
      */
@@ -50,4 +65,204 @@ public interface IConstants {
      */
     String CONTENT_DATA = "contentData";
 
+    /**
+     * Request key for overriding the subquery execution mode.
+     */
+    String EXECUTION_MODE = "executionMode";
+
+    /**
+     * Request key for overriding the number of parent keys per batched subquery.
+     */
+    String BATCH_SIZE = "batchSize";
+
+    /**
+     * Request key for enabling or disabling the parallel execution of subqueries.
+     */
+    String PARALLEL = "parallel";
+
+    /**
+     * Request key for enabling or disabling the pipelined execution of subqueries.
+     */
+    String PIPELINED = "pipelined";
+
+    /**
+     * Subquery execution mode issuing one SQL statement per parent row.
+     */
+    String SUBQUERY_MODE_ROW = "ROW";
+
+    /**
+     * Subquery execution mode issuing one IN-list SQL statement per chunk of parent rows.
+     */
+    String SUBQUERY_MODE_BATCH = "BATCH";
+
+    /**
+     * Subquery execution mode reading a chain of queries with one joined SQL statement.
+     */
+    String SUBQUERY_MODE_JOIN = "JOIN";
+
+    /**
+     * Subquery execution mode choosing ROW, BATCH or JOIN per subquery from runtime statistics.
+     */
+    String SUBQUERY_MODE_AUTO = "AUTO";
+
+    /**
+     * Request key for including execution statistics in the response.
+     */
+    String INCLUDE_STATISTICS = "includeStatistics";
+
+    /**
+     * Key for specifying the execution statistics section of the response.
+     */
+    String STATISTICS = "statistics";
+
+    /**
+     * Statistics key for subqueries answered from the results of the same request.
+     */
+    String MEMO_HITS = "memoHits";
+
+    /**
+     * Statistics key for subqueries executed against the database.
+     */
+    String MEMO_MISSES = "memoMisses";
+
+    /**
+     * Statistics key for queries read as part of a joined SQL statement.
+     */
+    String JOINED_QUERIES = "joinedQueries";
+
+    /**
+     * Statistics key for chunks of parent rows whose subqueries started while the parent query was read.
+     */
+    String PIPELINED_CHUNKS = "pipelinedChunks";
+
+    /**
+     * Suffix of the statistics key for the execution mode chosen for a subquery in AUTO mode.
+     */
+    String STRATEGY_SUFFIX = ".strategy";
+
+    /**
+     * Suffix of the statistics key for the number of parent rows of a subquery in AUTO mode.
+     */
+    String PARENT_ROWS_SUFFIX = ".parentRows";
+
+    /**
+     * Suffix of the statistics key for the average number of rows per parent row of a subquery in AUTO mode.
+     */
+    String CHILD_ROWS_PER_KEY_SUFFIX = ".childRowsPerKey";
+
+    /**
+     * Suffix of the statistics key for the time spent reading a subquery in AUTO mode, in milliseconds.
+     */
+    String MILLIS_SUFFIX = ".millis";
+
+    /**
+     * Request key for bypassing the result cache.
+     */
+    String USE_CACHE = "useCache";
+
+    /**
+     * Statistics key for queries answered from the result cache.
+     */
+    String CACHE_HITS = "cacheHits";
+
+    /**
+     * Statistics key for queries not found in the result cache.
+     */
+    String CACHE_MISSES = "cacheMisses";
+
+    /**
+     * Request key for reading numeric, decimal and boolean columns with their native types.
+     */
+    String TYPED_VALUES = "typedValues";
+
+    /**
+     * Request key for the model holding the rows of a result, either ROW or COLUMNAR.
+     */
+    String RESULT_MODEL = "resultModel";
+
+    /**
+     * Result model holding every row as a record of field objects.
+     */
+    String RESULT_MODEL_ROW = "ROW";
+
+    /**
+     * Result model holding the rows in one typed vector per column.
+     */
+    String RESULT_MODEL_COLUMNAR = "COLUMNAR";
+
+    /**
+     * Request key for the maximum number of rows of a single query result (0 = no limit).
+     */
+    String MAX_ROWS = "maxRows";
+
+    /**
+     * Request key for the handling of results exceeding the row budget, either FAIL or TRUNCATE.
+     */
+    String ROW_OVERFLOW = "rowOverflow";
+
+    /**
+     * Row overflow handling failing the request.
+     */
+    String ROW_OVERFLOW_FAIL = "FAIL";
+
+    /**
+     * Row overflow handling dropping the rows beyond the row budget.
+     */
+    String ROW_OVERFLOW_TRUNCATE = "TRUNCATE";
+
+    /**
+     * Request key for the maximum number of rows of a page of the top-level query (0 = no paging).
+     */
+    String PAGE_SIZE = "pageSize";
+
+    /**
+     * Request key for the continuation token of the previous page.
+     */
+    String AFTER = "after";
+
+    /**
+     * Key for specifying the continuation token of the next page in the response.
+     */
+    String NEXT_PAGE_TOKEN = "nextPageToken";
+
+    /**
+     * Statistics key for query results truncated to the row budget.
+     */
+    String TRUNCATED_RESULTS = "truncatedResults";
+
+    /**
+     * Request key for the layout of the metadata, either INLINE or COMPACT.
+     */
+    String METADATA_LAYOUT = "metadataLayout";
+
+    /**
+     * Metadata layout adding the metadata of a field to every record.
+     */
+    String METADATA_LAYOUT_INLINE = "INLINE";
+
+    /**
+     * Metadata layout writing the metadata once per wrapper name in the schema section.
+     */
+    String METADATA_LAYOUT_COMPACT = "COMPACT";
+
+    /**
+     * Key for specifying the schema section of the compact metadata layout.
+     */
+    String SCHEMA = "schema";
+
+    /**
+     * Key for specifying the wrapper name of a flat record.
+     */
+    String RECORD_NAME = "_name";
+
+    /**
+     * Key for specifying the record keys from the root record down to a flat record.
+     */
+    String RECORD_PATH = "_path";
+
+    /**
+     * Request key for the wrapper name whose records are written by a CSV response.
+     */
+    String CSV_WRAPPER = "csvWrapper";
+
 }
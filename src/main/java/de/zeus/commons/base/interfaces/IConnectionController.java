@@ -2,6 +2,11 @@ package de.zeus.commons.base.interfaces;
 
 import com.google.gson.JsonObject;
 import de.zeus.commons.connector.jdbc.ProcessingException;
+import de.zeus.commons.provider.model.DataWrapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
 
 /**
  * An interface defining operations for managing a data connection.
@@ -16,6 +21,93 @@ public interface IConnectionController {
 	 */
 	Object readData(String sqlQuery) throws ProcessingException;
 
+	/**
+	 * Reads data using the provided SQL query with bound parameters.
+	 *
+	 * @param sqlQuery   The SQL query containing {@code ?} placeholders.
+	 * @param parameters The values for the placeholders, in placeholder order.
+	 * @return The data read from the query.
+	 */
+	Object readData(String sqlQuery, List<?> parameters) throws ProcessingException;
+
+	/**
+	 * Reads data using the provided SQL query on a dedicated connection taken from the pool.
+	 * Unlike {@link #readData(String)}, this method may be called concurrently from several threads.
+	 *
+	 * @param sqlQuery   The SQL query to read data.
+	 * @param parameters The values for the {@code ?} placeholders, in placeholder order.
+	 * @return The data read from the query.
+	 */
+	Object readDataOnPooledConnection(String sqlQuery, List<?> parameters) throws ProcessingException;
+
+	/**
+	 * Reads the rows of several keys with one SQL query, e.g. an IN-list query. The row budget of the request
+	 * applies to the rows of each key, see {@link #applyRowBudget(DataWrapper, String)}, not to the result:
+	 * at most the budget times the number of keys rows are read; if there are more, the result is marked
+	 * as truncated. On a pooled connection, this method may be called concurrently from several threads.
+	 *
+	 * @param sqlQuery         The SQL query to read data.
+	 * @param parameters       The values for the {@code ?} placeholders, in placeholder order.
+	 * @param keyCount         The number of keys read by the query.
+	 * @param pooledConnection Whether the query runs on a dedicated connection taken from the pool.
+	 * @return The data read from the query.
+	 */
+	Object readDataForKeys(String sqlQuery, List<?> parameters, int keyCount, boolean pooledConnection)
+			throws ProcessingException;
+
+	/**
+	 * Applies the row budget of the request to a result, failing the request or truncating the result.
+	 *
+	 * @param dataWrapper The result.
+	 * @param sqlQuery    The SQL query of the result, reported if the budget is exceeded.
+	 * @return The result, with at most as many rows as the budget allows.
+	 */
+	DataWrapper applyRowBudget(DataWrapper dataWrapper, String sqlQuery) throws ProcessingException;
+
+	/**
+	 * Describes the columns of the provided SQL query, including their primary key flags, without reading its rows.
+	 *
+	 * @param sqlQuery The SQL query to describe.
+	 * @return The data holding the metadata of the columns and no rows.
+	 */
+	Object describeData(String sqlQuery) throws ProcessingException;
+
+	/**
+	 * Reads data using the provided SQL query and passes its rows to a listener in chunks while they are read.
+	 *
+	 * @param sqlQuery  The SQL query to read data.
+	 * @param chunkRows The number of rows per chunk; the last chunk may hold fewer.
+	 * @param listener  Receives the chunks of rows, in row order.
+	 * @return The data read from the query, holding all rows.
+	 */
+	Object readDataInChunks(String sqlQuery, int chunkRows, IRowChunkListener listener) throws ProcessingException;
+
+	/**
+	 * Reads a chain of queries with one joined SQL query and regroups its rows into nested data,
+	 * as if every query had been executed for each row of its parent query.
+	 *
+	 * @param sqlQuery        The joined SQL query, returning the top-level row number and the columns of every query.
+	 * @param names           The element names of the queries, in nesting order.
+	 * @param levelStatements The statements of the queries, describing their columns, in nesting order.
+	 * @param joinColumns     The columns joining the subqueries to their parent queries, null for the top-level query.
+	 * @return The data of the top-level query holding the data of its subqueries.
+	 */
+	Object readJoinedData(String sqlQuery, List<String> names, List<String> levelStatements, List<String> joinColumns)
+			throws ProcessingException;
+
+	/**
+	 * Reads a chain of queries with one joined SQL query on a dedicated connection taken from the pool.
+	 * Unlike {@link #readJoinedData(String, List, List, List)}, this method may be called concurrently from several threads.
+	 *
+	 * @param sqlQuery        The joined SQL query, returning the top-level row number and the columns of every query.
+	 * @param names           The element names of the queries, in nesting order.
+	 * @param levelStatements The statements of the queries, describing their columns, in nesting order.
+	 * @param joinColumns     The columns joining the subqueries to their parent queries, null for the top-level query.
+	 * @return The data of the top-level query holding the data of its subqueries.
+	 */
+	Object readJoinedDataOnPooledConnection(String sqlQuery, List<String> names, List<String> levelStatements,
+			List<String> joinColumns) throws ProcessingException;
+
 	/**
 	 * Connects to the data service.
 	 */
@@ -34,4 +126,24 @@ public interface IConnectionController {
 	 * @return The result of processing the JSON request.
 	 */
 	Object process(JsonObject jsonRequest, String mode);
+
+	/**
+	 * Processes a JSON request in the specified mode and writes the result to a stream
+	 * instead of returning it.
+	 *
+	 * @param jsonRequest  The JSON request to process.
+	 * @param mode         The processing mode (e.g., JSON or XML).
+	 * @param outputStream The stream receiving the UTF-8 encoded result; it is flushed but not closed.
+	 * @throws IOException If writing the result fails.
+	 */
+	void process(JsonObject jsonRequest, String mode, OutputStream outputStream) throws IOException;
+
+	/**
+	 * Processes a JSON request and writes its records one by one as flat records.
+	 *
+	 * @param jsonRequest  The JSON request to process.
+	 * @param recordWriter The writer receiving the records; it is flushed but not closed.
+	 * @throws IOException If writing the records fails.
+	 */
+	void export(JsonObject jsonRequest, IRecordWriter recordWriter) throws IOException;
 }
@@ -34,8 +34,9 @@ public interface IJdbcOperations {
 	 * @param query   The SQL query.
 	 * @param params  The parameters to be set in the prepared statement.
 	 * @return A prepared statement.
+	 * @throws ProcessingException if the statement could not be prepared or a parameter could not be set.
 	 */
-	PreparedStatement getPreparedStmt(Connection con, String query, Object... params);
+	PreparedStatement getPreparedStmt(Connection con, String query, Object... params) throws ProcessingException;
 
 	/**
 	 * Gets a statement for executing SQL queries.
@@ -0,0 +1,33 @@
+package de.zeus.commons.base.interfaces;
+
+import de.zeus.commons.provider.model.ContentFieldData;
+import de.zeus.commons.provider.model.MetaData;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * An interface for writing the records of a result one by one as flat records, each identified by
+ * the path of record keys from its root record down to itself.
+ */
+public interface IRecordWriter {
+
+	/**
+	 * Writes a record. The arrays and lists may be reused for the next record, so they must not be kept.
+	 *
+	 * @param wrapperNames The wrapper names from the root wrapper down to the wrapper of the record.
+	 * @param recordKeys   The record keys from the root record down to the record, one per wrapper name.
+	 * @param columns      The metadata of the fields, in field order.
+	 * @param fields       The fields of the record, in field order.
+	 * @throws IOException If writing fails.
+	 */
+	void writeRecord(List<String> wrapperNames, List<String> recordKeys, MetaData[] columns,
+					 ContentFieldData[] fields) throws IOException;
+
+	/**
+	 * Flushes the records written so far.
+	 *
+	 * @throws IOException If writing fails.
+	 */
+	void flush() throws IOException;
+}
@@ -0,0 +1,19 @@
+package de.zeus.commons.base.interfaces;
+
+import de.zeus.commons.provider.model.DataWrapper;
+
+/**
+ * An interface for receiving the rows of a result in chunks while its result set is read, so work on
+ * the first rows can start before the last rows are read.
+ */
+public interface IRowChunkListener {
+
+	/**
+	 * Receives the next chunk of rows. It is called on the reading thread, which waits until it returns,
+	 * so a listener blocking here slows down reading.
+	 *
+	 * @param chunk    The rows, in a wrapper of their own that other threads can read.
+	 * @param firstRow The index of the first row of the chunk within the result.
+	 */
+	void rowsRead(DataWrapper chunk, int firstRow);
+}
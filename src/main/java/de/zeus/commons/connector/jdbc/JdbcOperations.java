@@ -69,7 +69,7 @@ public class JdbcOperations implements IJdbcOperations {
     }
 
     @Override
-    public PreparedStatement getPreparedStmt(Connection con, String query, Object... params) {
+    public PreparedStatement getPreparedStmt(Connection con, String query, Object... params) throws ProcessingException {
         PreparedStatement pStmt = null;
         try {
             pStmt = con.prepareStatement(query);
@@ -82,7 +82,12 @@ public class JdbcOperations implements IJdbcOperations {
             return pStmt;
         } catch (SQLException e) {
             LOG.error("Error while preparing statement", e);
-            return pStmt;
+            try {
+                close(pStmt);
+            } catch (SQLException closeException) {
+                LOG.error("Error while closing statement", closeException);
+            }
+            throw new ProcessingException("Error while preparing statement", e);
         }
     }
 
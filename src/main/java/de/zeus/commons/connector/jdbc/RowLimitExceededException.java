@@ -0,0 +1,10 @@
+package de.zeus.commons.connector.jdbc;
+
+/**
+ * Signals that a query result exceeds the configured row budget and the request must fail.
+ */
+public class RowLimitExceededException extends ProcessingException {
+    public RowLimitExceededException(String message) {
+        super(message);
+    }
+}
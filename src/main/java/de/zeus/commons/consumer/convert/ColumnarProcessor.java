@@ -0,0 +1,309 @@
+package de.zeus.commons.consumer.convert;
+
+import de.zeus.commons.consumer.model.DynamicJsonObject;
+import de.zeus.commons.provider.convert.DataToColumnar;
+import de.zeus.commons.provider.model.MetaData;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static de.zeus.commons.base.constants.IConstants.META_DATA_SUFFIX;
+
+/**
+ * Decodes the binary columnar format written by {@link DataToColumnar} into the same objects
+ * {@link JSONProcessor} creates from the JSON response: wrappers hold their records keyed by record
+ * key, records hold their fields as text and their child wrappers.
+ */
+public class ColumnarProcessor {
+
+    // The statistics of the last stream processed
+    private final Map<String, String> statistics = new LinkedHashMap<>();
+    // The continuation token of the last stream processed, null if it has no next page
+    private String nextPageToken;
+    private DataInputStream data;
+
+    public DynamicJsonObject processColumnar(InputStream in) throws IOException {
+        data = new DataInputStream(new BufferedInputStream(in, 8192));
+        byte[] magic = new byte[DataToColumnar.MAGIC.length];
+        data.readFully(magic);
+        if (!Arrays.equals(magic, DataToColumnar.MAGIC)) {
+            throw new IOException("Not a columnar stream");
+        }
+        int version = data.readUnsignedByte();
+        if (version != DataToColumnar.VERSION) {
+            throw new IOException("Unsupported columnar format version: " + version);
+        }
+        int flags = data.readUnsignedByte();
+        boolean includeMetaData = (flags & DataToColumnar.FLAG_METADATA) != 0;
+
+        Table[] tables = new Table[readVarInt()];
+        for (int i = 0; i < tables.length; i++) {
+            tables[i] = readSchema();
+        }
+        DynamicJsonObject contentData = new DynamicJsonObject();
+        for (Table table : tables) {
+            DynamicJsonObject[] parentRecords = table.parent < 0
+                    ? new DynamicJsonObject[]{contentData} : tables[table.parent].records;
+            readTable(table, parentRecords, includeMetaData);
+        }
+        // The records of a table are only needed until its child tables are read
+        for (Table table : tables) {
+            table.records = null;
+        }
+
+        statistics.clear();
+        int statisticsCount = readVarInt();
+        for (int i = 0; i < statisticsCount; i++) {
+            statistics.put(readString(), readString());
+        }
+        nextPageToken = (flags & DataToColumnar.FLAG_NEXT_PAGE) != 0 ? readString() : null;
+        data = null;
+        return contentData;
+    }
+
+    /**
+     * Gets the statistics of the last stream processed.
+     *
+     * @return The statistics by name, empty if the request did not ask for them.
+     */
+    public Map<String, String> getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Gets the continuation token of the last stream processed.
+     *
+     * @return The token to pass as {@code after} for the next page, or null if there is none.
+     */
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    private Table readSchema() throws IOException {
+        Table table = new Table();
+        table.parent = readVarInt() - 1;
+        table.name = readString();
+        table.columns = new MetaData[readVarInt()];
+        for (int column = 0; column < table.columns.length; column++) {
+            MetaData metaData = new MetaData();
+            metaData.setColumnName(readString());
+            metaData.setColumnNumber(readVarInt());
+            metaData.setColumnSqlDataType((int) unzigzag(readVarLong()));
+            metaData.setColumnSqlDataTypeName(readString());
+            metaData.setColumnClassName(readString());
+            metaData.setPrimaryKey(data.readBoolean());
+            table.columns[column] = metaData;
+        }
+        table.keyField = readVarInt() - 1;
+        return table;
+    }
+
+    /**
+     * Reads the rows of a table and adds its wrappers to their parent records.
+     */
+    private void readTable(Table table, DynamicJsonObject[] parentRecords, boolean includeMetaData) throws IOException {
+        int[] childCounts = new int[parentRecords.length];
+        for (int parentRow = 0; parentRow < childCounts.length; parentRow++) {
+            childCounts[parentRow] = readVarInt();
+        }
+        int rowCount = readVarInt();
+        String[][] values = new String[table.columns.length][];
+        String[] keys = null;
+        for (int column = 0; column < values.length; column++) {
+            values[column] = new String[rowCount];
+            String[] columnKeys = readColumn(values[column]);
+            if (column == table.keyField) {
+                keys = columnKeys;
+            }
+        }
+        if (keys == null) {
+            keys = new String[rowCount];
+            long recordNumber = 0;
+            for (int row = 0; row < rowCount; row++) {
+                recordNumber += unzigzag(readVarLong());
+                keys[row] = String.valueOf(recordNumber);
+            }
+        }
+
+        table.records = new DynamicJsonObject[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            DynamicJsonObject record = new DynamicJsonObject();
+            for (int column = 0; column < values.length; column++) {
+                String columnName = table.columns[column].getColumnName();
+                record.addAttribute(columnName, values[column][row]);
+                if (includeMetaData) {
+                    record.addMetaData(columnName + META_DATA_SUFFIX, table.columns[column]);
+                }
+            }
+            table.records[row] = record;
+        }
+
+        int row = 0;
+        for (int parentRow = 0; parentRow < childCounts.length; parentRow++) {
+            if (childCounts[parentRow] == 0) {
+                continue;
+            }
+            DynamicJsonObject wrapper = new DynamicJsonObject();
+            for (int end = row + childCounts[parentRow] - 1; row < end; row++) {
+                wrapper.addAttribute(keys[row], table.records[row]);
+            }
+            parentRecords[parentRow].addAttribute(table.name, wrapper);
+        }
+    }
+
+    /**
+     * Reads a column block into the text of its values.
+     *
+     * @param values Receives the text of the values, as in the JSON response.
+     * @return The record keys held by the column, which differ from the text for decimals.
+     * @throws IOException If the stream is not valid.
+     */
+    private String[] readColumn(String[] values) throws IOException {
+        int blockType = data.readUnsignedByte();
+        switch (blockType) {
+            case DataToColumnar.BLOCK_STRING:
+                for (int row = 0; row < values.length; row++) {
+                    values[row] = readString();
+                }
+                return values;
+            case DataToColumnar.BLOCK_DICTIONARY:
+                String[] dictionary = new String[readVarInt()];
+                for (int code = 0; code < dictionary.length; code++) {
+                    dictionary[code] = readString();
+                }
+                for (int row = 0; row < values.length; row++) {
+                    values[row] = dictionary[readVarInt()];
+                }
+                return values;
+            case DataToColumnar.BLOCK_LONG:
+                return readLongs(readNulls(values.length), values);
+            case DataToColumnar.BLOCK_DOUBLE:
+                boolean[] doubleNulls = readNulls(values.length);
+                for (int row = 0; row < values.length; row++) {
+                    values[row] = doubleNulls != null && doubleNulls[row] ? "" : Double.toString(data.readDouble());
+                }
+                return values;
+            case DataToColumnar.BLOCK_DECIMAL:
+                return readDecimals(readNulls(values.length), values);
+            case DataToColumnar.BLOCK_BOOLEAN:
+                boolean[] booleanNulls = readNulls(values.length);
+                int bits = 0;
+                int count = 8;
+                for (int row = 0; row < values.length; row++) {
+                    if (booleanNulls != null && booleanNulls[row]) {
+                        values[row] = "";
+                        continue;
+                    }
+                    if (count == 8) {
+                        bits = data.readUnsignedByte();
+                        count = 0;
+                    }
+                    values[row] = String.valueOf((bits & (1 << count++)) != 0);
+                }
+                return values;
+            default:
+                throw new IOException("Unknown column block type: " + blockType);
+        }
+    }
+
+    // Reads the null bitmap of a typed block, null if the column has no null values
+    private boolean[] readNulls(int rowCount) throws IOException {
+        if (!data.readBoolean()) {
+            return null;
+        }
+        byte[] bitmap = new byte[(rowCount + 7) / 8];
+        data.readFully(bitmap);
+        boolean[] nulls = new boolean[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            nulls[row] = (bitmap[row >>> 3] & (1 << (row & 7))) != 0;
+        }
+        return nulls;
+    }
+
+    private String[] readLongs(boolean[] nulls, String[] values) throws IOException {
+        long value = 0;
+        for (int row = 0; row < values.length; row++) {
+            if (nulls != null && nulls[row]) {
+                values[row] = "";
+                continue;
+            }
+            value += unzigzag(readVarLong());
+            values[row] = Long.toString(value);
+        }
+        return values;
+    }
+
+    // Decimals are JSON numbers in their text form, record keys use their plain form
+    private String[] readDecimals(boolean[] nulls, String[] values) throws IOException {
+        String[] keys = new String[values.length];
+        int scale = -1;
+        long unscaled = 0;
+        for (int row = 0; row < values.length; row++) {
+            if (nulls != null && nulls[row]) {
+                values[row] = "";
+                keys[row] = "";
+                continue;
+            }
+            if (scale < 0) {
+                scale = readVarInt();
+            }
+            unscaled += unzigzag(readVarLong());
+            BigDecimal value = BigDecimal.valueOf(unscaled, scale);
+            values[row] = value.toString();
+            keys[row] = value.toPlainString();
+        }
+        return keys;
+    }
+
+    private String readString() throws IOException {
+        int length = readVarInt() - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int readVarInt() throws IOException {
+        long value = readVarLong();
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("Invalid length in columnar stream: " + value);
+        }
+        return (int) value;
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = data.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid varint in columnar stream");
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * A table of the stream: its schema and, while its child tables are read, its records.
+     */
+    private static final class Table {
+        private int parent;
+        private String name;
+        private MetaData[] columns;
+        private int keyField;
+        private DynamicJsonObject[] records;
+    }
+}
@@ -6,44 +6,96 @@ import com.google.gson.JsonParser;
 import de.zeus.commons.consumer.model.DynamicJsonObject;
 import de.zeus.commons.provider.model.MetaData;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import static de.zeus.commons.base.constants.IConstants.*;
 
 public class JSONProcessor {
 
+    // The metadata of the compact layout keyed by wrapper name and column name
+    private final Map<String, Map<String, MetaData>> schema = new HashMap<>();
+
     public DynamicJsonObject processJson(String json) {
         JsonElement element = JsonParser.parseString(json);
         JsonObject rootObject = element.getAsJsonObject();
         JsonObject contentDataObject = rootObject.getAsJsonObject(CONTENT_DATA);
 
-        return processNode(contentDataObject);
+        schema.clear();
+        if (rootObject.has(SCHEMA)) {
+            processSchema(rootObject.getAsJsonObject(SCHEMA));
+        }
+        return processNode(contentDataObject, null);
+    }
+
+    // Reads the schema section, the records get the metadata of their fields as with the inline layout
+    private void processSchema(JsonObject schemaObject) {
+        for (String wrapperName : schemaObject.keySet()) {
+            JsonObject columnsObject = schemaObject.getAsJsonObject(wrapperName);
+            Map<String, MetaData> columns = new HashMap<>();
+            for (String columnName : columnsObject.keySet()) {
+                columns.put(columnName, processMetaData(columnsObject.getAsJsonObject(columnName), columnName));
+            }
+            schema.put(wrapperName, columns);
+        }
     }
 
-    private DynamicJsonObject processNode(JsonObject jsonObject) {
+    /**
+     * Processes a node of the content data. Wrappers hold their records, records hold their fields
+     * and child wrappers.
+     *
+     * @param jsonObject The node to process.
+     * @param columns    The schema metadata of the wrapper holding the node, or null if the node is
+     *                   not a record of a wrapper described by the schema.
+     * @return The processed node.
+     */
+    private DynamicJsonObject processNode(JsonObject jsonObject, Map<String, MetaData> columns) {
         DynamicJsonObject obj = new DynamicJsonObject();
 
         for (String key : jsonObject.keySet()) {
             JsonElement element = jsonObject.get(key);
 
             if (key.endsWith(META_DATA_SUFFIX)) {
-                MetaData metaData = processMetaData(jsonObject, key);
+                MetaData metaData = processMetaData(jsonObject.getAsJsonObject(key), key.replace(META_DATA_SUFFIX, ""));
                 obj.addMetaData(key, metaData);
             } else if (element.isJsonObject()) {
-                DynamicJsonObject childObj = processNode(element.getAsJsonObject());
+                DynamicJsonObject childObj = processChildNode(element.getAsJsonObject(), key);
                 obj.addAttribute(key, childObj);
             } else {
                 obj.addAttribute(key, element.getAsString());
             }
+            // A column keeps its metadata even if a child wrapper of the same name replaced its value
+            if (columns != null && columns.containsKey(key)) {
+                obj.addMetaData(key + META_DATA_SUFFIX, columns.get(key));
+            }
         }
 
         return obj;
     }
 
-    private MetaData processMetaData(JsonObject jsonObject, String key) {
-        JsonObject metadataJson = jsonObject.getAsJsonObject(key);
+    // The child of a record (or of the content data) is a wrapper, whose records use its schema
+    private DynamicJsonObject processChildNode(JsonObject childObject, String key) {
+        if (schema.isEmpty()) {
+            return processNode(childObject, null);
+        }
+        DynamicJsonObject wrapperObj = new DynamicJsonObject();
+        Map<String, MetaData> wrapperColumns = schema.get(key);
+        for (String recordKey : childObject.keySet()) {
+            JsonElement record = childObject.get(recordKey);
+            if (record.isJsonObject()) {
+                wrapperObj.addAttribute(recordKey, processNode(record.getAsJsonObject(), wrapperColumns));
+            } else {
+                wrapperObj.addAttribute(recordKey, record.getAsString());
+            }
+        }
+        return wrapperObj;
+    }
+
+    private MetaData processMetaData(JsonObject metadataJson, String columnName) {
         MetaData metaData = new MetaData();
 
         metaData.setColumnNumber(metadataJson.get("columnNumber").getAsInt());
-        metaData.setColumnName(key.replace(META_DATA_SUFFIX, ""));
+        metaData.setColumnName(columnName);
         metaData.setColumnSqlDataType(metadataJson.get("dataTypeId").getAsInt());
         metaData.setColumnSqlDataTypeName(metadataJson.get("dataTypeName").getAsString());
         metaData.setColumnClassName(metadataJson.get("className").getAsString());
@@ -2,26 +2,31 @@ package de.zeus.commons.consumer.service;
 
 import de.zeus.commons.connector.jdbc.JdbcOperations;
 import de.zeus.commons.connector.jdbc.ProcessingException;
+import de.zeus.commons.consumer.convert.ColumnarProcessor;
 import de.zeus.commons.consumer.convert.JSONProcessor;
 import de.zeus.commons.consumer.model.DynamicJsonObject;
 
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.io.BufferedReader;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import static de.zeus.commons.base.constants.IConstants.MODE_COLUMNAR;
 import static de.zeus.commons.base.constants.IConstants.MODE_JSON;
 
 /**
  * The JsonClient class is responsible for sending JSON requests to a specified service URL
- * and processing the JSON response. It uses JdbcOperations to interact with the database.
+ * and processing the JSON or binary columnar response. It uses JdbcOperations to interact with the database.
  */
 public class JsonClient {
 
@@ -51,6 +56,7 @@ public class JsonClient {
             conn = (HttpURLConnection) url.openConnection();
             conn.setRequestMethod("POST");
             conn.setRequestProperty("Content-Type", MODE_JSON);
+            conn.setRequestProperty("Accept-Encoding", "gzip, deflate");
             conn.setDoOutput(true);
 
             try (OutputStream os = conn.getOutputStream()) {
@@ -59,10 +65,8 @@ public class JsonClient {
                 LOG.info("Request sent to: " + url);
             }
 
-            try (BufferedReader br = new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8))) {
-                String jsonResponse = br.lines().map(String::trim).collect(Collectors.joining());
-                JSONProcessor processor = new JSONProcessor();
-                DynamicJsonObject result = processor.processJson(jsonResponse);
+            try (InputStream in = openResponseStream(conn)) {
+                DynamicJsonObject result = processResponse(conn, in);
 
                 LOG.info("Processed JSON:");
                 LOG.info(result.toPrettyString());
@@ -82,4 +86,41 @@ public class JsonClient {
             }
         }
     }
+
+    /**
+     * Decodes the response body according to its Content-Type: the binary columnar format of the
+     * {@code /columnar} route or JSON.
+     *
+     * @param conn The connection after the request has been sent.
+     * @param in   The uncompressed response body.
+     * @return The processed response.
+     * @throws IOException If the response cannot be read.
+     */
+    private DynamicJsonObject processResponse(HttpURLConnection conn, InputStream in) throws IOException {
+        String contentType = conn.getContentType();
+        if (contentType != null && contentType.startsWith(MODE_COLUMNAR)) {
+            return new ColumnarProcessor().processColumnar(in);
+        }
+        BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String jsonResponse = br.lines().map(String::trim).collect(Collectors.joining());
+        return new JSONProcessor().processJson(jsonResponse);
+    }
+
+    /**
+     * Opens the response body and decompresses it according to its Content-Encoding header.
+     *
+     * @param conn The connection after the request has been sent.
+     * @return The uncompressed response body.
+     * @throws IOException If the response cannot be read.
+     */
+    private InputStream openResponseStream(HttpURLConnection conn) throws IOException {
+        String contentEncoding = conn.getContentEncoding();
+        if ("gzip".equalsIgnoreCase(contentEncoding) || "x-gzip".equalsIgnoreCase(contentEncoding)) {
+            return new GZIPInputStream(conn.getInputStream());
+        }
+        if ("deflate".equalsIgnoreCase(contentEncoding)) {
+            return new InflaterInputStream(conn.getInputStream());
+        }
+        return conn.getInputStream();
+    }
 }
@@ -44,6 +44,33 @@ public class FileUtils {
             }
         }
     }
+    /**
+     * Opens a UTF-8 writer on a file with a dynamically generated file name, for content that is
+     * written while it is produced instead of being formatted as a whole.
+     *
+     * @param fileType  The type of the file (NDJSON or CSV).
+     * @param qualifier The name added to the file name, e.g. the wrapper name of a CSV file, or null.
+     * @return The writer; the caller closes it.
+     * @throws IOException If the file cannot be created.
+     */
+    public Writer openFileWriter(String fileType, String qualifier) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(openFileStream(fileType, qualifier), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Opens a stream on a file with a dynamically generated file name, for binary content.
+     *
+     * @param fileType  The type of the file (e.g. columnar).
+     * @param qualifier The name added to the file name, or null.
+     * @return The stream; the caller closes it.
+     * @throws IOException If the file cannot be created.
+     */
+    public OutputStream openFileStream(String fileType, String qualifier) throws IOException {
+        String fileName = format.generateFileName(fileType, qualifier);
+        LOG.info("Writing " + fileName);
+        return new BufferedOutputStream(new FileOutputStream(fileName));
+    }
+
     /**
      * Reads the content of a file or a resource within the JAR and returns it as a string.
      *
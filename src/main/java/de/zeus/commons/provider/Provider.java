@@ -7,11 +7,20 @@ import de.zeus.commons.base.interfaces.IConnectionController;
 import de.zeus.commons.base.config.JdbcConfig;
 import de.zeus.commons.base.config.SparkConfig;
 import de.zeus.commons.file.FileUtils;
+import de.zeus.commons.provider.convert.DataToCSV;
+import de.zeus.commons.provider.convert.DataToNDJSON;
 import de.zeus.commons.provider.logic.sql.ConnectionControllerFactory;
 import de.zeus.commons.provider.service.HttpServer;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.io.OutputStream;
+import java.io.Writer;
+
+import static de.zeus.commons.base.constants.IConstants.MODE_COLUMNAR;
+import static de.zeus.commons.base.constants.IConstants.MODE_CSV;
+import static de.zeus.commons.base.constants.IConstants.MODE_NDJSON;
+
 /**
  * The Provider class serves as the entry point for running the application as a REST service or from the console.
  * It handles command-line arguments, initializes the necessary components, and starts the service.
@@ -75,29 +84,51 @@ public class Provider {
         System.out.println("Parm 1: CONSOLE");
         System.out.println("Parm 2: <jdbc-properties-file>");
         System.out.println("Parm 3: <JSON Query-Objects {}>");
-        System.out.println("Parm 4: <application/xml or application/json>");
+        System.out.println("Parm 4: <application/xml, application/json, application/x-ndjson, text/csv or application/x-zeus-columnar>");
     }
 
     /**
      * Initializes and starts the service as a REST service.
+     * Configured primary keys are preloaded before the first request is accepted.
      *
      * @param controllerFactory The factory for creating connection controllers.
      */
     public static void initService(ConnectionControllerFactory controllerFactory) {
+        controllerFactory.preloadPrimaryKeys();
         new HttpServer(controllerFactory);
     }
 
     /**
      * Initializes and runs the service from the console with the specified JSON request and processing mode.
+     * NDJSON is written to one file and CSV to one file per wrapper name, both while the rows are read.
+     * The binary columnar format is written to one file as it is.
      *
      * @param controllerFactory The factory for creating connection controllers.
      * @param jsonRequest       The JSON request to process.
-     * @param mode              The processing mode (JSON or XML).
+     * @param mode              The processing mode (JSON, XML, NDJSON, CSV or columnar).
      */
     public static void initServiceFromConsole(ConnectionControllerFactory controllerFactory, JsonObject jsonRequest, String mode) {
         IConnectionController connectionController = controllerFactory.getController();
         FileUtils fileUtils = new FileUtils();
         try {
+            if (MODE_NDJSON.equals(mode)) {
+                try (Writer writer = fileUtils.openFileWriter(mode, null)) {
+                    connectionController.export(jsonRequest, new DataToNDJSON(writer));
+                }
+                return;
+            }
+            if (MODE_CSV.equals(mode)) {
+                try (DataToCSV csv = new DataToCSV(wrapperName -> fileUtils.openFileWriter(mode, wrapperName))) {
+                    connectionController.export(jsonRequest, csv);
+                }
+                return;
+            }
+            if (MODE_COLUMNAR.equals(mode)) {
+                try (OutputStream outputStream = fileUtils.openFileStream(mode, null)) {
+                    connectionController.process(jsonRequest, mode, outputStream);
+                }
+                return;
+            }
             fileUtils.writeContentToFile(String.valueOf(connectionController.process(jsonRequest, mode)), mode);
         } catch (Exception e) {
             LOG.error("IO-File or Format Error. ", e);
@@ -0,0 +1,153 @@
+package de.zeus.commons.provider.convert;
+
+import de.zeus.commons.base.interfaces.IRecordWriter;
+import de.zeus.commons.provider.model.ContentFieldData;
+import de.zeus.commons.provider.model.MetaData;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes records as CSV (RFC 4180), one stream per wrapper name. Every stream starts with a header
+ * taken from the first record of its wrapper name. The leading columns hold the record keys from the
+ * root record down to the record, named after their wrapper names with a leading underscore, so the
+ * records of a child wrapper can be joined to their parents.
+ *
+ * <p>Every row is written as soon as the record is passed, so a result can be written while it is read.</p>
+ */
+public class DataToCSV implements IRecordWriter, Closeable {
+
+    private static final String LINE_SEPARATOR = "\r\n";
+
+    private final StreamFactory streamFactory;
+    // The streams opened so far, null for the wrapper names that are not written
+    private final Map<String, Writer> streams = new LinkedHashMap<>();
+
+    /**
+     * Opens the stream of a wrapper name.
+     */
+    public interface StreamFactory {
+
+        /**
+         * Opens the stream receiving the records of a wrapper name.
+         *
+         * @param wrapperName The wrapper name.
+         * @return The stream, or null if the records of the wrapper name are not written.
+         * @throws IOException If the stream cannot be opened.
+         */
+        Writer open(String wrapperName) throws IOException;
+    }
+
+    /**
+     * Initializes a new instance of the DataToCSV class.
+     *
+     * @param streamFactory Opens the stream of a wrapper name when its first record is written.
+     */
+    public DataToCSV(StreamFactory streamFactory) {
+        this.streamFactory = streamFactory;
+    }
+
+    @Override
+    public void writeRecord(List<String> wrapperNames, List<String> recordKeys, MetaData[] columns,
+                            ContentFieldData[] fields) throws IOException {
+        String wrapperName = wrapperNames.get(wrapperNames.size() - 1);
+        Writer out = streams.get(wrapperName);
+        if (out == null) {
+            if (streams.containsKey(wrapperName)) {
+                return;
+            }
+            out = streamFactory.open(wrapperName);
+            streams.put(wrapperName, out);
+            if (out == null) {
+                return;
+            }
+            writeHeader(out, wrapperNames, columns);
+        }
+        for (int i = 0; i < recordKeys.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeValue(out, recordKeys.get(i));
+        }
+        for (ContentFieldData field : fields) {
+            out.write(',');
+            writeValue(out, field.getValue());
+        }
+        out.write(LINE_SEPARATOR);
+    }
+
+    private void writeHeader(Writer out, List<String> wrapperNames, MetaData[] columns) throws IOException {
+        for (int i = 0; i < wrapperNames.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeValue(out, "_" + wrapperNames.get(i));
+        }
+        for (MetaData column : columns) {
+            out.write(',');
+            writeValue(out, column.getColumnName());
+        }
+        out.write(LINE_SEPARATOR);
+    }
+
+    // Quotes a value containing a separator, a quote or a line break and doubles its quotes
+    private static void writeValue(Writer out, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quoted) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        int start = 0;
+        int quote;
+        while ((quote = value.indexOf('"', start)) >= 0) {
+            out.write(value, start, quote + 1 - start);
+            out.write('"');
+            start = quote + 1;
+        }
+        out.write(value, start, value.length() - start);
+        out.write('"');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        for (Writer out : streams.values()) {
+            if (out != null) {
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * Closes the streams opened by the stream factory.
+     *
+     * @throws IOException If closing a stream fails.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (Writer out : streams.values()) {
+            try {
+                if (out != null) {
+                    out.close();
+                }
+            } catch (IOException e) {
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
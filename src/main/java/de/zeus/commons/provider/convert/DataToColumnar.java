@@ -0,0 +1,532 @@
+package de.zeus.commons.provider.convert;
+
+import de.zeus.commons.provider.model.ContentFieldData;
+import de.zeus.commons.provider.model.DataWrapper;
+import de.zeus.commons.provider.model.MetaData;
+import de.zeus.commons.provider.model.RequestStatistics;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Converts a list of {@code DataWrapper} objects into a self-describing binary columnar format.
+ *
+ * <p>The records of all wrappers with the same name, columns and parent table are stored as one
+ * table. A stream holds:</p>
+ * <ol>
+ *     <li>the magic bytes {@code ZCOL}, the format version and flags ({@link #FLAG_METADATA},
+ *     {@link #FLAG_NEXT_PAGE}),</li>
+ *     <li>the schema: per table its parent table, name, column metadata and key column,</li>
+ *     <li>per table the child-offset array, i.e. the number of rows of every row of the parent table
+ *     (one for a top-level table), the row count and one typed block per column,</li>
+ *     <li>the execution statistics as name/value pairs,</li>
+ *     <li>if {@link #FLAG_NEXT_PAGE} is set, the continuation token of the next page.</li>
+ * </ol>
+ *
+ * <p>Integers are unsigned LEB128 varints, signed values are zigzag-encoded and strings are UTF-8 with
+ * their length + 1 (0 for null). Column blocks hold dictionary-encoded or plain strings, delta-encoded
+ * longs and decimals, doubles or bit-packed booleans; typed blocks carry a null bitmap. Values decode
+ * to the same text as in the JSON response.</p>
+ */
+public class DataToColumnar {
+
+    /** Leading bytes of the format. */
+    public static final byte[] MAGIC = {'Z', 'C', 'O', 'L'};
+    /** Version of the format. */
+    public static final int VERSION = 1;
+    /** Flag set if the request asked for metadata. */
+    public static final int FLAG_METADATA = 1;
+    /** Flag set if the stream ends with the continuation token of the next page. */
+    public static final int FLAG_NEXT_PAGE = 2;
+
+    /** Block of UTF-8 strings, one per row. */
+    public static final int BLOCK_STRING = 0;
+    /** Block of distinct UTF-8 strings followed by one dictionary code per row. */
+    public static final int BLOCK_DICTIONARY = 1;
+    /** Block of zigzag varint differences of long values. */
+    public static final int BLOCK_LONG = 2;
+    /** Block of 8-byte double values. */
+    public static final int BLOCK_DOUBLE = 3;
+    /** Block of decimals sharing one scale, as zigzag varint differences of their unscaled values. */
+    public static final int BLOCK_DECIMAL = 4;
+    /** Block of bit-packed boolean values. */
+    public static final int BLOCK_BOOLEAN = 5;
+
+    // Dictionaries are kept while their values repeat at least twice on average
+    private static final int MIN_DICTIONARY_SIZE = 256;
+
+    private final List<DataWrapper> dataWrapperList;
+    private final boolean includeMetaData;
+    private final RequestStatistics statistics;
+    private String nextPageToken;
+    private final List<Table> tables = new ArrayList<>();
+    private final Map<String, Table> tableIndex = new HashMap<>();
+    private final ContentFieldData columnarField = new ContentFieldData(); // Reused for the values of columnar wrappers
+    private DataOutputStream data;
+
+    /**
+     * Constructs an instance of {@code DataToColumnar}.
+     *
+     * @param dataWrappers    The list of DataWrapper objects to convert.
+     * @param includeMetaData Whether the decoder attaches the column metadata to the fields.
+     * @param statistics      The execution statistics to include, or null to omit them.
+     */
+    public DataToColumnar(List<DataWrapper> dataWrappers, boolean includeMetaData, RequestStatistics statistics) {
+        this.dataWrapperList = dataWrappers;
+        this.includeMetaData = includeMetaData;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Sets the continuation token of the next page, written at the end of the stream.
+     *
+     * @param nextPageToken The token, or null if there is no next page.
+     */
+    public void setNextPageToken(String nextPageToken) {
+        this.nextPageToken = nextPageToken;
+    }
+
+    /**
+     * Writes the result to a stream.
+     *
+     * @param out The stream receiving the result; it is flushed but not closed.
+     * @throws IOException If writing fails.
+     */
+    public void write(OutputStream out) throws IOException {
+        tables.clear();
+        tableIndex.clear();
+        collect(dataWrapperList, -1, 0);
+
+        data = new DataOutputStream(new BufferedOutputStream(out, 8192));
+        data.write(MAGIC);
+        data.writeByte(VERSION);
+        data.writeByte((includeMetaData ? FLAG_METADATA : 0) | (nextPageToken != null ? FLAG_NEXT_PAGE : 0));
+        writeVarLong(tables.size());
+        for (Table table : tables) {
+            writeSchema(table);
+        }
+        for (Table table : tables) {
+            writeTable(table);
+        }
+        writeStatistics();
+        if (nextPageToken != null) {
+            writeString(nextPageToken);
+        }
+        data.flush();
+        data = null;
+    }
+
+    /**
+     * Gets the result as a byte array.
+     *
+     * @return The encoded result.
+     */
+    public byte[] getResult() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Assigns the rows of the wrappers and their child wrappers to tables. The rows of a table are
+     * grouped by their parent row in parent row order, as the tree is walked depth first.
+     *
+     * @param dataWrappers The wrappers of a parent row.
+     * @param parentTable  The index of the parent table, -1 for the top level.
+     * @param parentRow    The row index within the parent table.
+     */
+    private void collect(List<DataWrapper> dataWrappers, int parentTable, int parentRow) {
+        for (DataWrapper dataWrapper : dataWrappers) {
+            Table table = getTable(parentTable, dataWrapper);
+            int firstRow = table.add(parentRow, dataWrapper);
+            for (int row = 0; row < dataWrapper.getRowCount(); row++) {
+                collect(dataWrapper.getDataWrappers(row), table.index, firstRow + row);
+            }
+        }
+    }
+
+    private Table getTable(int parentTable, DataWrapper dataWrapper) {
+        MetaData[] columns = getColumns(dataWrapper);
+        StringBuilder key = new StringBuilder().append(parentTable).append('\u0000').append(dataWrapper.getName());
+        for (MetaData column : columns) {
+            key.append('\u0000').append(column.getColumnName());
+        }
+        return tableIndex.computeIfAbsent(key.toString(), k -> {
+            Table table = new Table(tables.size(), parentTable, dataWrapper.getName(), columns);
+            tables.add(table);
+            return table;
+        });
+    }
+
+    // The metadata of the fields in field order, or of all columns in column order if there are no rows
+    private MetaData[] getColumns(DataWrapper dataWrapper) {
+        if (dataWrapper.getRowCount() == 0) {
+            return new TreeMap<>(dataWrapper.getMetaData()).values().toArray(new MetaData[0]);
+        }
+        MetaData[] columns = new MetaData[dataWrapper.getFieldCount(0)];
+        for (int field = 0; field < columns.length; field++) {
+            columns[field] = dataWrapper.getMetaData().get(dataWrapper.getField(0, field, columnarField).getColumnNumber());
+        }
+        return columns;
+    }
+
+    private void writeSchema(Table table) throws IOException {
+        writeVarLong(table.parent + 1L);
+        writeString(table.name);
+        writeVarLong(table.columns.length);
+        for (MetaData column : table.columns) {
+            writeString(column.getColumnName());
+            writeVarLong(column.getColumnNumber());
+            writeVarLong(zigzag(column.getColumnSqlDataType()));
+            writeString(column.getColumnSqlDataTypeName());
+            writeString(column.getColumnClassName());
+            data.writeBoolean(column.isPrimaryKey());
+        }
+        writeVarLong(table.keyField + 1L);
+    }
+
+    private void writeTable(Table table) throws IOException {
+        int parentRows = table.parent < 0 ? 1 : tables.get(table.parent).rowCount;
+        for (int parentRow = 0; parentRow < parentRows; parentRow++) {
+            writeVarLong(parentRow < table.childCounts.length ? table.childCounts[parentRow] : 0);
+        }
+        writeVarLong(table.rowCount);
+        for (int column = 0; column < table.columns.length; column++) {
+            writeColumn(table, column);
+        }
+        if (table.keyField < 0) {
+            long previous = 0;
+            for (DataWrapper dataWrapper : table.segments) {
+                for (int row = 0; row < dataWrapper.getRowCount(); row++) {
+                    writeVarLong(zigzag(dataWrapper.getRecordNumber(row) - previous));
+                    previous = dataWrapper.getRecordNumber(row);
+                }
+            }
+        }
+    }
+
+    private void writeStatistics() throws IOException {
+        if (statistics == null) {
+            writeVarLong(0);
+            return;
+        }
+        Map<String, Object> values = statistics.getValues();
+        writeVarLong(values.size());
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            writeString(entry.getKey());
+            writeString(String.valueOf(entry.getValue()));
+        }
+    }
+
+    /**
+     * Writes the block of a column in the most compact encoding its values allow.
+     *
+     * @param table  The table.
+     * @param column The column index.
+     * @throws IOException If writing fails.
+     */
+    private void writeColumn(Table table, int column) throws IOException {
+        int blockType = chooseBlockType(table, column);
+        data.writeByte(blockType);
+        switch (blockType) {
+            case BLOCK_LONG:
+                writeNulls(table, column);
+                writeLongs(table, column);
+                break;
+            case BLOCK_DOUBLE:
+                writeNulls(table, column);
+                writeDoubles(table, column);
+                break;
+            case BLOCK_DECIMAL:
+                writeNulls(table, column);
+                writeDecimals(table, column);
+                break;
+            case BLOCK_BOOLEAN:
+                writeNulls(table, column);
+                writeBooleans(table, column);
+                break;
+            case BLOCK_DICTIONARY:
+                writeDictionary(table, column);
+                break;
+            default:
+                for (DataWrapper dataWrapper : table.segments) {
+                    for (int row = 0; row < dataWrapper.getRowCount(); row++) {
+                        writeString(getText(dataWrapper.getField(row, column, columnarField)));
+                    }
+                }
+        }
+    }
+
+    /**
+     * Chooses the block type of a column. A typed block requires all values of one type, where empty
+     * strings stand for the null values of typed columns; all other columns are written as strings.
+     */
+    private int chooseBlockType(Table table, int column) {
+        int typedBlock = -1;
+        boolean strings = false;
+        int scale = Integer.MIN_VALUE;
+        for (DataWrapper dataWrapper : table.segments) {
+            for (int row = 0; row < dataWrapper.getRowCount(); row++) {
+                ContentFieldData field = dataWrapper.getField(row, column, columnarField);
+                int valueBlock;
+                switch (field.getValueType()) {
+                    case LONG:
+                        valueBlock = BLOCK_LONG;
+                        break;
+                    case DOUBLE:
+                        valueBlock = BLOCK_DOUBLE;
+                        break;
+                    case OBJECT:
+                        Object value = field.getObjectValue();
+                        if (value instanceof Boolean) {
+                            valueBlock = BLOCK_BOOLEAN;
+                        } else if (value instanceof BigDecimal && isCompactDecimal((BigDecimal) value)
+                                && (scale == Integer.MIN_VALUE || scale == ((BigDecimal) value).scale())) {
+                            valueBlock = BLOCK_DECIMAL;
+                            scale = ((BigDecimal) value).scale();
+                        } else {
+                            valueBlock = BLOCK_STRING;
+                        }
+                        break;
+                    default:
+                        valueBlock = field.getValue().isEmpty() ? -1 : BLOCK_STRING;
+                }
+                if (valueBlock == BLOCK_STRING || (valueBlock >= 0 && typedBlock >= 0 && valueBlock != typedBlock)) {
+                    strings = true;
+                } else if (valueBlock >= 0) {
+                    typedBlock = valueBlock;
+                }
+            }
+        }
+        if (!strings && typedBlock >= 0) {
+            return typedBlock;
+        }
+        return useDictionary(table, column) ? BLOCK_DICTIONARY : BLOCK_STRING;
+    }
+
+    // A decimal written as its unscaled long whose text has no exponent, as the text of its JSON number
+    private static boolean isCompactDecimal(BigDecimal value) {
+        return value.scale() >= 0 && value.precision() - 1 - value.scale() >= -6 && value.unscaledValue().bitLength() < 64;
+    }
+
+    private boolean useDictionary(Table table, int column) {
+        Map<String, Boolean> distinct = new HashMap<>();
+        int limit = Math.max(MIN_DICTIONARY_SIZE, table.rowCount / 2);
+        for (DataWrapper dataWrapper : table.segments) {
+            for (int row = 0; row < dataWrapper.getRowCount(); row++) {
+                distinct.put(getText(dataWrapper.getField(row, column, columnarField)), Boolean.TRUE);
+                if (distinct.size() > limit) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void writeDictionary(Table table, int column) throws IOException {
+        Map<String, Integer> codes = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        int[] rowCodes = new int[table.rowCount];
+        int index = 0;
+        for (DataWrapper dataWrapper : table.segments) {
+            for (int row = 0; row < dataWrapper.getRowCount(); row++) {
+                String text = getText(dataWrapper.getField(row, column, columnarField));
+                Integer code = codes.get(text);
+                if (code == null) {
+                    code = dictionary.size();
+                    codes.put(text, code);
+                    dictionary.add(text);
+                }
+                rowCodes[index++] = code;
+            }
+        }
+        writeVarLong(dictionary.size());
+        for (String text : dictionary) {
+            writeString(text);
+        }
+        for (int code : rowCodes) {
+            writeVarLong(code);
+        }
+    }
+
+    // Writes a flag and, if any value of the column is null, a bitmap with one bit per row
+    private void writeNulls(Table table, int column) throws IOException {
+        byte[] nulls = new byte[(table.rowCount + 7) / 8];
+        boolean hasNulls = false;
+        int index = 0;
+        for (DataWrapper dataWrapper : table.segments) {
+            for (int row = 0; row < dataWrapper.getRowCount(); row++, index++) {
+                if (isNull(dataWrapper.getField(row, column, columnarField))) {
+                    nulls[index >>> 3] |= (byte) (1 << (index & 7));
+                    hasNulls = true;
+                }
+            }
+        }
+        data.writeBoolean(hasNulls);
+        if (hasNulls) {
+            data.write(nulls);
+        }
+    }
+
+    private void writeLongs(Table table, int column) throws IOException {
+        long previous = 0;
+        for (DataWrapper dataWrapper : table.segments) {
+            for (int row = 0; row < dataWrapper.getRowCount(); row++) {
+                ContentFieldData field = dataWrapper.getField(row, column, columnarField);
+                if (!isNull(field)) {
+                    writeVarLong(zigzag(field.getLongValue() - previous));
+                    previous = field.getLongValue();
+                }
+            }
+        }
+    }
+
+    private void writeDoubles(Table table, int column) throws IOException {
+        for (DataWrapper dataWrapper : table.segments) {
+            for (int row = 0; row < dataWrapper.getRowCount(); row++) {
+                ContentFieldData field = dataWrapper.getField(row, column, columnarField);
+                if (!isNull(field)) {
+                    data.writeDouble(field.getDoubleValue());
+                }
+            }
+        }
+    }
+
+    private void writeDecimals(Table table, int column) throws IOException {
+        boolean scaleWritten = false;
+        long previous = 0;
+        for (DataWrapper dataWrapper : table.segments) {
+            for (int row = 0; row < dataWrapper.getRowCount(); row++) {
+                ContentFieldData field = dataWrapper.getField(row, column, columnarField);
+                if (isNull(field)) {
+                    continue;
+                }
+                BigDecimal value = (BigDecimal) field.getObjectValue();
+                if (!scaleWritten) {
+                    writeVarLong(value.scale());
+                    scaleWritten = true;
+                }
+                long unscaled = value.unscaledValue().longValue();
+                writeVarLong(zigzag(unscaled - previous));
+                previous = unscaled;
+            }
+        }
+    }
+
+    private void writeBooleans(Table table, int column) throws IOException {
+        int bits = 0;
+        int count = 0;
+        for (DataWrapper dataWrapper : table.segments) {
+            for (int row = 0; row < dataWrapper.getRowCount(); row++) {
+                ContentFieldData field = dataWrapper.getField(row, column, columnarField);
+                if (isNull(field)) {
+                    continue;
+                }
+                if ((Boolean) field.getObjectValue()) {
+                    bits |= 1 << count;
+                }
+                if (++count == 8) {
+                    data.writeByte(bits);
+                    bits = 0;
+                    count = 0;
+                }
+            }
+        }
+        if (count > 0) {
+            data.writeByte(bits);
+        }
+    }
+
+    // The null value of a typed column is held as an empty string
+    private static boolean isNull(ContentFieldData field) {
+        return field.getValueType() == ContentFieldData.ValueType.STRING;
+    }
+
+    // The text of a value as written to the JSON response, where numbers are JSON numbers
+    private static String getText(ContentFieldData field) {
+        if (field.getValueType() == ContentFieldData.ValueType.OBJECT && field.getObjectValue() instanceof Number) {
+            return field.getObjectValue().toString();
+        }
+        return field.getValue();
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length + 1L);
+        data.write(bytes);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            data.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        data.writeByte((int) value);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * The rows of all wrappers with the same name and columns below the same parent table.
+     */
+    private static final class Table {
+        private final int index;
+        private final int parent;
+        private final String name;
+        private final MetaData[] columns;
+        // The field holding the record key, or -1 if records are keyed by their record number
+        private final int keyField;
+        private final List<DataWrapper> segments = new ArrayList<>();
+        // The number of rows + 1 of every parent row, 0 if the parent row has no wrapper of this table
+        private int[] childCounts = new int[0];
+        private int rowCount;
+
+        private Table(int index, int parent, String name, MetaData[] columns) {
+            this.index = index;
+            this.parent = parent;
+            this.name = name;
+            this.columns = columns;
+            int primaryKeyField = -1;
+            for (int field = 0; field < columns.length && primaryKeyField < 0; field++) {
+                if (columns[field].isPrimaryKey()) {
+                    primaryKeyField = field;
+                }
+            }
+            this.keyField = primaryKeyField;
+        }
+
+        // Appends the rows of a wrapper of a parent row and returns the index of its first row
+        private int add(int parentRow, DataWrapper dataWrapper) {
+            if (parentRow >= childCounts.length) {
+                childCounts = Arrays.copyOf(childCounts, Math.max(parentRow + 1, childCounts.length * 2));
+            }
+            childCounts[parentRow] = Math.max(childCounts[parentRow], 1) + dataWrapper.getRowCount();
+            segments.add(dataWrapper);
+            int firstRow = rowCount;
+            rowCount += dataWrapper.getRowCount();
+            return firstRow;
+        }
+    }
+}
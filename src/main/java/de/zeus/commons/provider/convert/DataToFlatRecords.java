@@ -0,0 +1,83 @@
+package de.zeus.commons.provider.convert;
+
+import de.zeus.commons.base.interfaces.IRecordWriter;
+import de.zeus.commons.provider.model.ContentFieldData;
+import de.zeus.commons.provider.model.DataWrapper;
+import de.zeus.commons.provider.model.MetaData;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a list of {@code DataWrapper} objects as flat records, depth first: every record is followed
+ * by the records of its child wrappers.
+ *
+ * <p>A record is keyed as in the nested JSON: by the value of its first primary key field, or by its
+ * record number if the wrapper has no primary key field.</p>
+ */
+public class DataToFlatRecords {
+
+    private final IRecordWriter recordWriter;
+    // The wrapper names and record keys from the root record down to the record being written
+    private final List<String> wrapperNames = new ArrayList<>();
+    private final List<String> recordKeys = new ArrayList<>();
+
+    /**
+     * Constructs an instance of {@code DataToFlatRecords}.
+     *
+     * @param recordWriter The writer receiving the records.
+     */
+    public DataToFlatRecords(IRecordWriter recordWriter) {
+        this.recordWriter = recordWriter;
+    }
+
+    /**
+     * Writes the records of a list of DataWrapper objects and their child wrappers.
+     *
+     * @param dataWrappers The top-level DataWrapper objects of the result.
+     * @throws IOException If writing fails.
+     */
+    public void write(List<DataWrapper> dataWrappers) throws IOException {
+        for (DataWrapper dataWrapper : dataWrappers) {
+            writeWrapper(dataWrapper);
+        }
+    }
+
+    private void writeWrapper(DataWrapper dataWrapper) throws IOException {
+        int rowCount = dataWrapper.getRowCount();
+        if (rowCount == 0) {
+            return;
+        }
+        int fieldCount = dataWrapper.getFieldCount(0);
+        MetaData[] columns = new MetaData[fieldCount];
+        ContentFieldData[] fields = new ContentFieldData[fieldCount];
+        // Reused for the values of columnar wrappers
+        ContentFieldData[] columnarFields = new ContentFieldData[fieldCount];
+        int primaryKeyField = -1;
+        for (int field = 0; field < fieldCount; field++) {
+            columnarFields[field] = new ContentFieldData();
+            columns[field] = dataWrapper.getMetaData().get(dataWrapper.getField(0, field, columnarFields[field]).getColumnNumber());
+            if (primaryKeyField < 0 && columns[field].isPrimaryKey()) {
+                primaryKeyField = field;
+            }
+        }
+
+        wrapperNames.add(dataWrapper.getName());
+        recordKeys.add(null);
+        int depth = recordKeys.size() - 1;
+        for (int row = 0; row < rowCount; row++) {
+            for (int field = 0; field < fieldCount; field++) {
+                fields[field] = dataWrapper.getField(row, field, columnarFields[field]);
+            }
+            recordKeys.set(depth, primaryKeyField >= 0
+                    ? fields[primaryKeyField].getValue() : String.valueOf(dataWrapper.getRecordNumber(row)));
+            recordWriter.writeRecord(wrapperNames, recordKeys, columns, fields);
+            for (DataWrapper childWrapper : dataWrapper.getDataWrappers(row)) {
+                writeWrapper(childWrapper);
+            }
+        }
+        wrapperNames.remove(depth);
+        recordKeys.remove(depth);
+    }
+}
@@ -3,19 +3,25 @@ package de.zeus.commons.provider.convert;
 import com.google.gson.JsonObject;
 import de.zeus.commons.base.constants.IConstants;
 import de.zeus.commons.provider.model.ContentFieldData;
-import de.zeus.commons.provider.model.ContentRecordData;
 import de.zeus.commons.provider.model.DataWrapper;
 import de.zeus.commons.provider.model.MetaData;
+import de.zeus.commons.provider.model.RequestStatistics;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * This class is responsible for converting a list
  * of {@code DataWrapper} objects into a JSON representation.
  * It allows for the optional inclusion of metadata.
+ *
+ * @deprecated Responses are written by {@link DataToJSONStream}, which produces the same JSON without
+ * building a Gson tree. This class is kept for callers that need the tree and as the reference of the
+ * JSON benchmark.
  */
+@Deprecated
 public class DataToJSON {
     private static final String CONTENT_DATA = "contentData";
     private final List<DataWrapper> dataWrapperList;
@@ -25,6 +31,8 @@ public class DataToJSON {
     private static final Log LOG = LogFactory.getLog(DataToJSON.class);
 
     private final boolean includeMetaData; // Option to include metadata
+    private final boolean compactMetaData; // Option to write the metadata once per wrapper name in the schema section
+    private final ContentFieldData columnarField = new ContentFieldData(); // Reused for the values of columnar wrappers
 
     /**
      * Initializes a new instance of the DataToJSON class.
@@ -33,10 +41,55 @@ public class DataToJSON {
      * @param includeMetaData A flag indicating whether metadata should be included in the JSON output.
      */
     public DataToJSON(List<DataWrapper> dataWrappers, boolean includeMetaData) {
+        this(dataWrappers, includeMetaData, null);
+    }
+
+    /**
+     * Initializes a new instance of the DataToJSON class with an optional statistics section.
+     *
+     * @param dataWrappers    A list of DataWrapper objects containing the data to be converted to JSON.
+     * @param includeMetaData A flag indicating whether metadata should be included in the JSON output.
+     * @param statistics      The execution statistics to include after the content data, or null to omit them.
+     */
+    public DataToJSON(List<DataWrapper> dataWrappers, boolean includeMetaData, RequestStatistics statistics) {
+        this(dataWrappers, includeMetaData, false, statistics);
+    }
+
+    /**
+     * Initializes a new instance of the DataToJSON class with a choice of the metadata layout.
+     *
+     * @param dataWrappers    A list of DataWrapper objects containing the data to be converted to JSON.
+     * @param includeMetaData A flag indicating whether metadata should be included in the JSON output.
+     * @param compactMetaData A flag indicating whether the metadata is written once per wrapper name
+     *                        in a schema section instead of for every field of every record.
+     * @param statistics      The execution statistics to include after the content data, or null to omit them.
+     */
+    public DataToJSON(List<DataWrapper> dataWrappers, boolean includeMetaData, boolean compactMetaData,
+                      RequestStatistics statistics) {
         this.dataWrapperList = dataWrappers;
-        this.includeMetaData = includeMetaData; // Set the option here
+        this.includeMetaData = includeMetaData && !compactMetaData; // Set the option here
+        this.compactMetaData = includeMetaData && compactMetaData;
+        if (this.compactMetaData) {
+            resultJson.add(IConstants.SCHEMA, createSchemaJson(new MetaDataSchema(dataWrappers)));
+        }
         resultJson.add(CONTENT_DATA, contentJson);
         addContentDataToRoot();
+        if (statistics != null) {
+            resultJson.add(IConstants.STATISTICS, createStatisticsJson(statistics));
+        }
+    }
+
+    // Private method to create the statistics JSON, numbers stay JSON numbers
+    private JsonObject createStatisticsJson(RequestStatistics statistics) {
+        JsonObject statisticsJson = new JsonObject();
+        for (Map.Entry<String, Object> entry : statistics.getValues().entrySet()) {
+            if (entry.getValue() instanceof Number) {
+                statisticsJson.addProperty(entry.getKey(), (Number) entry.getValue());
+            } else {
+                statisticsJson.addProperty(entry.getKey(), String.valueOf(entry.getValue()));
+            }
+        }
+        return statisticsJson;
     }
 
     /**
@@ -54,46 +107,47 @@ public class DataToJSON {
     private void addContentDataForWrapper(DataWrapper dataWrapper) {
         JsonObject contentData = new JsonObject();
         contentJson.add(dataWrapper.getName(), contentData);
-        dataWrapper.getContentData().forEach(contentRecord ->
-                addContentDataForRecord(contentData, contentRecord, dataWrapper));
+        for (int row = 0; row < dataWrapper.getRowCount(); row++) {
+            addContentDataForRecord(contentData, row, dataWrapper);
+        }
     }
 
     /**
      * Adds content data for a specific record to the JSON object.
      *
      * @param contentData    The JSON object to which content data should be added.
-     * @param contentRecord  The ContentRecordData object containing the data for the record.
-     * @param dataWrapper    The DataWrapper object containing the metadata for the field.
+     * @param row            The index of the record within the DataWrapper.
+     * @param dataWrapper    The DataWrapper object containing the record and the metadata for the field.
      */
     private void addContentDataForRecord(JsonObject contentData,
-                                         ContentRecordData contentRecord,
+                                         int row,
                                          DataWrapper dataWrapper) {
         JsonObject contentDetail = new JsonObject();
-        String recordKey = getRecordKey(contentRecord, dataWrapper);
+        String recordKey = getRecordKey(row, dataWrapper);
         contentData.add(recordKey, contentDetail);
-        populateContentDetail(contentDetail, contentRecord, dataWrapper);
-        addContentDataToChildJson(contentRecord, contentDetail);
+        populateContentDetail(contentDetail, row, dataWrapper);
+        addContentDataToChildJson(row, dataWrapper, contentDetail);
     }
 
-    // Private method to get the record key
-    private String getRecordKey(ContentRecordData contentRecord, DataWrapper dataWrapper) {
-        return contentRecord.getFieldDataObjs()
-                .stream()
-                .filter(contentField -> dataWrapper
-                        .getMetaData().get(contentField.getColumnNumber()).isPrimaryKey())
-                .map(ContentFieldData::getValue)
-                .findFirst()
-                .orElse(String.valueOf(contentRecord.getRecordNumber()));
+    // Private method to get the record key, the value of the first primary key field or the record number
+    private String getRecordKey(int row, DataWrapper dataWrapper) {
+        for (int field = 0; field < dataWrapper.getFieldCount(row); field++) {
+            ContentFieldData contentField = dataWrapper.getField(row, field, columnarField);
+            if (dataWrapper.getMetaData().get(contentField.getColumnNumber()).isPrimaryKey()) {
+                return contentField.getValue();
+            }
+        }
+        return String.valueOf(dataWrapper.getRecordNumber(row));
     }
 
     // Private method to populate content detail including metadata
-    private void populateContentDetail(JsonObject contentDetail, ContentRecordData contentRecord, DataWrapper dataWrapper) {
-        contentRecord.getFieldDataObjs().forEach(contentField -> {
+    private void populateContentDetail(JsonObject contentDetail, int row, DataWrapper dataWrapper) {
+        for (int field = 0; field < dataWrapper.getFieldCount(row); field++) {
+            ContentFieldData contentField = dataWrapper.getField(row, field, columnarField);
             String columnName = dataWrapper.getMetaData()
                     .get(contentField.getColumnNumber())
                     .getColumnName();
-            String columnValue = contentField.getValue();
-            contentDetail.addProperty(columnName, columnValue);
+            addValueProperty(contentDetail, columnName, contentField);
 
             if (includeMetaData) {
                 JsonObject metaDataJson = createMetaDataJson(dataWrapper, contentField);
@@ -105,7 +159,49 @@ public class DataToJSON {
                     LOG.debug("Included metadata for column: " + columnName);
                 }
             }
-        });
+        }
+    }
+
+    // Private method to add a field value, native numbers and booleans become JSON numbers and booleans
+    private void addValueProperty(JsonObject contentDetail, String columnName, ContentFieldData contentField) {
+        switch (contentField.getValueType()) {
+            case LONG:
+                contentDetail.addProperty(columnName, contentField.getLongValue());
+                break;
+            case DOUBLE:
+                // NaN and infinity have no JSON number representation
+                if (Double.isFinite(contentField.getDoubleValue())) {
+                    contentDetail.addProperty(columnName, contentField.getDoubleValue());
+                } else {
+                    contentDetail.addProperty(columnName, contentField.getValue());
+                }
+                break;
+            case OBJECT:
+                Object objectValue = contentField.getObjectValue();
+                if (objectValue instanceof Number) {
+                    contentDetail.addProperty(columnName, (Number) objectValue);
+                } else if (objectValue instanceof Boolean) {
+                    contentDetail.addProperty(columnName, (Boolean) objectValue);
+                } else {
+                    contentDetail.addProperty(columnName, contentField.getValue());
+                }
+                break;
+            default:
+                contentDetail.addProperty(columnName, contentField.getValue());
+        }
+    }
+
+    // Private method to create the schema JSON, the metadata of every wrapper name keyed by column name
+    private JsonObject createSchemaJson(MetaDataSchema schema) {
+        JsonObject schemaJson = new JsonObject();
+        for (Map.Entry<String, Map<String, MetaData>> wrapper : schema.getWrapperColumns().entrySet()) {
+            JsonObject columnsJson = new JsonObject();
+            for (Map.Entry<String, MetaData> column : wrapper.getValue().entrySet()) {
+                columnsJson.add(column.getKey(), createMetaDataJson(column.getValue()));
+            }
+            schemaJson.add(wrapper.getKey(), columnsJson);
+        }
+        return schemaJson;
     }
 
     // Private method to create metadata JSON
@@ -115,27 +211,32 @@ public class DataToJSON {
         MetaData metaData = dataWrapper.getMetaDataForField(columnNumber);
 
         if (metaData != null) {
-            JsonObject metaDataJson = new JsonObject();
-            metaDataJson.addProperty(IConstants.COLUMN_NUMBER,
-                    metaData.getColumnNumber());
-            metaDataJson.addProperty(IConstants.IS_PRIMARY_KEY,
-                    metaData.isPrimaryKey());
-            metaDataJson.addProperty(IConstants.DATA_TYPE_NAME,
-                    metaData.getColumnSqlDataTypeName());
-            metaDataJson.addProperty(IConstants.DATA_TYPE_ID,
-                    metaData.getColumnSqlDataType());
-            metaDataJson.addProperty(IConstants.CLASS_NAME,
-                    metaData.getColumnClassName());
-            return metaDataJson;
+            return createMetaDataJson(metaData);
         }
 
         return null;
     }
 
+    // Private method to create the metadata JSON of a column
+    private JsonObject createMetaDataJson(MetaData metaData) {
+        JsonObject metaDataJson = new JsonObject();
+        metaDataJson.addProperty(IConstants.COLUMN_NUMBER,
+                metaData.getColumnNumber());
+        metaDataJson.addProperty(IConstants.IS_PRIMARY_KEY,
+                metaData.isPrimaryKey());
+        metaDataJson.addProperty(IConstants.DATA_TYPE_NAME,
+                metaData.getColumnSqlDataTypeName());
+        metaDataJson.addProperty(IConstants.DATA_TYPE_ID,
+                metaData.getColumnSqlDataType());
+        metaDataJson.addProperty(IConstants.CLASS_NAME,
+                metaData.getColumnClassName());
+        return metaDataJson;
+    }
+
     // Private method to add content data for child records to JSON
-    private void addContentDataToChildJson(ContentRecordData contentRecord,
+    private void addContentDataToChildJson(int row, DataWrapper dataWrapper,
                                            JsonObject contentDetail) {
-        contentRecord.getDataWrappers().forEach(dataChildWrapper ->
+        dataWrapper.getDataWrappers(row).forEach(dataChildWrapper ->
                 addContentDataForChildWrapper(contentDetail, dataChildWrapper));
     }
 
@@ -144,19 +245,20 @@ public class DataToJSON {
                                                DataWrapper dataChildWrapper) {
         JsonObject contentChild = new JsonObject();
         contentDetail.add(dataChildWrapper.getName(), contentChild);
-        dataChildWrapper.getContentData().forEach(contentRec ->
-                addContentDataForChildRecord(contentChild, contentRec, dataChildWrapper));
+        for (int row = 0; row < dataChildWrapper.getRowCount(); row++) {
+            addContentDataForChildRecord(contentChild, row, dataChildWrapper);
+        }
     }
 
     // Private method to add content data for child records' content records to JSON
     private void addContentDataForChildRecord(JsonObject contentChild,
-                                              ContentRecordData contentRec,
+                                              int row,
                                               DataWrapper dataChildWrapper) {
         JsonObject childDetail = new JsonObject();
-        String childRecordKey = getRecordKey(contentRec, dataChildWrapper);
+        String childRecordKey = getRecordKey(row, dataChildWrapper);
         contentChild.add(childRecordKey, childDetail);
-        populateContentDetail(childDetail, contentRec, dataChildWrapper);
-        addContentDataToChildJson(contentRec, childDetail);
+        populateContentDetail(childDetail, row, dataChildWrapper);
+        addContentDataToChildJson(row, dataChildWrapper, childDetail);
     }
 
     /**
@@ -0,0 +1,445 @@
+package de.zeus.commons.provider.convert;
+
+import de.zeus.commons.base.constants.IConstants;
+import de.zeus.commons.provider.model.ContentFieldData;
+import de.zeus.commons.provider.model.DataWrapper;
+import de.zeus.commons.provider.model.MetaData;
+import de.zeus.commons.provider.model.RequestStatistics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes a list of {@code DataWrapper} objects as UTF-8 encoded JSON while walking the result, without
+ * building a JSON tree first. The output is the same as that of the result serialized as a Gson {@code JsonObject}.
+ *
+ * <p>The JSON is written by a {@link Utf8JsonWriter}. The column names, the metadata keys and the
+ * metadata objects of a wrapper are encoded once and copied into every record.</p>
+ *
+ * <p>Like a {@code JsonObject}, the writer emits every key once: if several records share a record
+ * key, or several entries of a record share a name, the last one is written at the position of the first.</p>
+ */
+public class DataToJSONStream {
+    private static final byte[] CONTENT_DATA = Utf8JsonWriter.encodeName("contentData");
+    private static final byte[] SCHEMA = Utf8JsonWriter.encodeName(IConstants.SCHEMA);
+    private static final byte[] STATISTICS = Utf8JsonWriter.encodeName(IConstants.STATISTICS);
+    private static final byte[] NEXT_PAGE_TOKEN = Utf8JsonWriter.encodeName(IConstants.NEXT_PAGE_TOKEN);
+    private static final byte[] COLUMN_NUMBER = Utf8JsonWriter.encodeName(IConstants.COLUMN_NUMBER);
+    private static final byte[] IS_PRIMARY_KEY = Utf8JsonWriter.encodeName(IConstants.IS_PRIMARY_KEY);
+    private static final byte[] DATA_TYPE_NAME = Utf8JsonWriter.encodeName(IConstants.DATA_TYPE_NAME);
+    private static final byte[] DATA_TYPE_ID = Utf8JsonWriter.encodeName(IConstants.DATA_TYPE_ID);
+    private static final byte[] CLASS_NAME = Utf8JsonWriter.encodeName(IConstants.CLASS_NAME);
+
+    private final Utf8JsonWriter writer;
+    private final boolean includeMetaData; // Metadata written for every field of every record
+    private final boolean compactMetaData; // Metadata written once per wrapper name in the schema section
+    private final ContentFieldData columnarField = new ContentFieldData(); // Reused for the values of columnar wrappers
+
+    /**
+     * Initializes a new instance of the DataToJSONStream class.
+     *
+     * @param out             The stream receiving the JSON; it is flushed but not closed.
+     * @param includeMetaData A flag indicating whether metadata should be included in the JSON output.
+     */
+    public DataToJSONStream(OutputStream out, boolean includeMetaData) {
+        this(out, includeMetaData, false);
+    }
+
+    /**
+     * Initializes a new instance of the DataToJSONStream class with a choice of the metadata layout.
+     *
+     * @param out             The stream receiving the JSON; it is flushed but not closed.
+     * @param includeMetaData A flag indicating whether metadata should be included in the JSON output.
+     * @param compactMetaData A flag indicating whether the metadata is written once per wrapper name
+     *                        in a schema section instead of for every field of every record.
+     */
+    public DataToJSONStream(OutputStream out, boolean includeMetaData, boolean compactMetaData) {
+        this.writer = new Utf8JsonWriter(out);
+        this.includeMetaData = includeMetaData && !compactMetaData;
+        this.compactMetaData = includeMetaData && compactMetaData;
+    }
+
+    /**
+     * Writes the content data and, optionally, the statistics. The writer can be used once.
+     *
+     * @param dataWrappers A list of DataWrapper objects containing the data to be written.
+     * @param statistics   The execution statistics to write after the content data, or null to omit them.
+     * @throws IOException If writing fails.
+     */
+    public void write(List<DataWrapper> dataWrappers, RequestStatistics statistics) throws IOException {
+        write(dataWrappers, statistics, null);
+    }
+
+    /**
+     * Writes the content data, the continuation token of the next page and, optionally, the statistics.
+     * The writer can be used once.
+     *
+     * @param dataWrappers  A list of DataWrapper objects containing the data to be written.
+     * @param statistics    The execution statistics to write after the content data, or null to omit them.
+     * @param nextPageToken The continuation token to write after the content data, or null if there is no next page.
+     * @throws IOException If writing fails.
+     */
+    public void write(List<DataWrapper> dataWrappers, RequestStatistics statistics, String nextPageToken)
+            throws IOException {
+        writer.beginObject();
+        if (compactMetaData) {
+            writer.name(SCHEMA);
+            writeSchema(new MetaDataSchema(dataWrappers));
+        }
+        writer.name(CONTENT_DATA);
+        writer.beginObject();
+        String[] wrapperNames = new String[dataWrappers.size()];
+        for (int i = 0; i < wrapperNames.length; i++) {
+            wrapperNames[i] = dataWrappers.get(i).getName();
+        }
+        for (int i : emissionOrder(wrapperNames)) {
+            writeWrapper(dataWrappers.get(i));
+        }
+        writer.endObject();
+        if (nextPageToken != null) {
+            writer.name(NEXT_PAGE_TOKEN).value(nextPageToken);
+        }
+        if (statistics != null) {
+            writer.name(STATISTICS);
+            writeStatistics(statistics);
+        }
+        writer.endObject();
+        writer.close();
+    }
+
+    /**
+     * Gets the JSON as a string.
+     *
+     * @param dataWrappers    A list of DataWrapper objects containing the data to be written.
+     * @param includeMetaData A flag indicating whether metadata should be included in the JSON output.
+     * @param compactMetaData A flag indicating whether the metadata is written in a schema section.
+     * @param statistics      The execution statistics to write after the content data, or null to omit them.
+     * @return The JSON.
+     */
+    public static String toJson(List<DataWrapper> dataWrappers, boolean includeMetaData, boolean compactMetaData,
+                                RequestStatistics statistics) {
+        return toJson(dataWrappers, includeMetaData, compactMetaData, statistics, null);
+    }
+
+    /**
+     * Gets the JSON as a string, including the continuation token of the next page.
+     *
+     * @param dataWrappers    A list of DataWrapper objects containing the data to be written.
+     * @param includeMetaData A flag indicating whether metadata should be included in the JSON output.
+     * @param compactMetaData A flag indicating whether the metadata is written in a schema section.
+     * @param statistics      The execution statistics to write after the content data, or null to omit them.
+     * @param nextPageToken   The continuation token to write after the content data, or null if there is no next page.
+     * @return The JSON.
+     */
+    public static String toJson(List<DataWrapper> dataWrappers, boolean includeMetaData, boolean compactMetaData,
+                                RequestStatistics statistics, String nextPageToken) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            new DataToJSONStream(out, includeMetaData, compactMetaData).write(dataWrappers, statistics, nextPageToken);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    // Writes the statistics, numbers stay JSON numbers
+    private void writeStatistics(RequestStatistics statistics) throws IOException {
+        writer.beginObject();
+        Map<String, Object> values = statistics.getValues();
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            writer.name(entry.getKey());
+            if (entry.getValue() instanceof Number) {
+                writer.value((Number) entry.getValue());
+            } else {
+                writer.value(String.valueOf(entry.getValue()));
+            }
+        }
+        writer.endObject();
+    }
+
+    // Writes the metadata of every wrapper name keyed by column name
+    private void writeSchema(MetaDataSchema schema) throws IOException {
+        writer.beginObject();
+        for (Map.Entry<String, Map<String, MetaData>> wrapper : schema.getWrapperColumns().entrySet()) {
+            writer.name(wrapper.getKey());
+            writer.beginObject();
+            for (Map.Entry<String, MetaData> column : wrapper.getValue().entrySet()) {
+                writer.name(column.getKey());
+                writeMetaData(column.getValue());
+            }
+            writer.endObject();
+        }
+        writer.endObject();
+    }
+
+    // Writes a wrapper as an object of records keyed by their record key
+    private void writeWrapper(DataWrapper dataWrapper) throws IOException {
+        writer.name(dataWrapper.getName());
+        writer.beginObject();
+        WrapperLayout layout = new WrapperLayout(dataWrapper);
+        int rowCount = dataWrapper.getRowCount();
+        if (layout.primaryKeyField < 0) {
+            // Record numbers are unique within a wrapper
+            for (int row = 0; row < rowCount; row++) {
+                writer.name(dataWrapper.getRecordNumber(row));
+                writeRecord(dataWrapper, row, layout);
+            }
+        } else if (hasAscendingKeys(dataWrapper, layout.primaryKeyField)) {
+            for (int row = 0; row < rowCount; row++) {
+                ContentFieldData recordKey = dataWrapper.getField(row, layout.primaryKeyField, columnarField);
+                if (recordKey.getValueType() == ContentFieldData.ValueType.LONG) {
+                    writer.name(recordKey.getLongValue());
+                } else {
+                    writer.name(recordKey.getValue());
+                }
+                writeRecord(dataWrapper, row, layout);
+            }
+        } else {
+            String[] recordKeys = new String[rowCount];
+            for (int row = 0; row < rowCount; row++) {
+                recordKeys[row] = dataWrapper.getField(row, layout.primaryKeyField, columnarField).getValue();
+            }
+            for (int row : emissionOrder(recordKeys)) {
+                writer.name(recordKeys[row]);
+                writeRecord(dataWrapper, row, layout);
+            }
+        }
+        writer.endObject();
+    }
+
+    /**
+     * Checks whether the record keys of a wrapper ascend, as with a result read in primary key order.
+     * Ascending keys are unique, so the records are written in row order without collecting their keys.
+     * Native long keys are compared as numbers, keys made of digits by length and then as strings, as
+     * are all other keys; a wrapper mixing these kinds of keys is not checked.
+     */
+    private boolean hasAscendingKeys(DataWrapper dataWrapper, int keyField) {
+        int keyKind = -1;
+        long previousLong = 0;
+        String previousValue = null;
+        for (int row = 0; row < dataWrapper.getRowCount(); row++) {
+            ContentFieldData recordKey = dataWrapper.getField(row, keyField, columnarField);
+            int kind = recordKey.getValueType() == ContentFieldData.ValueType.LONG ? 0 : isDigits(recordKey.getValue()) ? 1 : 2;
+            if (row == 0) {
+                keyKind = kind;
+            } else if (kind != keyKind) {
+                return false;
+            } else if (kind == 0 ? recordKey.getLongValue() <= previousLong
+                    : compareKeys(recordKey.getValue(), previousValue, kind == 1) <= 0) {
+                return false;
+            }
+            if (kind == 0) {
+                previousLong = recordKey.getLongValue();
+            } else {
+                previousValue = recordKey.getValue();
+            }
+        }
+        return true;
+    }
+
+    // Whether a key is a non-negative integer without leading zeros
+    private static boolean isDigits(String key) {
+        int length = key.length();
+        if (length == 0 || (key.charAt(0) == '0' && length > 1)) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key.charAt(i) < '0' || key.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int compareKeys(String key, String previousKey, boolean digits) {
+        if (digits && key.length() != previousKey.length()) {
+            return key.length() - previousKey.length();
+        }
+        return key.compareTo(previousKey);
+    }
+
+    // Writes the fields, their metadata and the child wrappers of a record
+    private void writeRecord(DataWrapper dataWrapper, int row, WrapperLayout layout) throws IOException {
+        writer.beginObject();
+        List<DataWrapper> childWrappers = dataWrapper.getDataWrappers(row);
+        if (layout.uniqueNames && hasUniqueNames(childWrappers, layout)) {
+            for (int field = 0; field < layout.encodedNames.length; field++) {
+                writeField(dataWrapper, row, field, layout);
+            }
+            for (DataWrapper childWrapper : childWrappers) {
+                writeWrapper(childWrapper);
+            }
+        } else {
+            writeRecordEntries(dataWrapper, row, layout, childWrappers);
+        }
+        writer.endObject();
+    }
+
+    // Writes a record whose entries share names, each name once with its last entry
+    private void writeRecordEntries(DataWrapper dataWrapper, int row, WrapperLayout layout,
+                                    List<DataWrapper> childWrappers) throws IOException {
+        int fieldEntries = layout.entryNames.size();
+        String[] names = new String[fieldEntries + childWrappers.size()];
+        layout.entryNames.toArray(names);
+        for (int i = 0; i < childWrappers.size(); i++) {
+            names[fieldEntries + i] = childWrappers.get(i).getName();
+        }
+        int entriesPerField = includeMetaData ? 2 : 1;
+        for (int entry : emissionOrder(names)) {
+            if (entry >= fieldEntries) {
+                writeWrapper(childWrappers.get(entry - fieldEntries));
+            } else if (entry % entriesPerField == 0) {
+                writer.name(names[entry]);
+                writeValue(dataWrapper.getField(row, entry / entriesPerField, columnarField));
+            } else {
+                writer.name(names[entry]);
+                writer.jsonValue(layout.encodedMetaData[entry / entriesPerField]);
+            }
+        }
+    }
+
+    private boolean hasUniqueNames(List<DataWrapper> childWrappers, WrapperLayout layout) {
+        if (childWrappers.isEmpty()) {
+            return true;
+        }
+        Set<String> names = new HashSet<>();
+        for (DataWrapper childWrapper : childWrappers) {
+            if (layout.entryNameSet.contains(childWrapper.getName()) || !names.add(childWrapper.getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeField(DataWrapper dataWrapper, int row, int field, WrapperLayout layout) throws IOException {
+        writer.name(layout.encodedNames[field]);
+        writeValue(dataWrapper.getField(row, field, columnarField));
+        if (includeMetaData) {
+            writer.name(layout.encodedMetaDataNames[field]);
+            writer.jsonValue(layout.encodedMetaData[field]);
+        }
+    }
+
+    // Writes a field value, native numbers and booleans become JSON numbers and booleans
+    private void writeValue(ContentFieldData contentField) throws IOException {
+        switch (contentField.getValueType()) {
+            case LONG:
+                writer.value(contentField.getLongValue());
+                break;
+            case DOUBLE:
+                // NaN and infinity have no JSON number representation
+                if (Double.isFinite(contentField.getDoubleValue())) {
+                    writer.value(contentField.getDoubleValue());
+                } else {
+                    writer.value(contentField.getValue());
+                }
+                break;
+            case OBJECT:
+                Object objectValue = contentField.getObjectValue();
+                if (objectValue instanceof Number) {
+                    writer.value((Number) objectValue);
+                } else if (objectValue instanceof Boolean) {
+                    writer.value((Boolean) objectValue);
+                } else {
+                    writer.value(contentField.getValue());
+                }
+                break;
+            default:
+                writer.value(contentField.getValue());
+        }
+    }
+
+    private void writeMetaData(MetaData metaData) throws IOException {
+        writeMetaData(writer, metaData);
+    }
+
+    private static void writeMetaData(Utf8JsonWriter writer, MetaData metaData) throws IOException {
+        writer.beginObject();
+        writer.name(COLUMN_NUMBER).value(metaData.getColumnNumber());
+        writer.name(IS_PRIMARY_KEY).value(metaData.isPrimaryKey());
+        writer.name(DATA_TYPE_NAME).value(metaData.getColumnSqlDataTypeName());
+        writer.name(DATA_TYPE_ID).value(metaData.getColumnSqlDataType());
+        writer.name(CLASS_NAME).value(metaData.getColumnClassName());
+        writer.endObject();
+    }
+
+    // Encodes the metadata object of a column once for all records of its wrapper
+    private static byte[] encodeMetaData(MetaData metaData) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        try (Utf8JsonWriter metaDataWriter = new Utf8JsonWriter(out)) {
+            writeMetaData(metaDataWriter, metaData);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Gets the order in which entries are written so that every name is written once, with its last
+     * entry at the position of its first, as a {@code JsonObject} does when a key is added again.
+     *
+     * @param names The names of the entries.
+     * @return The indexes of the entries to write.
+     */
+    private static int[] emissionOrder(String[] names) {
+        Map<String, Integer> lastEntry = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            lastEntry.put(names[i], i);
+        }
+        int[] order = new int[lastEntry.size()];
+        int position = 0;
+        for (int i = 0; i < names.length; i++) {
+            Integer last = lastEntry.remove(names[i]);
+            if (last != null) {
+                order[position++] = last;
+            }
+        }
+        return order;
+    }
+
+    /**
+     * The encoded column names and metadata shared by all records of a wrapper.
+     */
+    private final class WrapperLayout {
+        private final byte[][] encodedNames;
+        private final byte[][] encodedMetaDataNames;
+        private final byte[][] encodedMetaData;
+        private final List<String> entryNames = new ArrayList<>();
+        private final Set<String> entryNameSet = new HashSet<>();
+        private final boolean uniqueNames;
+        // The field holding the record key, or -1 if records are keyed by their record number
+        private int primaryKeyField = -1;
+
+        private WrapperLayout(DataWrapper dataWrapper) {
+            int fieldCount = dataWrapper.getRowCount() > 0 ? dataWrapper.getFieldCount(0) : 0;
+            encodedNames = new byte[fieldCount][];
+            encodedMetaDataNames = new byte[fieldCount][];
+            encodedMetaData = new byte[fieldCount][];
+            for (int field = 0; field < fieldCount; field++) {
+                MetaData metaData = dataWrapper.getMetaData().get(dataWrapper.getField(0, field, columnarField).getColumnNumber());
+                String columnName = metaData.getColumnName();
+                encodedNames[field] = Utf8JsonWriter.encodeName(columnName);
+                entryNames.add(columnName);
+                if (includeMetaData) {
+                    encodedMetaDataNames[field] = Utf8JsonWriter.encodeName(columnName + IConstants.META_DATA_SUFFIX);
+                    encodedMetaData[field] = encodeMetaData(metaData);
+                    entryNames.add(columnName + IConstants.META_DATA_SUFFIX);
+                }
+                if (primaryKeyField < 0 && metaData.isPrimaryKey()) {
+                    primaryKeyField = field;
+                }
+            }
+            entryNameSet.addAll(entryNames);
+            uniqueNames = entryNameSet.size() == entryNames.size();
+        }
+    }
+}
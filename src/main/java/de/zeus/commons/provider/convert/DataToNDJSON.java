@@ -0,0 +1,89 @@
+package de.zeus.commons.provider.convert;
+
+import com.google.gson.stream.JsonWriter;
+import de.zeus.commons.base.constants.IConstants;
+import de.zeus.commons.base.interfaces.IRecordWriter;
+import de.zeus.commons.provider.model.ContentFieldData;
+import de.zeus.commons.provider.model.MetaData;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes records as newline-delimited JSON, one object per line holding the wrapper name, the path
+ * of record keys from the root record down to the record, and the fields:
+ * {@code {"_name":"orders","_path":["A001","200100"],"ORD_NUM":"200100",...}}.
+ *
+ * <p>Every line is written as soon as the record is passed, so a result can be written while it is read.</p>
+ */
+public class DataToNDJSON implements IRecordWriter {
+
+    private final Writer out;
+    private final JsonWriter writer;
+
+    /**
+     * Initializes a new instance of the DataToNDJSON class.
+     *
+     * @param out The writer receiving the lines; it is flushed but not closed.
+     */
+    public DataToNDJSON(Writer out) {
+        this.out = out;
+        this.writer = new JsonWriter(out);
+        // Allows one top-level value after the other
+        this.writer.setLenient(true);
+    }
+
+    @Override
+    public void writeRecord(List<String> wrapperNames, List<String> recordKeys, MetaData[] columns,
+                            ContentFieldData[] fields) throws IOException {
+        writer.beginObject();
+        writer.name(IConstants.RECORD_NAME).value(wrapperNames.get(wrapperNames.size() - 1));
+        writer.name(IConstants.RECORD_PATH);
+        writer.beginArray();
+        for (String recordKey : recordKeys) {
+            writer.value(recordKey);
+        }
+        writer.endArray();
+        for (int field = 0; field < fields.length; field++) {
+            writer.name(columns[field].getColumnName());
+            writeValue(fields[field]);
+        }
+        writer.endObject();
+        out.write('\n');
+    }
+
+    // Writes a field value as the nested JSON does, native numbers and booleans become JSON numbers and booleans
+    private void writeValue(ContentFieldData contentField) throws IOException {
+        switch (contentField.getValueType()) {
+            case LONG:
+                writer.value(contentField.getLongValue());
+                break;
+            case DOUBLE:
+                // NaN and infinity have no JSON number representation
+                if (Double.isFinite(contentField.getDoubleValue())) {
+                    writer.value(contentField.getDoubleValue());
+                } else {
+                    writer.value(contentField.getValue());
+                }
+                break;
+            case OBJECT:
+                Object objectValue = contentField.getObjectValue();
+                if (objectValue instanceof Number) {
+                    writer.value((Number) objectValue);
+                } else if (objectValue instanceof Boolean) {
+                    writer.value((Boolean) objectValue);
+                } else {
+                    writer.value(contentField.getValue());
+                }
+                break;
+            default:
+                writer.value(contentField.getValue());
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+}
@@ -2,24 +2,40 @@ package de.zeus.commons.provider.convert;
 
 import de.zeus.commons.base.constants.IConstants;
 import de.zeus.commons.provider.model.ContentFieldData;
-import de.zeus.commons.provider.model.ContentRecordData;
 import de.zeus.commons.provider.model.DataWrapper;
 import de.zeus.commons.provider.model.MetaData;
-import org.jdom2.Document;
-import org.jdom2.Element;
-import org.jdom2.output.XMLOutputter;
+import de.zeus.commons.provider.model.RequestStatistics;
 
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A class to convert a list of {@code DataWrapper} objects into an XML representation.
+ *
+ * <p>The elements are written with an {@code XMLStreamWriter} while the records are visited, so the
+ * result can be streamed to a response without building a document tree first.</p>
  */
 public class DataToXML {
 
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+    // The declaration and the line separator written by XMLOutputter for a UTF-8 document
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+    private static final String LINE_SEPARATOR = "\r\n";
+
     private final List<DataWrapper> dataWrapperList;
-    private final Element rootElement;
-    private final Element contentElement;
-    private final boolean includeMetaData;
+    private final boolean includeMetaData; // Metadata written for every field of every record
+    private final boolean compactMetaData; // Metadata written once per wrapper name in the schema element
+    private final RequestStatistics statistics;
+    private String nextPageToken;
+    private final ContentFieldData columnarField = new ContentFieldData(); // Reused for the values of columnar wrappers
+    private XMLStreamWriter xmlWriter;
 
     /**
      * Constructs an instance of {@code DataToXML}.
@@ -28,116 +44,210 @@ public class DataToXML {
      * @param includeMetaData Whether to include metadata in the XML.
      */
     public DataToXML(List<DataWrapper> dataWrappers, boolean includeMetaData) {
+        this(dataWrappers, includeMetaData, null);
+    }
+
+    /**
+     * Constructs an instance of {@code DataToXML} with an optional statistics element.
+     *
+     * @param dataWrappers    The list of DataWrapper objects to convert.
+     * @param includeMetaData Whether to include metadata in the XML.
+     * @param statistics      The execution statistics to include after the content data, or null to omit them.
+     */
+    public DataToXML(List<DataWrapper> dataWrappers, boolean includeMetaData, RequestStatistics statistics) {
+        this(dataWrappers, includeMetaData, false, statistics);
+    }
+
+    /**
+     * Constructs an instance of {@code DataToXML} with a choice of the metadata layout.
+     *
+     * @param dataWrappers    The list of DataWrapper objects to convert.
+     * @param includeMetaData Whether to include metadata in the XML.
+     * @param compactMetaData Whether the metadata is written once per wrapper name in a schema element
+     *                        instead of for every field of every record.
+     * @param statistics      The execution statistics to include after the content data, or null to omit them.
+     */
+    public DataToXML(List<DataWrapper> dataWrappers, boolean includeMetaData, boolean compactMetaData,
+                     RequestStatistics statistics) {
         this.dataWrapperList = dataWrappers;
-        this.includeMetaData = includeMetaData;
+        this.includeMetaData = includeMetaData && !compactMetaData;
+        this.compactMetaData = includeMetaData && compactMetaData;
+        this.statistics = statistics;
+    }
 
-        this.rootElement = new Element("result");
-        this.contentElement = new Element("contentData");
+    /**
+     * Sets the continuation token of the next page, written after the content data.
+     *
+     * @param nextPageToken The token, or null if there is no next page.
+     */
+    public void setNextPageToken(String nextPageToken) {
+        this.nextPageToken = nextPageToken;
+    }
 
-        this.rootElement.addContent(contentElement);
-        addContentDataToRoot();
+    /**
+     * Writes the XML document to a writer.
+     *
+     * @param out The writer receiving the XML; it is flushed but not closed.
+     * @throws IOException If writing fails.
+     */
+    public void write(Writer out) throws IOException {
+        out.write(XML_DECLARATION);
+        out.write(LINE_SEPARATOR);
+        try {
+            xmlWriter = OUTPUT_FACTORY.createXMLStreamWriter(out);
+            xmlWriter.writeStartElement("result");
+            if (compactMetaData) {
+                writeSchemaElement(new MetaDataSchema(dataWrapperList));
+            }
+            xmlWriter.writeStartElement("contentData");
+            for (DataWrapper dataWrapper : dataWrapperList) {
+                writeWrapperElement(dataWrapper);
+            }
+            xmlWriter.writeEndElement();
+            if (nextPageToken != null) {
+                writeSimpleElement(IConstants.NEXT_PAGE_TOKEN, nextPageToken);
+            }
+            if (statistics != null) {
+                writeStatisticsElement();
+            }
+            xmlWriter.writeEndElement();
+            xmlWriter.flush();
+            out.write(LINE_SEPARATOR);
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to write the XML result", e);
+        } finally {
+            xmlWriter = null;
+        }
+        out.flush();
     }
 
     /**
-     * Adds content data to the root element.
+     * Writes an XML element holding the execution statistics.
+     *
+     * @throws XMLStreamException If writing fails.
      */
-    private void addContentDataToRoot() {
-        for (DataWrapper dataWrapper : dataWrapperList) {
-            addContentDataForWrapper(dataWrapper);
+    private void writeStatisticsElement() throws XMLStreamException {
+        xmlWriter.writeStartElement(IConstants.STATISTICS);
+        for (Map.Entry<String, Object> entry : statistics.getValues().entrySet()) {
+            writeSimpleElement(entry.getKey(), String.valueOf(entry.getValue()));
         }
+        xmlWriter.writeEndElement();
     }
 
     /**
-     * Adds content data for a single DataWrapper.
+     * Writes an XML element holding the metadata of every wrapper name, with one element per column.
      *
-     * @param dataWrapper The DataWrapper to process.
+     * @param schema The metadata of the wrapper names.
+     * @throws XMLStreamException If writing fails.
      */
-    private void addContentDataForWrapper(DataWrapper dataWrapper) {
-        Element wrapperElement = new Element(dataWrapper.getName());
-        contentElement.addContent(wrapperElement);
-        populateWrapperElement(dataWrapper, wrapperElement);
+    private void writeSchemaElement(MetaDataSchema schema) throws XMLStreamException {
+        xmlWriter.writeStartElement(IConstants.SCHEMA);
+        for (Map.Entry<String, Map<String, MetaData>> wrapper : schema.getWrapperColumns().entrySet()) {
+            xmlWriter.writeStartElement(wrapper.getKey());
+            for (Map.Entry<String, MetaData> column : wrapper.getValue().entrySet()) {
+                xmlWriter.writeStartElement(column.getKey());
+                writeMetaDataElement(column.getValue());
+                xmlWriter.writeEndElement();
+            }
+            xmlWriter.writeEndElement();
+        }
+        xmlWriter.writeEndElement();
     }
 
     /**
-     * Populates the wrapper element with content records.
+     * Writes the element of a DataWrapper with one entity element per record.
      *
-     * @param dataWrapper    The DataWrapper to process.
-     * @param wrapperElement The wrapper element to populate.
+     * @param dataWrapper The DataWrapper to process.
+     * @throws XMLStreamException If writing fails.
      */
-    private void populateWrapperElement(DataWrapper dataWrapper, Element wrapperElement) {
-        for (ContentRecordData contentRecord : dataWrapper.getContentData()) {
-            Element recordElement = new Element("entity");
-            wrapperElement.addContent(recordElement);
-            populateRecordElement(contentRecord, dataWrapper, recordElement);
+    private void writeWrapperElement(DataWrapper dataWrapper) throws XMLStreamException {
+        if (dataWrapper.getRowCount() == 0) {
+            // XMLOutputter writes "<name />", which is the same element
+            xmlWriter.writeEmptyElement(dataWrapper.getName());
+            return;
         }
+        xmlWriter.writeStartElement(dataWrapper.getName());
+        for (int row = 0; row < dataWrapper.getRowCount(); row++) {
+            xmlWriter.writeStartElement("entity");
+            writeRecordElements(row, dataWrapper);
+            xmlWriter.writeEndElement();
+        }
+        xmlWriter.writeEndElement();
     }
 
     /**
-     * Populates the record element with field data.
+     * Writes the field elements and the child wrapper elements of a record.
      *
-     * @param contentRecord The ContentRecordData to process.
-     * @param dataWrapper   The parent DataWrapper.
-     * @param recordElement The record element to populate.
+     * @param row         The index of the record within the DataWrapper.
+     * @param dataWrapper The DataWrapper holding the record.
+     * @throws XMLStreamException If writing fails.
      */
-    private void populateRecordElement(ContentRecordData contentRecord, DataWrapper dataWrapper, Element recordElement) {
-        for (ContentFieldData contentField : contentRecord.getFieldDataObjs()) {
+    private void writeRecordElements(int row, DataWrapper dataWrapper) throws XMLStreamException {
+        for (int field = 0; field < dataWrapper.getFieldCount(row); field++) {
+            ContentFieldData contentField = dataWrapper.getField(row, field, columnarField);
             MetaData metaData = dataWrapper.getMetaData().get(contentField.getColumnNumber());
-            Element fieldElement = new Element(metaData.getColumnName());
-            fieldElement.setText(contentField.getValue());
-            recordElement.addContent(fieldElement);
-
+            xmlWriter.writeStartElement(metaData.getColumnName());
+            writeText(contentField.getValue());
             if (includeMetaData) {
-                Element metaDataElement = createMetaDataElement(metaData);
-                fieldElement.addContent(metaDataElement);
+                writeMetaDataElement(metaData);
             }
+            xmlWriter.writeEndElement();
+        }
+        for (DataWrapper childWrapper : dataWrapper.getDataWrappers(row)) {
+            writeWrapperElement(childWrapper);
         }
-        addContentDataToChildElement(contentRecord, recordElement);
     }
 
     /**
-     * Creates an XML element to represent the metadata.
+     * Writes an XML element representing the metadata.
      *
      * @param metaData The MetaData to convert.
-     * @return An XML element representing the metadata.
+     * @throws XMLStreamException If writing fails.
      */
-    private Element createMetaDataElement(MetaData metaData) {
-        Element metaDataElement = new Element(IConstants.META_DATA_SUFFIX);
+    private void writeMetaDataElement(MetaData metaData) throws XMLStreamException {
+        xmlWriter.writeStartElement(IConstants.META_DATA_SUFFIX);
 
-        addSimpleElement(metaDataElement, IConstants.COLUMN_NUMBER, String.valueOf(metaData.getColumnNumber()));
-        addSimpleElement(metaDataElement, IConstants.IS_PRIMARY_KEY, String.valueOf(metaData.isPrimaryKey()));
-        addSimpleElement(metaDataElement, IConstants.DATA_TYPE_NAME, metaData.getColumnSqlDataTypeName());
-        addSimpleElement(metaDataElement, IConstants.DATA_TYPE_ID, String.valueOf(metaData.getColumnSqlDataType()));
-        addSimpleElement(metaDataElement, IConstants.CLASS_NAME, metaData.getColumnClassName());
+        writeSimpleElement(IConstants.COLUMN_NUMBER, String.valueOf(metaData.getColumnNumber()));
+        writeSimpleElement(IConstants.IS_PRIMARY_KEY, String.valueOf(metaData.isPrimaryKey()));
+        writeSimpleElement(IConstants.DATA_TYPE_NAME, metaData.getColumnSqlDataTypeName());
+        writeSimpleElement(IConstants.DATA_TYPE_ID, String.valueOf(metaData.getColumnSqlDataType()));
+        writeSimpleElement(IConstants.CLASS_NAME, metaData.getColumnClassName());
 
-        return metaDataElement;
+        xmlWriter.writeEndElement();
     }
 
     /**
-     * Adds a simple XML element with text content to a parent element.
+     * Writes a simple XML element with text content.
      *
-     * @param parentElement The parent element.
-     * @param elementName   The name of the element to add.
-     * @param textContent   The text content of the element.
+     * @param elementName The name of the element to write.
+     * @param textContent The text content of the element.
+     * @throws XMLStreamException If writing fails.
      */
-    private void addSimpleElement(Element parentElement, String elementName, String textContent) {
-        Element childElement = new Element(elementName);
-        childElement.setText(textContent);
-        parentElement.addContent(childElement);
+    private void writeSimpleElement(String elementName, String textContent) throws XMLStreamException {
+        xmlWriter.writeStartElement(elementName);
+        writeText(textContent);
+        xmlWriter.writeEndElement();
     }
 
     /**
-     * Adds content data to a child element.
+     * Writes a text value. Carriage returns are written as character references, as XMLOutputter
+     * does, because a parser would otherwise normalize them to line feeds.
      *
-     * @param contentRecord The ContentRecordData to process.
-     * @param parentElement The parent XML element.
+     * @param text The text to write, may be null.
+     * @throws XMLStreamException If writing fails.
      */
-    private void addContentDataToChildElement(ContentRecordData contentRecord, Element parentElement) {
-        for (DataWrapper childWrapper : contentRecord.getDataWrappers()) {
-            Element childWrapperElement = new Element(childWrapper.getName());
-            parentElement.addContent(childWrapperElement);
-
-            populateWrapperElement(childWrapper, childWrapperElement);
+    private void writeText(String text) throws XMLStreamException {
+        if (text == null || text.isEmpty()) {
+            return;
         }
+        int start = 0;
+        int carriageReturn;
+        while ((carriageReturn = text.indexOf('\r', start)) >= 0) {
+            xmlWriter.writeCharacters(text.substring(start, carriageReturn));
+            xmlWriter.writeEntityRef("#xD");
+            start = carriageReturn + 1;
+        }
+        xmlWriter.writeCharacters(text.substring(start));
     }
 
     /**
@@ -146,6 +256,12 @@ public class DataToXML {
      * @return The XML as a String.
      */
     public String getResult() {
-        return new XMLOutputter().outputString(new Document(this.rootElement));
+        StringWriter out = new StringWriter();
+        try {
+            write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
     }
 }
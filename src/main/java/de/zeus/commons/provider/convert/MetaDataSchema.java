@@ -0,0 +1,60 @@
+package de.zeus.commons.provider.convert;
+
+import de.zeus.commons.provider.model.DataWrapper;
+import de.zeus.commons.provider.model.MetaData;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects the column metadata of all {@code DataWrapper} objects of a result, once per wrapper name.
+ * It is written as the schema section of the compact metadata layout, which replaces the metadata
+ * repeated for every field of every record.
+ *
+ * <p>As with the inline layout, where a later {@code _metadata} entry of the same name replaces an
+ * earlier one, a column named like an earlier column of the same wrapper name replaces its metadata.</p>
+ */
+public class MetaDataSchema {
+
+    // The columns of every wrapper name in the order they are first found, keyed by column name
+    private final Map<String, Map<String, MetaData>> wrapperColumns = new LinkedHashMap<>();
+
+    /**
+     * Collects the schema of a list of DataWrapper objects and their child wrappers.
+     *
+     * @param dataWrappers The top-level DataWrapper objects of the result.
+     */
+    public MetaDataSchema(List<DataWrapper> dataWrappers) {
+        for (DataWrapper dataWrapper : dataWrappers) {
+            collect(dataWrapper);
+        }
+    }
+
+    private void collect(DataWrapper dataWrapper) {
+        merge(dataWrapper);
+        for (int row = 0; row < dataWrapper.getRowCount(); row++) {
+            for (DataWrapper childWrapper : dataWrapper.getDataWrappers(row)) {
+                collect(childWrapper);
+            }
+        }
+    }
+
+    private void merge(DataWrapper dataWrapper) {
+        Map<String, MetaData> columns = wrapperColumns.computeIfAbsent(dataWrapper.getName(), name -> new LinkedHashMap<>());
+        // Fields are written in column order
+        for (MetaData columnMetaData : new TreeMap<>(dataWrapper.getMetaData()).values()) {
+            columns.put(columnMetaData.getColumnName(), columnMetaData);
+        }
+    }
+
+    /**
+     * Gets the columns of every wrapper name.
+     *
+     * @return The metadata keyed by wrapper name and column name.
+     */
+    public Map<String, Map<String, MetaData>> getWrapperColumns() {
+        return wrapperColumns;
+    }
+}
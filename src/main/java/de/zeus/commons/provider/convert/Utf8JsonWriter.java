@@ -0,0 +1,358 @@
+package de.zeus.commons.provider.convert;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Writes JSON objects as UTF-8 straight into a byte buffer, which is written to a stream when it is
+ * full. Buffers are taken from a pool and returned on {@link #close()}; values longer than a buffer are
+ * written in several parts, so every buffer keeps its size.
+ *
+ * <p>The output is the same as that of Gson's {@code JsonWriter} with lenient mode: strings are escaped
+ * as Gson escapes them and unpaired surrogates are written as {@code ?}, as an {@code OutputStreamWriter}
+ * does. Strings are copied char by char into the buffer while they need neither escaping nor
+ * multi-byte encoding. Names used for many objects can be encoded once with {@link #encodeName(String)}.</p>
+ */
+public class Utf8JsonWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 16384;
+    private static final ArrayBlockingQueue<byte[]> BUFFER_POOL = new ArrayBlockingQueue<>(16);
+    // The longest encoding of a single char, a six-byte escape sequence
+    private static final int MAX_CHAR_BYTES = 6;
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final byte[] NULL = "null".getBytes();
+    private static final byte[] TRUE = "true".getBytes();
+    private static final byte[] FALSE = "false".getBytes();
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes();
+    // The escape sequences of ASCII chars, null for chars written as they are
+    private static final byte[][] ESCAPES = new byte[128][];
+
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            ESCAPES[c] = new byte[]{'\\', 'u', '0', '0', HEX[c >> 4], HEX[c & 0xF]};
+        }
+        ESCAPES['"'] = new byte[]{'\\', '"'};
+        ESCAPES['\\'] = new byte[]{'\\', '\\'};
+        ESCAPES['\t'] = new byte[]{'\\', 't'};
+        ESCAPES['\b'] = new byte[]{'\\', 'b'};
+        ESCAPES['\n'] = new byte[]{'\\', 'n'};
+        ESCAPES['\r'] = new byte[]{'\\', 'r'};
+        ESCAPES['\f'] = new byte[]{'\\', 'f'};
+    }
+
+    private final OutputStream out;
+    private byte[] buffer;
+    private int position;
+    // Whether the object at each nesting depth already has an entry
+    private boolean[] hasEntries = new boolean[16];
+    private int depth;
+
+    /**
+     * Initializes a new instance of the Utf8JsonWriter class.
+     *
+     * @param out The stream receiving the JSON; it is flushed but not closed.
+     */
+    public Utf8JsonWriter(OutputStream out) {
+        this.out = out;
+        byte[] pooled = BUFFER_POOL.poll();
+        this.buffer = pooled != null ? pooled : new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * Encodes a name once, so it can be written with {@link #name(byte[])} for many objects.
+     *
+     * @param name The name.
+     * @return The quoted, escaped name followed by the colon.
+     */
+    public static byte[] encodeName(String name) {
+        byte[] encoded = new byte[name.length() * MAX_CHAR_BYTES + 3];
+        int length = encodeString(name, 0, name.length(), encoded, 1);
+        encoded[0] = '"';
+        encoded[length++] = '"';
+        encoded[length++] = ':';
+        return Arrays.copyOf(encoded, length);
+    }
+
+    public Utf8JsonWriter beginObject() throws IOException {
+        require(1);
+        buffer[position++] = '{';
+        if (++depth == hasEntries.length) {
+            hasEntries = Arrays.copyOf(hasEntries, depth * 2);
+        }
+        hasEntries[depth] = false;
+        return this;
+    }
+
+    public Utf8JsonWriter endObject() throws IOException {
+        require(1);
+        buffer[position++] = '}';
+        depth--;
+        return this;
+    }
+
+    public Utf8JsonWriter name(String name) throws IOException {
+        separate();
+        writeString(name);
+        require(1);
+        buffer[position++] = ':';
+        return this;
+    }
+
+    /**
+     * Writes a name given by its record number, without creating its string.
+     *
+     * @param name The name.
+     * @return This writer.
+     * @throws IOException If writing fails.
+     */
+    public Utf8JsonWriter name(long name) throws IOException {
+        separate();
+        require(22);
+        buffer[position++] = '"';
+        writeLong(name);
+        buffer[position++] = '"';
+        buffer[position++] = ':';
+        return this;
+    }
+
+    /**
+     * Writes a name encoded by {@link #encodeName(String)}.
+     *
+     * @param encodedName The encoded name.
+     * @return This writer.
+     * @throws IOException If writing fails.
+     */
+    public Utf8JsonWriter name(byte[] encodedName) throws IOException {
+        separate();
+        writeRaw(encodedName);
+        return this;
+    }
+
+    public Utf8JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        writeString(value);
+        return this;
+    }
+
+    public Utf8JsonWriter value(long value) throws IOException {
+        require(20);
+        writeLong(value);
+        return this;
+    }
+
+    public Utf8JsonWriter value(double value) throws IOException {
+        writeAscii(Double.toString(value));
+        return this;
+    }
+
+    public Utf8JsonWriter value(Number value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return value(value.longValue());
+        }
+        writeAscii(value.toString());
+        return this;
+    }
+
+    public Utf8JsonWriter value(boolean value) throws IOException {
+        writeRaw(value ? TRUE : FALSE);
+        return this;
+    }
+
+    public Utf8JsonWriter nullValue() throws IOException {
+        writeRaw(NULL);
+        return this;
+    }
+
+    /**
+     * Writes a value that is already encoded as JSON, e.g. an object written once for many records.
+     *
+     * @param encodedValue The UTF-8 encoded JSON value.
+     * @return This writer.
+     * @throws IOException If writing fails.
+     */
+    public Utf8JsonWriter jsonValue(byte[] encodedValue) throws IOException {
+        writeRaw(encodedValue);
+        return this;
+    }
+
+    /**
+     * Writes the buffered bytes to the stream and flushes it.
+     *
+     * @throws IOException If writing fails.
+     */
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * Flushes the writer and returns its buffer to the pool. The stream is not closed.
+     *
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            if (buffer.length == BUFFER_SIZE) {
+                BUFFER_POOL.offer(buffer);
+            }
+            buffer = null;
+        }
+    }
+
+    // Writes the comma before every entry of an object but the first
+    private void separate() throws IOException {
+        if (hasEntries[depth]) {
+            require(1);
+            buffer[position++] = ',';
+        }
+        hasEntries[depth] = true;
+    }
+
+    private void writeString(String value) throws IOException {
+        require(1);
+        buffer[position++] = '"';
+        int length = value.length();
+        int index = 0;
+        while (index < length) {
+            if (buffer.length - position <= 2 * MAX_CHAR_BYTES) {
+                flushBuffer();
+            }
+            // The chunk fits the buffer even if every char is escaped, leaving room for a surrogate pair
+            int end = Math.min(length, index + (buffer.length - position - MAX_CHAR_BYTES) / MAX_CHAR_BYTES);
+            position = encodeString(value, index, end, buffer, position);
+            index = end;
+            // A high surrogate at the end of a chunk is encoded with its low surrogate
+            if (Character.isHighSurrogate(value.charAt(end - 1)) && end < length
+                    && Character.isLowSurrogate(value.charAt(end))) {
+                position -= 1;
+                position = encodeString(value, end - 1, end + 1, buffer, position);
+                index = end + 1;
+            }
+        }
+        require(1);
+        buffer[position++] = '"';
+    }
+
+    /**
+     * Encodes chars of a string as escaped UTF-8.
+     *
+     * @return The position after the encoded chars.
+     */
+    private static int encodeString(String value, int start, int end, byte[] target, int position) {
+        int index = start;
+        while (index < end) {
+            char c = value.charAt(index++);
+            if (c < 0x80) {
+                byte[] escape = ESCAPES[c];
+                if (escape == null) {
+                    target[position++] = (byte) c;
+                } else {
+                    System.arraycopy(escape, 0, target, position, escape.length);
+                    position += escape.length;
+                }
+            } else if (c < 0x800) {
+                target[position++] = (byte) (0xC0 | c >> 6);
+                target[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (c == 0x2028 || c == 0x2029) {
+                target[position++] = '\\';
+                target[position++] = 'u';
+                target[position++] = '2';
+                target[position++] = '0';
+                target[position++] = '2';
+                target[position++] = HEX[c & 0xF];
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && index < end && Character.isLowSurrogate(value.charAt(index))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(index++));
+                    target[position++] = (byte) (0xF0 | codePoint >> 18);
+                    target[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                    target[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                    target[position++] = (byte) (0x80 | codePoint & 0x3F);
+                } else {
+                    target[position++] = '?';
+                }
+            } else {
+                target[position++] = (byte) (0xE0 | c >> 12);
+                target[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                target[position++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        return position;
+    }
+
+    // Writes the digits of a long into the buffer, which has room for them
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            System.arraycopy(MIN_LONG, 0, buffer, position, MIN_LONG.length);
+            position += MIN_LONG.length;
+            return;
+        }
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        int index = position + digits;
+        position = index;
+        do {
+            buffer[--index] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+    }
+
+    // Writes a string known to hold ASCII chars needing no escaping, such as a number, flushing the buffer as it fills
+    private void writeAscii(String value) throws IOException {
+        int index = 0;
+        while (index < value.length()) {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+            int end = Math.min(value.length(), index + buffer.length - position);
+            while (index < end) {
+                buffer[position++] = (byte) value.charAt(index++);
+            }
+        }
+    }
+
+    private void writeRaw(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.length - position) {
+            flushBuffer();
+            if (bytes.length > buffer.length) {
+                out.write(bytes);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    // Makes room for a few bytes in the buffer, which holds far more than any caller requires
+    private void require(int length) throws IOException {
+        if (length > buffer.length - position) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
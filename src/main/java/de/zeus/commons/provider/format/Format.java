@@ -13,7 +13,10 @@ import java.io.StringWriter;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
+import static de.zeus.commons.base.constants.IConstants.MODE_COLUMNAR;
+import static de.zeus.commons.base.constants.IConstants.MODE_CSV;
 import static de.zeus.commons.base.constants.IConstants.MODE_JSON;
+import static de.zeus.commons.base.constants.IConstants.MODE_NDJSON;
 import static de.zeus.commons.base.constants.IConstants.MODE_XML;
 import static org.jdom2.output.Format.getPrettyFormat;
 
@@ -47,9 +50,34 @@ public class Format {
 	}
 
 	public String generateFileName(String fileType) {
+		return generateFileName(fileType, null);
+	}
+
+	/**
+	 * Generates the name of a result file, optionally qualified by a name such as the wrapper name
+	 * of a CSV file. Characters not safe in file names are replaced by underscores.
+	 *
+	 * @param fileType  The type of the file (JSON, XML, NDJSON, CSV or columnar).
+	 * @param qualifier The name added to the file name, or null.
+	 * @return The file name.
+	 */
+	public String generateFileName(String fileType, String qualifier) {
 		SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd-HHmmss");
-		return dateFormat.format(new Date()) + "-result."
-				+ fileType.replace("application/", "");
+		String suffix = qualifier != null ? "-" + qualifier.replaceAll("[^A-Za-z0-9_.-]", "_") : "";
+		return dateFormat.format(new Date()) + "-result" + suffix + "." + getFileExtension(fileType);
+	}
+
+	private String getFileExtension(String fileType) {
+		switch (fileType.toLowerCase()) {
+			case MODE_NDJSON:
+				return "ndjson";
+			case MODE_CSV:
+				return "csv";
+			case MODE_COLUMNAR:
+				return "zcol";
+			default:
+				return fileType.replace("application/", "");
+		}
 	}
 
 	public String formatContent(String content, String fileType) throws Exception {
@@ -0,0 +1,145 @@
+package de.zeus.commons.provider.logic.sql;
+
+import de.zeus.commons.base.config.JdbcConfig;
+import de.zeus.commons.connector.jdbc.ProcessingException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the number of pooled connections held by one kind of session, so sessions waiting for other
+ * sessions cannot take all connections of the pool.
+ *
+ * <p>Requests running subqueries on pooled connections hold the connection of the request while their
+ * subqueries wait for connections of their own. The pool is therefore split into two budgets: the
+ * <em>task</em> budget of {@code db.parallel.max.threads} connections for subqueries, which never wait
+ * for other connections, and the <em>request</em> budget of the remaining connections for requests
+ * running parallel or pipelined subqueries. As both together never exceed {@code db.pool.max.size},
+ * a waiting subquery always gets a connection once another subquery is done. Requests without such
+ * subqueries take their connection from the pool directly.</p>
+ *
+ * <p>Waiting for a permit is limited by {@code db.pool.max.wait}, as is waiting for a connection. A
+ * worker of a fork/join scheduler waiting for a permit tells the scheduler it is blocked.</p>
+ */
+public class ConnectionBudget {
+
+	private static final Log LOG = LogFactory.getLog(ConnectionBudget.class);
+
+	/** The budgets shared by all requests, created on first use. */
+	private static ConnectionBudget taskBudget;
+	private static ConnectionBudget requestBudget;
+
+	private final String name;
+	/** The permits of the budget, null if the pool has no size limit. */
+	private final Semaphore permits;
+	/** Maximum time to wait for a permit in milliseconds, negative to wait indefinitely. */
+	private final long maxWaitMillis;
+
+	private ConnectionBudget(String name, int size, long maxWaitMillis) {
+		this.name = name;
+		this.permits = size > 0 ? new Semaphore(size, true) : null;
+		this.maxWaitMillis = maxWaitMillis;
+	}
+
+	/**
+	 * Returns the budget of the connections taken by subqueries running on pooled connections.
+	 *
+	 * @return The task budget.
+	 */
+	public static synchronized ConnectionBudget getTaskBudget() {
+		if (taskBudget == null) {
+			createBudgets(JdbcConfig.getInstance());
+		}
+		return taskBudget;
+	}
+
+	/**
+	 * Returns the budget of the connections held by requests running subqueries on pooled connections.
+	 *
+	 * @return The request budget.
+	 */
+	public static synchronized ConnectionBudget getRequestBudget() {
+		if (requestBudget == null) {
+			createBudgets(JdbcConfig.getInstance());
+		}
+		return requestBudget;
+	}
+
+	private static void createBudgets(JdbcConfig config) {
+		int poolSize = config.getDbPoolMaxSize();
+		long maxWaitMillis = config.getDbPoolMaxWait();
+		if (poolSize <= 0) {
+			// A pool without size limit cannot run out of connections
+			taskBudget = new ConnectionBudget("task", 0, maxWaitMillis);
+			requestBudget = new ConnectionBudget("request", 0, maxWaitMillis);
+			return;
+		}
+		if (poolSize < 2) {
+			LOG.warn("Parallel and pipelined subqueries need a pool of at least 2 connections, db.pool.max.size is " + poolSize);
+		}
+		int taskSize = Math.max(1, Math.min(config.getDbParallelMaxThreads(), poolSize - 1));
+		int requestSize = Math.max(1, poolSize - taskSize);
+		taskBudget = new ConnectionBudget("task", taskSize, maxWaitMillis);
+		requestBudget = new ConnectionBudget("request", requestSize, maxWaitMillis);
+		LOG.info("Connection budgets: " + taskSize + " connection(s) for subqueries, " + requestSize
+				+ " for requests running parallel or pipelined subqueries.");
+	}
+
+	/**
+	 * Takes a permit for a connection, waiting at most {@code db.pool.max.wait} milliseconds.
+	 *
+	 * @throws ProcessingException if no permit became available in time or the thread was interrupted.
+	 */
+	public void acquire() throws ProcessingException {
+		if (permits == null) {
+			return;
+		}
+		PermitBlocker blocker = new PermitBlocker();
+		try {
+			ForkJoinPool.managedBlock(blocker);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ProcessingException("Interrupted while waiting for a connection of the " + name + " budget", e);
+		}
+		if (!blocker.acquired) {
+			throw new ProcessingException("Timeout waiting for a connection of the " + name + " budget");
+		}
+	}
+
+	// Waits for a permit at most db.pool.max.wait milliseconds; acquired tells whether it got one
+	private final class PermitBlocker implements ForkJoinPool.ManagedBlocker {
+
+		private boolean acquired;
+
+		@Override
+		public boolean block() throws InterruptedException {
+			if (maxWaitMillis < 0) {
+				permits.acquire();
+				acquired = true;
+			} else {
+				acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+			}
+			return true;
+		}
+
+		@Override
+		public boolean isReleasable() {
+			if (!acquired) {
+				acquired = permits.tryAcquire();
+			}
+			return acquired;
+		}
+	}
+
+	/**
+	 * Returns a permit taken by {@link #acquire()}.
+	 */
+	public void release() {
+		if (permits != null) {
+			permits.release();
+		}
+	}
+}
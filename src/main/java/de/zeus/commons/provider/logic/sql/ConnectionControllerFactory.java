@@ -1,5 +1,6 @@
 package de.zeus.commons.provider.logic.sql;
 
+import de.zeus.commons.base.config.JdbcConfig;
 import de.zeus.commons.base.interfaces.IConnectionController;
 import de.zeus.commons.base.interfaces.IJdbcOperations;
 import de.zeus.commons.connector.jdbc.JdbcOperations;
@@ -8,28 +9,21 @@ import de.zeus.commons.connector.jdbc.JdbcOperations;
  * ConnectionControllerFactory is a factory class for creating
  * instances of the IConnectionController interface.
  *
- * It initializes the JDBC operations and the connection controller during
- * construction and provides a getter for the connection controller.
+ * It initializes the JDBC operations during construction and creates a new,
+ * request-scoped connection controller for every call of {@link #getController()}.
  */
 public class ConnectionControllerFactory {
 
     /** Member variable for JDBC operations */
     private final IJdbcOperations jdbcOperations;
 
-    /** Member variable for the connection controller */
-    private final IConnectionController connectionController;
-
     /**
      * Constructor for ConnectionControllerFactory.
-     * Initializes the JDBC operations and creates a new connection controller.
-     *.
+     * Initializes the JDBC operations shared by all connection controllers.
      */
     public ConnectionControllerFactory() {
         // Initializes JdbcOperations
         this.jdbcOperations = new JdbcOperations();
-
-        // Creates and initializes a new connection controller
-        this.connectionController = createNewController();
     }
 
     /**
@@ -43,11 +37,22 @@ public class ConnectionControllerFactory {
     }
 
     /**
-     * Getter for the connection controller.
+     * Returns a new connection controller for a single request.
+     * Controllers keep the connection of their request and must not be shared between threads.
      *
-     * @return The initialized IConnectionController instance.
+     * @return A new IConnectionController instance.
      */
     public IConnectionController getController() {
-        return this.connectionController;
+        return createNewController();
+    }
+
+    /**
+     * Preloads the primary keys of the schemas configured in {@code db.pk.preload.schemas}
+     * into the primary key cache shared by all controllers.
+     *
+     * @return The number of tables preloaded.
+     */
+    public int preloadPrimaryKeys() {
+        return new PrimaryKeyPreloader(jdbcOperations).preload(JdbcConfig.getInstance().getDbPkPreloadSchemas());
     }
 }
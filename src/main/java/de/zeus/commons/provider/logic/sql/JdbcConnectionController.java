@@ -1,35 +1,81 @@
 package de.zeus.commons.provider.logic.sql;
 
 import com.google.gson.JsonObject;
+import de.zeus.commons.base.cache.LruCache;
+import de.zeus.commons.base.config.JdbcConfig;
 import de.zeus.commons.base.interfaces.IConnectionController;
 import de.zeus.commons.base.interfaces.IJdbcOperations;
+import de.zeus.commons.base.interfaces.IRecordWriter;
+import de.zeus.commons.base.interfaces.IRowChunkListener;
 import de.zeus.commons.connector.jdbc.ProcessingException;
+import de.zeus.commons.connector.jdbc.RowLimitExceededException;
 import de.zeus.commons.provider.model.MetaData;
 import de.zeus.commons.provider.service.JsonRequestProcessor;
+import de.zeus.commons.provider.service.QueryNode;
+import de.zeus.commons.provider.service.RequestPlan;
 import de.zeus.commons.base.constants.IConstants;
-import de.zeus.commons.provider.convert.DataToJSON;
+import de.zeus.commons.provider.convert.DataToCSV;
+import de.zeus.commons.provider.convert.DataToColumnar;
+import de.zeus.commons.provider.convert.DataToFlatRecords;
+import de.zeus.commons.provider.convert.DataToJSONStream;
+import de.zeus.commons.provider.convert.DataToNDJSON;
 import de.zeus.commons.provider.convert.DataToXML;
 import de.zeus.commons.provider.model.*;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import net.sf.jsqlparser.JSQLParserException;
-import net.sf.jsqlparser.parser.CCJSqlParserUtil;
 import net.sf.jsqlparser.statement.select.Select;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.*;
-import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Controller for JDBC database connections.
+ *
+ * <p>A controller instance serves a single request: {@link #connectDataService()} opens a
+ * {@link JdbcSession} owned by this controller and {@link #disconnectDataService()} closes it.
+ * Use {@link ConnectionControllerFactory#getController()} to obtain a controller per request.</p>
+ *
+ * <p>Subqueries running on pooled connections take them from the task budget, and requests running
+ * such subqueries take their own connection from the request budget, see {@link ConnectionBudget}.</p>
  */
 public class JdbcConnectionController implements IConnectionController, IConstants {
 
 	private static final Log LOG = LogFactory.getLog(JdbcConnectionController.class);
+	/** The name of the wrapper reporting a failed request. */
+	private static final String ERROR_WRAPPER = "Error";
 
-	private Connection databaseConnection;
-	private final ReentrantLock lock = new ReentrantLock();
+	/** The session of the request served by this controller. */
+	private JdbcSession session;
+	/** Whether the request served by this controller runs subqueries on pooled connections. */
+	private boolean pooledRequest = false;
 	private final IJdbcOperations jdbcOperations;
+	/** The result cache shared by all requests. */
+	private final ResultCache resultCache = ResultCache.getInstance();
+	/** Whether the request served by this controller may use the result cache. */
+	private boolean useResultCache = true;
+	/** Whether values are read with their native types instead of as strings. */
+	private boolean typedValues = false;
+	/** Whether the rows of query results are held in columnar form. */
+	private boolean columnar = false;
+	/** Maximum number of rows of a single query result, 0 for no limit. */
+	private int maxRows = 0;
+	/** Handling of results exceeding the row budget, either FAIL or TRUNCATE. */
+	private String rowOverflow = ROW_OVERFLOW_FAIL;
+	/** Row counts of the last results of SQL statements, used to pre-size the rows of their next result. */
+	private static LruCache<String, Integer> rowCountHints;
+	/** Execution statistics of the request served by this controller. */
+	private RequestStatistics statistics = new RequestStatistics();
+	/** Continuation token of the next page of the request served by this controller, null if there is none. */
+	private String nextPageToken;
 
 	/**
 	 * Constructor for JdbcConnectionController.
@@ -43,27 +89,203 @@ public class JdbcConnectionController implements IConnectionController, IConstan
 
 	@Override
 	public Object process(JsonObject jsonRequest, String mode) {
-		// Check if the "includeMetadata" flag is provided in the request and set the flag accordingly.
-		boolean includeMetadata = jsonRequest.has("includeMetadata")
-				&& jsonRequest.get("includeMetadata").getAsBoolean();
-		List<DataWrapper> data;
-
-		try {
-			data = getData(jsonRequest);
-		} catch (ProcessingException e) {
-			LOG.error("Failed to process data: ", e);
-			data = Collections.singletonList(createErrorDataWrapper(e));
+		if (MODE_NDJSON.equals(mode) || MODE_CSV.equals(mode)) {
+			StringWriter writer = new StringWriter();
+			try {
+				export(jsonRequest, createRecordWriter(jsonRequest, mode, writer));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return writer.toString();
 		}
+		boolean includeMetadata = isIncludeMetadata(jsonRequest);
+		boolean compactMetadata = isCompactMetadata(jsonRequest);
+		RequestStatistics statistics = new RequestStatistics();
+		List<DataWrapper> data = getDataOrError(jsonRequest, statistics);
 
+		RequestStatistics reportedStatistics = isIncludeStatistics(jsonRequest) ? statistics : null;
 		if (MODE_JSON.equals(mode)) {
-			return new DataToJSON(data, includeMetadata).getResult();
+			return DataToJSONStream.toJson(data, includeMetadata, compactMetadata, reportedStatistics, nextPageToken);
 		}
 		if (MODE_XML.equals(mode)) {
-			return new DataToXML(data, includeMetadata).getResult();
+			DataToXML dataToXML = new DataToXML(data, includeMetadata, compactMetadata, reportedStatistics);
+			dataToXML.setNextPageToken(nextPageToken);
+			return dataToXML.getResult();
+		}
+		if (MODE_COLUMNAR.equals(mode)) {
+			DataToColumnar dataToColumnar = new DataToColumnar(data, includeMetadata, reportedStatistics);
+			dataToColumnar.setNextPageToken(nextPageToken);
+			return dataToColumnar.getResult();
 		}
 		return null;
 	}
 
+	/**
+	 * Processes a JSON request and writes the result to a stream. JSON and XML are written while the
+	 * result is walked, without building a document tree and the response string first. The columnar
+	 * format is written as binary. NDJSON and CSV
+	 * are written as flat records, see {@link #export(JsonObject, IRecordWriter)}.
+	 *
+	 * @param jsonRequest  The JSON request to process.
+	 * @param mode         The processing mode (e.g., JSON or XML).
+	 * @param outputStream The stream receiving the result, UTF-8 encoded for the text formats; it is
+	 *                     flushed but not closed.
+	 * @throws IOException If writing the result fails.
+	 */
+	@Override
+	public void process(JsonObject jsonRequest, String mode, OutputStream outputStream) throws IOException {
+		if (MODE_NDJSON.equals(mode) || MODE_CSV.equals(mode)) {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+			export(jsonRequest, createRecordWriter(jsonRequest, mode, writer));
+			writer.flush();
+			return;
+		}
+		boolean includeMetadata = isIncludeMetadata(jsonRequest);
+		boolean compactMetadata = isCompactMetadata(jsonRequest);
+		RequestStatistics statistics = new RequestStatistics();
+		List<DataWrapper> data = getDataOrError(jsonRequest, statistics);
+
+		RequestStatistics reportedStatistics = isIncludeStatistics(jsonRequest) ? statistics : null;
+		if (MODE_COLUMNAR.equals(mode)) {
+			DataToColumnar dataToColumnar = new DataToColumnar(data, includeMetadata, reportedStatistics);
+			dataToColumnar.setNextPageToken(nextPageToken);
+			dataToColumnar.write(outputStream);
+			return;
+		}
+		if (MODE_JSON.equals(mode)) {
+			new DataToJSONStream(outputStream, includeMetadata, compactMetadata).write(data, reportedStatistics, nextPageToken);
+		} else if (MODE_XML.equals(mode)) {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+			DataToXML dataToXML = new DataToXML(data, includeMetadata, compactMetadata, reportedStatistics);
+			dataToXML.setNextPageToken(nextPageToken);
+			dataToXML.write(writer);
+			writer.flush();
+		}
+	}
+
+	/**
+	 * Processes a JSON request and writes its records as flat records, each followed by the records of
+	 * its child wrappers. A request with a single query is written while its result set is read, so its
+	 * memory use does not grow with the number of rows; it neither uses nor fills the result cache.
+	 * Requests with subqueries are read as for the nested formats and then flattened. Exports are always
+	 * read in full, {@code pageSize} and {@code after} are ignored.
+	 *
+	 * <p>A request failing on its row budget ends with a record of the {@code Error} wrapper.</p>
+	 *
+	 * @param jsonRequest  The JSON request to process.
+	 * @param recordWriter The writer receiving the records; it is flushed but not closed.
+	 * @throws IOException If writing the records fails.
+	 */
+	@Override
+	public void export(JsonObject jsonRequest, IRecordWriter recordWriter) throws IOException {
+		RequestStatistics statistics = new RequestStatistics();
+		List<QueryNode> queryNodes = RequestPlan.of(jsonRequest).getQueryNodes();
+		if (queryNodes.size() == 1) {
+			try {
+				exportQuery(jsonRequest, queryNodes.get(0), recordWriter, statistics);
+			} catch (RowLimitExceededException e) {
+				LOG.error("Failed to process data: ", e);
+				new DataToFlatRecords(recordWriter).write(Collections.singletonList(createErrorDataWrapper(e)));
+			} catch (ProcessingException e) {
+				// As for the nested formats, a failed query has no records
+				LOG.error("Error reading data with the statement: " + queryNodes.get(0).getStatement(), e);
+			}
+		} else {
+			// Flat records have no place for a continuation token, so the export is never paged
+			JsonObject exportRequest = jsonRequest.deepCopy();
+			exportRequest.remove(PAGE_SIZE);
+			exportRequest.remove(AFTER);
+			new DataToFlatRecords(recordWriter).write(getDataOrError(exportRequest, statistics));
+		}
+		recordWriter.flush();
+	}
+
+	/**
+	 * Creates the writer of the flat records of a request. NDJSON holds the records of all wrappers,
+	 * CSV those of the wrapper named by {@code csvWrapper} (default: the top-level query) and the error record.
+	 *
+	 * @param jsonRequest The JSON request.
+	 * @param mode        The processing mode, either NDJSON or CSV.
+	 * @param writer      The writer receiving the records.
+	 * @return The record writer.
+	 */
+	private IRecordWriter createRecordWriter(JsonObject jsonRequest, String mode, Writer writer) {
+		if (MODE_NDJSON.equals(mode)) {
+			return new DataToNDJSON(writer);
+		}
+		String csvWrapper = getCsvWrapper(jsonRequest);
+		return new DataToCSV(name -> name.equals(csvWrapper) || ERROR_WRAPPER.equals(name) ? writer : null);
+	}
+
+	// The wrapper name written by a CSV response, by default the name of the top-level query
+	private String getCsvWrapper(JsonObject jsonRequest) {
+		if (jsonRequest.has(CSV_WRAPPER)) {
+			return jsonRequest.get(CSV_WRAPPER).getAsString();
+		}
+		List<QueryNode> queryNodes = RequestPlan.of(jsonRequest).getQueryNodes();
+		return queryNodes.isEmpty() ? null : queryNodes.get(0).getName();
+	}
+
+	/**
+	 * Executes the single query of a request and writes its rows as flat records while they are read.
+	 *
+	 * @param jsonRequest  The JSON request.
+	 * @param queryNode    The query of the request.
+	 * @param recordWriter The writer receiving the records.
+	 * @param statistics   Collects the execution statistics of the request.
+	 * @throws RowLimitExceededException If the result exceeds the row budget and the request must fail.
+	 * @throws IOException               If writing the records fails.
+	 */
+	private void exportQuery(JsonObject jsonRequest, QueryNode queryNode, IRecordWriter recordWriter,
+							 RequestStatistics statistics) throws ProcessingException, IOException {
+		initRequestOptions(jsonRequest, statistics);
+		DataWrapper dataWrapper = new DataWrapper();
+		dataWrapper.setName(queryNode.getName());
+		connectDataService();
+		int fetchSize = JdbcConfig.getInstance().getDbExportFetchSize();
+		try {
+			executeQuery(this.session, queryNode.getStatement(), Collections.emptyList(), maxRows, fetchSize, dataWrapper,
+					(rs, columnTypes) -> writeRows(rs, columnTypes, dataWrapper, recordWriter, fetchSize));
+		} finally {
+			disconnectDataService();
+		}
+		// The rows are written, only the overflow is left to handle
+		applyRowBudget(dataWrapper, queryNode.getStatement());
+	}
+
+	// Check if the "includeMetadata" flag is provided in the request and set the flag accordingly.
+	private boolean isIncludeMetadata(JsonObject jsonRequest) {
+		return jsonRequest.has("includeMetadata")
+				&& jsonRequest.get("includeMetadata").getAsBoolean();
+	}
+
+	// The metadata is written once per wrapper name if the request asks for the compact layout
+	private boolean isCompactMetadata(JsonObject jsonRequest) {
+		return jsonRequest.has(METADATA_LAYOUT)
+				&& METADATA_LAYOUT_COMPACT.equalsIgnoreCase(jsonRequest.get(METADATA_LAYOUT).getAsString());
+	}
+
+	private boolean isIncludeStatistics(JsonObject jsonRequest) {
+		return jsonRequest.has(INCLUDE_STATISTICS)
+				&& jsonRequest.get(INCLUDE_STATISTICS).getAsBoolean();
+	}
+
+	/**
+	 * Retrieves the data of a request. If processing fails, the result is a single error wrapper.
+	 *
+	 * @param jsonRequest The JSON request.
+	 * @param statistics  Collects the execution statistics of the request.
+	 * @return A list of DataWrapper objects.
+	 */
+	private List<DataWrapper> getDataOrError(JsonObject jsonRequest, RequestStatistics statistics) {
+		try {
+			return getData(jsonRequest, statistics);
+		} catch (ProcessingException e) {
+			LOG.error("Failed to process data: ", e);
+			return Collections.singletonList(createErrorDataWrapper(e));
+		}
+	}
+
 
 	/**
 	 * Retrieves data based on the provided JSON request.
@@ -72,50 +294,97 @@ public class JdbcConnectionController implements IConnectionController, IConstan
 	 * @return A list of DataWrapper objects.
 	 */
 	public List<DataWrapper> getData(JsonObject jsonRequest) throws ProcessingException {
-		connectDataService();
-		JsonRequestProcessor requestProcessor = new JsonRequestProcessor(this);
-		requestProcessor.processJSONRequest(jsonRequest);
-		List<DataWrapper> dataWrapperList = requestProcessor.getResult();
-		disconnectDataService();
-		return dataWrapperList;
+		return getData(jsonRequest, new RequestStatistics());
 	}
 
-	@Override
-	public void connectDataService() throws ProcessingException {
-		lock.lock(); // Lock the resource to ensure thread safety.
+	/**
+	 * Retrieves data based on the provided JSON request and records its execution statistics.
+	 * The continuation token of a paged request is then available from {@link #getNextPageToken()}.
+	 *
+	 * @param jsonRequest The JSON request.
+	 * @param statistics  Collects the execution statistics of the request.
+	 * @return A list of DataWrapper objects.
+	 */
+	public List<DataWrapper> getData(JsonObject jsonRequest, RequestStatistics statistics) throws ProcessingException {
+		initRequestOptions(jsonRequest, statistics);
+		this.pooledRequest = JsonRequestProcessor.usesPooledConnections(jsonRequest);
+		connectDataService();
 		try {
-			this.databaseConnection = this.jdbcOperations.getDatabaseConnection();
+			JsonRequestProcessor requestProcessor = new JsonRequestProcessor(this, statistics);
+			requestProcessor.processJSONRequest(jsonRequest);
+			nextPageToken = requestProcessor.getNextPageToken();
+			return requestProcessor.getResult();
 		} finally {
-			lock.unlock();
+			disconnectDataService();
 		}
 	}
 
+	/**
+	 * Gets the continuation token of the next page of the last request, if it asked for a page of its top-level query.
+	 *
+	 * @return The token, or null if the request was not paged or its last page was read.
+	 */
+	public String getNextPageToken() {
+		return nextPageToken;
+	}
+
+	/**
+	 * Applies the options of a request: result cache, value types, result model and row budget.
+	 *
+	 * @param jsonRequest The JSON request.
+	 * @param statistics  Collects the execution statistics of the request.
+	 */
+	private void initRequestOptions(JsonObject jsonRequest, RequestStatistics statistics) {
+		this.statistics = statistics;
+		this.nextPageToken = null;
+		this.pooledRequest = false;
+		this.useResultCache = !jsonRequest.has(USE_CACHE) || jsonRequest.get(USE_CACHE).getAsBoolean();
+		this.typedValues = jsonRequest.has(TYPED_VALUES) && jsonRequest.get(TYPED_VALUES).getAsBoolean();
+		String resultModel = jsonRequest.has(RESULT_MODEL)
+				? jsonRequest.get(RESULT_MODEL).getAsString() : JdbcConfig.getInstance().getDbResultModel();
+		this.columnar = RESULT_MODEL_COLUMNAR.equalsIgnoreCase(resultModel);
+		this.maxRows = jsonRequest.has(MAX_ROWS)
+				? Math.max(0, jsonRequest.get(MAX_ROWS).getAsInt()) : JdbcConfig.getInstance().getDbResultMaxRows();
+		String overflow = jsonRequest.has(ROW_OVERFLOW)
+				? jsonRequest.get(ROW_OVERFLOW).getAsString() : JdbcConfig.getInstance().getDbResultOverflow();
+		this.rowOverflow = ROW_OVERFLOW_TRUNCATE.equalsIgnoreCase(overflow) ? ROW_OVERFLOW_TRUNCATE : ROW_OVERFLOW_FAIL;
+	}
+
+	/**
+	 * Opens the session of the request. A request running subqueries on pooled connections takes its
+	 * connection from the request budget, all others from the pool directly.
+	 *
+	 * @throws ProcessingException if no connection could be fetched in time.
+	 */
+	@Override
+	public void connectDataService() throws ProcessingException {
+		this.session = new JdbcSession(this.jdbcOperations, pooledRequest ? ConnectionBudget.getRequestBudget() : null);
+	}
+
 	@Override
 	public void disconnectDataService() {
-		lock.lock(); // Lock the resource to ensure thread safety.
-		try {
-			this.jdbcOperations.closeDatabaseConnection(this.databaseConnection);
-		} finally {
-			lock.unlock();
+		if (this.session != null) {
+			this.session.close();
+			this.session = null;
 		}
 	}
 
 	public net.sf.jsqlparser.statement.Statement parseAndValidateSql(String sql) throws JSQLParserException {
-		// First, check for any unwanted characters in the SQL string
-		if (sql.matches(".*[^a-zA-Z0-9_ ,.*=<>!()'\"-].*")) {
-			throw new UnsupportedOperationException("Invalid characters in SQL query.");
-		}
-
-		// Then, parse the statement using JSQLParser
-		net.sf.jsqlparser.statement.Statement statement = CCJSqlParserUtil.parse(sql);
+		return parseAndValidateSql(sql, false);
+	}
 
-		// Finally, check if it's a SELECT statement
-		if (statement instanceof Select) {
-			// Additional validations or modifications can go here
-			return statement;
-		} else {
-			throw new UnsupportedOperationException("Only SELECT queries are allowed.");
-		}
+	/**
+	 * Parses and validates an SQL query. Parameterized queries may additionally contain
+	 * {@code ?} placeholders, as their values are bound instead of spliced into the SQL text.
+	 * Parsed queries are cached by the {@link SqlValidator}.
+	 *
+	 * @param sql           The SQL query.
+	 * @param parameterized Whether the query is executed with bound parameters.
+	 * @return The parsed statement.
+	 * @throws JSQLParserException if the query cannot be parsed.
+	 */
+	public net.sf.jsqlparser.statement.Statement parseAndValidateSql(String sql, boolean parameterized) throws JSQLParserException {
+		return SqlValidator.getInstance().validate(sql, parameterized);
 	}
 
 
@@ -128,11 +397,24 @@ public class JdbcConnectionController implements IConnectionController, IConstan
 	 * @return A list of primary key fields.
 	 */
 	public List<String> getPrimaryKeys(String catalog, String schema, String table) {
+		return getPrimaryKeys(this.session.getConnection(), catalog, schema, table);
+	}
+
+	/**
+	 * Retrieves primary key fields for a given table using the given connection.
+	 *
+	 * @param connection The database connection.
+	 * @param catalog    The catalog name.
+	 * @param schema     The schema name.
+	 * @param table      The table name.
+	 * @return A list of primary key fields.
+	 */
+	public List<String> getPrimaryKeys(Connection connection, String catalog, String schema, String table) {
 
 		DatabaseMetaData meta = null;
 		List<String> primaryKeyFields = new ArrayList<>();
 		try {
-			meta = this.databaseConnection.getMetaData();
+			meta = connection.getMetaData();
 		} catch (SQLException e) {
 			LOG.error("Error while fetching metaData", e);
 		}
@@ -151,54 +433,610 @@ public class JdbcConnectionController implements IConnectionController, IConstan
 		return primaryKeyFields;
 	}
 
+	/**
+	 * Retrieves primary key fields for a given table from the primary key cache,
+	 * looking them up using the given connection if they are not cached.
+	 *
+	 * @param connection The database connection.
+	 * @param catalog    The catalog name.
+	 * @param schema     The schema name.
+	 * @param table      The table name.
+	 * @return A list of primary key fields.
+	 */
+	public List<String> getCachedPrimaryKeys(Connection connection, String catalog, String schema, String table) {
+		return PrimaryKeyCache.getInstance().getPrimaryKeys(catalog, schema, table,
+				() -> getPrimaryKeys(connection, catalog, schema, table));
+	}
+
 	@Override
 	public DataWrapper readData(String sqlQuery) throws ProcessingException {
-		DataWrapper dataWrapper = new DataWrapper();
+		return readData(this.session, sqlQuery, Collections.emptyList());
+	}
+
+	@Override
+	public DataWrapper readData(String sqlQuery, List<?> parameters) throws ProcessingException {
+		return readData(this.session, sqlQuery, parameters);
+	}
+
+	@Override
+	public DataWrapper readDataOnPooledConnection(String sqlQuery, List<?> parameters) throws ProcessingException {
+		try (JdbcSession taskSession = new JdbcSession(this.jdbcOperations, ConnectionBudget.getTaskBudget())) {
+			return readData(taskSession, sqlQuery, parameters);
+		}
+	}
+
+	@Override
+	public DataWrapper readDataForKeys(String sqlQuery, List<?> parameters, int keyCount, boolean pooledConnection)
+			throws ProcessingException {
+		// Every key may have as many rows as the budget allows
+		int rowLimit = maxRows > 0 ? (int) Math.min(Integer.MAX_VALUE - 1L, (long) maxRows * Math.max(1, keyCount)) : 0;
+		if (!pooledConnection) {
+			return readResult(this.session, sqlQuery, parameters, rowLimit);
+		}
+		try (JdbcSession taskSession = new JdbcSession(this.jdbcOperations, ConnectionBudget.getTaskBudget())) {
+			return readResult(taskSession, sqlQuery, parameters, rowLimit);
+		}
+	}
 
+	@Override
+	public DataWrapper describeData(String sqlQuery) throws ProcessingException {
 		try {
-			// Parse and validate the SQL query
-			net.sf.jsqlparser.statement.Statement parsedSql = parseAndValidateSql(sqlQuery);
+			return describeQuery(this.session, sqlQuery);
+		} catch (JSQLParserException e) {
+			LOG.error("Error parsing SQL query", e);
+			throw new ProcessingException("Error parsing SQL query", e);
+		} catch (SQLException e) {
+			LOG.error("Error while describing SQLQuery", e);
+			throw new ProcessingException("Error while describing SQLQuery", e);
+		}
+	}
 
-			if (parsedSql instanceof Select) {
-				java.sql.Statement stmt = jdbcOperations.getStmt(this.databaseConnection);
-				ResultSet rs = stmt.executeQuery(sqlQuery);
-
-				ResultSetMetaData meta = rs.getMetaData();
-				for (int column = 1; column <= meta.getColumnCount(); column++) {
-					MetaData metaData = new MetaData();
-					metaData.setColumnNumber(column);
-					metaData.setColumnLabel(meta.getColumnLabel(column));
-					metaData.setColumnName(meta.getColumnName(column));
-					metaData.setColumnSqlDataType(meta.getColumnType(column));
-					metaData.setColumnSqlDataTypeName(meta.getColumnTypeName(column));
-					metaData.setColumnClassName(meta.getColumnClassName(column));
-					metaData.addInfoToTableList(new TableInfo(meta.getCatalogName(column), meta.getSchemaName(column), meta.getTableName(column)));
-					dataWrapper.addMetaData(metaData);
+	@Override
+	public DataWrapper readDataInChunks(String sqlQuery, int chunkRows, IRowChunkListener listener) throws ProcessingException {
+		return readDataInChunks(this.session, sqlQuery, chunkRows, listener);
+	}
+
+	/**
+	 * Reads data using the provided SQL query within the given session and passes its rows to a listener
+	 * in chunks while they are read; a cached result is passed in chunks as well. The result cache and the
+	 * row budget apply as for {@link #readData(JdbcSession, String, List)}. At most {@code maxRows} rows
+	 * are passed, but a result exceeding the budget with the FAIL policy only fails once they are.
+	 *
+	 * @param session   The session to execute the query in.
+	 * @param sqlQuery  The SQL query to read data.
+	 * @param chunkRows The number of rows per chunk; the last chunk may hold fewer.
+	 * @param listener  Receives the chunks of rows, in row order.
+	 * @return The data read from the query, holding all rows.
+	 * @throws RowLimitExceededException If the result exceeds the row budget and the request must fail.
+	 */
+	public DataWrapper readDataInChunks(JdbcSession session, String sqlQuery, int chunkRows, IRowChunkListener listener)
+			throws ProcessingException {
+		List<String> parameters = Collections.emptyList();
+		boolean cached = useResultCache && resultCache.isEnabled();
+		if (cached) {
+			DataWrapper dataWrapper = resultCache.get(sqlQuery, parameters, typedValues);
+			if (dataWrapper != null) {
+				statistics.add(CACHE_HITS, 1);
+				dataWrapper = applyRowBudget(dataWrapper, sqlQuery);
+				for (int firstRow = 0; firstRow < dataWrapper.getRowCount(); firstRow += chunkRows) {
+					passChunk(dataWrapper, firstRow, Math.min(firstRow + chunkRows, dataWrapper.getRowCount()), listener);
 				}
+				return dataWrapper;
+			}
+			statistics.add(CACHE_MISSES, 1);
+		}
+		DataWrapper dataWrapper = executeQuery(session, sqlQuery, parameters, maxRows, chunkRows, listener);
+		if (cached && !dataWrapper.isTruncated()) {
+			resultCache.put(sqlQuery, parameters, typedValues, dataWrapper);
+		}
+		return applyRowBudget(dataWrapper, sqlQuery);
+	}
 
-				// Add Primary Keys
-				for (MetaData metaData : dataWrapper.getMetaData().values()) {
-					for (TableInfo tableInfo : metaData.getTableInfoList()) {
-						tableInfo.addAllFieldsToPrimaryKey(getPrimaryKeys(tableInfo.getCatalog(), tableInfo.getSchema(), tableInfo.getTable()));
-					}
-					metaData.checkPrimaryKey();
+	// Passes a range of rows of a result to a chunk listener, if there is one
+	private static void passChunk(DataWrapper dataWrapper, int fromRow, int toRow, IRowChunkListener listener) {
+		if (listener != null && toRow > fromRow) {
+			listener.rowsRead(dataWrapper.snapshotRows(fromRow, toRow), fromRow);
+		}
+	}
+
+	@Override
+	public DataWrapper readJoinedData(String sqlQuery, List<String> names, List<String> levelStatements,
+			List<String> joinColumns) throws ProcessingException {
+		return readJoinedData(this.session, sqlQuery, names, levelStatements, joinColumns);
+	}
+
+	@Override
+	public DataWrapper readJoinedDataOnPooledConnection(String sqlQuery, List<String> names, List<String> levelStatements,
+			List<String> joinColumns) throws ProcessingException {
+		try (JdbcSession taskSession = new JdbcSession(this.jdbcOperations, ConnectionBudget.getTaskBudget())) {
+			return readJoinedData(taskSession, sqlQuery, names, levelStatements, joinColumns);
+		}
+	}
+
+	/**
+	 * Reads a chain of queries with one joined SQL query within the given session and regroups its rows
+	 * in a single pass. The columns of every query are described by preparing its statement, so their
+	 * metadata, including the primary keys, is the same as when the query is executed alone.
+	 *
+	 * <p>The joined query returns the row number of the top-level query followed by the columns of every
+	 * query, ordered by that row number. A row holds a record of a subquery if its join column is not null.
+	 * Records of the last subquery are new with every row; records of the subqueries in between repeat
+	 * for each of their child records and are told apart by their primary key, so they need one. Every
+	 * record of a parent query gets a wrapper of its child records in the order they are read, and the
+	 * row budget applies to each of these wrappers as to a result of its own. The result cache is not used.</p>
+	 *
+	 * @param session         The session to execute the query in.
+	 * @param sqlQuery        The joined SQL query.
+	 * @param names           The element names of the queries, in nesting order.
+	 * @param levelStatements The statements of the queries, describing their columns, in nesting order.
+	 * @param joinColumns     The columns joining the subqueries to their parent queries, null for the top-level query.
+	 * @return The data of the top-level query holding the data of its subqueries.
+	 * @throws ProcessingException If the rows cannot be regrouped, e.g. a subquery in between has no primary key.
+	 * @throws RowLimitExceededException If a result exceeds the row budget with the FAIL policy.
+	 */
+	public DataWrapper readJoinedData(JdbcSession session, String sqlQuery, List<String> names, List<String> levelStatements,
+			List<String> joinColumns) throws ProcessingException {
+		int levelCount = names.size();
+		DataWrapper[] levels = new DataWrapper[levelCount];
+		JoinedColumns[] columns = new JoinedColumns[levelCount];
+		// The top-level row number comes first
+		int columnCount = 1;
+		JoinedRows joinedRows;
+		try {
+			for (int level = 0; level < levelCount; level++) {
+				levels[level] = describeQuery(session, levelStatements.get(level));
+				levels[level].setName(names.get(level));
+				columns[level] = new JoinedColumns(levels[level], columnCount, joinColumns.get(level), level < levelCount - 1);
+				columnCount += levels[level].getMetaData().size();
+			}
+			parseAndValidateSql(sqlQuery);
+			java.sql.Statement stmt = session.createStatement();
+			ResultSet rs = stmt.executeQuery(sqlQuery);
+			if (rs.getMetaData().getColumnCount() != columnCount) {
+				session.close(rs, stmt);
+				throw new ProcessingException("The joined query does not return the columns of its queries: " + sqlQuery);
+			}
+			joinedRows = readJoinedRows(rs, levels, columns);
+			session.close(rs, stmt);
+		} catch (JSQLParserException e) {
+			LOG.error("Error parsing SQL query", e);
+			throw new ProcessingException("Error parsing SQL query", e);
+		} catch (SQLException e) {
+			LOG.error("Error while executing SQLQuery", e);
+			throw new ProcessingException("Error while executing SQLQuery", e);
+		}
+
+		levels[0].setTruncated(joinedRows.isTruncated(0, 0));
+		DataWrapper rootWrapper = applyRowBudget(levels[0], levelStatements.get(0));
+		// The wrapper holding each record of the previous query and the index of the record within it
+		DataWrapper[] parentWrappers = new DataWrapper[rootWrapper.getRowCount()];
+		int[] parentRows = new int[rootWrapper.getRowCount()];
+		Arrays.fill(parentWrappers, rootWrapper);
+		Arrays.setAll(parentRows, row -> row);
+		for (int level = 1; level < levelCount; level++) {
+			DataWrapper levelWrapper = levels[level];
+			DataWrapper[] childWrappers = new DataWrapper[levelWrapper.getRowCount()];
+			int[] childRows = new int[levelWrapper.getRowCount()];
+			int[][] rowsByParent = joinedRows.getRowsByParent(level, parentWrappers.length);
+			for (int parent = 0; parent < parentWrappers.length; parent++) {
+				int[] rows = rowsByParent[parent];
+				DataWrapper childWrapper = levelWrapper.selectRows(rows);
+				childWrapper.setTruncated(joinedRows.isTruncated(level, parent));
+				childWrapper = applyRowBudget(childWrapper, levelStatements.get(level));
+				parentWrappers[parent].addDataWrapper(parentRows[parent], childWrapper);
+				for (int row = 0; row < rows.length; row++) {
+					childWrappers[rows[row]] = childWrapper;
+					childRows[rows[row]] = row;
 				}
+			}
+			parentWrappers = childWrappers;
+			parentRows = childRows;
+		}
+		return rootWrapper;
+	}
 
-				int recNo = 0;
-				while (rs.next()) {
-					recNo++;
-					ContentRecordData contentRecordData = new ContentRecordData();
-					dataWrapper.addContentData(contentRecordData);
-					for (int column = 1; column <= meta.getColumnCount(); column++) {
-						ContentFieldData contentFieldData = new ContentFieldData();
-						contentRecordData.setRecordNumber(recNo);
-						contentFieldData.setColumnNumber(column);
-						contentFieldData.setValue(rs.getString(column));
-						contentRecordData.addContentFieldData(contentFieldData);
+	// Describes the columns of a query by preparing it, without executing it
+	private DataWrapper describeQuery(JdbcSession session, String sqlQuery) throws ProcessingException, SQLException, JSQLParserException {
+		parseAndValidateSql(sqlQuery);
+		PreparedStatement pStmt = session.prepareStatement(sqlQuery, Collections.emptyList());
+		ResultSetMetaData meta = pStmt.getMetaData();
+		if (meta == null) {
+			session.close(null, pStmt);
+			throw new ProcessingException("The driver cannot describe the columns of the query: " + sqlQuery);
+		}
+		DataWrapper dataWrapper = new DataWrapper();
+		addMetaData(session, meta, dataWrapper);
+		session.close(null, pStmt);
+		return dataWrapper;
+	}
+
+	/**
+	 * Reads the rows of a joined query into one wrapper per query, holding the records of all its parent
+	 * records. Records beyond the row budget of their parent record are skipped together with their child
+	 * records; with the FAIL policy, reading stops at the first of them, as the request fails anyway.
+	 *
+	 * @param rs      The ResultSet positioned before the first row.
+	 * @param levels  The wrappers of the queries, holding their metadata.
+	 * @param columns The positions of the columns of every query.
+	 * @return The parent record of every record.
+	 * @throws SQLException If a value cannot be read.
+	 */
+	private JoinedRows readJoinedRows(ResultSet rs, DataWrapper[] levels, JoinedColumns[] columns) throws SQLException {
+		int levelCount = levels.length;
+		JoinedRows joinedRows = new JoinedRows(levelCount);
+		int[][] columnTypes = new int[levelCount][];
+		ColumnarData[] columnarData = new ColumnarData[levelCount];
+		// The records of the subqueries in between read for the current top-level record, by parent record
+		// and primary key; -1 for records skipped by the row budget
+		List<Map<List<Object>, Integer>> knownRows = new ArrayList<>(levelCount);
+		for (int level = 0; level < levelCount; level++) {
+			columnTypes[level] = getColumnTypes(levels[level]);
+			if (columnar) {
+				columnarData[level] = new ColumnarData(Arrays.copyOfRange(columnTypes[level], 1, columnTypes[level].length));
+			}
+			knownRows.add(new HashMap<>());
+		}
+		// The record every query holds in the current row
+		int[] currentRows = new int[levelCount];
+		long topLevelRowNumber = 0;
+		boolean topLevelSkipped = false;
+		rows:
+		while (rs.next()) {
+			long rowNumber = rs.getLong(1);
+			if (rowNumber != topLevelRowNumber) {
+				topLevelRowNumber = rowNumber;
+				knownRows.forEach(Map::clear);
+				topLevelSkipped = maxRows > 0 && joinedRows.getChildCount(0, 0) >= maxRows;
+				if (topLevelSkipped) {
+					joinedRows.setTruncated(0, 0);
+					if (ROW_OVERFLOW_FAIL.equals(rowOverflow)) {
+						break;
+					}
+					continue;
+				}
+				currentRows[0] = joinedRows.addRow(0, 0);
+				readJoinedRecord(rs, levels[0], columnarData[0], columnTypes[0], columns[0].firstColumn, currentRows[0]);
+			} else if (topLevelSkipped) {
+				continue;
+			}
+			for (int level = 1; level < levelCount; level++) {
+				if (rs.getObject(columns[level].joinColumn) == null) {
+					break;
+				}
+				int parent = currentRows[level - 1];
+				List<Object> rowKey = null;
+				if (columns[level].keyColumns != null) {
+					rowKey = new ArrayList<>(columns[level].keyColumns.length + 1);
+					rowKey.add(parent);
+					for (int keyColumn : columns[level].keyColumns) {
+						rowKey.add(rs.getObject(keyColumn));
+					}
+					Integer knownRow = knownRows.get(level).get(rowKey);
+					if (knownRow != null) {
+						if (knownRow < 0) {
+							break;
+						}
+						currentRows[level] = knownRow;
+						continue;
+					}
+				}
+				if (maxRows > 0 && joinedRows.getChildCount(level, parent) >= maxRows) {
+					joinedRows.setTruncated(level, parent);
+					if (ROW_OVERFLOW_FAIL.equals(rowOverflow)) {
+						break rows;
 					}
+					if (rowKey != null) {
+						knownRows.get(level).put(rowKey, -1);
+					}
+					break;
+				}
+				currentRows[level] = joinedRows.addRow(level, parent);
+				readJoinedRecord(rs, levels[level], columnarData[level], columnTypes[level], columns[level].firstColumn,
+						currentRows[level]);
+				if (rowKey != null) {
+					knownRows.get(level).put(rowKey, currentRows[level]);
+				}
+			}
+		}
+		if (columnar) {
+			for (int level = 0; level < levelCount; level++) {
+				levels[level].setColumnarData(columnarData[level]);
+			}
+		}
+		return joinedRows;
+	}
+
+	// Reads the columns of a query from the current row of a joined query as its next record
+	private void readJoinedRecord(ResultSet rs, DataWrapper dataWrapper, ColumnarData columnarData, int[] types,
+			int firstColumn, int row) throws SQLException {
+		if (columnarData != null) {
+			ContentFieldData contentFieldData = new ContentFieldData();
+			columnarData.addRow();
+			for (int column = 1; column < types.length; column++) {
+				readValue(rs, firstColumn + column - 1, types[column], contentFieldData);
+				columnarData.setValue(column - 1, contentFieldData);
+			}
+			return;
+		}
+		ContentRecordData contentRecordData = new ContentRecordData(types.length - 1);
+		contentRecordData.setRecordNumber(row + 1);
+		for (int column = 1; column < types.length; column++) {
+			ContentFieldData field = new ContentFieldData();
+			field.setColumnNumber(column);
+			readValue(rs, firstColumn + column - 1, types[column], field);
+			contentRecordData.addContentFieldData(field);
+		}
+		dataWrapper.addContentData(contentRecordData);
+	}
+
+	/**
+	 * The positions of the columns of a query within the rows of a joined query.
+	 */
+	private static final class JoinedColumns {
+
+		// The column number of the first column of the query
+		private final int firstColumn;
+		// The column number of the join column, 0 for the top-level query
+		private final int joinColumn;
+		// The column numbers of the primary key of a subquery in between, null otherwise
+		private final int[] keyColumns;
+
+		private JoinedColumns(DataWrapper dataWrapper, int columnCount, String joinColumnName, boolean identified)
+				throws ProcessingException {
+			firstColumn = columnCount + 1;
+			int join = 0;
+			List<Integer> keys = new ArrayList<>();
+			for (int column = 1; column <= dataWrapper.getMetaData().size(); column++) {
+				MetaData metaData = dataWrapper.getMetaDataForField(column);
+				if (joinColumnName != null && metaData.getColumnName().equalsIgnoreCase(joinColumnName)) {
+					join = columnCount + column;
+				}
+				if (metaData.isPrimaryKey()) {
+					keys.add(columnCount + column);
+				}
+			}
+			if (joinColumnName != null && join == 0) {
+				throw new ProcessingException("The join column " + joinColumnName + " is not returned by the subquery "
+						+ dataWrapper.getName());
+			}
+			if (joinColumnName != null && identified && keys.isEmpty()) {
+				throw new ProcessingException("The subquery " + dataWrapper.getName()
+						+ " has subqueries of its own but no primary key to tell its records apart");
+			}
+			joinColumn = join;
+			keyColumns = joinColumnName != null && identified ? keys.stream().mapToInt(Integer::intValue).toArray() : null;
+		}
+	}
+
+	/**
+	 * The parent record of every record of the queries of a joined query, and the parent records whose
+	 * child records exceeded the row budget. The top-level records have the single parent 0.
+	 */
+	private static final class JoinedRows {
+
+		private final int[][] parents;
+		private final int[] rowCounts;
+		// Per query, the number of child records of every parent record
+		private final int[][] childCounts;
+		private final BitSet[] truncated;
+
+		private JoinedRows(int levelCount) {
+			parents = new int[levelCount][16];
+			rowCounts = new int[levelCount];
+			childCounts = new int[levelCount][16];
+			truncated = new BitSet[levelCount];
+			for (int level = 0; level < levelCount; level++) {
+				truncated[level] = new BitSet();
+			}
+		}
+
+		// Adds a record of a parent record and returns its index
+		private int addRow(int level, int parent) {
+			int row = rowCounts[level]++;
+			if (row == parents[level].length) {
+				parents[level] = Arrays.copyOf(parents[level], row * 2);
+			}
+			parents[level][row] = parent;
+			if (parent >= childCounts[level].length) {
+				childCounts[level] = Arrays.copyOf(childCounts[level], Math.max(parent + 1, childCounts[level].length * 2));
+			}
+			childCounts[level][parent]++;
+			return row;
+		}
+
+		private int getChildCount(int level, int parent) {
+			return parent < childCounts[level].length ? childCounts[level][parent] : 0;
+		}
+
+		// Groups the records of a query by parent record, keeping their order
+		private int[][] getRowsByParent(int level, int parentCount) {
+			int[][] rowsByParent = new int[parentCount][];
+			for (int parent = 0; parent < parentCount; parent++) {
+				rowsByParent[parent] = new int[getChildCount(level, parent)];
+			}
+			int[] filled = new int[parentCount];
+			for (int row = 0; row < rowCounts[level]; row++) {
+				int parent = parents[level][row];
+				rowsByParent[parent][filled[parent]++] = row;
+			}
+			return rowsByParent;
+		}
+
+		// Marks the child records of a parent record as exceeding the row budget
+		private void setTruncated(int level, int parent) {
+			truncated[level].set(parent);
+		}
+
+		private boolean isTruncated(int level, int parent) {
+			return truncated[level].get(parent);
+		}
+	}
+
+	/**
+	 * Reads data using the provided SQL query within the given session. If the result cache is enabled
+	 * and not bypassed by the request, cached results are returned without querying the database.
+	 * Results exceeding the row budget of the request fail the request or are truncated.
+	 *
+	 * @param session    The session to execute the query in.
+	 * @param sqlQuery   The SQL query to read data.
+	 * @param parameters The values for the {@code ?} placeholders, in placeholder order.
+	 * @return The data read from the query.
+	 * @throws RowLimitExceededException If the result exceeds the row budget and the request must fail.
+	 */
+	public DataWrapper readData(JdbcSession session, String sqlQuery, List<?> parameters) throws ProcessingException {
+		return applyRowBudget(readResult(session, sqlQuery, parameters, maxRows), sqlQuery);
+	}
+
+	/**
+	 * Reads data using the provided SQL query within the given session, from the result cache if it is enabled
+	 * and not bypassed by the request. The row budget is not applied.
+	 *
+	 * @param session    The session to execute the query in.
+	 * @param sqlQuery   The SQL query to read data.
+	 * @param parameters The values for the {@code ?} placeholders, in placeholder order.
+	 * @param rowLimit   The maximum number of rows read from the database (0 = no limit).
+	 * @return The data read from the query, marked as truncated if the database returned more rows.
+	 */
+	private DataWrapper readResult(JdbcSession session, String sqlQuery, List<?> parameters, int rowLimit)
+			throws ProcessingException {
+		if (!useResultCache || !resultCache.isEnabled()) {
+			return executeQuery(session, sqlQuery, parameters, rowLimit, 0, null);
+		}
+		DataWrapper dataWrapper = resultCache.get(sqlQuery, parameters, typedValues);
+		if (dataWrapper != null) {
+			statistics.add(CACHE_HITS, 1);
+			return dataWrapper;
+		}
+		statistics.add(CACHE_MISSES, 1);
+		dataWrapper = executeQuery(session, sqlQuery, parameters, rowLimit, 0, null);
+		// An incomplete result must not be served to requests with a larger row budget
+		if (!dataWrapper.isTruncated()) {
+			resultCache.put(sqlQuery, parameters, typedValues, dataWrapper);
+		}
+		return dataWrapper;
+	}
+
+	/**
+	 * Applies the row budget of the request to a result.
+	 *
+	 * @param dataWrapper The result, truncated by {@link #executeQuery} if it exceeded the row budget.
+	 * @param sqlQuery    The SQL query of the result.
+	 * @return The result, with at most {@code maxRows} rows.
+	 * @throws RowLimitExceededException If the result exceeds the row budget and the request must fail.
+	 */
+	@Override
+	public DataWrapper applyRowBudget(DataWrapper dataWrapper, String sqlQuery) throws RowLimitExceededException {
+		if (maxRows == 0 || (!dataWrapper.isTruncated() && dataWrapper.getRowCount() <= maxRows)) {
+			return dataWrapper;
+		}
+		if (ROW_OVERFLOW_FAIL.equals(rowOverflow)) {
+			throw new RowLimitExceededException("The result exceeds the row budget of " + maxRows + " rows: " + sqlQuery);
+		}
+		LOG.warn("Result truncated to the row budget of " + maxRows + " rows: " + sqlQuery);
+		statistics.add(TRUNCATED_RESULTS, 1);
+		if (dataWrapper.getRowCount() <= maxRows) {
+			return dataWrapper;
+		}
+		int[] rows = new int[maxRows];
+		for (int row = 0; row < maxRows; row++) {
+			rows[row] = row;
+		}
+		DataWrapper truncatedWrapper = dataWrapper.selectRows(rows);
+		truncatedWrapper.setTruncated(true);
+		return truncatedWrapper;
+	}
+
+	/**
+	 * Gets the row count hints shared by all controllers, created on first use.
+	 *
+	 * @return The row count hints.
+	 */
+	private static synchronized LruCache<String, Integer> getRowCountHints() {
+		if (rowCountHints == null) {
+			rowCountHints = new LruCache<>(JdbcConfig.getInstance().getDbSqlCacheSize());
+		}
+		return rowCountHints;
+	}
+
+	/**
+	 * Executes the provided SQL query within the given session, passing its rows to a listener in chunks
+	 * while they are read.
+	 *
+	 * @param session    The session to execute the query in.
+	 * @param sqlQuery   The SQL query to read data.
+	 * @param parameters The values for the {@code ?} placeholders, in placeholder order.
+	 * @param rowLimit   The maximum number of rows read (0 = no limit).
+	 * @param chunkRows  The number of rows per chunk.
+	 * @param listener   Receives the chunks of rows, or null if the rows are not passed on.
+	 * @return The data read from the query.
+	 */
+	private DataWrapper executeQuery(JdbcSession session, String sqlQuery, List<?> parameters, int rowLimit,
+									 int chunkRows, IRowChunkListener listener) throws ProcessingException {
+		DataWrapper dataWrapper = new DataWrapper();
+		try {
+			executeQuery(session, sqlQuery, parameters, rowLimit, 0, dataWrapper, (rs, columnTypes) -> {
+				Integer rowCountHint = getRowCountHints().get(sqlQuery);
+				int expectedRows = rowCountHint != null ? rowCountHint : 0;
+				if (rowLimit > 0) {
+					expectedRows = Math.min(expectedRows, rowLimit);
+				}
+				if (columnar) {
+					readColumnarRows(rs, columnTypes, rowLimit, expectedRows, dataWrapper, chunkRows, listener);
+				} else {
+					readRows(rs, columnTypes, rowLimit, expectedRows, dataWrapper, chunkRows, listener);
 				}
+				getRowCountHints().put(sqlQuery, dataWrapper.getRowCount());
+			});
+		} catch (IOException e) {
+			// Not thrown, the rows are only read into the wrapper
+			throw new ProcessingException("Error while reading the result", e);
+		}
+		return dataWrapper;
+	}
 
-				jdbcOperations.close(rs, stmt);
+	/**
+	 * Executes the provided SQL query within the given session and passes its result set to a reader,
+	 * after the metadata of its columns has been added to the wrapper.
+	 *
+	 * @param session     The session to execute the query in.
+	 * @param sqlQuery    The SQL query to read data.
+	 * @param parameters  The values for the {@code ?} placeholders, in placeholder order.
+	 * @param rowLimit    The maximum number of rows read by the reader (0 = no limit).
+	 * @param fetchSize   The number of rows fetched per round trip, 0 for the driver default.
+	 * @param dataWrapper The wrapper receiving the metadata.
+	 * @param rowReader   Reads the rows of the result set.
+	 * @throws IOException If the reader fails to write the rows.
+	 */
+	private void executeQuery(JdbcSession session, String sqlQuery, List<?> parameters, int rowLimit, int fetchSize,
+							  DataWrapper dataWrapper, RowReader rowReader) throws ProcessingException, IOException {
+		try {
+			// Parse and validate the SQL query
+			net.sf.jsqlparser.statement.Statement parsedSql = parseAndValidateSql(sqlQuery, !parameters.isEmpty());
+
+			if (parsedSql instanceof Select) {
+				java.sql.Statement stmt;
+				ResultSet rs;
+				// One row beyond the limit tells whether the result exceeds it
+				int statementMaxRows = rowLimit > 0 && rowLimit < Integer.MAX_VALUE ? rowLimit + 1 : 0;
+				// Drivers may reject a fetch size beyond the row limit
+				int statementFetchSize = statementMaxRows > 0 ? Math.min(fetchSize, statementMaxRows) : fetchSize;
+				if (parameters.isEmpty()) {
+					stmt = session.createStatement();
+					stmt.setMaxRows(statementMaxRows);
+					stmt.setFetchSize(statementFetchSize);
+					rs = stmt.executeQuery(sqlQuery);
+				} else {
+					PreparedStatement pStmt = session.prepareStatement(sqlQuery, parameters);
+					stmt = pStmt;
+					// Pooled statements keep their limit, so it is always set
+					pStmt.setMaxRows(statementMaxRows);
+					pStmt.setFetchSize(statementFetchSize);
+					rs = pStmt.executeQuery();
+				}
+
+				addMetaData(session, rs.getMetaData(), dataWrapper);
+				rowReader.read(rs, getColumnTypes(dataWrapper));
+				session.close(rs, stmt);
 			}
 		} catch (JSQLParserException e) {
 			LOG.error("Error parsing SQL query", e);
@@ -207,14 +1045,246 @@ public class JdbcConnectionController implements IConnectionController, IConstan
 			LOG.error("Error while executing SQLQuery", e);
 			throw new ProcessingException("Error while executing SQLQuery", e);
 		}
+	}
 
-		return dataWrapper;
+	/**
+	 * Adds the metadata of the columns of a query to a wrapper, including the primary key flags.
+	 *
+	 * @param session     The session whose connection looks up the primary keys.
+	 * @param meta        The metadata of the columns.
+	 * @param dataWrapper The wrapper receiving the metadata.
+	 * @throws SQLException If the metadata cannot be read.
+	 */
+	private void addMetaData(JdbcSession session, ResultSetMetaData meta, DataWrapper dataWrapper) throws SQLException {
+		for (int column = 1; column <= meta.getColumnCount(); column++) {
+			MetaData metaData = new MetaData();
+			metaData.setColumnNumber(column);
+			metaData.setColumnLabel(meta.getColumnLabel(column));
+			metaData.setColumnName(meta.getColumnName(column));
+			metaData.setColumnSqlDataType(meta.getColumnType(column));
+			metaData.setColumnSqlDataTypeName(meta.getColumnTypeName(column));
+			metaData.setColumnClassName(meta.getColumnClassName(column));
+			metaData.addInfoToTableList(new TableInfo(meta.getCatalogName(column), meta.getSchemaName(column), meta.getTableName(column)));
+			dataWrapper.addMetaData(metaData);
+		}
+
+		// Add Primary Keys, looked up once per table
+		Map<List<String>, List<String>> primaryKeysByTable = new HashMap<>();
+		for (MetaData metaData : dataWrapper.getMetaData().values()) {
+			for (TableInfo tableInfo : metaData.getTableInfoList()) {
+				List<String> tableKey = Arrays.asList(tableInfo.getCatalog(), tableInfo.getSchema(), tableInfo.getTable());
+				tableInfo.addAllFieldsToPrimaryKey(primaryKeysByTable.computeIfAbsent(tableKey,
+						key -> getCachedPrimaryKeys(session.getConnection(), tableInfo.getCatalog(), tableInfo.getSchema(), tableInfo.getTable())));
+			}
+			metaData.checkPrimaryKey();
+		}
+	}
+
+	// The SQL data type read for every column, indexed by column number; all columns are strings unless values are typed
+	private int[] getColumnTypes(DataWrapper dataWrapper) {
+		int[] columnTypes = new int[dataWrapper.getMetaData().size() + 1];
+		for (int column = 1; column < columnTypes.length; column++) {
+			columnTypes[column] = typedValues ? dataWrapper.getMetaData().get(column).getColumnSqlDataType() : Types.VARCHAR;
+		}
+		return columnTypes;
+	}
+
+	/**
+	 * Reads the rows of a result set.
+	 */
+	private interface RowReader {
+
+		/**
+		 * Reads the rows of a result set.
+		 *
+		 * @param rs          The ResultSet positioned before the first row.
+		 * @param columnTypes The SQL data type of every column, indexed by column number.
+		 * @throws SQLException If a value cannot be read.
+		 * @throws IOException  If a row cannot be written.
+		 */
+		void read(ResultSet rs, int[] columnTypes) throws SQLException, IOException;
+	}
+
+	/**
+	 * Reads the rows of a result set into one record of field objects per row. At most {@code rowLimit}
+	 * rows are read; if there are more, the wrapper is marked as truncated.
+	 *
+	 * @param rs           The ResultSet positioned before the first row.
+	 * @param columnTypes  The SQL data type of every column, indexed by column number.
+	 * @param rowLimit     The maximum number of rows read (0 = no limit).
+	 * @param expectedRows The expected number of rows used to pre-size the records.
+	 * @param dataWrapper  The wrapper to hold the rows.
+	 * @param chunkRows    The number of rows per chunk passed to the listener.
+	 * @param listener     Receives the rows in chunks while they are read, or null.
+	 * @throws SQLException If a value cannot be read.
+	 */
+	private void readRows(ResultSet rs, int[] columnTypes, int rowLimit, int expectedRows, DataWrapper dataWrapper,
+						  int chunkRows, IRowChunkListener listener) throws SQLException {
+		dataWrapper.ensureCapacity(expectedRows);
+		int fieldCount = columnTypes.length - 1;
+		int recNo = 0;
+		int chunkStart = 0;
+		while (hasNextRow(rs, recNo, rowLimit, dataWrapper)) {
+			if (listener != null && recNo - chunkStart == chunkRows) {
+				passChunk(dataWrapper, chunkStart, recNo, listener);
+				chunkStart = recNo;
+			}
+			recNo++;
+			ContentRecordData contentRecordData = new ContentRecordData(fieldCount);
+			contentRecordData.setRecordNumber(recNo);
+			for (int column = 1; column <= fieldCount; column++) {
+				ContentFieldData contentFieldData = new ContentFieldData();
+				contentFieldData.setColumnNumber(column);
+				readValue(rs, column, columnTypes[column], contentFieldData);
+				contentRecordData.addContentFieldData(contentFieldData);
+			}
+			dataWrapper.addContentData(contentRecordData);
+		}
+		passChunk(dataWrapper, chunkStart, recNo, listener);
+	}
+
+	/**
+	 * Reads the rows of a result set into one typed vector per column. At most {@code rowLimit}
+	 * rows are read; if there are more, the wrapper is marked as truncated.
+	 *
+	 * @param rs           The ResultSet positioned before the first row.
+	 * @param columnTypes  The SQL data type of every column, indexed by column number.
+	 * @param rowLimit     The maximum number of rows read (0 = no limit).
+	 * @param expectedRows The expected number of rows used to pre-size the vectors.
+	 * @param dataWrapper  The wrapper to hold the rows.
+	 * @param chunkRows    The number of rows per chunk passed to the listener.
+	 * @param listener     Receives the rows in chunks while they are read, or null.
+	 * @throws SQLException If a value cannot be read.
+	 */
+	private void readColumnarRows(ResultSet rs, int[] columnTypes, int rowLimit, int expectedRows,
+								  DataWrapper dataWrapper, int chunkRows, IRowChunkListener listener) throws SQLException {
+		ColumnarData columnarData = new ColumnarData(Arrays.copyOfRange(columnTypes, 1, columnTypes.length), expectedRows);
+		// Set first, so chunks can be taken from the wrapper while it is filled
+		dataWrapper.setColumnarData(columnarData);
+		ContentFieldData contentFieldData = new ContentFieldData();
+		int chunkStart = 0;
+		while (hasNextRow(rs, columnarData.getRowCount(), rowLimit, dataWrapper)) {
+			if (listener != null && columnarData.getRowCount() - chunkStart == chunkRows) {
+				passChunk(dataWrapper, chunkStart, columnarData.getRowCount(), listener);
+				chunkStart = columnarData.getRowCount();
+			}
+			columnarData.addRow();
+			for (int column = 1; column < columnTypes.length; column++) {
+				readValue(rs, column, columnTypes[column], contentFieldData);
+				columnarData.setValue(column - 1, contentFieldData);
+			}
+		}
+		passChunk(dataWrapper, chunkStart, columnarData.getRowCount(), listener);
+	}
+
+	/**
+	 * Writes the rows of a result set as flat records while they are read, with one field per column
+	 * reused for every row. At most {@code maxRows} rows are written; if there are more, the wrapper
+	 * is marked as truncated. The writer is flushed after every fetch of rows, so the client receives
+	 * them while the rest are read, compressed or not.
+	 *
+	 * @param rs           The ResultSet positioned before the first row.
+	 * @param columnTypes  The SQL data type of every column, indexed by column number.
+	 * @param dataWrapper  The wrapper holding the name and the metadata of the result.
+	 * @param recordWriter The writer receiving the records.
+	 * @param fetchSize    The number of rows fetched per round trip.
+	 * @throws SQLException If a value cannot be read.
+	 * @throws IOException  If a record cannot be written.
+	 */
+	private void writeRows(ResultSet rs, int[] columnTypes, DataWrapper dataWrapper, IRecordWriter recordWriter,
+			int fetchSize) throws SQLException, IOException {
+		int fieldCount = columnTypes.length - 1;
+		MetaData[] columns = new MetaData[fieldCount];
+		ContentFieldData[] fields = new ContentFieldData[fieldCount];
+		int primaryKeyField = -1;
+		for (int field = 0; field < fieldCount; field++) {
+			columns[field] = dataWrapper.getMetaData().get(field + 1);
+			fields[field] = new ContentFieldData();
+			fields[field].setColumnNumber(field + 1);
+			if (primaryKeyField < 0 && columns[field].isPrimaryKey()) {
+				primaryKeyField = field;
+			}
+		}
+		List<String> wrapperNames = Collections.singletonList(dataWrapper.getName());
+		String[] recordKey = new String[1];
+		List<String> recordKeys = Arrays.asList(recordKey);
+		int recNo = 0;
+		while (hasNextRow(rs, recNo, maxRows, dataWrapper)) {
+			recNo++;
+			for (int column = 1; column <= fieldCount; column++) {
+				readValue(rs, column, columnTypes[column], fields[column - 1]);
+			}
+			// Keyed as by DataToFlatRecords: by the first primary key field or by the record number
+			recordKey[0] = primaryKeyField >= 0 ? fields[primaryKeyField].getValue() : String.valueOf(recNo);
+			recordWriter.writeRecord(wrapperNames, recordKeys, columns, fields);
+			if (fetchSize > 0 && recNo % fetchSize == 0) {
+				recordWriter.flush();
+			}
+		}
+	}
+
+	// Advances to the next row unless the row limit is used up; a further row marks the result as truncated
+	private boolean hasNextRow(ResultSet rs, int rowCount, int rowLimit, DataWrapper dataWrapper) throws SQLException {
+		if (rowLimit > 0 && rowCount >= rowLimit) {
+			dataWrapper.setTruncated(rs.next());
+			return false;
+		}
+		return rs.next();
+	}
+
+	/**
+	 * Reads the value of a column into a field. Numeric, decimal and boolean columns are read with their
+	 * native types, all other columns as strings. Date and time columns are read as strings as well, as the
+	 * string form of their native values, e.g. {@code 2024-01-01 10:00:00.0} of a {@link Timestamp}, differs
+	 * from the one of the driver, which is substituted into subqueries and compared by the BATCH mode.
+	 *
+	 * @param rs           The ResultSet positioned on the current row.
+	 * @param column       The column number.
+	 * @param sqlDataType  The SQL data type of the column, see {@link Types}.
+	 * @param contentField The field to fill.
+	 * @throws SQLException If the value cannot be read.
+	 */
+	private void readValue(ResultSet rs, int column, int sqlDataType, ContentFieldData contentField) throws SQLException {
+		switch (sqlDataType) {
+			case Types.TINYINT:
+			case Types.SMALLINT:
+			case Types.INTEGER:
+			case Types.BIGINT:
+				long longValue = rs.getLong(column);
+				if (rs.wasNull()) {
+					contentField.setValue(null);
+				} else {
+					contentField.setLongValue(longValue);
+				}
+				break;
+			case Types.REAL:
+			case Types.FLOAT:
+			case Types.DOUBLE:
+				double doubleValue = rs.getDouble(column);
+				if (rs.wasNull()) {
+					contentField.setValue(null);
+				} else {
+					contentField.setDoubleValue(doubleValue);
+				}
+				break;
+			case Types.DECIMAL:
+			case Types.NUMERIC:
+				contentField.setObjectValue(rs.getBigDecimal(column));
+				break;
+			case Types.BIT:
+			case Types.BOOLEAN:
+				boolean booleanValue = rs.getBoolean(column);
+				contentField.setObjectValue(rs.wasNull() ? null : booleanValue);
+				break;
+			default:
+				contentField.setValue(rs.getString(column));
+		}
 	}
 
 	private DataWrapper createErrorDataWrapper(Exception e) {
 		// Create a DataWrapper to indicate an error
 		DataWrapper errorWrapper = new DataWrapper();
-		errorWrapper.setName("Error");
+		errorWrapper.setName(ERROR_WRAPPER);
 		MetaData errorMetaData = new MetaData();
 		errorMetaData.setColumnName("ErrorMessage");
 		errorMetaData.setColumnNumber(1);
@@ -0,0 +1,138 @@
+package de.zeus.commons.provider.logic.sql;
+
+import de.zeus.commons.base.interfaces.IJdbcOperations;
+import de.zeus.commons.connector.jdbc.ProcessingException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Execution context of a single request or task.
+ *
+ * <p>A session owns one pooled connection and keeps track of the statements created on it.
+ * Closing the session closes all statements that are still open and returns the connection
+ * to the pool. A session is confined to one thread; concurrent tasks open their own sessions.
+ * A session may take its connection from a {@link ConnectionBudget}, whose permit it holds until it is closed.</p>
+ */
+public class JdbcSession implements AutoCloseable {
+
+    private static final Log LOG = LogFactory.getLog(JdbcSession.class);
+
+    private final IJdbcOperations jdbcOperations;
+    private final Connection connection;
+    /** The budget the connection was taken from, null if it was taken from the pool directly. */
+    private final ConnectionBudget budget;
+    /** Statements created on this session which have not been closed yet. */
+    private final List<Statement> openStatements = new ArrayList<>();
+
+    /**
+     * Opens a new session on a connection taken from the pool.
+     *
+     * @param jdbcOperations The JDBC operations implementation.
+     * @throws ProcessingException if no connection could be fetched from the pool.
+     */
+    public JdbcSession(IJdbcOperations jdbcOperations) throws ProcessingException {
+        this(jdbcOperations, null);
+    }
+
+    /**
+     * Opens a new session on a connection taken from the pool within a connection budget.
+     *
+     * @param jdbcOperations The JDBC operations implementation.
+     * @param budget         The budget to take the connection from, or null to take it from the pool directly.
+     * @throws ProcessingException if no permit or no connection could be fetched in time.
+     */
+    public JdbcSession(IJdbcOperations jdbcOperations, ConnectionBudget budget) throws ProcessingException {
+        this.jdbcOperations = jdbcOperations;
+        this.budget = budget;
+        if (budget != null) {
+            budget.acquire();
+        }
+        try {
+            this.connection = jdbcOperations.getDatabaseConnection();
+        } catch (ProcessingException e) {
+            if (budget != null) {
+                budget.release();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the connection owned by this session.
+     *
+     * @return The database connection.
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Creates a statement on the connection of this session and tracks it until it is closed.
+     *
+     * @return A new statement.
+     * @throws ProcessingException if the statement could not be created.
+     */
+    public Statement createStatement() throws ProcessingException {
+        Statement stmt = jdbcOperations.getStmt(connection);
+        openStatements.add(stmt);
+        return stmt;
+    }
+
+    /**
+     * Prepares a statement on the connection of this session, binds the parameters and tracks
+     * the statement until it is closed. With statement pooling enabled, closing the statement
+     * returns it to the statement cache of the connection.
+     *
+     * @param sql        The SQL statement containing {@code ?} placeholders.
+     * @param parameters The values for the placeholders.
+     * @return The prepared statement.
+     * @throws ProcessingException if the statement could not be prepared.
+     */
+    public PreparedStatement prepareStatement(String sql, List<?> parameters) throws ProcessingException {
+        PreparedStatement pStmt = jdbcOperations.getPreparedStmt(connection, sql, parameters.toArray());
+        openStatements.add(pStmt);
+        return pStmt;
+    }
+
+    /**
+     * Closes a result set and its statement and stops tracking the statement.
+     *
+     * @param rSet The ResultSet to close.
+     * @param stmt The Statement to close.
+     * @throws SQLException If an SQL exception occurs.
+     */
+    public void close(ResultSet rSet, Statement stmt) throws SQLException {
+        openStatements.remove(stmt);
+        jdbcOperations.close(rSet, stmt);
+    }
+
+    /**
+     * Closes all statements that are still open and returns the connection to the pool.
+     */
+    @Override
+    public void close() {
+        for (Statement stmt : openStatements) {
+            try {
+                stmt.close();
+            } catch (SQLException e) {
+                LOG.error("Error while closing statement", e);
+            }
+        }
+        if (!openStatements.isEmpty()) {
+            LOG.debug("Closed " + openStatements.size() + " statement(s) left open by the session.");
+        }
+        openStatements.clear();
+        jdbcOperations.closeDatabaseConnection(connection);
+        if (budget != null) {
+            budget.release();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package de.zeus.commons.provider.logic.sql;
+
+import de.zeus.commons.base.cache.LruCache;
+import de.zeus.commons.base.config.JdbcConfig;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Caches the primary key fields of tables across requests, keyed by catalog, schema and table.
+ *
+ * <p>Looking up primary keys via {@code DatabaseMetaData} costs two catalog queries per table,
+ * which on DB2 for i often exceeds the cost of the query itself. Entries expire after
+ * {@code db.pk.cache.ttl.seconds} and can be invalidated manually, e.g. after a table was altered.</p>
+ */
+public class PrimaryKeyCache {
+
+	/** Cache shared by all requests, created on first use. */
+	private static PrimaryKeyCache instance;
+
+	private final LruCache<String, List<String>> cache;
+
+	private PrimaryKeyCache(JdbcConfig config) {
+		this.cache = new LruCache<>(config.getDbPkCacheSize(), 0, null, config.getDbPkCacheTtlSeconds() * 1000L);
+	}
+
+	/**
+	 * Returns the primary key cache shared by all requests.
+	 *
+	 * @return The primary key cache.
+	 */
+	public static synchronized PrimaryKeyCache getInstance() {
+		if (instance == null) {
+			instance = new PrimaryKeyCache(JdbcConfig.getInstance());
+		}
+		return instance;
+	}
+
+	/**
+	 * Gets the primary key fields of a table, loading and caching them if they are not cached yet.
+	 *
+	 * @param catalog The catalog name.
+	 * @param schema  The schema name.
+	 * @param table   The table name.
+	 * @param loader  Loads the primary key fields from the database.
+	 * @return The primary key fields of the table.
+	 */
+	public List<String> getPrimaryKeys(String catalog, String schema, String table, Supplier<List<String>> loader) {
+		return cache.computeIfAbsent(createKey(catalog, schema, table),
+				key -> Collections.unmodifiableList(loader.get()));
+	}
+
+	/**
+	 * Caches the primary key fields of a table, replacing any cached entry.
+	 *
+	 * @param catalog          The catalog name.
+	 * @param schema           The schema name.
+	 * @param table            The table name.
+	 * @param primaryKeyFields The primary key fields of the table.
+	 */
+	public void put(String catalog, String schema, String table, List<String> primaryKeyFields) {
+		cache.put(createKey(catalog, schema, table), Collections.unmodifiableList(primaryKeyFields));
+	}
+
+	/**
+	 * Removes the cached primary key fields of a table.
+	 *
+	 * @param catalog The catalog name.
+	 * @param schema  The schema name.
+	 * @param table   The table name.
+	 */
+	public void invalidate(String catalog, String schema, String table) {
+		cache.invalidate(createKey(catalog, schema, table));
+	}
+
+	/**
+	 * Removes the cached primary key fields of all tables.
+	 */
+	public void clear() {
+		cache.clear();
+	}
+
+	/**
+	 * Gets the metrics of the cache.
+	 *
+	 * @return The metrics keyed by name.
+	 */
+	public Map<String, Long> getMetrics() {
+		Map<String, Long> metrics = new LinkedHashMap<>();
+		metrics.put("entries", (long) cache.size());
+		metrics.put("hits", cache.getHits());
+		metrics.put("misses", cache.getMisses());
+		metrics.put("evictions", cache.getEvictions());
+		metrics.put("expirations", cache.getExpirations());
+		return metrics;
+	}
+
+	/**
+	 * Creates the cache key of a table. Missing catalog or schema names are treated as empty names,
+	 * as drivers report them either way.
+	 */
+	private static String createKey(String catalog, String schema, String table) {
+		return nullToEmpty(catalog) + '\u0000' + nullToEmpty(schema) + '\u0000' + nullToEmpty(table);
+	}
+
+	private static String nullToEmpty(String name) {
+		return name != null ? name : "";
+	}
+}
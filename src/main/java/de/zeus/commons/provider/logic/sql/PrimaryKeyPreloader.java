@@ -0,0 +1,145 @@
+package de.zeus.commons.provider.logic.sql;
+
+import de.zeus.commons.base.interfaces.IJdbcOperations;
+import de.zeus.commons.connector.jdbc.ProcessingException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads the primary keys of all tables of the configured schemas with a single catalog query
+ * and stores them in the {@link PrimaryKeyCache}, so that the first requests after a start do not
+ * pay for one catalog lookup per table.
+ *
+ * <p>Supported are H2 ({@code INFORMATION_SCHEMA}) and DB2 for i ({@code QSYS2.SYSKEYCST}).
+ * The database is detected by its product name; for other databases the preload is skipped and
+ * primary keys are looked up lazily as before. Tables without a primary key are cached with an
+ * empty key list, as the lazy lookup would do.</p>
+ */
+public class PrimaryKeyPreloader {
+
+	private static final Log LOG = LogFactory.getLog(PrimaryKeyPreloader.class);
+
+	private static final String H2_QUERY = "SELECT T.TABLE_SCHEMA, T.TABLE_NAME, K.COLUMN_NAME"
+			+ " FROM INFORMATION_SCHEMA.TABLES T"
+			+ " LEFT JOIN INFORMATION_SCHEMA.TABLE_CONSTRAINTS C ON C.TABLE_SCHEMA = T.TABLE_SCHEMA"
+			+ " AND C.TABLE_NAME = T.TABLE_NAME AND C.CONSTRAINT_TYPE = 'PRIMARY KEY'"
+			+ " LEFT JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE K ON K.CONSTRAINT_SCHEMA = C.CONSTRAINT_SCHEMA"
+			+ " AND K.CONSTRAINT_NAME = C.CONSTRAINT_NAME"
+			+ " WHERE T.TABLE_TYPE = 'BASE TABLE' AND T.TABLE_SCHEMA IN (%s)"
+			+ " ORDER BY T.TABLE_SCHEMA, T.TABLE_NAME, K.ORDINAL_POSITION";
+
+	private static final String DB2_FOR_I_QUERY = "SELECT T.TABLE_SCHEMA, T.TABLE_NAME, K.COLUMN_NAME"
+			+ " FROM QSYS2.SYSTABLES T"
+			+ " LEFT JOIN QSYS2.SYSCST C ON C.TABLE_SCHEMA = T.TABLE_SCHEMA"
+			+ " AND C.TABLE_NAME = T.TABLE_NAME AND C.CONSTRAINT_TYPE = 'PRIMARY KEY'"
+			+ " LEFT JOIN QSYS2.SYSKEYCST K ON K.CONSTRAINT_SCHEMA = C.CONSTRAINT_SCHEMA"
+			+ " AND K.CONSTRAINT_NAME = C.CONSTRAINT_NAME"
+			+ " WHERE T.TABLE_TYPE IN ('T', 'P') AND T.TABLE_SCHEMA IN (%s)"
+			+ " ORDER BY T.TABLE_SCHEMA, T.TABLE_NAME, K.ORDINAL_POSITION";
+
+	private final IJdbcOperations jdbcOperations;
+
+	/**
+	 * Constructor for PrimaryKeyPreloader.
+	 *
+	 * @param jdbcOperations The JDBC operations implementation.
+	 */
+	public PrimaryKeyPreloader(IJdbcOperations jdbcOperations) {
+		this.jdbcOperations = jdbcOperations;
+	}
+
+	/**
+	 * Preloads the primary keys of all tables of the given schemas into the primary key cache.
+	 * Failures are logged and leave the lazy lookup in place.
+	 *
+	 * @param schemas The schema names, as stored in the catalog.
+	 * @return The number of tables preloaded.
+	 */
+	public int preload(List<String> schemas) {
+		if (schemas.isEmpty()) {
+			return 0;
+		}
+		try (JdbcSession session = new JdbcSession(jdbcOperations)) {
+			Connection connection = session.getConnection();
+			String productName = connection.getMetaData().getDatabaseProductName();
+			String query = getCatalogQuery(productName);
+			if (query == null) {
+				LOG.info("Primary key preload is not supported for " + productName + ". Primary keys are looked up lazily.");
+				return 0;
+			}
+			String placeholders = String.join(", ", Collections.nCopies(schemas.size(), "?"));
+			PreparedStatement pStmt = session.prepareStatement(String.format(query, placeholders), schemas);
+			ResultSet rs = pStmt.executeQuery();
+			int tables = cacheTables(rs, connection.getCatalog());
+			session.close(rs, pStmt);
+			LOG.info("Preloaded the primary keys of " + tables + " tables of the schemas " + schemas + ".");
+			return tables;
+		} catch (ProcessingException | SQLException e) {
+			LOG.error("Error while preloading primary keys", e);
+			return 0;
+		}
+	}
+
+	/**
+	 * Gets the catalog query reading the primary keys of all tables of a list of schemas.
+	 *
+	 * @param productName The database product name reported by the driver.
+	 * @return The query with a {@code %s} for the schema placeholders, or null if the database is not supported.
+	 */
+	private String getCatalogQuery(String productName) {
+		String product = productName.toUpperCase(Locale.ROOT);
+		if (product.startsWith("H2")) {
+			return H2_QUERY;
+		}
+		// The Toolbox for Java driver reports "DB2 UDB for AS/400"
+		if (product.contains("AS/400") || product.contains("DB2 FOR I") || product.contains("DB2 FOR IBM I")) {
+			return DB2_FOR_I_QUERY;
+		}
+		return null;
+	}
+
+	/**
+	 * Caches the primary key fields of every table of a result ordered by schema, table and key position.
+	 *
+	 * @param rs      The result of the catalog query.
+	 * @param catalog The catalog of the connection, as reported for the columns of a query.
+	 * @return The number of tables cached.
+	 */
+	private int cacheTables(ResultSet rs, String catalog) throws SQLException {
+		PrimaryKeyCache primaryKeyCache = PrimaryKeyCache.getInstance();
+		String schema = null;
+		String table = null;
+		List<String> primaryKeyFields = new ArrayList<>();
+		int tables = 0;
+		while (rs.next()) {
+			String rowSchema = rs.getString(1).trim();
+			String rowTable = rs.getString(2).trim();
+			if (!rowSchema.equals(schema) || !rowTable.equals(table)) {
+				if (table != null) {
+					primaryKeyCache.put(catalog, schema, table, primaryKeyFields);
+					tables++;
+				}
+				schema = rowSchema;
+				table = rowTable;
+				primaryKeyFields = new ArrayList<>();
+			}
+			if (rs.getString(3) != null) {
+				primaryKeyFields.add(rs.getString(3).trim());
+			}
+		}
+		if (table != null) {
+			primaryKeyCache.put(catalog, schema, table, primaryKeyFields);
+			tables++;
+		}
+		return tables;
+	}
+}
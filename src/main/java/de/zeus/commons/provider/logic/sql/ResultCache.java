@@ -0,0 +1,171 @@
+package de.zeus.commons.provider.logic.sql;
+
+import de.zeus.commons.base.cache.LruCache;
+import de.zeus.commons.base.config.JdbcConfig;
+import de.zeus.commons.provider.model.ContentFieldData;
+import de.zeus.commons.provider.model.ContentRecordData;
+import de.zeus.commons.provider.model.DataWrapper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches query results across requests, keyed by the normalized SQL statement and its parameters.
+ *
+ * <p>The cache is bounded by the number of entries ({@code db.result.cache.size}) and optionally by
+ * the estimated size of the cached results in bytes ({@code db.result.cache.max.bytes}). Entries expire
+ * after {@code db.result.cache.ttl.seconds}. Cached results are never handed out directly: callers get
+ * a copy, as they attach child data to the returned records.</p>
+ */
+public class ResultCache {
+
+	private static final Log LOG = LogFactory.getLog(ResultCache.class);
+
+	/** Estimated fixed size of a wrapper, a metadata entry, a record and a field in bytes. */
+	private static final int WRAPPER_SIZE = 64;
+	private static final int META_DATA_SIZE = 256;
+	private static final int RECORD_SIZE = 48;
+	private static final int FIELD_SIZE = 40;
+
+	/** Cache shared by all requests, created on first use. */
+	private static ResultCache instance;
+
+	private final LruCache<String, DataWrapper> cache;
+
+	private ResultCache(JdbcConfig config) {
+		this.cache = new LruCache<>(config.getDbResultCacheSize(), config.getDbResultCacheMaxBytes(),
+				ResultCache::estimateSize, config.getDbResultCacheTtlSeconds() * 1000L);
+		if (isEnabled()) {
+			LOG.info("Result cache enabled with " + config.getDbResultCacheSize() + " entries, a TTL of "
+					+ config.getDbResultCacheTtlSeconds() + " seconds and a limit of " + config.getDbResultCacheMaxBytes() + " bytes.");
+		}
+	}
+
+	/**
+	 * Returns the result cache shared by all requests.
+	 *
+	 * @return The result cache.
+	 */
+	public static synchronized ResultCache getInstance() {
+		if (instance == null) {
+			instance = new ResultCache(JdbcConfig.getInstance());
+		}
+		return instance;
+	}
+
+	/**
+	 * Checks whether results are cached at all.
+	 *
+	 * @return true if the cache holds at least one entry.
+	 */
+	public boolean isEnabled() {
+		return JdbcConfig.getInstance().getDbResultCacheSize() > 0;
+	}
+
+	/**
+	 * Gets a copy of the cached result of a statement.
+	 *
+	 * @param sqlQuery    The SQL statement.
+	 * @param parameters  The values bound to its placeholders.
+	 * @param typedValues Whether the result holds native values instead of strings.
+	 * @return A copy of the cached result, or null if the statement is not cached.
+	 */
+	public DataWrapper get(String sqlQuery, List<?> parameters, boolean typedValues) {
+		DataWrapper cached = cache.get(createKey(sqlQuery, parameters, typedValues));
+		return cached != null ? cached.copy() : null;
+	}
+
+	/**
+	 * Caches a copy of the result of a statement.
+	 *
+	 * @param sqlQuery    The SQL statement.
+	 * @param parameters  The values bound to its placeholders.
+	 * @param typedValues Whether the result holds native values instead of strings.
+	 * @param result      The freshly read result.
+	 */
+	public void put(String sqlQuery, List<?> parameters, boolean typedValues, DataWrapper result) {
+		cache.put(createKey(sqlQuery, parameters, typedValues), result.copy());
+	}
+
+	/**
+	 * Removes all cached results.
+	 */
+	public void clear() {
+		cache.clear();
+	}
+
+	/**
+	 * Gets the metrics of the cache.
+	 *
+	 * @return The metrics keyed by name.
+	 */
+	public Map<String, Long> getMetrics() {
+		Map<String, Long> metrics = new LinkedHashMap<>();
+		metrics.put("entries", (long) cache.size());
+		metrics.put("bytes", cache.getTotalWeight());
+		metrics.put("hits", cache.getHits());
+		metrics.put("misses", cache.getMisses());
+		metrics.put("evictions", cache.getEvictions());
+		metrics.put("expirations", cache.getExpirations());
+		return metrics;
+	}
+
+	/**
+	 * Creates the cache key of a statement: the value mode, its text with runs of whitespace outside
+	 * of string literals collapsed into single blanks, and the parameter values.
+	 *
+	 * @param sqlQuery    The SQL statement.
+	 * @param parameters  The values bound to its placeholders.
+	 * @param typedValues Whether the result holds native values instead of strings.
+	 * @return The cache key.
+	 */
+	static String createKey(String sqlQuery, List<?> parameters, boolean typedValues) {
+		StringBuilder key = new StringBuilder(sqlQuery.length() + 16 * parameters.size());
+		key.append(typedValues ? 'T' : 'S').append('\u0000');
+		int sqlStart = key.length();
+		boolean inLiteral = false;
+		boolean pendingBlank = false;
+		for (int i = 0; i < sqlQuery.length(); i++) {
+			char c = sqlQuery.charAt(i);
+			if (!inLiteral && Character.isWhitespace(c)) {
+				pendingBlank = key.length() > sqlStart;
+				continue;
+			}
+			if (pendingBlank) {
+				key.append(' ');
+				pendingBlank = false;
+			}
+			if (c == '\'') {
+				inLiteral = !inLiteral;
+			}
+			key.append(c);
+		}
+		for (Object parameter : parameters) {
+			key.append('\u0000').append(parameter);
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Estimates the heap size of a result in bytes.
+	 *
+	 * @param dataWrapper The result.
+	 * @return The estimated size in bytes.
+	 */
+	static long estimateSize(DataWrapper dataWrapper) {
+		long size = WRAPPER_SIZE + (long) META_DATA_SIZE * dataWrapper.getMetaData().size();
+		if (dataWrapper.isColumnar()) {
+			return size + dataWrapper.getColumnarData().estimateSize();
+		}
+		for (ContentRecordData contentRecord : dataWrapper.getContentData()) {
+			size += RECORD_SIZE;
+			for (ContentFieldData contentField : contentRecord.getFieldDataObjs()) {
+				size += FIELD_SIZE + 2L * contentField.getValue().length();
+			}
+		}
+		return size;
+	}
+}
@@ -0,0 +1,109 @@
+package de.zeus.commons.provider.logic.sql;
+
+import de.zeus.commons.base.cache.LruCache;
+import de.zeus.commons.base.config.JdbcConfig;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.Select;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Validates SQL queries before they are executed: only a fixed set of characters is allowed
+ * and the query must parse into a single SELECT statement.
+ *
+ * <p>The character check uses a precomputed lookup table. Parsed statements are cached by their
+ * SQL text ({@code db.sql.cache.size}), so a parameterized child query that is executed for
+ * thousands of parent rows is parsed once.</p>
+ */
+public class SqlValidator {
+
+	/** Characters allowed in every query. Whitespace includes line breaks of multi-line statements. */
+	private static final String ALLOWED_CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789_ ,.*=<>!()'\"-\t\r\n";
+
+	private static final boolean[] ALLOWED = createTable(ALLOWED_CHARACTERS);
+	private static final boolean[] ALLOWED_PARAMETERIZED = createTable(ALLOWED_CHARACTERS + "?");
+
+	/** Validator shared by all requests, created on first use. */
+	private static SqlValidator instance;
+
+	private final LruCache<String, Statement> parsedStatements;
+
+	private SqlValidator(int cacheSize) {
+		this.parsedStatements = new LruCache<>(cacheSize);
+	}
+
+	/**
+	 * Returns the validator shared by all requests.
+	 *
+	 * @return The SQL validator.
+	 */
+	public static synchronized SqlValidator getInstance() {
+		if (instance == null) {
+			instance = new SqlValidator(JdbcConfig.getInstance().getDbSqlCacheSize());
+		}
+		return instance;
+	}
+
+	/**
+	 * Validates an SQL query. Parameterized queries may additionally contain {@code ?} placeholders.
+	 *
+	 * @param sql           The SQL query.
+	 * @param parameterized Whether the query is executed with bound parameters.
+	 * @return The parsed statement.
+	 * @throws JSQLParserException if the query cannot be parsed.
+	 * @throws UnsupportedOperationException if the query contains invalid characters or is not a SELECT statement.
+	 */
+	public Statement validate(String sql, boolean parameterized) throws JSQLParserException {
+		// First, check for any unwanted characters in the SQL string
+		if (!hasOnlyAllowedCharacters(sql, parameterized ? ALLOWED_PARAMETERIZED : ALLOWED)) {
+			throw new UnsupportedOperationException("Invalid characters in SQL query.");
+		}
+
+		Statement statement = parsedStatements.get(sql);
+		if (statement == null) {
+			// Then, parse the statement using JSQLParser
+			statement = CCJSqlParserUtil.parse(sql);
+			// Finally, check if it's a SELECT statement
+			if (!(statement instanceof Select)) {
+				throw new UnsupportedOperationException("Only SELECT queries are allowed.");
+			}
+			parsedStatements.put(sql, statement);
+		}
+		return statement;
+	}
+
+	/**
+	 * Gets the metrics of the parsed statement cache.
+	 *
+	 * @return The metrics keyed by name.
+	 */
+	public Map<String, Long> getMetrics() {
+		Map<String, Long> metrics = new LinkedHashMap<>();
+		metrics.put("entries", (long) parsedStatements.size());
+		metrics.put("hits", parsedStatements.getHits());
+		metrics.put("misses", parsedStatements.getMisses());
+		metrics.put("evictions", parsedStatements.getEvictions());
+		return metrics;
+	}
+
+	private static boolean hasOnlyAllowedCharacters(String sql, boolean[] allowed) {
+		for (int i = 0; i < sql.length(); i++) {
+			char c = sql.charAt(i);
+			if (c >= allowed.length || !allowed[c]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean[] createTable(String characters) {
+		boolean[] table = new boolean[128];
+		for (char c : characters.toCharArray()) {
+			table[c] = true;
+		}
+		return table;
+	}
+}
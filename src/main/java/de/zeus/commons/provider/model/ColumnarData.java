@@ -0,0 +1,373 @@
+package de.zeus.commons.provider.model;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the rows of a SQL result set column by column, with one typed vector per column.
+ *
+ * <p>Integer columns are stored in {@code int[]} or {@code long[]}, floating point columns in
+ * {@code double[]}, and strings are dictionary-encoded as long as their values repeat. Null values of
+ * typed columns are marked in a bitmap. Compared to one {@link ContentFieldData} per cell, this avoids
+ * several objects per value; fields are only created on demand by {@link #readField}.</p>
+ *
+ * <p>Rows are appended while the result set is read and are not modified afterwards, so the vectors
+ * may be shared by several {@link DataWrapper} instances.</p>
+ */
+public class ColumnarData {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final Column[] columns;
+	private int rowCount;
+
+	/**
+	 * Creates an empty container.
+	 *
+	 * @param sqlDataTypes The SQL data type of every column in column order, see {@link Types}.
+	 *                     Columns of other than numeric, decimal and boolean types hold strings.
+	 */
+	public ColumnarData(int[] sqlDataTypes) {
+		this(sqlDataTypes, 0);
+	}
+
+	/**
+	 * Creates an empty container sized for the expected number of rows.
+	 *
+	 * @param sqlDataTypes The SQL data type of every column in column order, see {@link Types}.
+	 * @param expectedRows The expected number of rows; the vectors grow beyond it as needed.
+	 */
+	public ColumnarData(int[] sqlDataTypes, int expectedRows) {
+		int capacity = Math.max(0, expectedRows);
+		columns = new Column[sqlDataTypes.length];
+		for (int i = 0; i < sqlDataTypes.length; i++) {
+			columns[i] = createColumn(sqlDataTypes[i], capacity);
+		}
+	}
+
+	// Chooses the vector matching the value type read for a SQL data type
+	private static Column createColumn(int sqlDataType, int capacity) {
+		switch (sqlDataType) {
+			case Types.TINYINT:
+			case Types.SMALLINT:
+			case Types.INTEGER:
+				return new IntColumn(capacity);
+			case Types.BIGINT:
+				return new LongColumn(capacity);
+			case Types.REAL:
+			case Types.FLOAT:
+			case Types.DOUBLE:
+				return new DoubleColumn(capacity);
+			case Types.DECIMAL:
+			case Types.NUMERIC:
+			case Types.BIT:
+			case Types.BOOLEAN:
+				return new ObjectColumn(capacity);
+			default:
+				return new StringColumn(capacity);
+		}
+	}
+
+	/**
+	 * Appends a row. Its values are set with {@link #setValue(int, ContentFieldData)}.
+	 *
+	 * @return The index of the new row.
+	 */
+	public int addRow() {
+		return rowCount++;
+	}
+
+	/**
+	 * Sets a value of the last row.
+	 *
+	 * @param column       The column index, starting at 0.
+	 * @param contentField The field holding the value; it is not retained.
+	 */
+	public void setValue(int column, ContentFieldData contentField) {
+		columns[column].set(rowCount - 1, contentField);
+	}
+
+	/**
+	 * Reads a value into a field, so one field instance can be reused for all values.
+	 *
+	 * @param row    The row index.
+	 * @param column The column index, starting at 0.
+	 * @param target The field to fill.
+	 * @return The filled field.
+	 */
+	public ContentFieldData readField(int row, int column, ContentFieldData target) {
+		target.setColumnNumber(column + 1);
+		if (columns[column].isNull(row)) {
+			target.setValue(null);
+		} else {
+			columns[column].read(row, target);
+		}
+		return target;
+	}
+
+	/**
+	 * Gets the string form of a value.
+	 *
+	 * @param row    The row index.
+	 * @param column The column index, starting at 0.
+	 * @return The value, or an empty string for null values.
+	 */
+	public String getValue(int row, int column) {
+		return readField(row, column, new ContentFieldData()).getValue();
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	public int getColumnCount() {
+		return columns.length;
+	}
+
+	/**
+	 * Estimates the heap size of the vectors in bytes.
+	 *
+	 * @return The estimated size.
+	 */
+	public long estimateSize() {
+		long size = 16;
+		for (Column column : columns) {
+			size += column.estimateSize();
+		}
+		return size;
+	}
+
+	private static int grow(int capacity, int row) {
+		return Math.max(row + 1, Math.max(INITIAL_CAPACITY, capacity + (capacity >> 1)));
+	}
+
+	private abstract static class Column {
+		private long[] nulls = new long[0];
+
+		abstract void set(int row, ContentFieldData contentField);
+
+		abstract void read(int row, ContentFieldData target);
+
+		abstract long estimateSize();
+
+		// A string field holds the null value of a typed column
+		boolean setNullIfString(int row, ContentFieldData contentField) {
+			if (contentField.getValueType() != ContentFieldData.ValueType.STRING) {
+				return false;
+			}
+			int word = row >>> 6;
+			if (word >= nulls.length) {
+				nulls = Arrays.copyOf(nulls, Math.max(word + 1, nulls.length * 2));
+			}
+			nulls[word] |= 1L << row;
+			return true;
+		}
+
+		boolean isNull(int row) {
+			int word = row >>> 6;
+			return word < nulls.length && (nulls[word] & (1L << row)) != 0;
+		}
+
+		long nullsSize() {
+			return 16 + nulls.length * 8L;
+		}
+	}
+
+	private static final class IntColumn extends Column {
+		private int[] values;
+
+		private IntColumn(int capacity) {
+			values = new int[capacity];
+		}
+
+		@Override
+		void set(int row, ContentFieldData contentField) {
+			if (row >= values.length) {
+				values = Arrays.copyOf(values, grow(values.length, row));
+			}
+			if (!setNullIfString(row, contentField)) {
+				values[row] = (int) contentField.getLongValue();
+			}
+		}
+
+		@Override
+		void read(int row, ContentFieldData target) {
+			target.setLongValue(values[row]);
+		}
+
+		@Override
+		long estimateSize() {
+			return 32 + values.length * 4L + nullsSize();
+		}
+	}
+
+	private static final class LongColumn extends Column {
+		private long[] values;
+
+		private LongColumn(int capacity) {
+			values = new long[capacity];
+		}
+
+		@Override
+		void set(int row, ContentFieldData contentField) {
+			if (row >= values.length) {
+				values = Arrays.copyOf(values, grow(values.length, row));
+			}
+			if (!setNullIfString(row, contentField)) {
+				values[row] = contentField.getLongValue();
+			}
+		}
+
+		@Override
+		void read(int row, ContentFieldData target) {
+			target.setLongValue(values[row]);
+		}
+
+		@Override
+		long estimateSize() {
+			return 32 + values.length * 8L + nullsSize();
+		}
+	}
+
+	private static final class DoubleColumn extends Column {
+		private double[] values;
+
+		private DoubleColumn(int capacity) {
+			values = new double[capacity];
+		}
+
+		@Override
+		void set(int row, ContentFieldData contentField) {
+			if (row >= values.length) {
+				values = Arrays.copyOf(values, grow(values.length, row));
+			}
+			if (!setNullIfString(row, contentField)) {
+				values[row] = contentField.getDoubleValue();
+			}
+		}
+
+		@Override
+		void read(int row, ContentFieldData target) {
+			target.setDoubleValue(values[row]);
+		}
+
+		@Override
+		long estimateSize() {
+			return 32 + values.length * 8L + nullsSize();
+		}
+	}
+
+	private static final class ObjectColumn extends Column {
+		private Object[] values;
+
+		private ObjectColumn(int capacity) {
+			values = new Object[capacity];
+		}
+
+		@Override
+		void set(int row, ContentFieldData contentField) {
+			if (row >= values.length) {
+				values = Arrays.copyOf(values, grow(values.length, row));
+			}
+			if (!setNullIfString(row, contentField)) {
+				values[row] = contentField.getObjectValue();
+			}
+		}
+
+		@Override
+		void read(int row, ContentFieldData target) {
+			target.setObjectValue(values[row]);
+		}
+
+		@Override
+		long estimateSize() {
+			long size = 32 + values.length * 4L + nullsSize();
+			for (Object value : values) {
+				if (value != null) {
+					size += value instanceof BigDecimal ? 40 : 24;
+				}
+			}
+			return size;
+		}
+	}
+
+	/**
+	 * Stores strings as codes into a dictionary of distinct values. Once the dictionary grows beyond
+	 * half of the rows, the values hardly repeat and the column switches to a plain string array.
+	 */
+	private static final class StringColumn extends Column {
+		private static final int MIN_DICTIONARY_SIZE = 256;
+
+		private int[] codes;
+		private List<String> dictionary = new ArrayList<>();
+		private Map<String, Integer> dictionaryIndex = new HashMap<>();
+		private String[] values;
+
+		private StringColumn(int capacity) {
+			codes = new int[capacity];
+		}
+
+		@Override
+		void set(int row, ContentFieldData contentField) {
+			String value = contentField.getValue();
+			if (values != null) {
+				if (row >= values.length) {
+					values = Arrays.copyOf(values, grow(values.length, row));
+				}
+				values[row] = value;
+				return;
+			}
+			if (row >= codes.length) {
+				codes = Arrays.copyOf(codes, grow(codes.length, row));
+			}
+			Integer code = dictionaryIndex.get(value);
+			if (code == null) {
+				code = dictionary.size();
+				dictionary.add(value);
+				dictionaryIndex.put(value, code);
+			}
+			codes[row] = code;
+			if (dictionary.size() > MIN_DICTIONARY_SIZE && dictionary.size() > (row + 1) / 2) {
+				decode(row);
+			}
+		}
+
+		// Replaces the codes by the values of the rows read so far
+		private void decode(int lastRow) {
+			values = new String[codes.length];
+			for (int row = 0; row <= lastRow; row++) {
+				values[row] = dictionary.get(codes[row]);
+			}
+			codes = null;
+			dictionary = null;
+			dictionaryIndex = null;
+		}
+
+		@Override
+		void read(int row, ContentFieldData target) {
+			target.setValue(values != null ? values[row] : dictionary.get(codes[row]));
+		}
+
+		@Override
+		long estimateSize() {
+			long size = 48 + nullsSize();
+			if (values != null) {
+				size += 16 + values.length * 4L;
+				for (String value : values) {
+					size += value != null ? 40 + value.length() * 2L : 0;
+				}
+				return size;
+			}
+			size += 16 + codes.length * 4L + dictionary.size() * 32L;
+			for (String value : dictionary) {
+				size += 40 + value.length() * 2L;
+			}
+			return size;
+		}
+	}
+}
@@ -2,13 +2,30 @@ package de.zeus.commons.provider.model;
 
 import de.zeus.commons.provider.format.Format;
 
+import java.math.BigDecimal;
+
 /**
  * Represents a single field of data within a database query result record.
+ *
+ * <p>A field holds either a string value or a native value read with the typed value path:
+ * a primitive long or double, or an object such as a {@link BigDecimal} or a {@link Boolean}.
+ * The string form of a native value is only created when it is requested.</p>
  */
 public class ContentFieldData {
 
+	/**
+	 * The kind of value held by a field.
+	 */
+	public enum ValueType {
+		STRING, LONG, DOUBLE, OBJECT
+	}
+
 	private int columnNumber; // The column number in the result set
-	private String value; // The value of the field
+	private String value; // The value of the field, created on demand for native values
+	private ValueType valueType = ValueType.STRING; // The kind of value held by the field
+	private long longValue; // The native value of a LONG field
+	private double doubleValue; // The native value of a DOUBLE field
+	private Object objectValue; // The native value of an OBJECT field
 	private final Format format = new Format(); // Format utility for data values
 
 	/**
@@ -30,11 +47,14 @@ public class ContentFieldData {
 	}
 
 	/**
-	 * Gets the value of this field.
+	 * Gets the value of this field. For native values, this is their string form.
 	 *
 	 * @return The field value.
 	 */
 	public String getValue() {
+		if (value == null && valueType != ValueType.STRING) {
+			value = formatNativeValue();
+		}
 		return value;
 	}
 
@@ -44,9 +64,81 @@ public class ContentFieldData {
 	 * @param value The field value to set.
 	 */
 	public void setValue(String value) {
+		this.valueType = ValueType.STRING;
 		this.value = format.trim(value);
 	}
 
+	/**
+	 * Sets a native long value.
+	 *
+	 * @param longValue The field value to set.
+	 */
+	public void setLongValue(long longValue) {
+		this.valueType = ValueType.LONG;
+		this.longValue = longValue;
+		this.value = null;
+	}
+
+	/**
+	 * Sets a native double value.
+	 *
+	 * @param doubleValue The field value to set.
+	 */
+	public void setDoubleValue(double doubleValue) {
+		this.valueType = ValueType.DOUBLE;
+		this.doubleValue = doubleValue;
+		this.value = null;
+	}
+
+	/**
+	 * Sets a native object value, e.g. a {@link BigDecimal} or a {@link Boolean}.
+	 * A null value is stored as an empty string, as {@link #setValue(String)} does.
+	 *
+	 * @param objectValue The field value to set.
+	 */
+	public void setObjectValue(Object objectValue) {
+		if (objectValue == null) {
+			setValue(null);
+			return;
+		}
+		this.valueType = ValueType.OBJECT;
+		this.objectValue = objectValue;
+		this.value = null;
+	}
+
+	/**
+	 * Gets the kind of value held by this field.
+	 *
+	 * @return The value type.
+	 */
+	public ValueType getValueType() {
+		return valueType;
+	}
+
+	public long getLongValue() {
+		return longValue;
+	}
+
+	public double getDoubleValue() {
+		return doubleValue;
+	}
+
+	public Object getObjectValue() {
+		return objectValue;
+	}
+
+	// Creates the string form of a native value
+	private String formatNativeValue() {
+		switch (valueType) {
+			case LONG:
+				return Long.toString(longValue);
+			case DOUBLE:
+				return Double.toString(doubleValue);
+			default:
+				return objectValue instanceof BigDecimal ? ((BigDecimal) objectValue).toPlainString() : objectValue.toString();
+		}
+	}
+
 	/**
 	 * Returns a string representation of this ContentFieldData object.
 	 *
@@ -56,7 +148,7 @@ public class ContentFieldData {
 	public String toString() {
 		return "ContentFieldData{" +
 				"columnNumber=" + columnNumber +
-				", value='" + value + '\'' +
+				", value='" + getValue() + '\'' +
 				'}';
 	}
 }
@@ -10,10 +10,25 @@ import java.util.Map;
 public class ContentRecordData {
 
 	private int recordNumber;
-	private final ArrayList<ContentFieldData> fieldDataObjs = new ArrayList<>(); // List of field data objects
+	private final ArrayList<ContentFieldData> fieldDataObjs; // List of field data objects
 	private final ArrayList<DataWrapper> dataWrappers = new ArrayList<>(); // Data wrapper objects
 	private final Map<Integer, MetaData> metaDataMap = new HashMap<>();
 
+	/**
+	 * Creates an empty record.
+	 */
+	public ContentRecordData() {
+		this.fieldDataObjs = new ArrayList<>();
+	}
+
+	/**
+	 * Creates an empty record sized for the given number of fields.
+	 *
+	 * @param fieldCount The number of fields of the record.
+	 */
+	public ContentRecordData(int fieldCount) {
+		this.fieldDataObjs = new ArrayList<>(fieldCount);
+	}
 
 	/**
 	 * Gets the list of field data objects for this record.
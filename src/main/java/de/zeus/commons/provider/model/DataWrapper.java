@@ -1,10 +1,16 @@
 package de.zeus.commons.provider.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 
 /**
  * Wraps the data and metadata for a SQL result set.
+ *
+ * <p>The rows are held either as {@link ContentRecordData} objects or, in the columnar model, in a
+ * {@link ColumnarData} container. The row methods such as {@link #getRowCount()} and
+ * {@link #getField(int, int, ContentFieldData)} read both models.</p>
  */
 public class DataWrapper {
 
@@ -14,6 +20,14 @@ public class DataWrapper {
 	private final HashMap<Integer, MetaData> metaData = new HashMap<>();
 	// Collection of content records
 	private final ArrayList<ContentRecordData> contentData = new ArrayList<>();
+	// Columnar rows, or null in the row model
+	private ColumnarData columnarData;
+	// The rows of the columnar data belonging to this wrapper, or null for all rows
+	private int[] selectedRows;
+	// Child wrappers of the columnar rows, created on first use
+	private List<List<DataWrapper>> rowDataWrappers;
+	// Whether rows were dropped because the result exceeded its row budget
+	private boolean truncated;
 
 	public String getName() {
 		return name;
@@ -33,18 +47,253 @@ public class DataWrapper {
 		}
 	}
 
+	/**
+	 * Gets the content records. In the columnar model the list is empty; use the row methods instead.
+	 *
+	 * @return The content records.
+	 */
 	public ArrayList<ContentRecordData> getContentData() {
 		return contentData;
 	}
 
+	/**
+	 * Appends a content record in constant time. Records are not checked for duplicates.
+	 *
+	 * @param contentDataObj The record to append.
+	 */
 	public void addContentData(ContentRecordData contentDataObj) {
-		if (!contentData.contains(contentDataObj)) {
-			contentData.add(contentDataObj);
-		}
+		contentData.add(contentDataObj);
+	}
+
+	/**
+	 * Sizes the content records for the expected number of rows.
+	 *
+	 * @param rowCount The expected number of rows.
+	 */
+	public void ensureCapacity(int rowCount) {
+		contentData.ensureCapacity(rowCount);
+	}
+
+	/**
+	 * Checks whether rows were dropped because the result exceeded its row budget.
+	 *
+	 * @return True if the rows are incomplete.
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	public void setTruncated(boolean truncated) {
+		this.truncated = truncated;
 	}
 
 	// Method to retrieve metadata for a specific field by columnNumber
 	public MetaData getMetaDataForField(int columnNumber) {
 		return metaData.get(columnNumber);
 	}
+
+	public boolean isColumnar() {
+		return columnarData != null;
+	}
+
+	public ColumnarData getColumnarData() {
+		return columnarData;
+	}
+
+	/**
+	 * Switches this wrapper to the columnar model. The rows are then read from the given container.
+	 *
+	 * @param columnarData The columnar rows.
+	 */
+	public void setColumnarData(ColumnarData columnarData) {
+		this.columnarData = columnarData;
+		this.selectedRows = null;
+		this.rowDataWrappers = null;
+	}
+
+	/**
+	 * Gets the number of rows.
+	 *
+	 * @return The number of rows.
+	 */
+	public int getRowCount() {
+		if (columnarData == null) {
+			return contentData.size();
+		}
+		return selectedRows != null ? selectedRows.length : columnarData.getRowCount();
+	}
+
+	/**
+	 * Gets the record number of a row.
+	 *
+	 * @param row The row index.
+	 * @return The record number.
+	 */
+	public int getRecordNumber(int row) {
+		return columnarData == null ? contentData.get(row).getRecordNumber() : row + 1;
+	}
+
+	/**
+	 * Gets the number of fields of a row.
+	 *
+	 * @param row The row index.
+	 * @return The number of fields.
+	 */
+	public int getFieldCount(int row) {
+		return columnarData == null ? contentData.get(row).getFieldDataObjs().size() : columnarData.getColumnCount();
+	}
+
+	/**
+	 * Gets a field of a row. In the columnar model, the value is read into the given field,
+	 * so one field instance can be reused for all values.
+	 *
+	 * @param row    The row index.
+	 * @param field  The field index, starting at 0.
+	 * @param target The field to fill in the columnar model.
+	 * @return The field of the record, or the filled target field.
+	 */
+	public ContentFieldData getField(int row, int field, ContentFieldData target) {
+		if (columnarData == null) {
+			return contentData.get(row).getFieldDataObjs().get(field);
+		}
+		return columnarData.readField(dataRow(row), field, target);
+	}
+
+	/**
+	 * Gets the string form of a field value.
+	 *
+	 * @param row   The row index.
+	 * @param field The field index, starting at 0.
+	 * @return The value.
+	 */
+	public String getValue(int row, int field) {
+		if (columnarData == null) {
+			return contentData.get(row).getFieldDataObjs().get(field).getValue();
+		}
+		return columnarData.getValue(dataRow(row), field);
+	}
+
+	/**
+	 * Gets the child wrappers of a row.
+	 *
+	 * @param row The row index.
+	 * @return The child wrappers.
+	 */
+	public List<DataWrapper> getDataWrappers(int row) {
+		if (columnarData == null) {
+			return contentData.get(row).getDataWrappers();
+		}
+		return rowDataWrappers != null && rowDataWrappers.get(row) != null ? rowDataWrappers.get(row) : Collections.emptyList();
+	}
+
+	/**
+	 * Adds a child wrapper to a row.
+	 *
+	 * @param row         The row index.
+	 * @param dataWrapper The child wrapper.
+	 */
+	public void addDataWrapper(int row, DataWrapper dataWrapper) {
+		if (columnarData == null) {
+			contentData.get(row).addDataWrapper(dataWrapper);
+			return;
+		}
+		if (rowDataWrappers == null) {
+			rowDataWrappers = new ArrayList<>(Collections.nCopies(getRowCount(), null));
+		}
+		if (rowDataWrappers.get(row) == null) {
+			rowDataWrappers.set(row, new ArrayList<>(1));
+		}
+		rowDataWrappers.get(row).add(dataWrapper);
+	}
+
+	// Maps a row of this wrapper to the row of the columnar data
+	private int dataRow(int row) {
+		return selectedRows != null ? selectedRows[row] : row;
+	}
+
+	/**
+	 * Creates a wrapper with the same name and metadata holding some of the rows of this wrapper,
+	 * numbered from 1 in the given order. Field values are shared, the rows carry no child wrappers.
+	 *
+	 * @param rows The row indexes.
+	 * @return The new wrapper.
+	 */
+	public DataWrapper selectRows(int[] rows) {
+		DataWrapper selection = new DataWrapper();
+		selection.setName(name);
+		selection.metaData.putAll(metaData);
+		if (columnarData != null) {
+			selection.columnarData = columnarData;
+			selection.selectedRows = new int[rows.length];
+			for (int i = 0; i < rows.length; i++) {
+				selection.selectedRows[i] = dataRow(rows[i]);
+			}
+			return selection;
+		}
+		selection.contentData.ensureCapacity(rows.length);
+		int recNo = 0;
+		for (int row : rows) {
+			ContentRecordData routedRecord = new ContentRecordData();
+			routedRecord.setRecordNumber(++recNo);
+			routedRecord.getFieldDataObjs().addAll(contentData.get(row).getFieldDataObjs());
+			selection.contentData.add(routedRecord);
+		}
+		return selection;
+	}
+
+	/**
+	 * Creates a wrapper in the row model holding a range of rows of this wrapper, numbered from 1.
+	 * Other threads can read the new wrapper while rows are still added to this one: records are new,
+	 * field values are shared in the row model and copied in the columnar model.
+	 *
+	 * @param fromRow The index of the first row.
+	 * @param toRow   The index after the last row.
+	 * @return The new wrapper.
+	 */
+	public DataWrapper snapshotRows(int fromRow, int toRow) {
+		if (columnarData == null) {
+			int[] rows = new int[toRow - fromRow];
+			for (int i = 0; i < rows.length; i++) {
+				rows[i] = fromRow + i;
+			}
+			return selectRows(rows);
+		}
+		DataWrapper snapshot = new DataWrapper();
+		snapshot.setName(name);
+		snapshot.metaData.putAll(metaData);
+		snapshot.contentData.ensureCapacity(toRow - fromRow);
+		int fieldCount = columnarData.getColumnCount();
+		for (int row = fromRow; row < toRow; row++) {
+			ContentRecordData snapshotRecord = new ContentRecordData(fieldCount);
+			snapshotRecord.setRecordNumber(row - fromRow + 1);
+			for (int field = 0; field < fieldCount; field++) {
+				snapshotRecord.addContentFieldData(getField(row, field, new ContentFieldData()));
+			}
+			snapshot.contentData.add(snapshotRecord);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Creates a copy of this wrapper that can be attached to another parent record.
+	 * Metadata and field values are shared, the records are new and carry no child wrappers.
+	 *
+	 * @return The copy of this wrapper.
+	 */
+	public DataWrapper copy() {
+		DataWrapper copy = new DataWrapper();
+		copy.setName(name);
+		copy.metaData.putAll(metaData);
+		copy.columnarData = columnarData;
+		copy.selectedRows = selectedRows;
+		copy.truncated = truncated;
+		copy.contentData.ensureCapacity(contentData.size());
+		for (ContentRecordData contentRecord : contentData) {
+			ContentRecordData recordCopy = new ContentRecordData();
+			recordCopy.setRecordNumber(contentRecord.getRecordNumber());
+			recordCopy.getFieldDataObjs().addAll(contentRecord.getFieldDataObjs());
+			copy.contentData.add(recordCopy);
+		}
+		return copy;
+	}
 }
@@ -0,0 +1,42 @@
+package de.zeus.commons.provider.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects named execution statistics of a single request, e.g. memoization hits and misses.
+ * The values are reported in the order in which they were first recorded.
+ */
+public class RequestStatistics {
+
+	private final Map<String, Object> values = new LinkedHashMap<>();
+
+	/**
+	 * Adds a delta to a counter, creating the counter if it does not exist yet.
+	 *
+	 * @param name  The name of the counter.
+	 * @param delta The value to add.
+	 */
+	public synchronized void add(String name, long delta) {
+		values.merge(name, delta, (current, added) -> (Long) current + (Long) added);
+	}
+
+	/**
+	 * Sets a statistics value, replacing any previous value.
+	 *
+	 * @param name  The name of the value.
+	 * @param value The value, either a number or a string.
+	 */
+	public synchronized void put(String name, Object value) {
+		values.put(name, value);
+	}
+
+	/**
+	 * Gets a snapshot of all recorded values.
+	 *
+	 * @return The values keyed by name, in recording order.
+	 */
+	public synchronized Map<String, Object> getValues() {
+		return new LinkedHashMap<>(values);
+	}
+}
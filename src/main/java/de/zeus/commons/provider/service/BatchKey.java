@@ -0,0 +1,90 @@
+package de.zeus.commons.provider.service;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+
+/**
+ * Compares the key values of parent records with the key column of the rows read by an IN-list statement,
+ * as the database compares them. The values are read as strings, whose form depends on the column type,
+ * e.g. {@code 5} of an INTEGER and {@code 5.00} of a DECIMAL(10,2) column, or a CHAR value padded with
+ * blanks. Numeric values are therefore compared by their number and character values without trailing
+ * blanks. Keys of columns of other differing types are not compared at all; the statement is executed
+ * per row instead, so the database compares them.
+ */
+public final class BatchKey {
+
+    private BatchKey() {
+    }
+
+    /**
+     * Checks whether the values of a parent key column can be compared with the values of a child key column.
+     *
+     * @param parentSqlType The SQL data type of the parent key column, see {@link Types}.
+     * @param childSqlType  The SQL data type of the child key column, see {@link Types}.
+     * @return true if both columns are numeric, both hold characters, or both have the same type.
+     */
+    public static boolean isComparable(int parentSqlType, int childSqlType) {
+        return parentSqlType == childSqlType
+                || (isNumeric(parentSqlType) && isNumeric(childSqlType))
+                || (isCharacter(parentSqlType) && isCharacter(childSqlType));
+    }
+
+    /**
+     * Normalizes a key value, so that equal keys of comparable columns have equal normalized values.
+     *
+     * @param value   The key value read as a string.
+     * @param sqlType The SQL data type of its column, see {@link Types}.
+     * @return The normalized value, or null if a numeric value is not a number.
+     */
+    public static String normalize(String value, int sqlType) {
+        if (value == null) {
+            return null;
+        }
+        if (isNumeric(sqlType)) {
+            try {
+                return new BigDecimal(value.trim()).stripTrailingZeros().toPlainString();
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        if (isCharacter(sqlType)) {
+            int end = value.length();
+            while (end > 0 && value.charAt(end - 1) == ' ') {
+                end--;
+            }
+            return value.substring(0, end);
+        }
+        return value;
+    }
+
+    private static boolean isNumeric(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isCharacter(int sqlType) {
+        switch (sqlType) {
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
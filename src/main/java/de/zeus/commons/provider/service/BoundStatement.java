@@ -0,0 +1,64 @@
+package de.zeus.commons.provider.service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An SQL statement together with the parameter values bound to its {@code ?} placeholders.
+ */
+public class BoundStatement {
+
+    private final String sql;
+    private final List<?> parameters;
+
+    /**
+     * Creates a statement without parameters.
+     *
+     * @param sql The SQL statement.
+     */
+    public BoundStatement(String sql) {
+        this(sql, Collections.emptyList());
+    }
+
+    /**
+     * Creates a statement with parameters.
+     *
+     * @param sql        The SQL statement with {@code ?} placeholders.
+     * @param parameters The parameter values, in placeholder order.
+     */
+    public BoundStatement(String sql, List<?> parameters) {
+        this.sql = sql;
+        this.parameters = parameters;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<?> getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BoundStatement)) {
+            return false;
+        }
+        BoundStatement that = (BoundStatement) o;
+        return sql.equals(that.sql) && parameters.equals(that.parameters);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sql, parameters);
+    }
+
+    @Override
+    public String toString() {
+        return parameters.isEmpty() ? sql : sql + " " + parameters;
+    }
+}
@@ -0,0 +1,193 @@
+package de.zeus.commons.provider.service;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a response body compressed with the content coding negotiated from the Accept-Encoding
+ * header of the request, either gzip or deflate.
+ *
+ * <p>The body is buffered up to the minimum size. A body that does not exceed it is written
+ * uncompressed; a larger one gets the Content-Encoding header and is compressed while it is written.
+ * Since the header has to be set before the response is committed, nothing reaches the response
+ * before that decision is made.</p>
+ */
+public class CompressedResponseStream extends OutputStream {
+
+    /** Content coding of the gzip format. */
+    public static final String GZIP = "gzip";
+    /** Content coding of the zlib format, which HTTP calls deflate. */
+    public static final String DEFLATE = "deflate";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final HttpServletResponse response;
+    private final OutputStream responseStream;
+    private final String encoding;
+    private final int level;
+    // The body written so far while it does not exceed the minimum size, null once compression started
+    private byte[] buffer;
+    private int count;
+    private DeflaterOutputStream compressor;
+    private Deflater deflater;
+
+    /**
+     * Creates a stream writing the body of a response.
+     *
+     * @param response The response to write; its output stream is flushed but not closed.
+     * @param encoding The content coding, either {@link #GZIP} or {@link #DEFLATE}.
+     * @param minSize  The size in bytes up to which the body is written uncompressed.
+     * @param level    The compression level from 1 (fastest) to 9 (smallest).
+     * @throws IOException If the output stream of the response cannot be opened.
+     */
+    public CompressedResponseStream(HttpServletResponse response, String encoding, int minSize, int level) throws IOException {
+        this.response = response;
+        this.responseStream = response.getOutputStream();
+        this.encoding = encoding;
+        this.level = level;
+        this.buffer = new byte[Math.max(0, minSize)];
+    }
+
+    /**
+     * Chooses the content coding of a response from the Accept-Encoding header of the request.
+     * Gzip is preferred over deflate if the client accepts both equally.
+     *
+     * @param acceptEncoding The Accept-Encoding header, may be null.
+     * @return {@link #GZIP}, {@link #DEFLATE}, or null if the body should not be compressed.
+     */
+    public static String negotiateEncoding(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        Double gzipQuality = null;
+        Double deflateQuality = null;
+        double wildcardQuality = 0;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim().toLowerCase(Locale.ROOT);
+            double quality = parseQuality(parameters);
+            if (GZIP.equals(name) || "x-gzip".equals(name)) {
+                gzipQuality = quality;
+            } else if (DEFLATE.equals(name)) {
+                deflateQuality = quality;
+            } else if ("*".equals(name)) {
+                wildcardQuality = quality;
+            }
+        }
+        // The wildcard stands for all codings not listed on their own
+        double gzip = gzipQuality != null ? gzipQuality : wildcardQuality;
+        double deflate = deflateQuality != null ? deflateQuality : wildcardQuality;
+        if (gzip > 0 && gzip >= deflate) {
+            return GZIP;
+        }
+        return deflate > 0 ? DEFLATE : null;
+    }
+
+    // Reads the q parameter of a coding, 1 if it is missing and 0 if it is malformed
+    private static double parseQuality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (buffer != null) {
+            if (count < buffer.length) {
+                buffer[count++] = (byte) b;
+                return;
+            }
+            startCompression();
+        }
+        compressor.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (buffer != null) {
+            if (len <= buffer.length - count) {
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
+                return;
+            }
+            startCompression();
+        }
+        compressor.write(b, off, len);
+    }
+
+    // The body exceeds the minimum size: sets the header and compresses the buffered bytes first
+    private void startCompression() throws IOException {
+        response.setHeader("Content-Encoding", encoding);
+        if (GZIP.equals(encoding)) {
+            LevelGZIPOutputStream gzipStream = new LevelGZIPOutputStream(responseStream, level);
+            deflater = gzipStream.getDeflater();
+            compressor = gzipStream;
+        } else {
+            deflater = new Deflater(level);
+            compressor = new DeflaterOutputStream(responseStream, deflater, BUFFER_SIZE, true);
+        }
+        compressor.write(buffer, 0, count);
+        buffer = null;
+    }
+
+    /**
+     * Flushes the compressed body. The compressor flushes in sync mode, so everything written so far
+     * reaches the client. While the body is still buffered, nothing is written, so the response is not
+     * committed before the content coding is decided.
+     *
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (compressor != null) {
+            compressor.flush();
+        }
+    }
+
+    /**
+     * Completes the body: a body not exceeding the minimum size is written uncompressed, a compressed
+     * one is finished. The output stream of the response is flushed but not closed.
+     *
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        if (buffer != null) {
+            responseStream.write(buffer, 0, count);
+            buffer = null;
+        } else if (compressor != null) {
+            compressor.finish();
+            deflater.end();
+            compressor = null;
+        }
+        responseStream.flush();
+    }
+
+    /**
+     * A GZIPOutputStream with a configurable compression level.
+     */
+    private static final class LevelGZIPOutputStream extends GZIPOutputStream {
+
+        private LevelGZIPOutputStream(OutputStream out, int level) throws IOException {
+            super(out, BUFFER_SIZE, true);
+            def.setLevel(level);
+        }
+
+        private Deflater getDeflater() {
+            return def;
+        }
+    }
+}
@@ -6,9 +6,18 @@ import de.zeus.commons.base.config.ConfigBase;
 import de.zeus.commons.base.config.SparkConfig;
 import de.zeus.commons.base.constants.IConstants;
 import de.zeus.commons.provider.logic.sql.ConnectionControllerFactory;
+import de.zeus.commons.provider.logic.sql.PrimaryKeyCache;
+import de.zeus.commons.provider.logic.sql.ResultCache;
+import de.zeus.commons.provider.logic.sql.SqlValidator;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Provides a simple HTTP server to handle JSON and XML requests.
  * Configures the HTTP server based on provided SparkConfig settings,
@@ -40,9 +49,23 @@ public class HttpServer implements IConstants {
 	private void initSpark() {
 		spark.Spark.ipAddress(config.getSparkJavaAllowedHosts());
 		spark.Spark.port(config.getSparkJavaPort());
+		configureThreadPool();
 		configureSSL();
 	}
 
+	/**
+	 * Configures the Jetty worker thread pool if provided in the SparkConfig.
+	 * Every request is served by its own connection controller, so requests scale with the worker threads.
+	 */
+	private void configureThreadPool() {
+		if (config.getSparkThreadPoolMax() > 0) {
+			spark.Spark.threadPool(config.getSparkThreadPoolMax(),
+					config.getSparkThreadPoolMin(),
+					config.getSparkThreadPoolIdleTimeout());
+			LOG.info("Thread pool configured with a maximum of " + config.getSparkThreadPoolMax() + " threads.");
+		}
+	}
+
 	/**
 	 * Configures SSL settings if provided in the SparkConfig.
 	 */
@@ -90,23 +113,119 @@ public class HttpServer implements IConstants {
 	}
 
 	/**
-	 * Registers the default routes for handling JSON and XML requests.
+	 * Registers the default routes for handling JSON, XML, NDJSON, CSV and columnar requests.
 	 */
 	public void registerRoutes() {
 		registerRoute("/json", MODE_JSON);
 		registerRoute("/xml", MODE_XML);
+		registerRoute("/ndjson", MODE_NDJSON);
+		registerRoute("/csv", MODE_CSV);
+		registerRoute("/columnar", MODE_COLUMNAR);
+		registerCacheRoutes("/cache");
+	}
+
+	/**
+	 * Registers the routes for reading the metrics (GET) and clearing (DELETE) the result cache
+	 * and, below {@code /primarykeys}, the primary key cache. {@code /sql} reports the parsed statement cache.
+	 * The DELETE routes are only registered with {@code spark.cache.admin=true}.
+	 *
+	 * @param route The URL path for the routes.
+	 */
+	public void registerCacheRoutes(String route) {
+		spark.Spark.get(route, (req, res) -> {
+			res.type(MODE_JSON);
+			return gson.toJson(ResultCache.getInstance().getMetrics());
+		});
+		spark.Spark.get(route + "/primarykeys", (req, res) -> {
+			res.type(MODE_JSON);
+			return gson.toJson(PrimaryKeyCache.getInstance().getMetrics());
+		});
+		spark.Spark.get(route + "/sql", (req, res) -> {
+			res.type(MODE_JSON);
+			return gson.toJson(SqlValidator.getInstance().getMetrics());
+		});
+		if (!config.isSparkCacheAdmin()) {
+			return;
+		}
+		spark.Spark.delete(route, (req, res) -> {
+			ResultCache.getInstance().clear();
+			res.type(MODE_JSON);
+			return gson.toJson(ResultCache.getInstance().getMetrics());
+		});
+		// Without a table parameter, the primary keys of all tables are invalidated
+		spark.Spark.delete(route + "/primarykeys", (req, res) -> {
+			if (req.queryParams("table") != null) {
+				PrimaryKeyCache.getInstance().invalidate(req.queryParams("catalog"), req.queryParams("schema"), req.queryParams("table"));
+			} else {
+				PrimaryKeyCache.getInstance().clear();
+			}
+			res.type(MODE_JSON);
+			return gson.toJson(PrimaryKeyCache.getInstance().getMetrics());
+		});
 	}
 
 	/**
-	 * Registers a specific route to handle requests for a particular data format (JSON/XML).
+	 * Registers a specific route to handle requests for a particular data format (JSON/XML/NDJSON/CSV/columnar).
+	 * With streaming enabled, JSON and XML are written to the response while the result is walked.
+	 * NDJSON and CSV are always streamed, as they are written while the rows are read, and so is the
+	 * binary columnar format.
+	 * With compression enabled, responses are compressed with the gzip or deflate coding accepted by the client.
 	 *
 	 * @param route The URL path for the route.
-	 * @param mode  The data format (either JSON or XML).
+	 * @param mode  The data format (JSON, XML, NDJSON, CSV or columnar).
 	 */
 	public void registerRoute(String route, String mode) {
 		spark.Spark.post(route, (req, res) -> {
-			res.type(mode);
-			return controllerFactory.getController().process(gson.fromJson(req.body(), JsonObject.class), mode);
+			// Text types default to US-ASCII, the result is written in UTF-8
+			res.type(MODE_CSV.equals(mode) ? mode + ";charset=utf-8" : mode);
+			JsonObject jsonRequest = gson.fromJson(req.body(), JsonObject.class);
+			String encoding = config.isSparkResponseCompression()
+					? CompressedResponseStream.negotiateEncoding(req.headers("Accept-Encoding")) : null;
+			if (config.isSparkResponseCompression()) {
+				res.header("Vary", "Accept-Encoding");
+			}
+			boolean streaming = config.isSparkResponseStreaming() || MODE_NDJSON.equals(mode) || MODE_CSV.equals(mode)
+					|| MODE_COLUMNAR.equals(mode);
+			if (!streaming && encoding == null) {
+				return controllerFactory.getController().process(jsonRequest, mode);
+			}
+			try (OutputStream outputStream = openResponseStream(res.raw(), encoding)) {
+				if (streaming) {
+					controllerFactory.getController().process(jsonRequest, mode, outputStream);
+				} else {
+					Object result = controllerFactory.getController().process(jsonRequest, mode);
+					outputStream.write(String.valueOf(result).getBytes(StandardCharsets.UTF_8));
+				}
+			}
+			// The response has been written, an empty body keeps Spark from answering 404
+			return "";
 		});
 	}
+
+	/**
+	 * Opens the stream receiving the body of a response.
+	 *
+	 * @param response The response.
+	 * @param encoding The negotiated content coding, or null to write the body uncompressed.
+	 * @return The stream; closing it completes the body but leaves the response open.
+	 * @throws IOException If the output stream of the response cannot be opened.
+	 */
+	private OutputStream openResponseStream(HttpServletResponse response, String encoding) throws IOException {
+		if (encoding != null) {
+			return new CompressedResponseStream(response, encoding,
+					config.getSparkResponseCompressionMinSize(), config.getSparkResponseCompressionLevel());
+		}
+		// The servlet container closes its stream when the response is complete
+		return new FilterOutputStream(response.getOutputStream()) {
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				out.write(b, off, len);
+			}
+
+			@Override
+			public void close() throws IOException {
+				flush();
+			}
+		};
+	}
 }
@@ -0,0 +1,190 @@
+package de.zeus.commons.provider.service;
+
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SelectBody;
+import net.sf.jsqlparser.statement.select.SetOperationList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A chain of queries compiled into one joined SQL statement: a top-level query followed by its single
+ * subquery, the single subquery of that one, and so on. The top-level query becomes a derived table
+ * numbering its rows; each subquery becomes a derived table without its {@code column = '[$key]'}
+ * predicate, which is left joined with its parent query on that predicate instead:
+ *
+ * <pre>
+ * SELECT p0.*, p1.* FROM (SELECT ROW_NUMBER() OVER () AS zeus_row0, q.* FROM (parent statement) q) p0
+ * LEFT JOIN (child statement) p1 ON p1.column = p0.key
+ * ORDER BY p0.zeus_row0
+ * </pre>
+ *
+ * <p>The subqueries are not numbered, so the database can push the join condition into them and read
+ * them with the same index lookups as when they are executed per row.</p>
+ *
+ * <p>The chain ends before a query with several subqueries or a subquery that cannot be batched; the
+ * remaining subqueries are executed for the rows of the last joined query.</p>
+ *
+ * <p>The order of a derived table is lost in the joined statement, so neither the top-level query nor a
+ * joined subquery may have an ORDER BY clause; such a query is executed on its own instead.</p>
+ */
+public class JoinPlan {
+
+    /** Matches a plain column name, which can be used in the join condition without quoting. */
+    private static final Pattern COLUMN_NAME = Pattern.compile("[A-Za-z_]\\w*");
+
+    private final List<QueryNode> queryNodes;
+    private final String statement;
+
+    private JoinPlan(List<QueryNode> queryNodes, String statement) {
+        this.queryNodes = Collections.unmodifiableList(queryNodes);
+        this.statement = statement;
+    }
+
+    /**
+     * Compiles the chain of queries starting with a top-level query.
+     *
+     * @param rootNode The top-level query.
+     * @return The join plan, or null if the top-level query is ordered or has no subquery that can be joined.
+     */
+    public static JoinPlan compile(QueryNode rootNode) {
+        if (isOrdered(rootNode.getStatement())) {
+            return null;
+        }
+        List<QueryNode> queryNodes = new ArrayList<>();
+        queryNodes.add(rootNode);
+        QueryNode queryNode = rootNode;
+        while (queryNode.getChildren().size() == 1 && isJoinable(queryNode.getChildren().get(0))) {
+            queryNode = queryNode.getChildren().get(0);
+            queryNodes.add(queryNode);
+        }
+        if (queryNodes.size() == 1) {
+            return null;
+        }
+
+        StringBuilder select = new StringBuilder("SELECT ");
+        StringBuilder from = new StringBuilder(" FROM ");
+        for (int level = 0; level < queryNodes.size(); level++) {
+            String alias = "p" + level;
+            if (level == 0) {
+                select.append(alias).append(".*");
+                from.append("(SELECT ROW_NUMBER() OVER () AS zeus_row0, q.* FROM (")
+                        .append(rootNode.getStatement()).append(") q) ").append(alias);
+            } else {
+                QueryNode childNode = queryNodes.get(level);
+                select.append(", ").append(alias).append(".*");
+                from.append(" LEFT JOIN (").append(childNode.createUnfilteredStatement()).append(") ").append(alias)
+                        .append(" ON ").append(alias).append('.').append(childNode.getBatchKeyColumn())
+                        .append(" = p").append(level - 1).append('.').append(childNode.getBatchKey());
+            }
+        }
+        return new JoinPlan(queryNodes, select.append(from).append(" ORDER BY p0.zeus_row0").toString());
+    }
+
+    // A subquery can be joined if its key predicate can be replaced by a join condition and its order kept
+    private static boolean isJoinable(QueryNode queryNode) {
+        return queryNode.isBatchable()
+                && COLUMN_NAME.matcher(queryNode.getBatchKeyColumn()).matches()
+                && COLUMN_NAME.matcher(queryNode.getBatchKey()).matches()
+                && !isOrdered(queryNode.createUnfilteredStatement());
+    }
+
+    // Whether the outermost query of a statement has an ORDER BY clause; a statement that cannot be parsed counts as ordered
+    private static boolean isOrdered(String sql) {
+        try {
+            Statement parsedSql = CCJSqlParserUtil.parse(sql);
+            if (!(parsedSql instanceof Select)) {
+                return true;
+            }
+            SelectBody selectBody = ((Select) parsedSql).getSelectBody();
+            if (selectBody instanceof PlainSelect) {
+                return ((PlainSelect) selectBody).getOrderByElements() != null;
+            }
+            if (selectBody instanceof SetOperationList) {
+                return ((SetOperationList) selectBody).getOrderByElements() != null;
+            }
+            return true;
+        } catch (JSQLParserException e) {
+            return true;
+        }
+    }
+
+    private static String getLevelStatement(QueryNode queryNode, int level) {
+        return level == 0 ? queryNode.getStatement() : queryNode.createUnfilteredStatement();
+    }
+
+    /**
+     * Gets the joined queries, starting with the top-level query.
+     *
+     * @return The queries in nesting order.
+     */
+    public List<QueryNode> getQueryNodes() {
+        return queryNodes;
+    }
+
+    /**
+     * Gets the element names of the joined queries.
+     *
+     * @return The names in nesting order.
+     */
+    public List<String> getNames() {
+        List<String> names = new ArrayList<>(queryNodes.size());
+        for (QueryNode queryNode : queryNodes) {
+            names.add(queryNode.getName());
+        }
+        return names;
+    }
+
+    /**
+     * Gets the statements of the joined queries as they appear in the joined statement, the subqueries
+     * without their key predicate. Each describes the columns of its query.
+     *
+     * @return The statements in nesting order.
+     */
+    public List<String> getLevelStatements() {
+        List<String> statements = new ArrayList<>(queryNodes.size());
+        for (int level = 0; level < queryNodes.size(); level++) {
+            statements.add(getLevelStatement(queryNodes.get(level), level));
+        }
+        return statements;
+    }
+
+    /**
+     * Gets the columns joining the subqueries to their parent queries. A joined row holds a record of a
+     * subquery if its join column is not null.
+     *
+     * @return The join columns in nesting order, null for the top-level query.
+     */
+    public List<String> getJoinColumns() {
+        List<String> joinColumns = new ArrayList<>(queryNodes.size());
+        joinColumns.add(null);
+        for (int level = 1; level < queryNodes.size(); level++) {
+            joinColumns.add(queryNodes.get(level).getBatchKeyColumn());
+        }
+        return joinColumns;
+    }
+
+    /**
+     * Gets the joined SQL statement.
+     *
+     * @return The statement reading all rows of the chain, ordered by top-level row.
+     */
+    public String getStatement() {
+        return statement;
+    }
+
+    /**
+     * Gets the subqueries of the last joined query, which are executed for its rows.
+     *
+     * @return The remaining subqueries.
+     */
+    public List<QueryNode> getRemainingChildren() {
+        return queryNodes.get(queryNodes.size() - 1).getChildren();
+    }
+}
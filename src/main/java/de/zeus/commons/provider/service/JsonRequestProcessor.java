@@ -1,22 +1,41 @@
 package de.zeus.commons.provider.service;
 
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import de.zeus.commons.base.config.JdbcConfig;
+import de.zeus.commons.base.constants.IConstants;
 import de.zeus.commons.base.interfaces.IConnectionController;
+import de.zeus.commons.base.interfaces.IRowChunkListener;
 import de.zeus.commons.connector.jdbc.ProcessingException;
-import de.zeus.commons.provider.model.ContentFieldData;
-import de.zeus.commons.provider.model.ContentRecordData;
+import de.zeus.commons.connector.jdbc.RowLimitExceededException;
 import de.zeus.commons.provider.model.DataWrapper;
+import de.zeus.commons.provider.model.MetaData;
+import de.zeus.commons.provider.model.RequestStatistics;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.util.*;
-import java.util.function.Consumer;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
 
 /**
  * Class responsible for processing JSON requests containing sql queries.
+ *
+ * <p>The queries of a request form a tree of any depth, in which a query may have several sibling
+ * subqueries. Each subquery is executed once the rows of its parent query are read. In parallel mode,
+ * the branches of the tree run as fork/join tasks on a work-stealing pool shared by all requests,
+ * otherwise one after another on the connection of the request. In pipelined mode, the subqueries of a
+ * top-level query start per chunk of its rows while the rest of its rows are still read.</p>
+ *
+ * <p>Every read on a pooled connection first takes a permit of the task budget of
+ * {@link de.zeus.commons.provider.logic.sql.ConnectionBudget}, so at most {@code db.parallel.max.threads}
+ * pooled connections are read at once across all requests, whichever thread reads them.</p>
+ *
+ * <p>With a {@code pageSize}, a request with a single top-level query reads a page of its rows, see
+ * {@link KeysetPage}; the continuation token of the next page is available from {@link #getNextPageToken()}.</p>
  */
 public class JsonRequestProcessor {
 
@@ -25,16 +44,40 @@ public class JsonRequestProcessor {
     private final IConnectionController sqlController;
     /** Holds Level One data wrappers. */
     private final List<DataWrapper> levelOneWrapper = new ArrayList<>();
-    /** Holds SQL statements. */
-    private final Map<String, String> sqlStatements = new LinkedHashMap<>();
-
-    private DataWrapper currentLevelOneWrapper;
-    private List<DataWrapper> currentLevelTwoWrappers = new ArrayList<>();
-    private List<List<DataWrapper>> currentLevelThreeWrappers = new ArrayList<>();
-    private final Map<Integer, Consumer<Map.Entry<String, String>>> levelActions = new HashMap<>();
-
-    private String elementName = null;
-    private String statement = null;
+    /** Compiled plan of the current request. */
+    private RequestPlan requestPlan;
+
+
+    /** Subquery execution mode, either ROW, BATCH, JOIN or AUTO. */
+    private String executionMode = JdbcConfig.getInstance().getDbSubqueryMode();
+    /** Maximum number of parent keys per IN-list query in BATCH mode. */
+    private int batchSize = JdbcConfig.getInstance().getDbSubqueryBatchSize();
+    /** Whether [$key] placeholders are bound as prepared statement parameters. */
+    private final boolean prepared = JdbcConfig.getInstance().isDbSubqueryPrepared();
+    /** Whether independent subqueries run concurrently on pooled connections. */
+    private boolean parallel = JdbcConfig.getInstance().isDbSubqueryParallel();
+    /** Whether the subqueries of a top-level query start per chunk of its rows while the rows are read. */
+    private boolean pipelined = JdbcConfig.getInstance().isDbSubqueryPipelined();
+    /** Executor for concurrent subqueries, created on first use. */
+    private SubqueryExecutor subqueryExecutor;
+    /** Whether identical subqueries are executed only once per request. */
+    private final boolean memoize = JdbcConfig.getInstance().isDbSubqueryMemoize();
+    /** Results of the subqueries executed by this request, keyed by statement and parameters. */
+    private final Map<BoundStatement, DataWrapper> memo = new ConcurrentHashMap<>();
+    /** Execution statistics of this request. */
+    private final RequestStatistics statistics;
+    /** Chooses the execution mode per subquery in AUTO mode, created when the request starts. */
+    private QueryCostModel costModel;
+    /** Maximum number of rows of a page of the top-level query, 0 if the request is not paged. */
+    private int pageSize;
+    /** Continuation token of the previous page, null for the first page. */
+    private String afterToken;
+    /** The page of the top-level query read by this request, null if the request is not paged. */
+    private KeysetPage keysetPage;
+    /** Continuation token of the next page, null if there is none. */
+    private volatile String nextPageToken;
+    /** The first row budget violation of this request, which fails the request. */
+    private volatile RowLimitExceededException rowLimitFailure;
 
     /**
      * Constructor for JsonRequestProcessor.
@@ -42,292 +85,927 @@ public class JsonRequestProcessor {
      * @param sqlController SQL connection controller interface.
      */
     public JsonRequestProcessor(IConnectionController sqlController) {
-        this.sqlController = sqlController;
-        initLevelActions();
+        this(sqlController, new RequestStatistics());
     }
 
     /**
-     * Initialize actions for different nesting levels.
+     * Constructor for JsonRequestProcessor.
+     *
+     * @param sqlController SQL connection controller interface.
+     * @param statistics    Collects the execution statistics of the request.
      */
-    public void initLevelActions() {
-        levelActions.put(1, this::processLevelOne);
-        levelActions.put(2, this::processLevelTwo);
-        levelActions.put(3, this::processLevelThree);
-        levelActions.put(4, this::processLevelFour);
+    public JsonRequestProcessor(IConnectionController sqlController, RequestStatistics statistics) {
+        this.sqlController = sqlController;
+        this.statistics = statistics;
     }
 
     /**
      * Process the JSON request.
      *
      * @param jsonRequest The JSON object representing the request.
+     * @throws RowLimitExceededException If a query result exceeds the row budget and the request must fail.
+     * @throws ProcessingException       If the continuation token of the request is invalid.
      */
-    public void processJSONRequest(JsonObject jsonRequest) {
-        analyseJSONRequest(jsonRequest);
+    public void processJSONRequest(JsonObject jsonRequest) throws ProcessingException {
+        initExecutionOptions(jsonRequest);
+        requestPlan = RequestPlan.of(jsonRequest);
+        initPage();
         executeSQLStatements();
+        if (rowLimitFailure != null) {
+            throw rowLimitFailure;
+        }
     }
 
     /**
-     * Execute SQL statements based on the JSON request.
+     * Checks whether a request runs subqueries on pooled connections while it holds the connection of the
+     * request, which is the case in parallel and in pipelined mode.
+     *
+     * @param jsonRequest The JSON object representing the request.
+     * @return true if the request takes pooled connections for its subqueries.
      */
-    private void executeSQLStatements() {
-        int nestingLevel = 1;
-        for (Map.Entry<String, String> entry : sqlStatements.entrySet()) {
-            executeByNestingLevel(nestingLevel, entry);
-            nestingLevel++;
+    public static boolean usesPooledConnections(JsonObject jsonRequest) {
+        boolean parallel = jsonRequest.has(IConstants.PARALLEL)
+                ? jsonRequest.get(IConstants.PARALLEL).getAsBoolean() : JdbcConfig.getInstance().isDbSubqueryParallel();
+        boolean pipelined = jsonRequest.has(IConstants.PIPELINED)
+                ? jsonRequest.get(IConstants.PIPELINED).getAsBoolean() : JdbcConfig.getInstance().isDbSubqueryPipelined();
+        return parallel || pipelined;
+    }
+
+    /**
+     * Applies per-request overrides of the subquery execution mode, batch size, parallelism and pipelining.
+     *
+     * @param jsonRequest The JSON object representing the request.
+     */
+    private void initExecutionOptions(JsonObject jsonRequest) {
+        if (jsonRequest.has(IConstants.EXECUTION_MODE)) {
+            String mode = jsonRequest.get(IConstants.EXECUTION_MODE).getAsString();
+            if (IConstants.SUBQUERY_MODE_BATCH.equalsIgnoreCase(mode) || IConstants.SUBQUERY_MODE_ROW.equalsIgnoreCase(mode)
+                    || IConstants.SUBQUERY_MODE_JOIN.equalsIgnoreCase(mode) || IConstants.SUBQUERY_MODE_AUTO.equalsIgnoreCase(mode)) {
+                executionMode = mode.toUpperCase();
+            } else {
+                LOG.warn("Unknown execution mode: " + mode + ". Using " + executionMode);
+            }
+        }
+        if (jsonRequest.has(IConstants.BATCH_SIZE) && jsonRequest.get(IConstants.BATCH_SIZE).getAsInt() > 0) {
+            batchSize = jsonRequest.get(IConstants.BATCH_SIZE).getAsInt();
+        }
+        if (jsonRequest.has(IConstants.PARALLEL)) {
+            parallel = jsonRequest.get(IConstants.PARALLEL).getAsBoolean();
+        }
+        if (jsonRequest.has(IConstants.PIPELINED)) {
+            pipelined = jsonRequest.get(IConstants.PIPELINED).getAsBoolean();
+        }
+        if (jsonRequest.has(IConstants.PAGE_SIZE)) {
+            pageSize = Math.max(0, jsonRequest.get(IConstants.PAGE_SIZE).getAsInt());
+        }
+        if (jsonRequest.has(IConstants.AFTER) && !jsonRequest.get(IConstants.AFTER).isJsonNull()) {
+            afterToken = jsonRequest.get(IConstants.AFTER).getAsString();
+        }
+        if (IConstants.SUBQUERY_MODE_AUTO.equals(executionMode)) {
+            costModel = new QueryCostModel(batchSize, parallel ? JdbcConfig.getInstance().getDbParallelMaxPerRequest() : 1);
         }
     }
 
-    private void executeByNestingLevel(int nestingLevel, Map.Entry<String, String> entry) {
-        Consumer<Map.Entry<String, String>> action = levelActions.get(nestingLevel);
-        if (action != null) {
-            action.accept(entry);
+    /**
+     * Prepares the page of the top-level query if the request asks for one. The rows are ordered by the
+     * primary key of the query, which is looked up by describing its columns. A request with several
+     * top-level queries or a query without a primary key is read in full.
+     *
+     * @throws ProcessingException If the query cannot be described or the continuation token is invalid.
+     */
+    private void initPage() throws ProcessingException {
+        if (pageSize == 0) {
+            return;
+        }
+        List<QueryNode> rootNodes = requestPlan.getRootNodes();
+        if (rootNodes.size() != 1) {
+            LOG.warn("Paging needs a single top-level query, reading all rows of " + rootNodes.size() + " queries");
+            return;
+        }
+        QueryNode rootNode = rootNodes.get(0);
+        keysetPage = KeysetPage.create(rootNode, (DataWrapper) sqlController.describeData(rootNode.getStatement()),
+                pageSize, afterToken);
+        if (keysetPage == null) {
+            LOG.warn("The top-level query has no primary key to page by, reading all rows: " + rootNode.getStatement());
+        }
+    }
+
+    /**
+     * Execute SQL statements based on the JSON request, starting with its top-level queries.
+     */
+    private void executeSQLStatements() {
+        List<QueryNode> rootNodes = requestPlan.getRootNodes();
+        // A single top-level query is read on the connection of the request
+        boolean pooledConnection = parallel && rootNodes.size() > 1;
+        List<QueryTask> rootTasks = new ArrayList<>(rootNodes.size());
+        for (QueryNode rootNode : rootNodes) {
+            rootTasks.add(new QueryTask(rootNode, null, pooledConnection));
+        }
+        if (parallel) {
+            SubqueryExecutor.getScheduler().invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(rootTasks)));
         } else {
-            LOG.error("Unknown level: " + nestingLevel);
+            rootTasks.forEach(QueryTask::compute);
+        }
+        for (QueryTask rootTask : rootTasks) {
+            if (rootTask.queryResult != null) {
+                levelOneWrapper.addAll(rootTask.queryResult.childWrappers);
+            }
         }
     }
+
     /**
-     * Process Level One data.
+     * Returns the processed result.
      *
-     * <p>This method utilizes {@code addLevelOneData} to add a new Level One data wrapper.
-     * If adding is successful, {@code currentLevelOneWrapper} is updated.</p>
+     * @return List of DataWrapper objects.
+     */
+    public List<DataWrapper> getResult() {
+        return levelOneWrapper;
+    }
+
+    /**
+     * Returns the continuation token of the next page of the top-level query.
      *
-     * @param entry a key-value pair where the key is the element name and the value is the SQL statement for data retrieval.
+     * @return The token, or null if the request is not paged or the page is the last one.
      */
-    private void processLevelOne(Map.Entry<String, String> entry) {
-        Optional<DataWrapper> rootLevelDataWrapperOpt = addLevelOneData(entry.getKey(), entry.getValue());
-        // Handle the case when no data could be added, if necessary
-        // or some default value
-        currentLevelOneWrapper = rootLevelDataWrapperOpt.orElse(null);
+    public String getNextPageToken() {
+        return nextPageToken;
     }
 
     /**
-     * Process Level Two data.
+     * Returns the execution statistics of the request.
+     *
+     * @return The request statistics.
      */
-    private void processLevelTwo(Map.Entry<String, String> entry) {
-        currentLevelTwoWrappers = addLevelTwoData(entry.getKey(),
-                entry.getValue(), currentLevelOneWrapper);
+    public RequestStatistics getStatistics() {
+        return statistics;
     }
 
     /**
-     * Process Level Three data.
+     * Attempts to read data safely using the provided SQL statement, either on the connection of the
+     * request or on a dedicated pooled connection.
+     *
+     * @param statement        the SQL statement and its parameters to be executed for data retrieval.
+     * @param pooledConnection whether the statement runs on a dedicated pooled connection.
+     * @return an {@code Optional<DataWrapper>} that will contain the data if the reading is successful, or be empty if it fails.
      */
-    private void processLevelThree(Map.Entry<String, String> entry) {
-        currentLevelThreeWrappers = addLevelThreeData(entry.getKey(),
-                entry.getValue(), currentLevelTwoWrappers);
+    private Optional<DataWrapper> safelyReadData(BoundStatement statement, boolean pooledConnection) {
+        return safelyReadData(statement, pooledConnection, 0);
     }
 
     /**
-     * Process Level Four data.
+     * Attempts to read data safely using the provided SQL statement, which reads the rows of several keys
+     * if a key count is given. The row budget applies to the rows of each key, so it is not applied to them.
+     *
+     * @param statement        the SQL statement and its parameters to be executed for data retrieval.
+     * @param pooledConnection whether the statement runs on a dedicated pooled connection.
+     * @param keyCount         the number of keys read by the statement, 0 for the statement of one parent record.
+     * @return an {@code Optional<DataWrapper>} that will contain the data if the reading is successful, or be empty if it fails.
      */
-    private void processLevelFour(Map.Entry<String, String> entry) {
-        addLevelFourData(entry.getKey(),
-                entry.getValue(), currentLevelThreeWrappers);
+    private Optional<DataWrapper> safelyReadData(BoundStatement statement, boolean pooledConnection, int keyCount) {
+        try {
+            return Optional.ofNullable(readData(statement, pooledConnection, keyCount));
+        } catch (RowLimitExceededException e) {
+            LOG.error("Row budget exceeded by the statement: " + statement);
+            synchronized (this) {
+                if (rowLimitFailure == null) {
+                    rowLimitFailure = e;
+                }
+            }
+            return Optional.empty();
+        } catch (ProcessingException e) {
+            LOG.error("Error reading data with the statement: " + statement, e);
+            return Optional.empty();
+        }
     }
 
     /**
-     * Returns the processed result.
+     * Reads data for several independent SQL statements. With memoization enabled, each distinct
+     * statement is executed only once per request; repeated statements get a copy of its result.
      *
-     * @return List of DataWrapper objects.
+     * @param statements       the SQL statements to be executed.
+     * @param pooledConnection whether the statements run on dedicated pooled connections.
+     * @return the results in statement order; an entry is empty if reading the statement failed.
      */
-    public List<DataWrapper> getResult() {
-        return levelOneWrapper;
+    private List<Optional<DataWrapper>> safelyReadAll(List<BoundStatement> statements, boolean pooledConnection) {
+        return safelyReadAll(statements, pooledConnection, 0);
     }
 
-    private void analyseJSONRequest(JsonObject jsonRequest) {
-        for (Map.Entry<String, JsonElement> entry : jsonRequest.entrySet()) {
-            JsonElement value = entry.getValue();
-            if (value.isJsonObject()) {
-                handleJsonObject(value.getAsJsonObject());
-            } else if (value.isJsonPrimitive()) {
-                handleJsonPrimitive(entry);
+    /**
+     * Reads data for several independent SQL statements, each reading the rows of the given number of keys.
+     *
+     * @param statements       the SQL statements to be executed.
+     * @param pooledConnection whether the statements run on dedicated pooled connections.
+     * @param keyCount         the number of keys read by each statement, 0 for statements of one parent record.
+     * @return the results in statement order; an entry is empty if reading the statement failed.
+     */
+    private List<Optional<DataWrapper>> safelyReadAll(List<BoundStatement> statements, boolean pooledConnection,
+                                                      int keyCount) {
+        if (!memoize) {
+            return safelyExecuteAll(statements, pooledConnection, keyCount);
+        }
+        List<BoundStatement> pendingStatements = new ArrayList<>();
+        Set<BoundStatement> pending = new HashSet<>();
+        for (BoundStatement dynStatement : statements) {
+            if (!memo.containsKey(dynStatement) && pending.add(dynStatement)) {
+                pendingStatements.add(dynStatement);
             }
         }
-    }
-
-    private void handleJsonObject(JsonObject queryObject) {
-        sqlStatements.put(queryObject.get("name").getAsString(), queryObject.get("statement").getAsString());
+        List<Optional<DataWrapper>> pendingResults = safelyExecuteAll(pendingStatements, pooledConnection, keyCount);
+        for (int i = 0; i < pendingStatements.size(); i++) {
+            BoundStatement dynStatement = pendingStatements.get(i);
+            pendingResults.get(i).ifPresent(dataWrapper -> memo.put(dynStatement, dataWrapper));
+        }
+        statistics.add(IConstants.MEMO_HITS, statements.size() - pendingStatements.size());
+        statistics.add(IConstants.MEMO_MISSES, pendingStatements.size());
 
-        // Nested Subquery, recursive call to analyseJSONRequest-method
-        if (queryObject.has("subquery")) {
-            analyseJSONRequest(queryObject.get("subquery").getAsJsonObject());
+        // Hand out copies, as every result is attached to its own parent record
+        List<Optional<DataWrapper>> results = new ArrayList<>(statements.size());
+        for (BoundStatement dynStatement : statements) {
+            results.add(Optional.ofNullable(memo.get(dynStatement)).map(DataWrapper::copy));
         }
+        return results;
     }
 
-
-    private void handleJsonPrimitive(Map.Entry<String, JsonElement> entry) {
-        if ("name".equals(entry.getKey())) {
-            elementName = entry.getValue().getAsString();
+    /**
+     * Executes several independent SQL statements. In parallel mode, the statements are executed
+     * concurrently on pooled connections, otherwise one after another. The executor caps the statements
+     * running at once per request; the task budget of the connection budget caps the pooled connections
+     * across all requests.
+     *
+     * @param statements       the SQL statements to be executed.
+     * @param pooledConnection whether the statements run on dedicated pooled connections rather than
+     *                         on the connection of the request.
+     * @param keyCount         the number of keys read by each statement, 0 for statements of one parent record.
+     * @return the results in statement order; an entry is empty if reading the statement failed.
+     */
+    private List<Optional<DataWrapper>> safelyExecuteAll(List<BoundStatement> statements, boolean pooledConnection,
+                                                         int keyCount) {
+        if (parallel && (statements.size() > 1 || pooledConnection)) {
+            List<Callable<Optional<DataWrapper>>> tasks = new ArrayList<>(statements.size());
+            for (BoundStatement dynStatement : statements) {
+                tasks.add(() -> safelyReadData(dynStatement, true, keyCount));
+            }
+            return getSubqueryExecutor().invokeAll(tasks);
         }
-        if ("statement".equals(entry.getKey())) {
-            statement = entry.getValue().getAsString();
+        List<Optional<DataWrapper>> results = new ArrayList<>(statements.size());
+        for (BoundStatement dynStatement : statements) {
+            results.add(safelyReadData(dynStatement, pooledConnection, keyCount));
         }
-        if (null != elementName && null != statement) {
-            sqlStatements.put(elementName, statement);
-            elementName = null;
-            statement = null;
+        return results;
+    }
+
+    private synchronized SubqueryExecutor getSubqueryExecutor() {
+        if (subqueryExecutor == null) {
+            subqueryExecutor = new SubqueryExecutor(JdbcConfig.getInstance().getDbParallelMaxPerRequest());
         }
+        return subqueryExecutor;
     }
 
     /**
-     * Attempts to read data safely using the provided SQL statement.
+     * Reads a top-level query and the chain of its subqueries with one joined statement. If the joined
+     * statement fails, the queries are executed one by one instead. This includes results exceeding the
+     * row budget with the FAIL policy, so the request fails on the same query as in ROW mode.
      *
-     * <p>This method wraps the {@code readData} method and handles {@code DatabaseConnectionException}
-     * internally by logging an error message. It returns an empty {@code Optional} if the data reading fails.</p>
-     *
-     * @param statement the SQL statement to be executed for data retrieval.
-     * @return an {@code Optional<DataWrapper>} that will contain the data if the reading is successful, or be empty if it fails.
+     * @param joinPlan         the chain of queries and its joined statement.
+     * @param pooledConnection whether the statement runs on a dedicated pooled connection.
+     * @return the top-level wrapper holding the wrappers of the joined subqueries, or empty if reading fails.
      */
-    private Optional<DataWrapper> safelyReadData(String statement) {
+    private Optional<DataWrapper> addJoinedData(JoinPlan joinPlan, boolean pooledConnection) {
+        Callable<Optional<DataWrapper>> task = () -> safelyReadJoinedData(joinPlan, pooledConnection);
+        Optional<DataWrapper> rootLevelDataWrapperOpt;
+        try {
+            rootLevelDataWrapperOpt = pooledConnection
+                    ? getSubqueryExecutor().invokeAll(Collections.singletonList(task)).get(0) : task.call();
+        } catch (Exception e) {
+            LOG.error("Error reading data with the statement: " + joinPlan.getStatement(), e);
+            rootLevelDataWrapperOpt = Optional.empty();
+        }
+        if (rootLevelDataWrapperOpt.isPresent()) {
+            statistics.add(IConstants.JOINED_QUERIES, joinPlan.getQueryNodes().size());
+        } else {
+            LOG.warn("Joined statement failed, falling back to one query per row: " + joinPlan.getStatement());
+        }
+        return rootLevelDataWrapperOpt;
+    }
+
+    private Optional<DataWrapper> safelyReadJoinedData(JoinPlan joinPlan, boolean pooledConnection) {
+        String sql = joinPlan.getStatement();
         try {
-            return Optional.ofNullable(readData(statement));
+            return Optional.of((DataWrapper) (pooledConnection
+                    ? sqlController.readJoinedDataOnPooledConnection(sql, joinPlan.getNames(), joinPlan.getLevelStatements(),
+                            joinPlan.getJoinColumns())
+                    : sqlController.readJoinedData(sql, joinPlan.getNames(), joinPlan.getLevelStatements(),
+                            joinPlan.getJoinColumns())));
         } catch (ProcessingException e) {
-            LOG.error("Error reading data with the statement: " + statement, e);
+            LOG.debug("Error reading data with the joined statement: " + sql, e);
             return Optional.empty();
         }
     }
 
     /**
-     * Adds Level One data to the existing data structure.
-     *
-     * <p>This method uses {@code safelyReadData} to read data based on the provided SQL statement.
-     * If the data reading is successful, it sets the name of the {@code DataWrapper} object,
-     * adds it to the {@code levelOneWrapper}, and returns it wrapped in an {@code Optional}.</p>
+     * Collects the wrappers of the last query of a chain read with one joined statement.
      *
-     * @param elementName the name to set for the {@code DataWrapper} object.
-     * @param statement the SQL statement to be executed for data retrieval.
-     * @return an {@code Optional<DataWrapper>} containing the data read, or empty if reading fails.
+     * @param rootLevelDataWrapper the top-level wrapper holding the wrappers of the joined subqueries.
+     * @param depth                the number of joined subqueries.
+     * @return the wrappers of the last joined query, in parent record order.
      */
-    private Optional<DataWrapper> addLevelOneData(String elementName, String statement) {
-        Optional<DataWrapper> rootLevelDataWrapperOpt = safelyReadData(statement);
-        if (rootLevelDataWrapperOpt.isPresent()) {
-            DataWrapper rootLevelDataWrapper = rootLevelDataWrapperOpt.get();
-            rootLevelDataWrapper.setName(elementName);
-            levelOneWrapper.add(rootLevelDataWrapper);
+    private static List<DataWrapper> getJoinedWrappers(DataWrapper rootLevelDataWrapper, int depth) {
+        List<DataWrapper> wrappers = Collections.singletonList(rootLevelDataWrapper);
+        for (int level = 0; level < depth; level++) {
+            List<DataWrapper> childWrappers = new ArrayList<>();
+            for (DataWrapper wrapper : wrappers) {
+                for (int row = 0; row < wrapper.getRowCount(); row++) {
+                    childWrappers.addAll(wrapper.getDataWrappers(row));
+                }
+            }
+            wrappers = childWrappers;
         }
-        return rootLevelDataWrapperOpt;
+        return wrappers;
     }
 
+    /**
+     * Records the execution of a joined statement in the cost model and adds the JOIN mode of its
+     * subqueries to the statistics.
+     *
+     * @param joinPlan             the chain of queries and its joined statement.
+     * @param rootLevelDataWrapper the top-level wrapper holding the wrappers of the joined subqueries.
+     * @param nanos                the time spent, in nanoseconds.
+     */
+    private void recordJoin(JoinPlan joinPlan, DataWrapper rootLevelDataWrapper, long nanos) {
+        List<QueryNode> queryNodes = joinPlan.getQueryNodes();
+        long[] levelRows = new long[queryNodes.size()];
+        for (int level = 0; level < levelRows.length; level++) {
+            levelRows[level] = countRows(getJoinedWrappers(rootLevelDataWrapper, level));
+        }
+        costModel.recordJoin(joinPlan, levelRows, nanos);
+        for (int level = 1; level < levelRows.length; level++) {
+            addStrategyStatistics(queryNodes.get(level).getName(), IConstants.SUBQUERY_MODE_JOIN, levelRows[level - 1],
+                    levelRows[level], nanos);
+        }
+    }
 
+    /**
+     * Reads the data of a top-level query.
+     *
+     * @param queryNode        the compiled top-level query.
+     * @param statement        the statement reading its rows, the query itself or a page of it.
+     * @param pooledConnection whether the query runs on a dedicated pooled connection.
+     * @return the wrapper read, empty if reading fails.
+     */
+    private QueryResult addLevelOneData(QueryNode queryNode, BoundStatement statement, boolean pooledConnection) {
+        QueryResult queryResult = new QueryResult();
+        safelyReadData(statement, pooledConnection).ifPresent(rootLevelDataWrapper -> {
+            rootLevelDataWrapper.setName(queryNode.getName());
+            queryResult.add(null, 0, rootLevelDataWrapper);
+        });
+        return queryResult;
+    }
 
     /**
-     * Adds data for Level Two.
-     * This method processes a single element for Level Two data and associates it with its parent Level One element.
+     * Reads the data of a top-level query and executes its subqueries per chunk of its rows while the
+     * remaining rows are read. The subqueries of a chunk run as a task on the shared scheduler and on pooled
+     * connections, as the connection reading the top-level query is busy. Their wrappers are attached to the
+     * top-level rows once all rows are read and all chunks are done.
      *
-     * @param elementName    The name of the element to be processed.
-     * @param statement      The SQL statement to be executed.
-     * @param contentWrapper The parent data wrapper containing Level One data.
-     * @return A list of data wrappers containing processed Level Two data. The list may be empty if no data could be processed.
+     * <p>The top-level query is read on the connection of the request: a pooled connection would hold a
+     * permit of the task budget while its chunks wait for permits of their own.</p>
+     *
+     * @param queryNode the compiled top-level query.
+     * @return the wrapper read, empty if reading fails.
      */
-    private List<DataWrapper> addLevelTwoData(String elementName, String statement, DataWrapper contentWrapper) {
-        List<DataWrapper> currentDataWrappers = new ArrayList<>();
+    private QueryResult addLevelOneDataPipelined(QueryNode queryNode) {
+        QueryResult queryResult = new QueryResult();
+        String sql = queryNode.getStatement();
+        ChunkPipeline pipeline = new ChunkPipeline(queryNode.getChildren());
+        Optional<DataWrapper> rootLevelDataWrapperOpt;
+        try {
+            int chunkRows = JdbcConfig.getInstance().getDbPipelineChunkRows();
+            rootLevelDataWrapperOpt = Optional.of((DataWrapper) sqlController.readDataInChunks(sql, chunkRows, pipeline));
+        } catch (RowLimitExceededException e) {
+            LOG.error("Row budget exceeded by the statement: " + sql);
+            synchronized (this) {
+                if (rowLimitFailure == null) {
+                    rowLimitFailure = e;
+                }
+            }
+            rootLevelDataWrapperOpt = Optional.empty();
+        } catch (ProcessingException e) {
+            LOG.error("Error reading data with the statement: " + sql, e);
+            rootLevelDataWrapperOpt = Optional.empty();
+        }
+        // The chunks hold pooled connections, so they are awaited even if reading failed
+        for (ChunkTask chunkTask : pipeline.chunkTasks) {
+            chunkTask.join();
+        }
+        statistics.add(IConstants.PIPELINED_CHUNKS, pipeline.chunkTasks.size());
+        rootLevelDataWrapperOpt.ifPresent(rootLevelDataWrapper -> {
+            rootLevelDataWrapper.setName(queryNode.getName());
+            for (ChunkTask chunkTask : pipeline.chunkTasks) {
+                for (int row = 0; row < chunkTask.chunk.getRowCount(); row++) {
+                    for (DataWrapper childWrapper : chunkTask.chunk.getDataWrappers(row)) {
+                        rootLevelDataWrapper.addDataWrapper(chunkTask.firstRow + row, childWrapper);
+                    }
+                }
+            }
+            queryResult.add(null, 0, rootLevelDataWrapper);
+        });
+        return queryResult;
+    }
 
-        for (ContentRecordData contentRecord : contentWrapper.getContentData()) {
-            HashMap<String, String> data = collectDataFromContentRecord(contentWrapper, contentRecord);
-            String dynStatement = replaceDynamicValuesInSql(statement, data);
-            Optional<DataWrapper> childWrapperOpt = readAndWrapData(dynStatement, elementName, contentRecord);
-            childWrapperOpt.ifPresent(currentDataWrappers::add);
+    /**
+     * Executes subqueries for the rows of their parent query and attaches their wrappers to the parent
+     * records, in request order. Sibling subqueries are forked in parallel mode. They run on pooled
+     * connections in parallel mode, as siblings run concurrently, and if the parent query does.
+     *
+     * @param childNodes       The compiled subqueries.
+     * @param parentWrappers   The data wrappers of the parent query.
+     * @param pooledConnection Whether the parent query ran on a dedicated pooled connection.
+     */
+    private void executeSubqueries(List<QueryNode> childNodes, List<DataWrapper> parentWrappers, boolean pooledConnection) {
+        List<QueryTask> childTasks = new ArrayList<>(childNodes.size());
+        for (QueryNode childNode : childNodes) {
+            childTasks.add(new QueryTask(childNode, parentWrappers, parallel || pooledConnection));
+        }
+        if (parallel) {
+            ForkJoinTask.invokeAll(childTasks);
+        } else {
+            childTasks.forEach(QueryTask::compute);
+        }
+        for (QueryTask childTask : childTasks) {
+            if (childTask.queryResult != null) {
+                childTask.queryResult.attach();
+            }
         }
+    }
 
-        return currentDataWrappers;
+    /**
+     * Adds child data for every record of the given parent wrappers.
+     * Depending on the execution mode, one query per parent record or one IN-list query
+     * per chunk of parent records is issued. In AUTO mode, the mode is chosen by the cost model,
+     * which records the execution and whose choice is added to the statistics.
+     *
+     * @param queryNode        The compiled query to be executed.
+     * @param parentWrappers   The data wrappers of the parent query.
+     * @param pooledConnection Whether the queries run on dedicated pooled connections.
+     * @return The data wrappers containing the processed child data, in parent record order.
+     */
+    private QueryResult addChildData(QueryNode queryNode, List<DataWrapper> parentWrappers, boolean pooledConnection) {
+        if (costModel == null) {
+            return addChildData(queryNode, parentWrappers, pooledConnection, executionMode);
+        }
+        int parentRows = countRows(parentWrappers);
+        String mode = costModel.chooseMode(queryNode, parentRows);
+        long start = System.nanoTime();
+        QueryResult queryResult = addChildData(queryNode, parentWrappers, pooledConnection, mode);
+        long nanos = System.nanoTime() - start;
+        if (rowLimitFailure == null) {
+            long childRows = countRows(queryResult.childWrappers);
+            costModel.record(queryNode, queryResult.mode, parentRows, queryResult.queries, childRows, nanos);
+            addStrategyStatistics(queryNode.getName(), queryResult.mode, parentRows, childRows, nanos);
+        }
+        return queryResult;
     }
 
+    private QueryResult addChildData(QueryNode queryNode, List<DataWrapper> parentWrappers, boolean pooledConnection,
+                                     String mode) {
+        if (IConstants.SUBQUERY_MODE_BATCH.equals(mode)) {
+            Optional<QueryResult> batchedWrappers = addChildDataBatched(queryNode, parentWrappers, pooledConnection);
+            if (batchedWrappers.isPresent()) {
+                return batchedWrappers.get();
+            }
+            if (rowLimitFailure != null) {
+                return new QueryResult();
+            }
+            LOG.debug("Statement cannot be batched, falling back to one query per row: " + queryNode.getStatement());
+        }
+        return addChildDataPerRow(queryNode, parentWrappers, pooledConnection);
+    }
 
-    private List<List<DataWrapper>> addLevelThreeData(String elementName, String statement, List<DataWrapper> currentDataWrappers) {
+    /**
+     * Adds the execution mode chosen for a subquery in AUTO mode and the figures it was measured with
+     * to the statistics.
+     *
+     * @param name       The element name of the subquery.
+     * @param mode       The execution mode used.
+     * @param parentRows The number of parent rows.
+     * @param childRows  The number of rows read.
+     * @param nanos      The time spent, in nanoseconds.
+     */
+    private void addStrategyStatistics(String name, String mode, long parentRows, long childRows, long nanos) {
+        statistics.put(name + IConstants.STRATEGY_SUFFIX, mode);
+        statistics.put(name + IConstants.PARENT_ROWS_SUFFIX, parentRows);
+        statistics.put(name + IConstants.CHILD_ROWS_PER_KEY_SUFFIX,
+                parentRows > 0 ? Math.round(100.0 * childRows / parentRows) / 100.0 : 0.0);
+        statistics.put(name + IConstants.MILLIS_SUFFIX, nanos / 1000000);
+    }
 
-        List<List<DataWrapper>> resultDataWrappers = new ArrayList<>();
-        for (DataWrapper dataWrapper : currentDataWrappers) {
-            resultDataWrappers.add(addLevelTwoData(elementName, statement, dataWrapper));
+    private static int countRows(List<DataWrapper> dataWrappers) {
+        int rows = 0;
+        for (DataWrapper dataWrapper : dataWrappers) {
+            rows += dataWrapper.getRowCount();
         }
-        return resultDataWrappers;
+        return rows;
     }
 
-    private void addLevelFourData(String elementName, String statement, List<List<DataWrapper>> currentDataWrappers) {
-        for(List<DataWrapper> dataWrappers : currentDataWrappers) {
-            addLevelThreeData(elementName, statement, dataWrappers);
+    /**
+     * Adds child data by executing one query per parent record. If all placeholders of the statement
+     * can be bound, the query is executed as a prepared statement with the parent values as parameters.
+     *
+     * @param queryNode        The compiled query to be executed.
+     * @param parentWrappers   The data wrappers of the parent query.
+     * @param pooledConnection Whether the queries run on dedicated pooled connections.
+     * @return The data wrappers containing processed child data. It may be empty if no data could be processed.
+     */
+    private QueryResult addChildDataPerRow(QueryNode queryNode, List<DataWrapper> parentWrappers, boolean pooledConnection) {
+        String elementName = queryNode.getName();
+        List<DataWrapper> parentRecordWrappers = new ArrayList<>();
+        List<Integer> parentRows = new ArrayList<>();
+        List<BoundStatement> dynStatements = new ArrayList<>();
+        for (DataWrapper parentWrapper : parentWrappers) {
+            int[] keyColumns = queryNode.resolveKeyColumns(parentWrapper);
+            for (int row = 0; row < parentWrapper.getRowCount(); row++) {
+                parentRecordWrappers.add(parentWrapper);
+                parentRows.add(row);
+                dynStatements.add(queryNode.createStatement(queryNode.getKeyValues(parentWrapper, row, keyColumns), prepared));
+            }
+        }
+
+        List<Optional<DataWrapper>> childWrappers = safelyReadAll(dynStatements, pooledConnection);
+        QueryResult queryResult = new QueryResult();
+        queryResult.mode = IConstants.SUBQUERY_MODE_ROW;
+        queryResult.queries = memoize ? new HashSet<>(dynStatements).size() : dynStatements.size();
+        for (int i = 0; i < parentRows.size(); i++) {
+            wrapData(childWrappers.get(i), dynStatements.get(i), elementName,
+                    parentRecordWrappers.get(i), parentRows.get(i), queryResult);
         }
+        return queryResult;
     }
 
     /**
-     * Collects data from a single ContentRecordData object.
+     * Adds child data by collecting the key values of all parent records and issuing one
+     * {@code column IN (...)} query per chunk of distinct keys. The resulting rows are routed back
+     * to their parent records in memory, numbered exactly as a per-row query would number them.
+     *
+     * <p>Only statements with a single {@code column = '[$key]'} placeholder can be batched. If the
+     * statement does not qualify, the key column is missing, the parent and child key columns have types
+     * that {@link BatchKey} cannot compare, or a chunk fails or holds more rows than its keys may have, an
+     * empty {@code Optional} is returned and the caller falls back to one query per row. The row budget
+     * applies to the rows routed to each parent record, as in the per-row mode.</p>
      *
-     * @param contentWrapper The parent data wrapper containing metadata.
-     * @param contentRecord  The ContentRecordData object from which data is to be collected.
-     * @return A HashMap containing the collected data.
+     * @param queryNode        The compiled query to be executed.
+     * @param parentWrappers   The data wrappers of the parent query.
+     * @param pooledConnection Whether the queries run on dedicated pooled connections.
+     * @return The child data wrappers in parent record order, or empty if the statement cannot be batched.
      */
-    private HashMap<String, String> collectDataFromContentRecord(DataWrapper contentWrapper, ContentRecordData contentRecord) {
-        HashMap<String, String> data = new HashMap<>();
-        for (ContentFieldData contentField : contentRecord.getFieldDataObjs()) {
-            data.put(contentWrapper.getMetaData().get(contentField.getColumnNumber()).getColumnName(), contentField.getValue());
-            LOG.debug(contentWrapper.getName() + " " + contentWrapper.getMetaData().get(contentField.getColumnNumber()).getColumnName() + " " + contentField.getValue());
+    private Optional<QueryResult> addChildDataBatched(QueryNode queryNode, List<DataWrapper> parentWrappers,
+                                                      boolean pooledConnection) {
+        if (!queryNode.isBatchable()) {
+            return Optional.empty();
+        }
+        String elementName = queryNode.getName();
+        String childColumn = queryNode.getBatchKeyColumn();
+
+        // Collect the key value of every parent record, keeping the parent order
+        List<DataWrapper> parentRecordWrappers = new ArrayList<>();
+        List<Integer> parentRows = new ArrayList<>();
+        List<String> parentKeys = new ArrayList<>();
+        Map<String, String> keyValues = new LinkedHashMap<>();
+        Integer parentKeyType = null;
+        for (DataWrapper parentWrapper : parentWrappers) {
+            if (parentWrapper.getRowCount() == 0) {
+                continue;
+            }
+            int[] keyColumns = queryNode.resolveKeyColumns(parentWrapper);
+            MetaData keyMetaData = parentWrapper.getMetaData().get(keyColumns[0] + 1);
+            if (keyMetaData == null || (parentKeyType != null && parentKeyType != keyMetaData.getColumnSqlDataType())) {
+                return Optional.empty();
+            }
+            parentKeyType = keyMetaData.getColumnSqlDataType();
+            for (int row = 0; row < parentWrapper.getRowCount(); row++) {
+                String value = queryNode.getKeyValues(parentWrapper, row, keyColumns).get(0);
+                // Keys are routed by their normalized value, as the database compares them
+                String key = BatchKey.normalize(value, parentKeyType);
+                if (key == null) {
+                    return Optional.empty();
+                }
+                parentRecordWrappers.add(parentWrapper);
+                parentRows.add(row);
+                parentKeys.add(key);
+                keyValues.putIfAbsent(key, value);
+            }
+        }
+
+        // Build one IN-list query per chunk of distinct keys
+        List<String> distinctKeys = new ArrayList<>(keyValues.values());
+        List<BoundStatement> dynStatements = new ArrayList<>();
+        for (int start = 0; start < distinctKeys.size(); start += batchSize) {
+            List<String> chunk = distinctKeys.subList(start, Math.min(start + batchSize, distinctKeys.size()));
+            BoundStatement dynStatement = queryNode.createBatchStatement(chunk, batchSize, prepared);
+            LOG.debug("batchStatement : " + elementName + " : " + dynStatement);
+            dynStatements.add(dynStatement);
         }
-        return data;
+
+        // Group the child rows of all chunks by key, all rows of a key belong to the same chunk
+        Map<String, List<Integer>> rowsByKey = new HashMap<>();
+        Map<String, DataWrapper> chunkByKey = new HashMap<>();
+        DataWrapper childTemplate = null;
+        for (Optional<DataWrapper> chunkWrapperOpt : safelyReadAll(dynStatements, pooledConnection, batchSize)) {
+            if (!chunkWrapperOpt.isPresent()) {
+                return Optional.empty();
+            }
+            DataWrapper chunkWrapper = chunkWrapperOpt.get();
+            // A chunk with more rows than its keys may have holds a key exceeding the row budget
+            if (chunkWrapper.isTruncated()) {
+                return Optional.empty();
+            }
+            Integer keyColumnNumber = findColumnNumber(chunkWrapper, childColumn);
+            if (keyColumnNumber == null) {
+                return Optional.empty();
+            }
+            // Keys of columns of differing types are compared by the database, one query per row
+            int childKeyType = chunkWrapper.getMetaData().get(keyColumnNumber).getColumnSqlDataType();
+            if (!BatchKey.isComparable(parentKeyType, childKeyType)) {
+                return Optional.empty();
+            }
+            for (int row = 0; row < chunkWrapper.getRowCount(); row++) {
+                String childKey = BatchKey.normalize(chunkWrapper.getValue(row, keyColumnNumber - 1), childKeyType);
+                if (childKey == null) {
+                    continue;
+                }
+                rowsByKey.computeIfAbsent(childKey, k -> new ArrayList<>()).add(row);
+                chunkByKey.put(childKey, chunkWrapper);
+            }
+            childTemplate = chunkWrapper;
+        }
+
+        // Give every parent record a separate child wrapper, as the per-row mode does
+        QueryResult queryResult = new QueryResult();
+        queryResult.mode = IConstants.SUBQUERY_MODE_BATCH;
+        queryResult.queries = dynStatements.size();
+        for (int i = 0; i < parentRows.size(); i++) {
+            String parentKey = parentKeys.get(i);
+            DataWrapper chunkWrapper = chunkByKey.getOrDefault(parentKey, childTemplate);
+            DataWrapper childWrapper = chunkWrapper != null
+                    ? chunkWrapper.selectRows(toRowArray(rowsByKey.getOrDefault(parentKey, Collections.emptyList())))
+                    : new DataWrapper();
+            // The row budget applies to the rows of each parent, as in the per-row mode
+            try {
+                childWrapper = sqlController.applyRowBudget(childWrapper, queryNode.getStatement());
+            } catch (RowLimitExceededException e) {
+                LOG.error("Row budget exceeded by the statement: " + queryNode.getStatement());
+                synchronized (this) {
+                    if (rowLimitFailure == null) {
+                        rowLimitFailure = e;
+                    }
+                }
+                return Optional.empty();
+            } catch (ProcessingException e) {
+                LOG.error("Error applying the row budget to the statement: " + queryNode.getStatement(), e);
+                return Optional.empty();
+            }
+            childWrapper.setName(elementName);
+            queryResult.add(parentRecordWrappers.get(i), parentRows.get(i), childWrapper);
+        }
+        return Optional.of(queryResult);
+    }
+
+    private static int[] toRowArray(List<Integer> rows) {
+        int[] rowArray = new int[rows.size()];
+        for (int i = 0; i < rowArray.length; i++) {
+            rowArray[i] = rows.get(i);
+        }
+        return rowArray;
     }
 
     /**
-     * Replaces dynamic values in an SQL statement using a HashMap.
+     * Finds the column number of a column within the metadata of a data wrapper.
      *
-     * @param statement The SQL statement template.
-     * @param data      The HashMap containing keys and values to replace in the SQL statement.
-     * @return The SQL statement with dynamic values replaced.
+     * @param dataWrapper The data wrapper containing the metadata.
+     * @param columnName  The lower case column name.
+     * @return The column number, or null if the wrapper has no such column.
      */
-    private String replaceDynamicValuesInSql(String statement, HashMap<String, String> data) {
-        List<String> keys = getKeysFromSqlQuery(statement);
-        String dynStatement = statement;
-        for (String key : keys) {
-            String value = data.get(key);
-            if (null != value) {
-                dynStatement = dynStatement.replace(getKeyByJSONkey(key), value);
+    private Integer findColumnNumber(DataWrapper dataWrapper, String columnName) {
+        for (MetaData metaData : dataWrapper.getMetaData().values()) {
+            if (columnName.equals(metaData.getColumnName())) {
+                return metaData.getColumnNumber();
             }
         }
-        return dynStatement;
+        return null;
     }
 
     /**
-     * Reads data from a database, wraps it in a DataWrapper object, and associates it with a parent ContentRecordData object.
+     * Wraps data read from a database and associates it with a parent record.
      *
-     * <p>If the data reading is successful, sets the name for the DataWrapper object and adds it to the parent ContentRecordData.</p>
+     * <p>If the data reading was successful, sets the name for the DataWrapper object and adds it to the query result.</p>
      *
-     * @param dynStatement  The dynamic SQL statement to be executed.
-     * @param elementName   The name of the element.
-     * @param contentRecord The parent ContentRecordData object.
-     * @return An Optional<DataWrapper> containing the data, or empty if reading fails.
+     * @param childWrapperOpt The data read for the dynamic SQL statement, or empty if reading failed.
+     * @param dynStatement    The dynamic SQL statement that was executed.
+     * @param elementName     The name of the element.
+     * @param parentWrapper   The DataWrapper holding the parent record.
+     * @param parentRow       The index of the parent record.
+     * @param queryResult     Receives the data wrapper.
      */
-    private Optional<DataWrapper> readAndWrapData(String dynStatement, String elementName, ContentRecordData contentRecord) {
-        Optional<DataWrapper> childWrapperOpt = safelyReadData(dynStatement);
+    private void wrapData(Optional<DataWrapper> childWrapperOpt, BoundStatement dynStatement, String elementName,
+                          DataWrapper parentWrapper, int parentRow, QueryResult queryResult) {
         LOG.debug("dynStatement : " + elementName + " : " + dynStatement);
 
-        if (childWrapperOpt.isPresent()) {
-            DataWrapper childWrapper = childWrapperOpt.get();
+        // Handle the case when no data could be read and wrapped, if necessary.
+        childWrapperOpt.ifPresent(childWrapper -> {
             childWrapper.setName(elementName);
-            contentRecord.addDataWrapper(childWrapper);
-            return childWrapperOpt;
-        } else {
-            // Handle the case when no data could be read and wrapped, if necessary.
-            return Optional.empty();
-        }
+            queryResult.add(parentWrapper, parentRow, childWrapper);
+        });
     }
 
 
-    private DataWrapper readData(String sqlStatement) throws ProcessingException {
+    private DataWrapper readData(BoundStatement sqlStatement, boolean pooledConnection, int keyCount)
+            throws ProcessingException {
+        if (keyCount > 0) {
+            return (DataWrapper) sqlController.readDataForKeys(sqlStatement.getSql(), sqlStatement.getParameters(),
+                    keyCount, pooledConnection);
+        }
+        if (pooledConnection) {
+            return (DataWrapper) sqlController.readDataOnPooledConnection(sqlStatement.getSql(), sqlStatement.getParameters());
+        }
+        return (DataWrapper) sqlController.readData(sqlStatement.getSql(), sqlStatement.getParameters());
+    }
+
+    /**
+     * Executes a query of the plan for the rows of its parent query, then its subqueries for its own rows.
+     * Sibling subqueries are forked in parallel mode, so every branch of the tree proceeds as soon as the rows
+     * of its parent are read, independent of the other branches. The child wrappers are attached to their
+     * parent records once all subqueries of a query are done, in request order, so every wrapper is only
+     * modified by the task that read it.
+     */
+    private final class QueryTask extends RecursiveAction {
+
+        private final QueryNode queryNode;
+        // The wrappers of the parent query, null for a top-level query
+        private final List<DataWrapper> parentWrappers;
+        private final boolean pooledConnection;
+        // The wrappers read, null if the task did not run
+        private QueryResult queryResult;
+
+        private QueryTask(QueryNode queryNode, List<DataWrapper> parentWrappers, boolean pooledConnection) {
+            this.queryNode = queryNode;
+            this.parentWrappers = parentWrappers;
+            this.pooledConnection = pooledConnection;
+        }
 
-        return (DataWrapper) sqlController.readData(sqlStatement);
+        @Override
+        protected void compute() {
+            if (rowLimitFailure != null) {
+                return;
+            }
+            List<QueryNode> childNodes = queryNode.getChildren();
+            List<DataWrapper> childParentWrappers = null;
+            if (parentWrappers == null && keysetPage != null) {
+                // A page is read with its own statement, neither joined nor pipelined
+                queryResult = addLevelOneData(queryNode, keysetPage.getStatement(), pooledConnection);
+                childParentWrappers = queryResult.childWrappers;
+                if (!childParentWrappers.isEmpty()) {
+                    keysetPage.restoreColumns(childParentWrappers.get(0));
+                    nextPageToken = keysetPage.createNextPageToken(childParentWrappers.get(0));
+                }
+            }
+            JoinPlan joinPlan = queryResult == null && parentWrappers == null
+                    && (IConstants.SUBQUERY_MODE_JOIN.equals(executionMode) || costModel != null)
+                    ? requestPlan.getJoinPlan(queryNode) : null;
+            if (joinPlan != null && (costModel == null || costModel.chooseJoin(joinPlan))) {
+                long start = System.nanoTime();
+                Optional<DataWrapper> joinedWrapperOpt = addJoinedData(joinPlan, pooledConnection);
+                if (joinedWrapperOpt.isPresent() && costModel != null) {
+                    recordJoin(joinPlan, joinedWrapperOpt.get(), System.nanoTime() - start);
+                }
+                if (joinedWrapperOpt.isPresent()) {
+                    queryResult = new QueryResult();
+                    queryResult.add(null, 0, joinedWrapperOpt.get());
+                    // The joined subqueries are nested already, their remaining subqueries follow
+                    childNodes = joinPlan.getRemainingChildren();
+                    childParentWrappers = getJoinedWrappers(joinedWrapperOpt.get(), joinPlan.getQueryNodes().size() - 1);
+                }
+            }
+            // Top-level queries read on pooled connections run their subqueries once all rows are read
+            if (queryResult == null && parentWrappers == null && pipelined && !pooledConnection && !childNodes.isEmpty()) {
+                // The subqueries already ran per chunk of the rows
+                queryResult = addLevelOneDataPipelined(queryNode);
+                return;
+            }
+            if (queryResult == null) {
+                queryResult = parentWrappers == null
+                        ? addLevelOneData(queryNode, new BoundStatement(queryNode.getStatement()), pooledConnection)
+                        : addChildData(queryNode, parentWrappers, pooledConnection);
+                childParentWrappers = queryResult.childWrappers;
+            }
+            if (childNodes.isEmpty() || childParentWrappers.isEmpty()) {
+                return;
+            }
+            executeSubqueries(childNodes, childParentWrappers, pooledConnection);
+        }
     }
 
+    /**
+     * Receives the rows of a top-level query in chunks while they are read and starts a task executing the
+     * subqueries for each chunk. At most {@code db.pipeline.max.chunks} chunks are in flight: the reading
+     * thread waits for a chunk to finish before it hands out another one, so slow subqueries slow down
+     * reading instead of piling up rows and pooled connections.
+     */
+    private final class ChunkPipeline implements IRowChunkListener {
+
+        private final List<QueryNode> childNodes;
+        private final Semaphore slots = new Semaphore(JdbcConfig.getInstance().getDbPipelineMaxChunks());
+        // The chunk tasks in row order, only modified by the reading thread
+        private final List<ChunkTask> chunkTasks = new ArrayList<>();
+
+        private ChunkPipeline(List<QueryNode> childNodes) {
+            this.childNodes = childNodes;
+        }
 
-    // get all [§KEY] entries from sqlStatement
-    private List<String> getKeysFromSqlQuery (String sqlQuery){
+        @Override
+        public void rowsRead(DataWrapper chunk, int firstRow) {
+            if (rowLimitFailure != null) {
+                return;
+            }
+            ChunkTask chunkTask = new ChunkTask(childNodes, chunk, firstRow, slots);
+            chunkTasks.add(chunkTask);
+            try {
+                // Lets the scheduler add a thread while a worker reading in parallel mode waits
+                ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                    @Override
+                    public boolean block() throws InterruptedException {
+                        slots.acquire();
+                        return true;
+                    }
+
+                    @Override
+                    public boolean isReleasable() {
+                        return slots.tryAcquire();
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // Without a slot, the chunk runs on the reading thread
+                chunkTask.slots = null;
+                chunkTask.invoke();
+                return;
+            }
+            SubqueryExecutor.getScheduler().execute(chunkTask);
+        }
+    }
 
-        List<String> matchList = new ArrayList<String>();
-        Pattern regex = Pattern.compile("\\[(.*?)\\]");
-        Matcher regexMatcher = regex.matcher(sqlQuery);
+    /**
+     * Executes the subqueries for a chunk of the rows of a top-level query and attaches their wrappers to
+     * the rows of the chunk, then frees the slot of the chunk.
+     */
+    private final class ChunkTask extends RecursiveAction {
+
+        private final List<QueryNode> childNodes;
+        private final DataWrapper chunk;
+        private final int firstRow;
+        // The slots of the pipeline, null if the chunk holds none
+        private Semaphore slots;
+
+        private ChunkTask(List<QueryNode> childNodes, DataWrapper chunk, int firstRow, Semaphore slots) {
+            this.childNodes = childNodes;
+            this.chunk = chunk;
+            this.firstRow = firstRow;
+            this.slots = slots;
+        }
 
-        while (regexMatcher.find()) {
-            matchList.add(regexMatcher.group(1).replace("$", ""));
+        @Override
+        protected void compute() {
+            try {
+                executeSubqueries(childNodes, Collections.singletonList(chunk), true);
+            } finally {
+                if (slots != null) {
+                    slots.release();
+                }
+            }
         }
-        return matchList;
     }
 
-    private String getKeyByJSONkey(String key) {
-        return "[$" + key + "]".toUpperCase();
+    /**
+     * The wrappers read by a query, each with the parent record it belongs to.
+     */
+    private static final class QueryResult {
+
+        private final List<DataWrapper> parentWrappers = new ArrayList<>();
+        private final List<Integer> parentRows = new ArrayList<>();
+        private final List<DataWrapper> childWrappers = new ArrayList<>();
+        // The execution mode used and the number of queries executed
+        private String mode;
+        private int queries;
+
+        private void add(DataWrapper parentWrapper, int parentRow, DataWrapper childWrapper) {
+            parentWrappers.add(parentWrapper);
+            parentRows.add(parentRow);
+            childWrappers.add(childWrapper);
+        }
+
+        // Adds the wrappers to their parent records
+        private void attach() {
+            for (int i = 0; i < childWrappers.size(); i++) {
+                parentWrappers.get(i).addDataWrapper(parentRows.get(i), childWrappers.get(i));
+            }
+        }
     }
 }
@@ -0,0 +1,275 @@
+package de.zeus.commons.provider.service;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import de.zeus.commons.connector.jdbc.ProcessingException;
+import de.zeus.commons.provider.model.DataWrapper;
+import de.zeus.commons.provider.model.MetaData;
+import de.zeus.commons.provider.model.TableInfo;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * A page of the rows of a top-level query, read in the order of its primary key and continued after the
+ * key of the last row of the previous page (keyset pagination). The query becomes a derived table
+ * filtered by a predicate on its key columns:
+ *
+ * <pre>
+ * SELECT * FROM (statement) zeus_page WHERE k1 &gt; ? OR (k1 = ? AND k2 &gt; ?)
+ * ORDER BY k1, k2 FETCH FIRST 100 ROWS ONLY
+ * </pre>
+ *
+ * <p>Unlike an offset, the predicate lets the database start reading at the next page through the primary
+ * key, so every page costs about the same however deep it is. The key of the last row is handed to the
+ * client as an opaque continuation token, the URL-safe Base64 form of
+ * {@code {"query":"agents","after":["A010"]}}. Its values are bound as parameters of the SQL type of
+ * their columns, never inlined.</p>
+ *
+ * <p>The key columns must be the complete primary key of a single table, each selected once under a label
+ * no other column has; otherwise the rows of a page are not in a unique order or the predicate is ambiguous.</p>
+ */
+public class KeysetPage {
+
+    /** Matches a plain column name, which can be used in the predicate without quoting. */
+    private static final Pattern COLUMN_NAME = Pattern.compile("[A-Za-z_]\\w*");
+    private static final String QUERY = "query";
+    private static final String AFTER = "after";
+
+    private final String name;
+    private final int pageSize;
+    private final DataWrapper columns;
+    // The column numbers of the key columns, in column order
+    private final int[] keyColumnNumbers;
+    private final BoundStatement statement;
+
+    private KeysetPage(String name, int pageSize, DataWrapper columns, int[] keyColumnNumbers, BoundStatement statement) {
+        this.name = name;
+        this.pageSize = pageSize;
+        this.columns = columns;
+        this.keyColumnNumbers = keyColumnNumbers;
+        this.statement = statement;
+    }
+
+    /**
+     * Creates the statement reading a page of the rows of a top-level query.
+     *
+     * @param rootNode   The top-level query.
+     * @param columns    The columns of the query, with their primary key flags.
+     * @param pageSize   The maximum number of rows of the page.
+     * @param afterToken The continuation token of the previous page, or null for the first page.
+     * @return The page, or null if the query does not select the primary key of a single table with plain,
+     *         unique column names.
+     * @throws ProcessingException If the token is invalid or belongs to another query.
+     */
+    public static KeysetPage create(QueryNode rootNode, DataWrapper columns, int pageSize, String afterToken)
+            throws ProcessingException {
+        List<MetaData> keyMetaData = new ArrayList<>();
+        Set<String> labels = new HashSet<>();
+        Set<String> duplicateLabels = new HashSet<>();
+        for (MetaData metaData : new TreeMap<>(columns.getMetaData()).values()) {
+            String label = metaData.getColumnLabel().toUpperCase(Locale.ROOT);
+            if (!labels.add(label)) {
+                duplicateLabels.add(label);
+            }
+            if (metaData.isPrimaryKey()) {
+                keyMetaData.add(metaData);
+            }
+        }
+        if (keyMetaData.isEmpty() || !isPrimaryKeyOfOneTable(keyMetaData, duplicateLabels)) {
+            return null;
+        }
+        List<String> keyColumns = new ArrayList<>(keyMetaData.size());
+        int[] keyColumnNumbers = new int[keyMetaData.size()];
+        int[] keyTypes = new int[keyMetaData.size()];
+        for (int key = 0; key < keyMetaData.size(); key++) {
+            keyColumns.add(keyMetaData.get(key).getColumnLabel());
+            keyColumnNumbers[key] = keyMetaData.get(key).getColumnNumber();
+            keyTypes[key] = keyMetaData.get(key).getColumnSqlDataType();
+        }
+        List<Object> after = afterToken != null
+                ? decodeToken(afterToken, rootNode.getName(), keyTypes) : new ArrayList<>();
+
+        StringBuilder sql = new StringBuilder("SELECT * FROM (").append(rootNode.getStatement()).append(") zeus_page");
+        List<Object> parameters = new ArrayList<>();
+        if (!after.isEmpty()) {
+            // Rows whose key is greater than the last key, compared column by column
+            sql.append(" WHERE ");
+            for (int column = 0; column < keyColumns.size(); column++) {
+                sql.append(column == 0 ? "(" : " OR (");
+                for (int equal = 0; equal < column; equal++) {
+                    sql.append(keyColumns.get(equal)).append(" = ? AND ");
+                    parameters.add(after.get(equal));
+                }
+                sql.append(keyColumns.get(column)).append(" > ?)");
+                parameters.add(after.get(column));
+            }
+        }
+        sql.append(" ORDER BY ").append(String.join(", ", keyColumns))
+                .append(" FETCH FIRST ").append(pageSize).append(" ROWS ONLY");
+        return new KeysetPage(rootNode.getName(), pageSize, columns, keyColumnNumbers,
+                new BoundStatement(sql.toString(), parameters));
+    }
+
+    /**
+     * Checks whether the key columns are exactly the primary key columns of one table, each selected once
+     * under a plain column name no other column has.
+     *
+     * @param keyMetaData     The columns flagged as primary key columns.
+     * @param duplicateLabels The upper-case labels of several columns of the query.
+     * @return true if the key columns identify the rows of the query.
+     */
+    private static boolean isPrimaryKeyOfOneTable(List<MetaData> keyMetaData, Set<String> duplicateLabels) {
+        List<String> table = null;
+        Set<String> primaryKeyFields = new HashSet<>();
+        Set<String> keyNames = new HashSet<>();
+        for (MetaData metaData : keyMetaData) {
+            if (!COLUMN_NAME.matcher(metaData.getColumnLabel()).matches()
+                    || duplicateLabels.contains(metaData.getColumnLabel().toUpperCase(Locale.ROOT))
+                    || metaData.getTableInfoList().size() != 1) {
+                return false;
+            }
+            TableInfo tableInfo = metaData.getTableInfoList().get(0);
+            List<String> columnTable = Arrays.asList(tableInfo.getCatalog(), tableInfo.getSchema(), tableInfo.getTable());
+            if (table != null && !table.equals(columnTable)) {
+                return false;
+            }
+            table = columnTable;
+            for (String field : tableInfo.getPrimaryKeyFields()) {
+                primaryKeyFields.add(field.toUpperCase(Locale.ROOT));
+            }
+            if (!keyNames.add(metaData.getColumnName().toUpperCase(Locale.ROOT))) {
+                // The same key column is selected twice
+                return false;
+            }
+        }
+        return keyNames.equals(primaryKeyFields);
+    }
+
+    /**
+     * Gets the statement reading the page.
+     *
+     * @return The statement and the key values of the previous page as its parameters.
+     */
+    public BoundStatement getStatement() {
+        return statement;
+    }
+
+    /**
+     * Gives the rows read with the statement of this page the metadata of the columns of the query. Read
+     * through the derived table, the columns may lack their tables and thereby their primary key flags.
+     *
+     * @param page The rows read.
+     */
+    public void restoreColumns(DataWrapper page) {
+        page.getMetaData().putAll(columns.getMetaData());
+    }
+
+    /**
+     * Creates the continuation token of a page read with the statement of this page.
+     *
+     * @param page The rows read.
+     * @return The token continuing after the last row, or null if the page is the last one.
+     */
+    public String createNextPageToken(DataWrapper page) {
+        // A page cut short by the row budget is continued after its last row as well
+        if (page.getRowCount() == 0 || page.getRowCount() < pageSize && !page.isTruncated()) {
+            return null;
+        }
+        JsonArray after = new JsonArray();
+        for (int keyColumnNumber : keyColumnNumbers) {
+            after.add(page.getValue(page.getRowCount() - 1, keyColumnNumber - 1));
+        }
+        JsonObject token = new JsonObject();
+        token.addProperty(QUERY, name);
+        token.add(AFTER, after);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(token.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Reads the key values of a continuation token, converted to the SQL types of the key columns
+    private static List<Object> decodeToken(String afterToken, String name, int[] keyTypes) throws ProcessingException {
+        String query;
+        List<String> values = new ArrayList<>(keyTypes.length);
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(afterToken), StandardCharsets.UTF_8);
+            JsonObject token = JsonParser.parseString(json).getAsJsonObject();
+            query = token.get(QUERY).getAsString();
+            for (JsonElement value : token.getAsJsonArray(AFTER)) {
+                values.add(value.getAsString());
+            }
+        } catch (RuntimeException e) {
+            // Malformed Base64 or JSON, missing or null entries
+            throw new ProcessingException("Invalid continuation token: " + afterToken);
+        }
+        if (!name.equals(query) || values.size() != keyTypes.length) {
+            throw new ProcessingException("The continuation token does not belong to the query: " + name);
+        }
+        List<Object> after = new ArrayList<>(keyTypes.length);
+        try {
+            for (int key = 0; key < keyTypes.length; key++) {
+                after.add(toParameter(values.get(key), keyTypes[key]));
+            }
+        } catch (NumberFormatException e) {
+            throw new ProcessingException("Invalid continuation token: " + afterToken);
+        }
+        return after;
+    }
+
+    /**
+     * Converts a key value read as a string into the Java type bound for its SQL type, so the database
+     * compares it as a value of its column rather than as a string.
+     *
+     * @param value   The key value as read.
+     * @param sqlType The SQL type of the key column, see {@link Types}.
+     * @return The value to bind; a date or time in another than the JDBC escape format stays a string,
+     *         which the database converts.
+     */
+    private static Object toParameter(String value, int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return Long.valueOf(value);
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return new BigDecimal(value);
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return Double.valueOf(value);
+            default:
+                break;
+        }
+        try {
+            switch (sqlType) {
+                case Types.DATE:
+                    return Date.valueOf(value);
+                case Types.TIME:
+                    return Time.valueOf(value);
+                case Types.TIMESTAMP:
+                    return Timestamp.valueOf(value);
+                default:
+                    return value;
+            }
+        } catch (IllegalArgumentException e) {
+            return value;
+        }
+    }
+}
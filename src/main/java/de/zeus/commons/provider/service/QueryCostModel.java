@@ -0,0 +1,222 @@
+package de.zeus.commons.provider.service;
+
+import de.zeus.commons.base.cache.LruCache;
+import de.zeus.commons.base.config.JdbcConfig;
+import de.zeus.commons.base.constants.IConstants;
+
+import java.util.List;
+
+/**
+ * Chooses how the subqueries of a request are executed in AUTO mode, based on runtime statistics kept per
+ * subquery template across requests: the number of parent rows, the number of rows per parent row and the
+ * time per round trip of every execution mode.
+ *
+ * <p>Reading a subquery is estimated to cost one round trip per query plus a hundredth of a round trip per
+ * row read. ROW issues one query per parent row, BATCH one per chunk of parent keys, and in parallel mode
+ * up to {@code db.parallel.max.per.request} of these queries run at once. A mode not measured yet for a
+ * template is estimated with the round trip time of another mode. Without statistics, a subquery is
+ * batched if it has more than one parent row and can be batched. A chain of subqueries is joined once
+ * all of them have statistics and one joined query is estimated to be cheaper than reading each subquery
+ * in its cheapest mode.</p>
+ */
+public class QueryCostModel {
+
+    /** Number of rows whose reading is estimated to cost as much as one round trip. */
+    private static final double ROWS_PER_ROUND_TRIP = 100;
+    /** Weight of the latest execution in the running averages. */
+    private static final double WEIGHT = 0.3;
+
+    /** Statistics per subquery template and per joined statement, shared by all requests and created on first use. */
+    private static LruCache<String, TemplateStatistics> statisticsCache;
+
+    private final int batchSize;
+    private final int parallelism;
+
+    /**
+     * Initializes a new instance of the QueryCostModel class.
+     *
+     * @param batchSize   The maximum number of parent keys per IN-list query.
+     * @param parallelism The maximum number of queries of the request running at once.
+     */
+    public QueryCostModel(int batchSize, int parallelism) {
+        this.batchSize = batchSize;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Chooses the execution mode of a subquery for the rows of its parent query.
+     *
+     * @param queryNode  The subquery.
+     * @param parentRows The number of parent rows.
+     * @return Either ROW or BATCH.
+     */
+    public String chooseMode(QueryNode queryNode, int parentRows) {
+        if (parentRows <= 1 || !queryNode.isBatchable()) {
+            return IConstants.SUBQUERY_MODE_ROW;
+        }
+        TemplateStatistics statistics = getStatisticsCache().get(queryNode.getStatement());
+        if (statistics == null || !statistics.hasRoundTripMillis()) {
+            return IConstants.SUBQUERY_MODE_BATCH;
+        }
+        return estimateMillis(statistics, IConstants.SUBQUERY_MODE_ROW, parentRows)
+                < estimateMillis(statistics, IConstants.SUBQUERY_MODE_BATCH, parentRows)
+                ? IConstants.SUBQUERY_MODE_ROW : IConstants.SUBQUERY_MODE_BATCH;
+    }
+
+    /**
+     * Decides whether a chain of queries is read with its joined statement.
+     *
+     * @param joinPlan The chain of queries.
+     * @return Whether the joined statement is estimated to be cheaper than reading the subqueries one by one.
+     */
+    public boolean chooseJoin(JoinPlan joinPlan) {
+        List<QueryNode> queryNodes = joinPlan.getQueryNodes();
+        double separateMillis = 0;
+        double joinedRows = 0;
+        double roundTripMillis = Double.NaN;
+        for (int level = 1; level < queryNodes.size(); level++) {
+            TemplateStatistics statistics = getStatisticsCache().get(queryNodes.get(level).getStatement());
+            if (statistics == null || !statistics.hasRoundTripMillis()) {
+                return false;
+            }
+            int parentRows = (int) Math.ceil(statistics.getParentRows());
+            separateMillis += Math.min(estimateMillis(statistics, IConstants.SUBQUERY_MODE_ROW, parentRows),
+                    estimateMillis(statistics, IConstants.SUBQUERY_MODE_BATCH, parentRows));
+            // A joined row holds a row of every level, parent rows without child rows are kept
+            joinedRows = (level == 1 ? statistics.getParentRows() : joinedRows)
+                    * Math.max(1, statistics.getChildRowsPerKey());
+            if (level == 1) {
+                roundTripMillis = statistics.getRoundTripMillis(IConstants.SUBQUERY_MODE_JOIN);
+            }
+        }
+        TemplateStatistics joinStatistics = getStatisticsCache().get(joinPlan.getStatement());
+        if (joinStatistics != null && joinStatistics.hasRoundTripMillis()) {
+            roundTripMillis = joinStatistics.getRoundTripMillis(IConstants.SUBQUERY_MODE_JOIN);
+        }
+        return (1 + joinedRows / ROWS_PER_ROUND_TRIP) * roundTripMillis < separateMillis;
+    }
+
+    // Estimates the time to read a subquery for a number of parent rows in ROW or BATCH mode
+    private double estimateMillis(TemplateStatistics statistics, String mode, int parentRows) {
+        int queries = IConstants.SUBQUERY_MODE_ROW.equals(mode) ? parentRows : (parentRows + batchSize - 1) / batchSize;
+        double roundTrips = queries + parentRows * statistics.getChildRowsPerKey() / ROWS_PER_ROUND_TRIP;
+        return roundTrips * statistics.getRoundTripMillis(mode) / Math.max(1, Math.min(parallelism, queries));
+    }
+
+    /**
+     * Records an execution of a subquery.
+     *
+     * @param queryNode  The subquery.
+     * @param mode       The execution mode used, either ROW or BATCH.
+     * @param parentRows The number of parent rows.
+     * @param queries    The number of queries executed.
+     * @param childRows  The number of rows read.
+     * @param nanos      The time spent, in nanoseconds.
+     */
+    public void record(QueryNode queryNode, String mode, int parentRows, int queries, long childRows, long nanos) {
+        if (parentRows == 0) {
+            return;
+        }
+        TemplateStatistics statistics = getStatisticsCache().computeIfAbsent(queryNode.getStatement(),
+                key -> new TemplateStatistics());
+        statistics.addCardinality(parentRows, (double) childRows / parentRows);
+        if (queries > 0) {
+            // Time per round trip, with parallel queries running at once
+            double roundTrips = queries + childRows / ROWS_PER_ROUND_TRIP;
+            statistics.addRoundTripMillis(mode, nanos / 1e6 * Math.min(parallelism, queries) / roundTrips);
+        }
+    }
+
+    /**
+     * Records an execution of a joined statement, including the cardinalities of its subqueries.
+     *
+     * @param joinPlan  The chain of queries.
+     * @param levelRows The number of rows read per query, in nesting order.
+     * @param nanos     The time spent, in nanoseconds.
+     */
+    public void recordJoin(JoinPlan joinPlan, long[] levelRows, long nanos) {
+        List<QueryNode> queryNodes = joinPlan.getQueryNodes();
+        long joinedRows = 0;
+        for (int level = 1; level < queryNodes.size(); level++) {
+            if (levelRows[level - 1] > 0) {
+                getStatisticsCache().computeIfAbsent(queryNodes.get(level).getStatement(), key -> new TemplateStatistics())
+                        .addCardinality(levelRows[level - 1], (double) levelRows[level] / levelRows[level - 1]);
+            }
+            joinedRows = Math.max(joinedRows, levelRows[level]);
+        }
+        getStatisticsCache().computeIfAbsent(joinPlan.getStatement(), key -> new TemplateStatistics())
+                .addRoundTripMillis(IConstants.SUBQUERY_MODE_JOIN, nanos / 1e6 / (1 + joinedRows / ROWS_PER_ROUND_TRIP));
+    }
+
+    /**
+     * Returns the statistics kept per subquery template and per joined statement.
+     *
+     * @return The shared statistics cache.
+     */
+    public static synchronized LruCache<String, TemplateStatistics> getStatisticsCache() {
+        if (statisticsCache == null) {
+            statisticsCache = new LruCache<>(JdbcConfig.getInstance().getDbSubqueryStatisticsSize());
+        }
+        return statisticsCache;
+    }
+
+    /**
+     * Running averages of the executions of a subquery template or joined statement.
+     */
+    public static final class TemplateStatistics {
+
+        private double parentRows = Double.NaN;
+        private double childRowsPerKey = Double.NaN;
+        private double rowRoundTripMillis = Double.NaN;
+        private double batchRoundTripMillis = Double.NaN;
+        private double joinRoundTripMillis = Double.NaN;
+
+        private synchronized void addCardinality(double parentRows, double childRowsPerKey) {
+            this.parentRows = average(this.parentRows, parentRows);
+            this.childRowsPerKey = average(this.childRowsPerKey, childRowsPerKey);
+        }
+
+        private synchronized void addRoundTripMillis(String mode, double millis) {
+            if (IConstants.SUBQUERY_MODE_ROW.equals(mode)) {
+                rowRoundTripMillis = average(rowRoundTripMillis, millis);
+            } else if (IConstants.SUBQUERY_MODE_BATCH.equals(mode)) {
+                batchRoundTripMillis = average(batchRoundTripMillis, millis);
+            } else {
+                joinRoundTripMillis = average(joinRoundTripMillis, millis);
+            }
+        }
+
+        private static double average(double average, double value) {
+            return Double.isNaN(average) ? value : average + WEIGHT * (value - average);
+        }
+
+        public synchronized double getParentRows() {
+            return Double.isNaN(parentRows) ? 0 : parentRows;
+        }
+
+        public synchronized double getChildRowsPerKey() {
+            return Double.isNaN(childRowsPerKey) ? 0 : childRowsPerKey;
+        }
+
+        private synchronized boolean hasRoundTripMillis() {
+            return !Double.isNaN(rowRoundTripMillis) || !Double.isNaN(batchRoundTripMillis)
+                    || !Double.isNaN(joinRoundTripMillis);
+        }
+
+        /**
+         * Gets the average time per round trip of an execution mode, or of another mode if it was not measured.
+         *
+         * @param mode The execution mode.
+         * @return The time in milliseconds, NaN if no mode was measured.
+         */
+        public synchronized double getRoundTripMillis(String mode) {
+            double millis = IConstants.SUBQUERY_MODE_ROW.equals(mode) ? rowRoundTripMillis
+                    : IConstants.SUBQUERY_MODE_BATCH.equals(mode) ? batchRoundTripMillis : joinRoundTripMillis;
+            if (!Double.isNaN(millis)) {
+                return millis;
+            }
+            return !Double.isNaN(batchRoundTripMillis) ? batchRoundTripMillis
+                    : !Double.isNaN(rowRoundTripMillis) ? rowRoundTripMillis : joinRoundTripMillis;
+        }
+    }
+}
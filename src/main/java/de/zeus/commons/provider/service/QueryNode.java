@@ -0,0 +1,264 @@
+package de.zeus.commons.provider.service;
+
+import de.zeus.commons.provider.model.DataWrapper;
+import de.zeus.commons.provider.model.MetaData;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.JdbcParameter;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A compiled query of a request plan: the element name, the statement and the analysis of its
+ * {@code [$key]} placeholders, done once when the plan is compiled. The subqueries of a query are
+ * its child nodes, executed for the rows of this query.
+ */
+public class QueryNode {
+
+    /** Matches a "column = '[$key]'" predicate which can be rewritten into an IN-list. */
+    private static final Pattern BATCH_PREDICATE = Pattern.compile("([\\w.]+)\\s*=\\s*('?)\\[\\$([^\\]]+)\\]\\2");
+
+    private final String name;
+    private final String statement;
+    private final StatementTemplate template;
+    private final List<QueryNode> children;
+
+    // Parts of the statement around a batchable "column = '[$key]'" predicate, null if not batchable
+    private final String batchPrefix;
+    private final String batchSuffix;
+    private final String batchColumn;
+    private final String batchQuote;
+
+    /**
+     * Compiles a query.
+     *
+     * @param name      The element name of the query.
+     * @param statement The SQL statement, possibly containing {@code [$key]} placeholders.
+     */
+    public QueryNode(String name, String statement) {
+        this(name, statement, Collections.emptyList());
+    }
+
+    /**
+     * Compiles a query with its subqueries.
+     *
+     * @param name      The element name of the query.
+     * @param statement The SQL statement, possibly containing {@code [$key]} placeholders.
+     * @param children  The compiled subqueries, in request order.
+     */
+    public QueryNode(String name, String statement, List<QueryNode> children) {
+        this.name = name;
+        this.children = Collections.unmodifiableList(new ArrayList<>(children));
+        this.statement = statement;
+        this.template = StatementTemplate.compile(statement);
+
+        Matcher predicate = BATCH_PREDICATE.matcher(statement);
+        if (template.getKeys().size() == 1 && predicate.find() && isFilteringPredicate(
+                statement.substring(0, predicate.start()), predicate.group(1), statement.substring(predicate.end()))) {
+            this.batchPrefix = statement.substring(0, predicate.start());
+            this.batchSuffix = statement.substring(predicate.end());
+            this.batchColumn = predicate.group(1);
+            this.batchQuote = predicate.group(2);
+        } else {
+            this.batchPrefix = null;
+            this.batchSuffix = null;
+            this.batchColumn = null;
+            this.batchQuote = null;
+        }
+    }
+
+    /**
+     * Checks whether a {@code column = '[$key]'} predicate filters every row of a statement, i.e. whether it is
+     * a top-level AND condition of the WHERE clause of the outermost query. Only then does every row read by
+     * the IN-list statement belong to the key in its key column. Within an OR, a NOT or a nested query, and
+     * with a row limit applying to all keys together, the statement is executed per row instead.
+     *
+     * @param prefix The statement before the predicate.
+     * @param column The column compared with the key.
+     * @param suffix The statement after the predicate.
+     * @return true if the predicate can be rewritten into an IN-list.
+     */
+    private static boolean isFilteringPredicate(String prefix, String column, String suffix) {
+        try {
+            // The predicate is parsed with a parameter in place of the key
+            Statement parsedSql = CCJSqlParserUtil.parse(prefix + column + " = ?" + suffix);
+            if (!(parsedSql instanceof Select) || !(((Select) parsedSql).getSelectBody() instanceof PlainSelect)) {
+                return false;
+            }
+            PlainSelect plainSelect = (PlainSelect) ((Select) parsedSql).getSelectBody();
+            if (plainSelect.getLimit() != null || plainSelect.getOffset() != null || plainSelect.getFetch() != null
+                    || plainSelect.getTop() != null) {
+                return false;
+            }
+            return isConjunct(plainSelect.getWhere(), column);
+        } catch (JSQLParserException e) {
+            return false;
+        }
+    }
+
+    // Whether the condition is, or is AND-ed with, the comparison of the column with the parameter
+    private static boolean isConjunct(Expression condition, String column) {
+        if (condition instanceof Parenthesis) {
+            return isConjunct(((Parenthesis) condition).getExpression(), column);
+        }
+        if (condition instanceof AndExpression) {
+            AndExpression and = (AndExpression) condition;
+            return isConjunct(and.getLeftExpression(), column) || isConjunct(and.getRightExpression(), column);
+        }
+        if (condition instanceof EqualsTo) {
+            EqualsTo equalsTo = (EqualsTo) condition;
+            return equalsTo.getLeftExpression() instanceof Column && equalsTo.getRightExpression() instanceof JdbcParameter
+                    && column.equalsIgnoreCase(((Column) equalsTo.getLeftExpression()).getFullyQualifiedName());
+        }
+        return false;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getStatement() {
+        return statement;
+    }
+
+    public StatementTemplate getTemplate() {
+        return template;
+    }
+
+    /**
+     * Gets the subqueries executed for the rows of this query.
+     *
+     * @return The child nodes in request order, empty for a leaf.
+     */
+    public List<QueryNode> getChildren() {
+        return children;
+    }
+
+    /**
+     * Checks whether the statement has a single {@code column = '[$key]'} placeholder, which is a top-level
+     * AND condition of its WHERE clause, and can therefore be executed as an IN-list query.
+     *
+     * @return true if the statement can be batched.
+     */
+    public boolean isBatchable() {
+        return batchColumn != null;
+    }
+
+    /**
+     * Gets the unqualified, lower case name of the child column compared with the key in a batchable statement.
+     *
+     * @return The child key column name.
+     */
+    public String getBatchKeyColumn() {
+        return batchColumn.substring(batchColumn.lastIndexOf('.') + 1).toLowerCase();
+    }
+
+    /**
+     * Gets the name of the parent column whose value replaces the placeholder of a batchable statement.
+     *
+     * @return The placeholder key.
+     */
+    public String getBatchKey() {
+        return template.getKeys().get(0);
+    }
+
+    /**
+     * Creates the statement of a batchable query without its {@code column = '[$key]'} predicate, which is
+     * replaced by an always true comparison. It reads the rows of all parent keys, e.g. to join them with
+     * the parent rows.
+     *
+     * @return The statement without the key predicate.
+     */
+    public String createUnfilteredStatement() {
+        return batchPrefix + "1 = 1" + batchSuffix;
+    }
+
+    /**
+     * Resolves, for each placeholder key, the index of the parent field holding its value.
+     * All records of a wrapper share the column layout, so this is done once per parent wrapper.
+     *
+     * @param parentWrapper The parent data wrapper.
+     * @return The field index of every key in the order of the template keys, or -1 if the parent has no such column.
+     */
+    public int[] resolveKeyColumns(DataWrapper parentWrapper) {
+        List<String> keys = template.getKeys();
+        int[] keyColumns = new int[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            keyColumns[i] = -1;
+            // As with a map of column values, the last column of a given name wins
+            for (MetaData metaData : parentWrapper.getMetaData().values()) {
+                if (keys.get(i).equals(metaData.getColumnName())) {
+                    keyColumns[i] = metaData.getColumnNumber() - 1;
+                }
+            }
+        }
+        return keyColumns;
+    }
+
+    /**
+     * Reads the key values of a parent record.
+     *
+     * @param parentWrapper The parent data wrapper.
+     * @param row           The index of the parent record.
+     * @param keyColumns    The field indexes resolved by {@link #resolveKeyColumns(DataWrapper)}.
+     * @return The key values in the order of the template keys; null for missing columns.
+     */
+    public List<String> getKeyValues(DataWrapper parentWrapper, int row, int[] keyColumns) {
+        List<String> values = new ArrayList<>(keyColumns.length);
+        for (int keyColumn : keyColumns) {
+            values.add(keyColumn >= 0 && keyColumn < parentWrapper.getFieldCount(row)
+                    ? parentWrapper.getValue(row, keyColumn) : null);
+        }
+        return values;
+    }
+
+    /**
+     * Creates the statement for one parent record, either as a prepared statement or with the values
+     * substituted into the statement text.
+     *
+     * @param values   The key values of the parent record.
+     * @param prepared Whether placeholders should be bound as parameters if possible.
+     * @return The statement to execute.
+     */
+    public BoundStatement createStatement(List<String> values, boolean prepared) {
+        BoundStatement boundStatement = prepared ? template.bind(values) : null;
+        return boundStatement != null ? boundStatement : new BoundStatement(template.substitute(values));
+    }
+
+    /**
+     * Creates an IN-list statement for a chunk of keys. Prepared statements round the number of
+     * placeholders up to the next power of two (at most the batch size) by repeating the last key,
+     * so that only a few distinct statement texts reach the database and its statement cache.
+     *
+     * @param chunk     The keys of this chunk.
+     * @param batchSize The maximum number of keys per chunk.
+     * @param prepared  Whether the keys should be bound as parameters.
+     * @return The IN-list statement.
+     */
+    public BoundStatement createBatchStatement(List<String> chunk, int batchSize, boolean prepared) {
+        if (!prepared) {
+            return new BoundStatement(batchPrefix + batchColumn + " IN (" + batchQuote
+                    + String.join(batchQuote + ", " + batchQuote, chunk) + batchQuote + ")" + batchSuffix);
+        }
+        int placeholders = Math.min(batchSize, Integer.highestOneBit(chunk.size() - 1) << 1);
+        placeholders = Math.max(placeholders, chunk.size());
+        List<String> parameters = new ArrayList<>(chunk);
+        while (parameters.size() < placeholders) {
+            parameters.add(chunk.get(chunk.size() - 1));
+        }
+        String inList = batchColumn + " IN (" + String.join(", ", Collections.nCopies(placeholders, "?")) + ")";
+        return new BoundStatement(batchPrefix + inList + batchSuffix, parameters);
+    }
+}
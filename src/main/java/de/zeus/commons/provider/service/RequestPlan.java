@@ -0,0 +1,180 @@
+package de.zeus.commons.provider.service;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import de.zeus.commons.base.cache.LruCache;
+import de.zeus.commons.base.config.JdbcConfig;
+import de.zeus.commons.base.constants.IConstants;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The compiled form of a JSON request: a tree of queries, each with the analysis of its
+ * {@code [$key]} placeholders. A query may have any number of subqueries, given as a single
+ * {@code subquery} object or as an array of sibling subqueries, nested to any depth.
+ *
+ * <p>Plans are immutable and cached by the serialized request JSON without its paging options,
+ * so repeated identical requests and the pages of a request skip the analysis.</p>
+ */
+public class RequestPlan {
+
+    /** Compiled plans shared by all requests, created on first use. */
+    private static LruCache<String, RequestPlan> planCache;
+
+    private final List<QueryNode> rootNodes;
+    private final List<QueryNode> queryNodes;
+    // The join plans of the top-level queries with a joinable subquery
+    private final Map<QueryNode, JoinPlan> joinPlans = new IdentityHashMap<>();
+
+    private RequestPlan(List<QueryNode> rootNodes) {
+        this.rootNodes = Collections.unmodifiableList(rootNodes);
+        List<QueryNode> allNodes = new ArrayList<>();
+        for (QueryNode rootNode : rootNodes) {
+            collectNodes(rootNode, allNodes);
+            JoinPlan joinPlan = JoinPlan.compile(rootNode);
+            if (joinPlan != null) {
+                joinPlans.put(rootNode, joinPlan);
+            }
+        }
+        this.queryNodes = Collections.unmodifiableList(allNodes);
+    }
+
+    private static void collectNodes(QueryNode queryNode, List<QueryNode> allNodes) {
+        allNodes.add(queryNode);
+        for (QueryNode child : queryNode.getChildren()) {
+            collectNodes(child, allNodes);
+        }
+    }
+
+    /**
+     * Gets the compiled plan of a request, compiling it if it is not cached yet.
+     *
+     * @param jsonRequest The JSON object representing the request.
+     * @return The compiled request plan.
+     */
+    public static RequestPlan of(JsonObject jsonRequest) {
+        return getPlanCache().computeIfAbsent(createCacheKey(jsonRequest), key -> compile(jsonRequest));
+    }
+
+    // The paging options differ from page to page but do not change the plan
+    private static String createCacheKey(JsonObject jsonRequest) {
+        if (!jsonRequest.has(IConstants.PAGE_SIZE) && !jsonRequest.has(IConstants.AFTER)) {
+            return jsonRequest.toString();
+        }
+        JsonObject planRequest = jsonRequest.deepCopy();
+        planRequest.remove(IConstants.PAGE_SIZE);
+        planRequest.remove(IConstants.AFTER);
+        return planRequest.toString();
+    }
+
+    /**
+     * Compiles a request into a plan.
+     *
+     * @param jsonRequest The JSON object representing the request.
+     * @return The compiled request plan.
+     */
+    public static RequestPlan compile(JsonObject jsonRequest) {
+        return new RequestPlan(new Analyser().analyseJSONRequest(jsonRequest));
+    }
+
+    /**
+     * Gets the top-level queries of this plan, whose subqueries are their child nodes.
+     *
+     * @return The top-level queries in request order.
+     */
+    public List<QueryNode> getRootNodes() {
+        return rootNodes;
+    }
+
+    /**
+     * Gets all queries of this plan, each query followed by its subqueries.
+     *
+     * @return The compiled queries in depth-first request order.
+     */
+    public List<QueryNode> getQueryNodes() {
+        return queryNodes;
+    }
+
+    /**
+     * Gets the chain of queries starting with a top-level query that can be read with one joined statement.
+     *
+     * @param rootNode A top-level query of this plan.
+     * @return The join plan, or null if the query has no subquery that can be joined.
+     */
+    public JoinPlan getJoinPlan(QueryNode rootNode) {
+        return joinPlans.get(rootNode);
+    }
+
+    /**
+     * Returns the plan cache shared by all requests.
+     *
+     * @return The plan cache.
+     */
+    public static synchronized LruCache<String, RequestPlan> getPlanCache() {
+        if (planCache == null) {
+            planCache = new LruCache<>(JdbcConfig.getInstance().getDbPlanCacheSize());
+        }
+        return planCache;
+    }
+
+    /**
+     * Builds the query tree of a request from its query objects.
+     */
+    private static class Analyser {
+
+        private String elementName = null;
+        private String statement = null;
+
+        private List<QueryNode> analyseJSONRequest(JsonObject jsonRequest) {
+            List<QueryNode> rootNodes = new ArrayList<>();
+            for (Map.Entry<String, JsonElement> entry : jsonRequest.entrySet()) {
+                JsonElement value = entry.getValue();
+                if (value.isJsonObject() || value.isJsonArray()) {
+                    handleQueries(value, rootNodes);
+                } else if (value.isJsonPrimitive()) {
+                    handleJsonPrimitive(entry, rootNodes);
+                }
+            }
+            return rootNodes;
+        }
+
+        // A query element is either a single query object or an array of sibling query objects
+        private void handleQueries(JsonElement queries, List<QueryNode> queryNodes) {
+            if (queries.isJsonArray()) {
+                for (JsonElement query : queries.getAsJsonArray()) {
+                    handleQueries(query, queryNodes);
+                }
+            } else if (queries.isJsonObject()) {
+                queryNodes.add(handleJsonObject(queries.getAsJsonObject()));
+            }
+        }
+
+        private QueryNode handleJsonObject(JsonObject queryObject) {
+            List<QueryNode> children = new ArrayList<>();
+            // Nested subqueries, recursive call for each of them
+            if (queryObject.has("subquery")) {
+                handleQueries(queryObject.get("subquery"), children);
+            }
+            return new QueryNode(queryObject.get("name").getAsString(), queryObject.get("statement").getAsString(), children);
+        }
+
+        // A request may give a single query as top-level name and statement
+        private void handleJsonPrimitive(Map.Entry<String, JsonElement> entry, List<QueryNode> rootNodes) {
+            if ("name".equals(entry.getKey())) {
+                elementName = entry.getValue().getAsString();
+            }
+            if ("statement".equals(entry.getKey())) {
+                statement = entry.getValue().getAsString();
+            }
+            if (null != elementName && null != statement) {
+                rootNodes.add(new QueryNode(elementName, statement));
+                elementName = null;
+                statement = null;
+            }
+        }
+    }
+}
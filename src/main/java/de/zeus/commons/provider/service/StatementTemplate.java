@@ -0,0 +1,121 @@
+package de.zeus.commons.provider.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A subquery statement whose {@code [$key]} placeholders have been turned into JDBC parameters.
+ *
+ * <p>A placeholder can be bound if it is enclosed in single quotes ({@code '[$key]'}) or directly
+ * follows a comparison operator ({@code = [$key]}). If every placeholder of a statement can be bound,
+ * the statement is executed as a prepared statement with one parameter per placeholder, so the
+ * database sees the same statement text for every parent row. Otherwise the values are substituted
+ * into the statement text.</p>
+ */
+public class StatementTemplate {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\[\\$([^\\]]*)\\]");
+
+    private final String statement;
+    private final String parameterizedSql;
+    private final List<String> keys;
+
+    private StatementTemplate(String statement, String parameterizedSql, List<String> keys) {
+        this.statement = statement;
+        this.parameterizedSql = parameterizedSql;
+        this.keys = keys;
+    }
+
+    /**
+     * Compiles a statement into a template.
+     *
+     * @param statement The SQL statement containing {@code [$key]} placeholders.
+     * @return The compiled template.
+     */
+    public static StatementTemplate compile(String statement) {
+        StringBuilder sql = new StringBuilder();
+        List<String> keys = new ArrayList<>();
+        boolean bindable = true;
+        Matcher matcher = PLACEHOLDER.matcher(statement);
+        int position = 0;
+        while (matcher.find()) {
+            int start = matcher.start();
+            int end = matcher.end();
+            if (start > 0 && end < statement.length()
+                    && statement.charAt(start - 1) == '\'' && statement.charAt(end) == '\'') {
+                sql.append(statement, position, start - 1).append('?');
+                position = end + 1;
+            } else if (followsComparison(statement, start)) {
+                sql.append(statement, position, start).append('?');
+                position = end;
+            } else {
+                bindable = false;
+            }
+            keys.add(matcher.group(1));
+        }
+        sql.append(statement.substring(position));
+        return new StatementTemplate(statement, bindable ? sql.toString() : null, Collections.unmodifiableList(keys));
+    }
+
+    private static boolean followsComparison(String statement, int index) {
+        int i = index - 1;
+        while (i >= 0 && Character.isWhitespace(statement.charAt(i))) {
+            i--;
+        }
+        return i >= 0 && "=<>".indexOf(statement.charAt(i)) >= 0;
+    }
+
+    /**
+     * Checks whether all placeholders of the statement can be bound as parameters.
+     *
+     * @return true if the statement can be executed as a prepared statement.
+     */
+    public boolean isBindable() {
+        return parameterizedSql != null;
+    }
+
+    /**
+     * Binds the values of a parent record to the placeholders of this template.
+     *
+     * @param values The values of the parent record, in the order of {@link #getKeys()}; null if missing.
+     * @return The bound statement, or null if the template is not bindable or a value is missing.
+     */
+    public BoundStatement bind(List<String> values) {
+        if (!isBindable() || values.contains(null)) {
+            return null;
+        }
+        return new BoundStatement(parameterizedSql, values);
+    }
+
+    /**
+     * Substitutes the values of a parent record into the statement text.
+     * Placeholders without a value are left untouched.
+     *
+     * @param values The values of the parent record, in the order of {@link #getKeys()}; null if missing.
+     * @return The statement with the values substituted.
+     */
+    public String substitute(List<String> values) {
+        String dynStatement = statement;
+        for (int i = 0; i < keys.size(); i++) {
+            if (values.get(i) != null) {
+                dynStatement = dynStatement.replace("[$" + keys.get(i) + "]", values.get(i));
+            }
+        }
+        return dynStatement;
+    }
+
+    public String getStatement() {
+        return statement;
+    }
+
+    public String getParameterizedSql() {
+        return parameterizedSql;
+    }
+
+    public List<String> getKeys() {
+        return keys;
+    }
+}
@@ -0,0 +1,118 @@
+package de.zeus.commons.provider.service;
+
+import de.zeus.commons.base.config.JdbcConfig;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs independent subqueries of a request concurrently.
+ *
+ * <p>All requests share one work-stealing scheduler of {@code db.parallel.max.threads} threads, which
+ * also runs the branches of the query trees. Each instance additionally limits the number of running
+ * tasks of its own request ({@code db.parallel.max.per.request}). A task waiting for a permit tells the
+ * scheduler it is blocked, so the scheduler can keep the other tasks running.</p>
+ */
+public class SubqueryExecutor {
+
+    private static final Log LOG = LogFactory.getLog(SubqueryExecutor.class);
+
+    /** Work-stealing pool shared by all requests, created on first use. */
+    private static ForkJoinPool sharedScheduler;
+
+    /** Limits the number of concurrently running tasks of one request. */
+    private final Semaphore requestPermits;
+
+    /**
+     * Constructor for SubqueryExecutor.
+     *
+     * @param maxPerRequest Maximum number of concurrently running tasks of this request.
+     */
+    public SubqueryExecutor(int maxPerRequest) {
+        this.requestPermits = new Semaphore(Math.max(1, maxPerRequest));
+    }
+
+    /**
+     * Executes all tasks and returns their results in task order.
+     * A task that fails or is interrupted yields an empty {@code Optional}.
+     *
+     * @param tasks The tasks to execute.
+     * @param <T>   The result type of the tasks.
+     * @return The results of the tasks, in the order of the given tasks.
+     */
+    public <T> List<Optional<T>> invokeAll(List<Callable<Optional<T>>> tasks) {
+        List<ForkJoinTask<Optional<T>>> forkJoinTasks = new ArrayList<>(tasks.size());
+        for (Callable<Optional<T>> task : tasks) {
+            forkJoinTasks.add(ForkJoinTask.adapt(() -> callWithPermit(task)));
+        }
+        if (ForkJoinTask.inForkJoinPool()) {
+            // Joining lets the waiting worker run the tasks itself or the scheduler add a worker
+            ForkJoinTask.invokeAll(forkJoinTasks);
+        } else {
+            getScheduler().invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(forkJoinTasks)));
+        }
+        List<Optional<T>> results = new ArrayList<>(tasks.size());
+        for (ForkJoinTask<Optional<T>> forkJoinTask : forkJoinTasks) {
+            results.add(forkJoinTask.join());
+        }
+        return results;
+    }
+
+    private <T> Optional<T> callWithPermit(Callable<Optional<T>> task) {
+        try {
+            ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                @Override
+                public boolean block() throws InterruptedException {
+                    requestPermits.acquire();
+                    return true;
+                }
+
+                @Override
+                public boolean isReleasable() {
+                    return requestPermits.tryAcquire();
+                }
+            });
+        } catch (InterruptedException e) {
+            LOG.error("Interrupted while waiting for subqueries", e);
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+        try {
+            return task.call();
+        } catch (Exception e) {
+            LOG.error("Subquery failed", e);
+            return Optional.empty();
+        } finally {
+            requestPermits.release();
+        }
+    }
+
+    /**
+     * Returns the work-stealing pool shared by all requests, running the query trees in parallel mode
+     * and the subqueries of this executor.
+     *
+     * @return The shared scheduler.
+     */
+    public static synchronized ForkJoinPool getScheduler() {
+        if (sharedScheduler == null) {
+            int maxThreads = JdbcConfig.getInstance().getDbParallelMaxThreads();
+            AtomicInteger threadNumber = new AtomicInteger();
+            sharedScheduler = new ForkJoinPool(Math.max(1, maxThreads), pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("query-tree-" + threadNumber.incrementAndGet());
+                return thread;
+            }, null, false);
+            LOG.info("Query tree scheduler started with " + maxThreads + " threads.");
+        }
+        return sharedScheduler;
+    }
+}
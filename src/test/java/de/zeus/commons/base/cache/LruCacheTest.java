@@ -0,0 +1,61 @@
+package de.zeus.commons.base.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks the bounds of the cache: the number of entries, their total weight and their time to live.
+ */
+class LruCacheTest {
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() {
+        LruCache<String, String> cache = new LruCache<>(2);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        // Reading "a" makes "b" the least recently used entry
+        assertEquals("1", cache.get("a"));
+        cache.put("c", "3");
+        assertNull(cache.get("b"));
+        assertEquals("1", cache.get("a"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void evictsEntriesUntilTheTotalWeightFits() {
+        LruCache<String, String> cache = new LruCache<>(10, 10, value -> value.length(), 0);
+        cache.put("a", "1234");
+        cache.put("b", "1234");
+        cache.put("c", "1234");
+        assertNull(cache.get("a"));
+        assertEquals(8, cache.getTotalWeight());
+        // A value heavier than the maximum weight is not cached at all
+        cache.put("d", "12345678901");
+        assertNull(cache.get("d"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void expiresEntriesAfterTheirTimeToLive() throws InterruptedException {
+        LruCache<String, String> cache = new LruCache<>(10, 0, null, 50);
+        cache.put("a", "1");
+        assertEquals("1", cache.get("a"));
+        Thread.sleep(100);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getExpirations());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void aSizeOfZeroDisablesTheCache() {
+        LruCache<String, String> cache = new LruCache<>(0);
+        cache.put("a", "1");
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+}
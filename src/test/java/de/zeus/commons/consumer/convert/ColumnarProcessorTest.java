@@ -0,0 +1,89 @@
+package de.zeus.commons.consumer.convert;
+
+import de.zeus.commons.connector.jdbc.ProcessingException;
+import de.zeus.commons.consumer.model.DynamicJsonObject;
+import de.zeus.commons.provider.TestDatabase;
+import de.zeus.commons.provider.convert.DataToColumnar;
+import de.zeus.commons.provider.convert.DataToJSONStream;
+import de.zeus.commons.provider.model.DataWrapper;
+import de.zeus.commons.provider.model.RequestStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Encodes the results of the sample request in the binary columnar format and in JSON and compares
+ * the objects {@link ColumnarProcessor} decodes with the ones {@link JSONProcessor} decodes.
+ */
+class ColumnarProcessorTest {
+
+    private static final String SAMPLE_REQUEST = "config/request_rest.json";
+
+    @Test
+    void decodesTheObjectsOfTheJsonResponse() throws Exception {
+        assertRoundTrip("{}", false);
+    }
+
+    @Test
+    void decodesTheObjectsOfTheJsonResponseWithMetadata() throws Exception {
+        assertRoundTrip("{}", true);
+    }
+
+    @Test
+    void decodesTheColumnarModelWithTypedValues() throws Exception {
+        assertRoundTrip("{\"resultModel\": \"COLUMNAR\", \"typedValues\": true}", true);
+    }
+
+    @Test
+    void decodesTheStatisticsAndTheNextPageToken() throws Exception {
+        List<DataWrapper> result = read("{}");
+        RequestStatistics statistics = new RequestStatistics();
+        statistics.add("memoHits", 3);
+        statistics.put("orders.strategy", "BATCH");
+        DataToColumnar dataToColumnar = new DataToColumnar(result, false, statistics);
+        dataToColumnar.setNextPageToken("eyJxdWVyeSI6ImFnZW50cyIsImFmdGVyIjpbIkExMDMiXX0");
+
+        ColumnarProcessor processor = new ColumnarProcessor();
+        processor.processColumnar(new ByteArrayInputStream(dataToColumnar.getResult()));
+        assertEquals("3", processor.getStatistics().get("memoHits"));
+        assertEquals("BATCH", processor.getStatistics().get("orders.strategy"));
+        assertEquals("eyJxdWVyeSI6ImFnZW50cyIsImFmdGVyIjpbIkExMDMiXX0", processor.getNextPageToken());
+
+        processor.processColumnar(new ByteArrayInputStream(new DataToColumnar(result, false, null).getResult()));
+        assertTrue(processor.getStatistics().isEmpty());
+        assertNull(processor.getNextPageToken());
+    }
+
+    @Test
+    void rejectsAStreamOfAnotherFormat() {
+        byte[] json = "{\"contentData\": {}}".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> new ColumnarProcessor().processColumnar(new ByteArrayInputStream(json)));
+    }
+
+    // Asserts that both formats of the same result decode to the same objects
+    private static void assertRoundTrip(String options, boolean includeMetaData) throws Exception {
+        List<DataWrapper> result = read(options);
+        DynamicJsonObject columnar = new ColumnarProcessor()
+                .processColumnar(new ByteArrayInputStream(new DataToColumnar(result, includeMetaData, null).getResult()));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new DataToJSONStream(out, includeMetaData).write(result, null);
+        DynamicJsonObject json = new JSONProcessor().processJson(new String(out.toByteArray(), StandardCharsets.UTF_8));
+
+        assertTrue(json.toString().contains("cumulative_revenue"), json.toString());
+        assertEquals(json.toString(), columnar.toString());
+    }
+
+    private static List<DataWrapper> read(String options) throws ProcessingException {
+        return TestDatabase.controller().getData(TestDatabase.request(SAMPLE_REQUEST, options));
+    }
+}
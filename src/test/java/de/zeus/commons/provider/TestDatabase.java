@@ -0,0 +1,115 @@
+package de.zeus.commons.provider;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import de.zeus.commons.base.config.JdbcConfig;
+import de.zeus.commons.base.constants.IConstants;
+import de.zeus.commons.provider.logic.sql.ConnectionControllerFactory;
+import de.zeus.commons.provider.logic.sql.JdbcConnectionController;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+/**
+ * The in-memory H2 database of the tests, configured by the {@code config/jdbc.properties} of the test
+ * resources and filled with the sample tables of {@code sampleData.sql} on first use.
+ */
+public final class TestDatabase {
+
+    private static ConnectionControllerFactory controllerFactory;
+
+    private TestDatabase() {
+    }
+
+    /**
+     * Loads the configuration and creates the sample tables, once for all tests.
+     */
+    public static synchronized void init() {
+        if (controllerFactory != null) {
+            return;
+        }
+        JdbcConfig.getInstance().loadProperties();
+        execute("RUNSCRIPT FROM 'classpath:/sampleData.sql' CHARSET 'UTF-8'");
+        controllerFactory = new ConnectionControllerFactory();
+    }
+
+    /**
+     * Executes SQL statements on a connection of their own, e.g. to create the tables of a test.
+     *
+     * @param statements The SQL statements, in execution order.
+     */
+    public static void execute(String... statements) {
+        JdbcConfig config = JdbcConfig.getInstance();
+        try (Connection connection = DriverManager.getConnection(config.getDbUrl(), config.getDbUser(), config.getDbPass());
+             Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to execute the statements of the test", e);
+        }
+    }
+
+    /**
+     * Processes a request as the provider does and returns its JSON result.
+     *
+     * @param request The JSON request.
+     * @return The JSON result.
+     */
+    public static String process(JsonObject request) {
+        init();
+        return String.valueOf(controllerFactory.getController().process(request, IConstants.MODE_JSON));
+    }
+
+    /**
+     * Creates a controller for a single request, e.g. to read the data wrappers of a request.
+     *
+     * @return The controller.
+     */
+    public static JdbcConnectionController controller() {
+        init();
+        return (JdbcConnectionController) controllerFactory.getController();
+    }
+
+    /**
+     * Reads a JSON request of the test resources and adds request options to it.
+     *
+     * @param resource The resource name of the request.
+     * @param options  The options to add, as a JSON object.
+     * @return The request with the options.
+     */
+    public static JsonObject request(String resource, String options) {
+        try (InputStream inputStream = TestDatabase.class.getClassLoader().getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new IllegalArgumentException("Request not found: " + resource);
+            }
+            JsonObject request = JsonParser.parseString(new String(readAll(inputStream), StandardCharsets.UTF_8))
+                    .getAsJsonObject();
+            for (Map.Entry<String, JsonElement> option : JsonParser.parseString(options).getAsJsonObject().entrySet()) {
+                request.add(option.getKey(), option.getValue());
+            }
+            return request;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // InputStream.readAllBytes is not available on Java 8
+    private static byte[] readAll(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int read = inputStream.read(buffer); read >= 0; read = inputStream.read(buffer)) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,71 @@
+package de.zeus.commons.provider.bench;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import de.zeus.commons.connector.jdbc.ProcessingException;
+import de.zeus.commons.provider.TestDatabase;
+import de.zeus.commons.provider.model.DataWrapper;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The generated table of the benchmarks in the in-memory H2 database of the tests. Its rows have an
+ * integer key, a distinct name, a city of 50 distinct values, a decimal amount and a date, so every
+ * column block of the columnar model and every value type of the JSON writers is measured.
+ */
+public final class BenchmarkRows {
+
+    private static int tableRows;
+
+    private BenchmarkRows() {
+    }
+
+    /**
+     * Creates the table with at least the given number of rows, once for all benchmarks of a JVM.
+     *
+     * @param rows The number of rows.
+     */
+    public static synchronized void create(int rows) {
+        TestDatabase.init();
+        if (tableRows >= rows) {
+            return;
+        }
+        TestDatabase.execute("DROP TABLE IF EXISTS BENCH_ROWS",
+                "CREATE TABLE BENCH_ROWS (ID INTEGER NOT NULL PRIMARY KEY, NAME VARCHAR(40) NOT NULL,"
+                        + " CITY VARCHAR(35) NOT NULL, AMOUNT DECIMAL(12, 2) NOT NULL, CREATED DATE NOT NULL)",
+                "INSERT INTO BENCH_ROWS SELECT X, 'Customer ' || X, 'City ' || MOD(X, 50), X * 1.25,"
+                        + " DATEADD('DAY', MOD(X, 365), DATE '2024-01-01') FROM SYSTEM_RANGE(1, " + rows + ")");
+        tableRows = rows;
+    }
+
+    /**
+     * Reads the first rows of the table through the controller, as a request does.
+     *
+     * @param rows    The number of rows.
+     * @param options The request options, as a JSON object, e.g. {@code {"resultModel": "COLUMNAR"}}.
+     * @return The data wrappers of the request.
+     * @throws ProcessingException If the rows cannot be read.
+     */
+    public static List<DataWrapper> read(int rows, String options) throws ProcessingException {
+        return TestDatabase.controller().getData(request(rows, options));
+    }
+
+    /**
+     * Creates the request reading the first rows of the table.
+     *
+     * @param rows    The number of rows.
+     * @param options The request options, as a JSON object.
+     * @return The request.
+     */
+    public static JsonObject request(int rows, String options) {
+        JsonObject request = new JsonObject();
+        request.addProperty("name", "rows");
+        request.addProperty("statement", "select * from bench_rows where id <= " + rows);
+        for (Map.Entry<String, JsonElement> option : JsonParser.parseString(options).getAsJsonObject().entrySet()) {
+            request.add(option.getKey(), option.getValue());
+        }
+        return request;
+    }
+}
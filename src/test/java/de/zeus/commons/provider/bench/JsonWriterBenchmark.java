@@ -0,0 +1,74 @@
+package de.zeus.commons.provider.bench;
+
+import de.zeus.commons.connector.jdbc.ProcessingException;
+import de.zeus.commons.provider.convert.DataToJSON;
+import de.zeus.commons.provider.convert.DataToJSONStream;
+import de.zeus.commons.provider.model.DataWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the JSON response written by {@link DataToJSONStream} through {@code Utf8JsonWriter} with the Gson
+ * tree built by {@link DataToJSON}, on the generated rows of {@link BenchmarkRows}. Both produce the UTF-8
+ * bytes of the response:
+ *
+ * <pre>
+ * mvn -Pbench test-compile exec:exec -Dbench.main=org.openjdk.jmh.Main -Dbench.args=JsonWriterBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@SuppressWarnings("deprecation")
+public class JsonWriterBenchmark {
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    @Param({"false", "true"})
+    private boolean includeMetaData;
+
+    private List<DataWrapper> result;
+
+    @Setup(Level.Trial)
+    public void readRows() throws ProcessingException, IOException {
+        BenchmarkRows.create(rows);
+        result = BenchmarkRows.read(rows, "{}");
+        // Both writers must produce the same response, or the comparison is void
+        if (!Arrays.equals(gsonTree(), utf8JsonWriter())) {
+            throw new IllegalStateException("The JSON writers produce different responses");
+        }
+    }
+
+    @Benchmark
+    public byte[] gsonTree() {
+        return new DataToJSON(result, includeMetaData).getResult().toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] utf8JsonWriter() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new DataToJSONStream(out, includeMetaData).write(result, null);
+        return out.toByteArray();
+    }
+}
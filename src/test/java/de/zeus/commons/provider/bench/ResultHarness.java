@@ -0,0 +1,192 @@
+package de.zeus.commons.provider.bench;
+
+import de.zeus.commons.consumer.convert.ColumnarProcessor;
+import de.zeus.commons.consumer.convert.JSONProcessor;
+import de.zeus.commons.consumer.model.DynamicJsonObject;
+import de.zeus.commons.provider.convert.DataToColumnar;
+import de.zeus.commons.provider.convert.DataToJSONStream;
+import de.zeus.commons.provider.model.DataWrapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Measures the result models on the generated rows of {@link BenchmarkRows}, read through the controller
+ * as a request reads them. The sections to run are given as arguments, all sections run without:
+ *
+ * <pre>
+ * mvn -Pbench test-compile exec:exec -Dbench.args=memory
+ * </pre>
+ *
+ * <ul>
+ *     <li>{@code memory}: the heap retained by a result of 1,000,000 rows in the ROW and the COLUMNAR model,
+ *     with values read as strings and typed.</li>
+ *     <li>{@code scaling}: the time to read results of 10,000, 100,000 and 1,000,000 rows per model, which
+ *     grows linearly with the number of rows if the time per row stays the same.</li>
+ *     <li>{@code codec}: the size, gzip-compressed size, encoding and decoding time of a result of 100,000 rows
+ *     in the binary columnar format and in JSON, without and with metadata, decoded as {@code JsonClient}
+ *     decodes them.</li>
+ * </ul>
+ */
+public final class ResultHarness {
+
+    private static final String MEMORY = "memory";
+    private static final String SCALING = "scaling";
+    private static final String CODEC = "codec";
+
+    private static final int MEMORY_ROWS = 1_000_000;
+    private static final int[] SCALING_ROWS = {10_000, 100_000, 1_000_000};
+    private static final int SCALING_RUNS = 5;
+    private static final int CODEC_ROWS = 100_000;
+    private static final int CODEC_RUNS = 5;
+
+    /** The decoded objects log every attribute at INFO level, which would be measured instead of decoding. */
+    private static final Logger DECODED_OBJECT_LOG = Logger.getLogger(DynamicJsonObject.class.getName());
+
+    private ResultHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Set<String> sections = new LinkedHashSet<>();
+        for (String arg : args) {
+            sections.addAll(Arrays.asList(arg.trim().toLowerCase(Locale.ROOT).split("[\\s,]+")));
+        }
+        sections.remove("");
+        boolean all = sections.isEmpty();
+
+        if (all || sections.contains(MEMORY)) {
+            measureMemory();
+        }
+        if (all || sections.contains(SCALING)) {
+            measureScaling();
+        }
+        if (all || sections.contains(CODEC)) {
+            measureCodec();
+        }
+        System.exit(0);
+    }
+
+    // Heap retained by the wrappers of one result per model and value type
+    private static void measureMemory() throws Exception {
+        BenchmarkRows.create(MEMORY_ROWS);
+        System.out.println("Retained heap of " + MEMORY_ROWS + " rows (5 columns)");
+        System.out.printf(Locale.ROOT, "%-10s %-8s %12s %12s%n", "model", "values", "MB", "bytes/row");
+        for (String model : new String[]{"ROW", "COLUMNAR"}) {
+            for (boolean typed : new boolean[]{false, true}) {
+                // Warm up the read path, so the class and statement caches are not measured
+                BenchmarkRows.read(1000, options(model, typed));
+                long before = usedHeap();
+                List<DataWrapper> result = BenchmarkRows.read(MEMORY_ROWS, options(model, typed));
+                long retained = usedHeap() - before;
+                System.out.printf(Locale.ROOT, "%-10s %-8s %12.1f %12.1f%n", model, typed ? "typed" : "strings",
+                        retained / 1048576.0, (double) retained / result.get(0).getRowCount());
+                result = null;
+            }
+        }
+    }
+
+    // Best time of several reads per result size and model
+    private static void measureScaling() throws Exception {
+        BenchmarkRows.create(SCALING_ROWS[SCALING_ROWS.length - 1]);
+        System.out.println("Read time, best of " + SCALING_RUNS + " runs");
+        System.out.printf(Locale.ROOT, "%-10s %10s %12s %12s%n", "model", "rows", "ms", "ns/row");
+        for (String model : new String[]{"ROW", "COLUMNAR"}) {
+            // Warm up the read path with the largest result
+            BenchmarkRows.read(SCALING_ROWS[SCALING_ROWS.length - 1], options(model, false));
+            for (int rows : SCALING_ROWS) {
+                long best = Long.MAX_VALUE;
+                for (int run = 0; run < SCALING_RUNS; run++) {
+                    long start = System.nanoTime();
+                    BenchmarkRows.read(rows, options(model, false));
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+                System.out.printf(Locale.ROOT, "%-10s %10d %12.1f %12.1f%n", model, rows, best / 1e6, (double) best / rows);
+            }
+        }
+    }
+
+    // Size and best encoding and decoding time of one result per format
+    private static void measureCodec() throws Exception {
+        BenchmarkRows.create(CODEC_ROWS);
+        DECODED_OBJECT_LOG.setLevel(Level.WARNING);
+        List<DataWrapper> result = BenchmarkRows.read(CODEC_ROWS, options("COLUMNAR", true));
+        System.out.println("Encoding and decoding of " + CODEC_ROWS + " rows (typed values), best of " + CODEC_RUNS + " runs");
+        System.out.printf(Locale.ROOT, "%-10s %-9s %12s %12s %12s %12s%n",
+                "format", "metadata", "KB", "gzip KB", "encode ms", "decode ms");
+        for (boolean includeMetaData : new boolean[]{false, true}) {
+            long columnarEncode = Long.MAX_VALUE;
+            long columnarDecode = Long.MAX_VALUE;
+            long jsonEncode = Long.MAX_VALUE;
+            long jsonDecode = Long.MAX_VALUE;
+            byte[] columnar = null;
+            byte[] json = null;
+            // The first run warms up the encoders and decoders
+            for (int run = 0; run <= CODEC_RUNS; run++) {
+                long start = System.nanoTime();
+                columnar = new DataToColumnar(result, includeMetaData, null).getResult();
+                long encoded = System.nanoTime();
+                new ColumnarProcessor().processColumnar(new ByteArrayInputStream(columnar));
+                long decoded = System.nanoTime();
+                if (run > 0) {
+                    columnarEncode = Math.min(columnarEncode, encoded - start);
+                    columnarDecode = Math.min(columnarDecode, decoded - encoded);
+                }
+
+                start = System.nanoTime();
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                new DataToJSONStream(out, includeMetaData).write(result, null);
+                json = out.toByteArray();
+                encoded = System.nanoTime();
+                new JSONProcessor().processJson(new String(json, StandardCharsets.UTF_8));
+                decoded = System.nanoTime();
+                if (run > 0) {
+                    jsonEncode = Math.min(jsonEncode, encoded - start);
+                    jsonDecode = Math.min(jsonDecode, decoded - encoded);
+                }
+            }
+            printCodec("columnar", includeMetaData, columnar, columnarEncode, columnarDecode);
+            printCodec("json", includeMetaData, json, jsonEncode, jsonDecode);
+        }
+    }
+
+    private static void printCodec(String format, boolean includeMetaData, byte[] bytes, long encodeNanos,
+                                   long decodeNanos) throws IOException {
+        System.out.printf(Locale.ROOT, "%-10s %-9s %12.1f %12.1f %12.1f %12.1f%n", format, includeMetaData ? "yes" : "no",
+                bytes.length / 1024.0, gzip(bytes).length / 1024.0, encodeNanos / 1e6, decodeNanos / 1e6);
+    }
+
+    // Compressed as a response is compressed by default
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static String options(String model, boolean typed) {
+        return "{\"resultModel\": \"" + model + "\", \"typedValues\": " + typed + "}";
+    }
+
+    // The used heap after full collections, as far as System.gc achieves them
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
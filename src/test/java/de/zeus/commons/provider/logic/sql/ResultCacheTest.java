@@ -0,0 +1,43 @@
+package de.zeus.commons.provider.logic.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Checks which statements share the cache key of the result cache.
+ */
+class ResultCacheTest {
+
+    @Test
+    void statementsDifferingInWhitespaceShareTheirKey() {
+        assertEquals(ResultCache.createKey("select * from agents where agent_code = ?", Collections.singletonList("A101"), false),
+                ResultCache.createKey("  select *\n\tfrom   agents\r\nwhere agent_code = ?  ", Collections.singletonList("A101"), false));
+    }
+
+    @Test
+    void whitespaceInStringLiteralsIsKept() {
+        assertNotEquals(ResultCache.createKey("select * from agents where agent_name = 'John  Smith'", Collections.emptyList(), false),
+                ResultCache.createKey("select * from agents where agent_name = 'John Smith'", Collections.emptyList(), false));
+        // Whitespace after a literal is collapsed again
+        assertEquals(ResultCache.createKey("select 'a  b' ,  x from t", Collections.emptyList(), false),
+                ResultCache.createKey("select 'a  b' , x  from t", Collections.emptyList(), false));
+    }
+
+    @Test
+    void parametersAndTheValueModeArePartOfTheKey() {
+        String sql = "select * from orders where agent_code = ? and cust_code = ?";
+        String key = ResultCache.createKey(sql, Arrays.asList("A101", "C101"), false);
+        assertEquals(key, ResultCache.createKey(sql, Arrays.asList("A101", "C101"), false));
+        assertNotEquals(key, ResultCache.createKey(sql, Arrays.asList("A101", "C102"), false));
+        assertNotEquals(key, ResultCache.createKey(sql, Arrays.asList("C101", "A101"), false));
+        assertNotEquals(key, ResultCache.createKey(sql, Arrays.asList("A101", "C101"), true));
+        // The parameters are separated, so their values cannot run into each other
+        assertNotEquals(ResultCache.createKey(sql, Arrays.asList("A1", "01"), false),
+                ResultCache.createKey(sql, Arrays.asList("A10", "1"), false));
+    }
+}
@@ -0,0 +1,37 @@
+package de.zeus.commons.provider.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Types;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchKeyTest {
+
+    @Test
+    void numericKeysAreComparedByTheirNumber() {
+        assertTrue(BatchKey.isComparable(Types.INTEGER, Types.DECIMAL));
+        assertEquals(BatchKey.normalize("5", Types.INTEGER), BatchKey.normalize("5.00", Types.DECIMAL));
+        assertEquals(BatchKey.normalize("0", Types.BIGINT), BatchKey.normalize("0.00", Types.NUMERIC));
+        assertEquals(BatchKey.normalize("120", Types.INTEGER), BatchKey.normalize("1.2E2", Types.DOUBLE));
+        assertNull(BatchKey.normalize("n/a", Types.DECIMAL));
+    }
+
+    @Test
+    void characterKeysAreComparedWithoutTrailingBlanks() {
+        assertTrue(BatchKey.isComparable(Types.CHAR, Types.VARCHAR));
+        assertEquals("A101", BatchKey.normalize("A101  ", Types.CHAR));
+        assertEquals(" A101", BatchKey.normalize(" A101", Types.VARCHAR));
+    }
+
+    @Test
+    void keysOfOtherDifferingTypesAreNotCompared() {
+        assertFalse(BatchKey.isComparable(Types.DATE, Types.TIMESTAMP));
+        assertFalse(BatchKey.isComparable(Types.INTEGER, Types.VARCHAR));
+        assertTrue(BatchKey.isComparable(Types.DATE, Types.DATE));
+        assertEquals("2024-01-01", BatchKey.normalize("2024-01-01", Types.DATE));
+    }
+}
@@ -0,0 +1,177 @@
+package de.zeus.commons.provider.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Negotiates the content coding of responses and writes their bodies to a response recording its
+ * headers and bytes.
+ */
+class CompressedResponseStreamTest {
+
+    @Test
+    void negotiatesGzipBeforeDeflate() {
+        assertEquals(CompressedResponseStream.GZIP, CompressedResponseStream.negotiateEncoding("gzip, deflate, br"));
+        assertEquals(CompressedResponseStream.GZIP, CompressedResponseStream.negotiateEncoding("deflate, x-gzip"));
+        assertEquals(CompressedResponseStream.GZIP, CompressedResponseStream.negotiateEncoding("*"));
+    }
+
+    @Test
+    void negotiatesTheCodingOfTheHigherQuality() {
+        assertEquals(CompressedResponseStream.DEFLATE, CompressedResponseStream.negotiateEncoding("gzip;q=0.5, deflate"));
+        assertEquals(CompressedResponseStream.DEFLATE, CompressedResponseStream.negotiateEncoding("Deflate; q=0.8, *;q=0.1"));
+        assertEquals(CompressedResponseStream.GZIP, CompressedResponseStream.negotiateEncoding("deflate;q=0.2, *;q=0.4"));
+    }
+
+    @Test
+    void doesNotCompressWithoutAnAcceptedCoding() {
+        assertNull(CompressedResponseStream.negotiateEncoding(null));
+        assertNull(CompressedResponseStream.negotiateEncoding(""));
+        assertNull(CompressedResponseStream.negotiateEncoding("identity, br"));
+        assertNull(CompressedResponseStream.negotiateEncoding("gzip;q=0, deflate;q=0"));
+        assertNull(CompressedResponseStream.negotiateEncoding("*;q=0"));
+        // A malformed quality counts as not accepted
+        assertNull(CompressedResponseStream.negotiateEncoding("gzip;q=high"));
+    }
+
+    @Test
+    void writesABodyNotExceedingTheMinimumSizeUncompressed() throws IOException {
+        RecordedResponse response = new RecordedResponse();
+        byte[] body = body(100);
+        try (CompressedResponseStream stream = new CompressedResponseStream(response.proxy(), CompressedResponseStream.GZIP, 100, 6)) {
+            stream.write(body, 0, 60);
+            // Nothing reaches the response before the coding is decided
+            stream.flush();
+            assertEquals(0, response.body.size());
+            stream.write(body, 60, 40);
+        }
+        assertNull(response.headers.get("Content-Encoding"));
+        assertArrayEquals(body, response.body.toByteArray());
+    }
+
+    @Test
+    void compressesALargerBodyWithGzip() throws IOException {
+        RecordedResponse response = new RecordedResponse();
+        byte[] body = body(100_000);
+        try (CompressedResponseStream stream = new CompressedResponseStream(response.proxy(), CompressedResponseStream.GZIP, 1024, 6)) {
+            stream.write(body, 0, 10);
+            stream.write(body[10]);
+            stream.write(body, 11, body.length - 11);
+        }
+        assertEquals(CompressedResponseStream.GZIP, response.headers.get("Content-Encoding"));
+        assertTrue(response.body.size() < body.length / 10, String.valueOf(response.body.size()));
+        assertArrayEquals(body, readAll(new GZIPInputStream(new ByteArrayInputStream(response.body.toByteArray()))));
+    }
+
+    @Test
+    void compressesALargerBodyWithDeflate() throws IOException {
+        RecordedResponse response = new RecordedResponse();
+        byte[] body = body(100_000);
+        try (CompressedResponseStream stream = new CompressedResponseStream(response.proxy(), CompressedResponseStream.DEFLATE, 1024, 1)) {
+            stream.write(body);
+        }
+        assertEquals(CompressedResponseStream.DEFLATE, response.headers.get("Content-Encoding"));
+        assertArrayEquals(body, readAll(new InflaterInputStream(new ByteArrayInputStream(response.body.toByteArray()))));
+    }
+
+    @Test
+    void flushesEverythingWrittenOnceCompressing() throws IOException {
+        RecordedResponse response = new RecordedResponse();
+        byte[] body = body(5000);
+        try (CompressedResponseStream stream = new CompressedResponseStream(response.proxy(), CompressedResponseStream.GZIP, 1024, 6)) {
+            stream.write(body);
+            stream.flush();
+            // The client can decode the body written so far before the stream is finished
+            InputStream partial = new GZIPInputStream(new ByteArrayInputStream(response.body.toByteArray()));
+            byte[] decoded = new byte[body.length];
+            int read = 0;
+            for (int n = partial.read(decoded); n > 0 && read < decoded.length; n = partial.read(decoded, read, decoded.length - read)) {
+                read += n;
+            }
+            assertEquals(body.length, read);
+            assertArrayEquals(body, decoded);
+        }
+    }
+
+    // A JSON-like body, compressible as a response body
+    private static byte[] body(int size) {
+        StringBuilder body = new StringBuilder(size);
+        for (int row = 0; body.length() < size; row++) {
+            body.append("{\"id\":").append(row).append(",\"city\":\"City ").append(row % 50).append("\"},");
+        }
+        return body.substring(0, size).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Reads the stream to its end, as far as it can be decoded
+    private static byte[] readAll(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int read = inputStream.read(buffer); read >= 0; read = inputStream.read(buffer)) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * A response recording the headers set and the bytes written; other methods are not supported.
+     */
+    private static final class RecordedResponse {
+
+        private final Map<String, String> headers = new HashMap<>();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        private HttpServletResponse proxy() {
+            ServletOutputStream outputStream = new ServletOutputStream() {
+                @Override
+                public void write(int b) {
+                    body.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    body.write(b, off, len);
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+            return (HttpServletResponse) Proxy.newProxyInstance(HttpServletResponse.class.getClassLoader(),
+                    new Class<?>[]{HttpServletResponse.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getOutputStream":
+                                return outputStream;
+                            case "setHeader":
+                                headers.put((String) args[0], (String) args[1]);
+                                return null;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package de.zeus.commons.provider.service;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import de.zeus.commons.base.config.JdbcConfig;
+import de.zeus.commons.base.constants.IConstants;
+import de.zeus.commons.connector.jdbc.ProcessingException;
+import de.zeus.commons.provider.TestDatabase;
+import de.zeus.commons.provider.model.RequestStatistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs requests in every subquery execution mode against the sample tables and compares their results
+ * with the ones of the ROW mode, which executes every subquery for each parent row.
+ */
+class JsonRequestProcessorTest {
+
+    private static final String SAMPLE_REQUEST = "config/request_rest.json";
+
+    /** Accounts keyed by an INTEGER column, their bookings refer to them by a DECIMAL(10,2) column. */
+    private static final String TYPED_KEY_REQUEST = "{\"query\": {\"name\": \"accounts\","
+            + " \"statement\": \"select * from typed_accounts\","
+            + " \"subquery\": [{\"name\": \"bookings\","
+            + " \"statement\": \"select * from typed_bookings where account_id = '[$account_id]'\"},"
+            + " {\"name\": \"events\","
+            + " \"statement\": \"select * from typed_events where opened_at = '[$opened_on]'\"}]},"
+            + " \"includeMetadata\": true}";
+
+    /** Five levels of queries, one more than the sample request, with two sibling subqueries. */
+    private static final String DEEP_REQUEST = "{\"query\": {\"name\": \"agents\","
+            + " \"statement\": \"select * from agents\","
+            + " \"subquery\": [{\"name\": \"orders\","
+            + " \"statement\": \"select * from orders where agent_code = '[$agent_code]'\","
+            + " \"subquery\": {\"name\": \"customers\","
+            + " \"statement\": \"select * from customers where cust_code = '[$cust_code]'\","
+            + " \"subquery\": {\"name\": \"customerAgents\","
+            + " \"statement\": \"select * from agents where agent_code = '[$agent_code]'\","
+            + " \"subquery\": {\"name\": \"revenue\","
+            + " \"statement\": \"select * from agent_revenue where agent_code = '[$agent_code]'\"}}}},"
+            + " {\"name\": \"revenue\","
+            + " \"statement\": \"select * from agent_revenue where agent_code = '[$agent_code]'\"}]},"
+            + " \"includeMetadata\": true}";
+
+    @BeforeAll
+    static void createTables() {
+        TestDatabase.init();
+        TestDatabase.execute(
+                "CREATE TABLE TYPED_ACCOUNTS (ACCOUNT_ID INTEGER NOT NULL PRIMARY KEY, OPENED_ON DATE NOT NULL)",
+                "CREATE TABLE TYPED_BOOKINGS (BOOKING_ID INTEGER NOT NULL PRIMARY KEY,"
+                        + " ACCOUNT_ID DECIMAL(10, 2) NOT NULL, AMOUNT DECIMAL(10, 2) NOT NULL)",
+                "CREATE TABLE TYPED_EVENTS (EVENT_ID INTEGER NOT NULL PRIMARY KEY, OPENED_AT TIMESTAMP NOT NULL)",
+                "INSERT INTO TYPED_ACCOUNTS VALUES (1, DATE '2024-01-01'), (2, DATE '2024-02-01'), (3, DATE '2024-03-01')",
+                "INSERT INTO TYPED_BOOKINGS VALUES (10, 1.00, 100.00), (11, 1.00, 50.50), (12, 2.00, 7.25)",
+                "INSERT INTO TYPED_EVENTS VALUES (20, TIMESTAMP '2024-01-01 00:00:00'), (21, TIMESTAMP '2024-03-01 00:00:00')");
+    }
+
+    @Test
+    void batchModeReturnsTheRowModeResult() {
+        assertSameResult(TestDatabase.request(SAMPLE_REQUEST, "{}"),
+                TestDatabase.request(SAMPLE_REQUEST, "{\"executionMode\": \"BATCH\"}"));
+    }
+
+    @Test
+    void batchModeMatchesKeysOfDifferingColumnTypes() {
+        String rowResult = assertSameResult(typedKeyRequest("{}"), typedKeyRequest("{\"executionMode\": \"BATCH\"}"));
+        // The bookings of account 1 are found although their key reads 1.00
+        assertTrue(rowResult.contains("\"bookings\""), rowResult);
+        assertTrue(rowResult.contains("50.50"), rowResult);
+        assertTrue(rowResult.contains("7.25"), rowResult);
+    }
+
+    @Test
+    void batchModeMatchesKeysOfDifferingColumnTypesInSmallChunks() {
+        assertSameResult(typedKeyRequest("{}"), typedKeyRequest("{\"executionMode\": \"BATCH\", \"batchSize\": 1}"));
+    }
+
+    @Test
+    void batchModeAppliesTheRowBudgetToTheRowsOfEachParent() {
+        // No agent has more than 7 orders, but the orders of all agents exceed 7 rows
+        assertSameResult(TestDatabase.request(SAMPLE_REQUEST, "{\"maxRows\": 7, \"rowOverflow\": \"FAIL\"}"),
+                TestDatabase.request(SAMPLE_REQUEST, "{\"maxRows\": 7, \"rowOverflow\": \"FAIL\", \"executionMode\": \"BATCH\"}"));
+    }
+
+    @Test
+    void batchModeTruncatesTheRowsOfEachParent() {
+        assertSameResult(TestDatabase.request(SAMPLE_REQUEST, "{\"maxRows\": 2, \"rowOverflow\": \"TRUNCATE\"}"),
+                TestDatabase.request(SAMPLE_REQUEST, "{\"maxRows\": 2, \"rowOverflow\": \"TRUNCATE\", \"executionMode\": \"BATCH\"}"));
+    }
+
+    @Test
+    void batchModeFailsIfTheRowsOfAParentExceedTheRowBudget() {
+        String result = TestDatabase.process(TestDatabase.request(SAMPLE_REQUEST,
+                "{\"maxRows\": 2, \"rowOverflow\": \"FAIL\", \"executionMode\": \"BATCH\"}"));
+        assertTrue(result.contains("row budget of 2 rows"), result);
+    }
+
+    @Test
+    void parallelModeReturnsTheRowModeResult() {
+        assertSameResult(TestDatabase.request(SAMPLE_REQUEST, "{}"),
+                TestDatabase.request(SAMPLE_REQUEST, "{\"parallel\": true}"));
+        assertSameResult(TestDatabase.request(SAMPLE_REQUEST, "{}"),
+                TestDatabase.request(SAMPLE_REQUEST, "{\"parallel\": true, \"executionMode\": \"BATCH\"}"));
+    }
+
+    @Test
+    void queryTreesDeeperThanFourLevelsReturnTheRowModeResult() {
+        String rowResult = assertSameResult(jsonRequest(DEEP_REQUEST, "{}"), jsonRequest(DEEP_REQUEST, "{\"parallel\": true}"));
+        assertTrue(rowResult.contains("\"customerAgents\""), rowResult);
+        assertSameResult(jsonRequest(DEEP_REQUEST, "{}"),
+                jsonRequest(DEEP_REQUEST, "{\"parallel\": true, \"executionMode\": \"BATCH\"}"));
+    }
+
+    @Test
+    void pipelinedModeReturnsTheRowModeResult() throws ProcessingException {
+        JdbcConfig config = JdbcConfig.getInstance();
+        int chunkRows = config.getDbPipelineChunkRows();
+        // Chunks of two agents, so the subqueries of several chunks run while the agents are read
+        config.setDbPipelineChunkRows(2);
+        try {
+            assertSameResult(TestDatabase.request(SAMPLE_REQUEST, "{}"),
+                    TestDatabase.request(SAMPLE_REQUEST, "{\"pipelined\": true}"));
+            assertSameResult(TestDatabase.request(SAMPLE_REQUEST, "{}"),
+                    TestDatabase.request(SAMPLE_REQUEST, "{\"pipelined\": true, \"executionMode\": \"BATCH\"}"));
+            Map<String, Object> statistics = statistics(TestDatabase.request(SAMPLE_REQUEST, "{\"pipelined\": true}"));
+            assertTrue((Long) statistics.get(IConstants.PIPELINED_CHUNKS) > 1, statistics.toString());
+        } finally {
+            config.setDbPipelineChunkRows(chunkRows);
+        }
+    }
+
+    @Test
+    void joinModeRegroupsTheJoinedRowsAsTheRowModeResult() throws ProcessingException {
+        assertSameResult(TestDatabase.request(SAMPLE_REQUEST, "{}"),
+                TestDatabase.request(SAMPLE_REQUEST, "{\"executionMode\": \"JOIN\"}"));
+        assertSameResult(TestDatabase.request(SAMPLE_REQUEST, "{}"),
+                TestDatabase.request(SAMPLE_REQUEST, "{\"executionMode\": \"JOIN\", \"parallel\": true}"));
+        // The result is regrouped from one joined statement, not read query by query
+        Map<String, Object> statistics = statistics(TestDatabase.request(SAMPLE_REQUEST, "{\"executionMode\": \"JOIN\"}"));
+        assertEquals(4L, statistics.get(IConstants.JOINED_QUERIES), statistics.toString());
+    }
+
+    @Test
+    void joinModeAppliesTheRowBudget() {
+        assertSameResult(TestDatabase.request(SAMPLE_REQUEST, "{\"maxRows\": 2, \"rowOverflow\": \"TRUNCATE\"}"),
+                TestDatabase.request(SAMPLE_REQUEST, "{\"maxRows\": 2, \"rowOverflow\": \"TRUNCATE\", \"executionMode\": \"JOIN\"}"));
+        String result = TestDatabase.process(TestDatabase.request(SAMPLE_REQUEST,
+                "{\"maxRows\": 2, \"rowOverflow\": \"FAIL\", \"executionMode\": \"JOIN\"}"));
+        assertTrue(result.contains("row budget of 2 rows"), result);
+    }
+
+    @Test
+    void autoModeReturnsTheRowModeResultWhateverModeItChooses() throws ProcessingException {
+        String rowResult = TestDatabase.process(TestDatabase.request(SAMPLE_REQUEST, "{}"));
+        // The statistics of every run change the cost estimates, and so the modes, of the next run
+        for (int run = 0; run < 5; run++) {
+            for (String options : new String[]{"{\"executionMode\": \"AUTO\"}", "{\"executionMode\": \"AUTO\", \"parallel\": true}"}) {
+                JsonObject request = TestDatabase.request(SAMPLE_REQUEST, options);
+                Map<String, Object> statistics = statistics(request);
+                assertTrue(statistics.containsKey("orders" + IConstants.STRATEGY_SUFFIX), statistics.toString());
+                assertEquals(rowResult, TestDatabase.process(request), statistics.toString());
+            }
+        }
+    }
+
+    private static JsonObject typedKeyRequest(String options) {
+        return jsonRequest(TYPED_KEY_REQUEST, options);
+    }
+
+    private static JsonObject jsonRequest(String json, String options) {
+        JsonObject request = JsonParser.parseString(json).getAsJsonObject();
+        JsonParser.parseString(options).getAsJsonObject().entrySet()
+                .forEach(option -> request.add(option.getKey(), option.getValue()));
+        return request;
+    }
+
+    // Reads a request and returns its execution statistics
+    private static Map<String, Object> statistics(JsonObject request) throws ProcessingException {
+        RequestStatistics statistics = new RequestStatistics();
+        TestDatabase.controller().getData(request, statistics);
+        return statistics.getValues();
+    }
+
+    // Asserts that a request returns the result of the same request in ROW mode and returns it
+    private static String assertSameResult(JsonObject rowRequest, JsonObject request) {
+        String rowResult = TestDatabase.process(rowRequest);
+        assertTrue(!rowResult.contains("\"Error\""), rowResult);
+        assertEquals(rowResult, TestDatabase.process(request));
+        return rowResult;
+    }
+}
@@ -0,0 +1,87 @@
+package de.zeus.commons.provider.service;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import de.zeus.commons.base.constants.IConstants;
+import de.zeus.commons.provider.TestDatabase;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reads the sample request page by page, following the continuation tokens, and compares the pages with
+ * the result of the request read in full.
+ */
+class KeysetPageTest {
+
+    private static final String SAMPLE_REQUEST = "config/request_rest.json";
+    private static final String AGENTS = "agents";
+
+    @Test
+    void pagesFollowedByTheirTokensReturnTheFullResult() {
+        assertPagesReturnTheFullResult(3, "{}");
+    }
+
+    @Test
+    void pagesOfOneRowReturnTheFullResult() {
+        assertPagesReturnTheFullResult(1, "{}");
+    }
+
+    @Test
+    void pagesReturnTheFullResultInBatchMode() {
+        assertPagesReturnTheFullResult(2, "{\"executionMode\": \"BATCH\"}");
+    }
+
+    @Test
+    void aTokenOfAnotherQueryIsRejected() {
+        // The token of the query "agents" after "A103", see the page of three agents
+        String token = "eyJxdWVyeSI6ImFnZW50cyIsImFmdGVyIjpbIkExMDMiXX0";
+        JsonObject request = TestDatabase.request(SAMPLE_REQUEST, "{\"pageSize\": 3, \"after\": \"" + token + "\"}");
+        request.getAsJsonObject("query").addProperty("name", "otherAgents");
+        String result = TestDatabase.process(request);
+        assertTrue(result.contains("\"Error\""), result);
+    }
+
+    // Asserts that the pages of the given size hold the rows of the full result once each, in key order
+    private static void assertPagesReturnTheFullResult(int pageSize, String options) {
+        JsonObject fullAgents = agents(JsonParser.parseString(TestDatabase.process(TestDatabase.request(SAMPLE_REQUEST, options)))
+                .getAsJsonObject());
+        JsonObject pagedAgents = new JsonObject();
+        List<String> keys = new ArrayList<>();
+        String token = null;
+        int pages = 0;
+        do {
+            JsonObject request = TestDatabase.request(SAMPLE_REQUEST, options);
+            request.addProperty(IConstants.PAGE_SIZE, pageSize);
+            if (token != null) {
+                request.addProperty(IConstants.AFTER, token);
+            }
+            JsonObject result = JsonParser.parseString(TestDatabase.process(request)).getAsJsonObject();
+            JsonObject page = agents(result);
+            assertTrue(page.size() <= pageSize, result.toString());
+            page.entrySet().forEach(agent -> {
+                assertFalse(pagedAgents.has(agent.getKey()), agent.getKey() + " is read twice");
+                pagedAgents.add(agent.getKey(), agent.getValue());
+                keys.add(agent.getKey());
+            });
+            token = result.has(IConstants.NEXT_PAGE_TOKEN) ? result.get(IConstants.NEXT_PAGE_TOKEN).getAsString() : null;
+            assertTrue(++pages <= fullAgents.size() + 1, "The pages do not end");
+        } while (token != null);
+
+        assertEquals(fullAgents, pagedAgents);
+        List<String> sortedKeys = new ArrayList<>(keys);
+        sortedKeys.sort(null);
+        assertEquals(sortedKeys, keys);
+    }
+
+    private static JsonObject agents(JsonObject result) {
+        assertFalse(result.toString().contains("\"Error\""), result.toString());
+        JsonObject contentData = result.getAsJsonObject("contentData");
+        return contentData.has(AGENTS) ? contentData.getAsJsonObject(AGENTS) : new JsonObject();
+    }
+}